@@ -0,0 +1,41 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.io.OutputStream;
+import java.util.Objects;
+
+/**
+ * An output stream that discards everything written to it, except for counting the number of bytes.  This isolates the
+ * cost of encoding a dataset from the cost of I/O.
+ */
+final class CountingOutputStream extends OutputStream {
+
+    private long totalBytesWritten;
+
+    CountingOutputStream() {
+        totalBytesWritten = 0;
+    }
+
+    @Override
+    public void write(int b) {
+        totalBytesWritten++;
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, data.length);
+        totalBytesWritten += length;
+    }
+
+    /**
+     * Gets the number of bytes that have been written to this stream.
+     *
+     * @return The number of bytes written.
+     */
+    long totalBytesWritten() {
+        return totalBytesWritten;
+    }
+}
@@ -0,0 +1,220 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The representative shapes of datasets that are benchmarked.
+ */
+enum DatasetShape {
+
+    /** A few NUMERIC variables, as in a table of measurements. */
+    NARROW_NUMERIC {
+        @Override
+        List<Variable> variables() {
+            List<Variable> variables = new ArrayList<>();
+            for (int i = 1; i <= 4; i++) {
+                variables.add(numericVariable("NUM" + i, new Format("BEST", 12)));
+            }
+            return variables;
+        }
+
+        @Override
+        List<Object> observation(int index) {
+            return List.of(index, index * 0.5, -index, index % 7 == 0 ? MissingValue.STANDARD : index * 1.25E10);
+        }
+    },
+
+    /** Many long CHARACTER variables, as in a table of free-text comments. */
+    WIDE_CHARACTER {
+        @Override
+        List<Variable> variables() {
+            List<Variable> variables = new ArrayList<>();
+            for (int i = 1; i <= 20; i++) {
+                variables.add(characterVariable("TEXT" + i, 200));
+            }
+            return variables;
+        }
+
+        @Override
+        List<Object> observation(int index) {
+            List<Object> observation = new ArrayList<>();
+            for (int i = 1; i <= 20; i++) {
+                // Vary the length of the values, including some that are empty and some that fill the variable.
+                observation.add(TEXT.substring(0, (index * 37 + i * 11) % (TEXT.length() + 1)));
+            }
+            return observation;
+        }
+    },
+
+    /** A mix of CHARACTER and NUMERIC variables, including a non-ASCII value, like the "WEATHER" sample dataset. */
+    MIXED {
+        @Override
+        List<Variable> variables() {
+            return List.of(
+                characterVariable("CITY", 20),
+                characterVariable("STATE", 2),
+                numericVariable("HIGH", new Format("", 5)),
+                numericVariable("LOW", new Format("", 5)),
+                numericVariable("OBSERVED", new Format("YYMMDD", 10)),
+                characterVariable("NOTES", 60));
+        }
+
+        @Override
+        List<Object> observation(int index) {
+            return List.of(
+                CITIES[index % CITIES.length],
+                STATES[index % STATES.length],
+                50 + index % 40,
+                index % 11 == 0 ? MissingValue.STANDARD : 20 + index % 30,
+                LocalDate.of(2020, 1, 1).plusDays(index % 1000),
+                index % 3 == 0 ? "" : "Température relevée à " + index % 24 + "h");
+        }
+    },
+
+    /** The maximum number of variables, each of which is a single character, as in max-variables-*.json. */
+    MANY_VARIABLES {
+        @Override
+        List<Variable> variables() {
+            List<Variable> variables = new ArrayList<>(Short.MAX_VALUE);
+            for (int i = 1; i <= Short.MAX_VALUE; i++) {
+                variables.add(characterVariable(String.format("VAR%05d", i), 1));
+            }
+            return variables;
+        }
+
+        @Override
+        List<Object> observation(int index) {
+            List<Object> observation = new ArrayList<>(Short.MAX_VALUE);
+            for (int i = 0; i < Short.MAX_VALUE; i++) {
+                observation.add((index + i) % 5 == 0 ? "" : String.valueOf((char) ('A' + (index + i) % 26)));
+            }
+            return observation;
+        }
+    },
+
+    /** Rows that are dominated by dates, times, and timestamps. */
+    DATE_TIME {
+        @Override
+        List<Variable> variables() {
+            return List.of(
+                characterVariable("ID", 8),
+                numericVariable("BIRTHDAY", new Format("YYMMDD", 10)),
+                numericVariable("ADMITTED", new Format("DATETIME", 19)),
+                numericVariable("DISCHARGED", new Format("DATETIME", 19)),
+                numericVariable("DOSETIME", new Format("TIME", 8)),
+                numericVariable("VISITDAY", new Format("DATE", 9)));
+        }
+
+        @Override
+        List<Object> observation(int index) {
+            LocalDateTime admitted = LocalDateTime.of(2000, 1, 1, 0, 0).plusMinutes(index * 97L);
+            return List.of(
+                String.format("%08d", index),
+                LocalDate.of(1930, 1, 1).plusDays(index * 13L % 30000),
+                admitted,
+                admitted.plusHours(index % 200).plusNanos(index * 1000L),
+                LocalTime.of(index % 24, index % 60, index % 60),
+                LocalDate.of(2000, 1, 1).plusDays(index % 9000));
+        }
+    };
+
+    private static final String TEXT = "The quick brown fox jumps over the lazy dog. ".repeat(5).substring(0, 200);
+
+    private static final String[] CITIES = {
+        "Atlanta", "Austin", "Baltimore", "Birmingham", "Boston", "Buffalo", "Virginia Beach", "Washington" };
+
+    private static final String[] STATES = { "GA", "TX", "MD", "AL", "MA", "NY", "VA", "DC" };
+
+    /** The most values to hold in memory for the pre-generated observations. */
+    private static final int MAX_VALUES_IN_OBSERVATIONS = 1_000_000;
+
+    private static Variable characterVariable(String name, int length) {
+        return Variable.builder().
+            name(name).
+            type(VariableType.CHARACTER).
+            length(length).
+            label("Label for " + name).
+            outputFormat(new Format("$CHAR", Math.min(length, 32))).
+            build();
+    }
+
+    private static Variable numericVariable(String name, Format outputFormat) {
+        return Variable.builder().
+            name(name).
+            type(VariableType.NUMERIC).
+            length(8).
+            label("Label for " + name).
+            outputFormat(outputFormat).
+            build();
+    }
+
+    /**
+     * Creates the variables of a dataset with this shape.
+     *
+     * @return A list of variables.
+     */
+    abstract List<Variable> variables();
+
+    /**
+     * Generates an observation for a dataset with this shape.
+     *
+     * @param index
+     *     The index of the observation, which is used to vary the values.
+     *
+     * @return The observation.
+     */
+    abstract List<Object> observation(int index);
+
+    /**
+     * Creates the metadata of a dataset with this shape.
+     *
+     * @return The metadata.
+     */
+    Sas7bdatMetadata metadata() {
+        return Sas7bdatMetadata.builder().
+            creationTime(LocalDateTime.of(2025, 1, 1, 0, 0)).
+            datasetName(name()).
+            datasetLabel("Benchmark dataset with " + name() + " shape").
+            variables(variables()).
+            build();
+    }
+
+    /**
+     * Generates observations to cycle through while benchmarking.  Datasets with many variables get fewer distinct
+     * observations so that they fit in memory.
+     *
+     * @return A list of observations.
+     */
+    List<List<Object>> observations() {
+        final int totalVariables = variables().size();
+        final int totalObservations = Math.max(1, Math.min(1024, MAX_VALUES_IN_OBSERVATIONS / totalVariables));
+
+        List<List<Object>> observations = new ArrayList<>(totalObservations);
+        for (int i = 0; i < totalObservations; i++) {
+            observations.add(observation(i));
+        }
+        return observations;
+    }
+
+    /**
+     * Gets the number of observations to write in one export, which is chosen so that each export writes about
+     * 16 MiB of observations, regardless of how wide the observations are.
+     *
+     * @return The number of observations to write in one export.
+     */
+    int observationsPerExport() {
+        int rowLength = 0;
+        for (Variable variable : variables()) {
+            rowLength += variable.length();
+        }
+        return Math.max(100, 16 * 1024 * 1024 / rowLength);
+    }
+}
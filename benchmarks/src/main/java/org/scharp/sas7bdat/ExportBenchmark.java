@@ -0,0 +1,129 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for exporting a complete dataset with {@link Sas7bdatExporter}, from the constructor to {@code close()}.
+ * <p>
+ * Each operation exports one dataset of about 16 MiB.  The secondary "rows" and "bytes" results are the throughput in
+ * observations per second and bytes per second.  Run with {@code -prof gc} to measure the allocation rate.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ExportBenchmark {
+
+    /** Where the dataset is written. */
+    public enum Target {
+        /** An output stream which discards the data, to measure the cost of encoding. */
+        STREAM,
+
+        /** A temporary file, to measure the cost of encoding and I/O. */
+        FILE
+    }
+
+    /** The throughput of rows and bytes, which JMH reports in addition to the number of exports per second. */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Throughput {
+        /** The number of observations that were written. */
+        public long rows;
+
+        /** The number of bytes that were written. */
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rows = 0;
+            bytes = 0;
+        }
+    }
+
+    @Param
+    public DatasetShape shape;
+
+    @Param
+    public Target target;
+
+    @Param({ "1" })
+    public int parallelism;
+
+    @Param({ "false" })
+    public boolean memoryMapped;
+
+    private Sas7bdatMetadata metadata;
+    private List<List<Object>> observations;
+    private int observationsPerExport;
+    private Sas7bdatExportOptions options;
+    private Path targetPath;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        metadata = shape.metadata();
+        observations = shape.observations();
+        observationsPerExport = shape.observationsPerExport();
+        options = Sas7bdatExportOptions.builder().parallelism(parallelism).memoryMapped(memoryMapped).build();
+        targetPath = Files.createTempFile("sas7bdat-benchmark-", ".sas7bdat");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(targetPath);
+    }
+
+    @Benchmark
+    public void writeObservation(Throughput throughput) throws IOException {
+        final long bytesWritten;
+        if (target == Target.STREAM) {
+            CountingOutputStream outputStream = new CountingOutputStream();
+            try (Sas7bdatExporter exporter = new Sas7bdatExporter(outputStream, metadata, observationsPerExport,
+                options)) {
+                writeObservations(exporter);
+            }
+            bytesWritten = outputStream.totalBytesWritten();
+        } else {
+            try (Sas7bdatExporter exporter = new Sas7bdatExporter(targetPath, metadata, observationsPerExport,
+                options)) {
+                writeObservations(exporter);
+            }
+            bytesWritten = Files.size(targetPath);
+        }
+
+        throughput.rows += observationsPerExport;
+        throughput.bytes += bytesWritten;
+    }
+
+    private void writeObservations(Sas7bdatExporter exporter) throws IOException {
+        final int totalDistinctObservations = observations.size();
+        for (int i = 0; i < observationsPerExport; i++) {
+            exporter.writeObservation(observations.get(i % totalDistinctObservations));
+        }
+    }
+}
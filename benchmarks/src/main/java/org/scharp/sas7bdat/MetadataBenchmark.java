@@ -0,0 +1,78 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for building and writing the metadata of datasets with many variables, in isolation from the
+ * observations.  The score is the time to process the metadata of one dataset.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MetadataBenchmark {
+
+    @Param({ "10000", "32767" })
+    public int totalVariables;
+
+    private List<Variable> variables;
+    private Sas7bdatMetadata metadata;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Alternate between variable types and give each variable its own text so that all subheaders are exercised.
+        variables = new ArrayList<>(totalVariables);
+        for (int i = 1; i <= totalVariables; i++) {
+            final boolean isNumeric = i % 2 == 0;
+            variables.add(Variable.builder().
+                name(String.format("VARIABLE_%05d", i)).
+                type(isNumeric ? VariableType.NUMERIC : VariableType.CHARACTER).
+                length(isNumeric ? 8 : 1 + i % 100).
+                label("The label for variable #" + i).
+                outputFormat(isNumeric ? new Format("BEST", 12) : new Format("$CHAR", 1 + i % 32)).
+                inputFormat(isNumeric ? new Format("F", 8, 2) : Format.UNSPECIFIED).
+                build());
+        }
+        metadata = Sas7bdatMetadata.builder().datasetName("MANYVARS").variables(variables).build();
+    }
+
+    /**
+     * Measures building the {@code Sas7bdatMetadata}, which checks for duplicate variable names.
+     */
+    @Benchmark
+    public Sas7bdatMetadata buildMetadata() {
+        return Sas7bdatMetadata.builder().datasetName("MANYVARS").variables(variables).build();
+    }
+
+    /**
+     * Measures laying out and serializing the header and metadata pages for a dataset without observations.
+     */
+    @Benchmark
+    public long writeMetadata() throws IOException {
+        CountingOutputStream outputStream = new CountingOutputStream();
+        new Sas7bdatExporter(outputStream, metadata, 0).close();
+        return outputStream.totalBytesWritten();
+    }
+}
@@ -0,0 +1,68 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for serializing a single observation with {@link Sas7bdatVariablesLayout}, without any page or I/O
+ * overhead.  The score is the number of observations serialized per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class VariablesLayoutBenchmark {
+
+    @Param
+    public DatasetShape shape;
+
+    private Sas7bdatVariablesLayout variablesLayout;
+    private List<List<Object>> observations;
+    private byte[] buffer;
+    private int nextObservation;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        variablesLayout = new Sas7bdatVariablesLayout(shape.variables());
+        observations = shape.observations();
+        buffer = new byte[variablesLayout.rowLength()];
+        nextObservation = 0;
+    }
+
+    @Benchmark
+    public byte[] writeObservation() {
+        List<Object> observation = observations.get(nextObservation);
+        nextObservation = (nextObservation + 1) % observations.size();
+
+        variablesLayout.writeObservation(buffer, 0, observation);
+        return buffer;
+    }
+
+    @Benchmark
+    public List<Object> checkObservation() {
+        List<Object> observation = observations.get(nextObservation);
+        nextObservation = (nextObservation + 1) % observations.size();
+
+        variablesLayout.checkObservation(observation);
+        return observation;
+    }
+}
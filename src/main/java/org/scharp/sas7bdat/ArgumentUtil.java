@@ -69,7 +69,7 @@ abstract class ArgumentUtil {
      * @throws IllegalArgumentException
      *     if {@code argument} is negative
      */
-    static void checkNotNegative(int argument, String argumentName) {
+    static void checkNotNegative(long argument, String argumentName) {
         assert argumentName != null : "argumentName must not be null";
 
         if (argument < 0) {
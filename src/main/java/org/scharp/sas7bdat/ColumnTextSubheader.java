@@ -4,7 +4,6 @@
 ///////////////////////////////////////////////////////////////////////////////
 package org.scharp.sas7bdat;
 
-import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -150,7 +149,7 @@ class ColumnTextSubheader extends VariableSizeSubheader {
      * @return The number of bytes which {@code string} occupies in this subheader.
      */
     static short sizeof(String string) {
-        int stringSizeInBytes = string.getBytes(StandardCharsets.UTF_8).length;
+        int stringSizeInBytes = WriteUtil.utf8Length(string);
         assert stringSizeInBytes <= Short.MAX_VALUE : "string is too long to be addressable in a text reference";
         return (short) stringSizeInBytes;
     }
@@ -0,0 +1,71 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.util.Arrays;
+
+/**
+ * A subheader that holds a single observation in a compressed dataset.
+ * <p>
+ * The observation is stored in its compressed form if that's smaller than its uncompressed form.  Otherwise, it's
+ * stored uncompressed, as SAS does.
+ * </p>
+ */
+class CompressedObservationSubheader extends Subheader {
+
+    private final byte[] data;
+    private final byte compressionCode;
+
+    /**
+     * Creates a subheader for an observation.
+     *
+     * @param compressor
+     *     The algorithm with which to compress the observation.
+     * @param observation
+     *     An array which holds the serialized observation, starting at offset 0.
+     * @param length
+     *     The length of the serialized observation.
+     * @param scratchBuffer
+     *     An array of at least {@code length} bytes, which is used to hold the compressed observation.
+     */
+    CompressedObservationSubheader(ObservationCompressor compressor, byte[] observation, int length,
+        byte[] scratchBuffer) {
+        final int compressedLength = compressor.compress(observation, length, scratchBuffer);
+        if (compressedLength < 0) {
+            // Compressing this observation wouldn't make it smaller.
+            data = Arrays.copyOf(observation, length);
+            compressionCode = COMPRESSION_UNCOMPRESSED;
+        } else {
+            data = Arrays.copyOf(scratchBuffer, compressedLength);
+            compressionCode = COMPRESSION_RLE_WITH_CONTROL_BYTE;
+        }
+    }
+
+    @Override
+    int size() {
+        return data.length;
+    }
+
+    @Override
+    void writeSubheader(byte[] page, int subheaderOffset) {
+        System.arraycopy(data, 0, page, subheaderOffset, data.length);
+    }
+
+    @Override
+    long signature() {
+        // Observations don't have a signature.  Readers recognize them by their type and compression codes.
+        return 0;
+    }
+
+    @Override
+    byte typeCode() {
+        return SUBHEADER_TYPE_B;
+    }
+
+    @Override
+    byte compressionCode() {
+        return compressionCode;
+    }
+}
@@ -0,0 +1,41 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+/**
+ * The method by which the observations in a SAS7BDAT are compressed.  These correspond to the values of SAS's
+ * {@code COMPRESS=} dataset option.
+ */
+public enum Compression {
+    /** The observations are not compressed ({@code COMPRESS=NO}) */
+    NONE(null),
+
+    /**
+     * The observations are compressed with run-length encoding ({@code COMPRESS=CHAR}).  This works best for
+     * observations with CHARACTER variables whose values are padded with many blanks.
+     */
+    CHAR("SASYZCRL"),
+
+    /**
+     * The observations are compressed with Ross Data Compression ({@code COMPRESS=BINARY}).  This works best for
+     * observations with many variables or with values that repeat within an observation.
+     */
+    BINARY("SASYZCR2");
+
+    private final String literal;
+
+    Compression(String literal) {
+        this.literal = literal;
+    }
+
+    /**
+     * Gets the text which SAS puts in the metadata of a SAS7BDAT to indicate how its observations are compressed.
+     *
+     * @return The compression literal, or {@code null} if the observations are not compressed.
+     */
+    String literal() {
+        return literal;
+    }
+}
@@ -0,0 +1,284 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe wrapper around a {@link Sas7bdatExporter} for datasets whose observations may be written in any order.
+ * <p>
+ * Any number of producer threads may invoke {@link #writeObservation(List)} at the same time.  Each observation is
+ * serialized into a slot in a shared buffer that holds a page's worth of observations.  A producer reserves its slot
+ * with an atomic increment, so producers don't wait for each other while they serialize their observations.  When
+ * every slot of a buffer has been filled, the producer that filled the last slot hands the buffer to the underlying
+ * exporter, which writes it.  Only the hand-off is done under a lock.  The buffer's array is then recycled for a later
+ * buffer.
+ * </p>
+ * <p>
+ * If a buffer can't be written, or an observation can't be serialized into its slot, then the observations in that
+ * buffer are lost.  After that, this exporter has failed, and every later call to {@link #writeObservation(List)} or
+ * {@link #close()} throws an {@link IllegalStateException}.
+ * </p>
+ * <p>
+ * The observations are written in the order in which their buffers were filled, so the order of the observations in
+ * the SAS7BDAT is only guaranteed for observations that are written by the same thread, and only if no other thread is
+ * writing at the same time.
+ * </p>
+ * <p>
+ * No monitors are used, so a producer that is a virtual thread doesn't pin its carrier thread while it waits for the
+ * lock.
+ * </p>
+ *
+ * <pre>
+ * try (ConcurrentSas7bdatExporter exporter = new ConcurrentSas7bdatExporter(new Sas7bdatExporter(path, metadata))) {
+ *     ExecutorService executor = Executors.newFixedThreadPool(4);
+ *     List&lt;Future&lt;?>> futures = new ArrayList&lt;>();
+ *     for (List&lt;List&lt;Object>> partition : partitions) {
+ *         futures.add(executor.submit(() -> {
+ *             for (List&lt;Object> observation : partition) {
+ *                 exporter.writeObservation(observation);
+ *             }
+ *             return null;
+ *         }));
+ *     }
+ *     for (Future&lt;?> future : futures) {
+ *         future.get();
+ *     }
+ *     executor.shutdown();
+ * }
+ * </pre>
+ */
+public final class ConcurrentSas7bdatExporter implements AutoCloseable {
+
+    /** A buffer of serialized observations, whose slots are reserved and filled by producers. */
+    private static final class ObservationBuffer {
+        final byte[] observations;
+        final AtomicInteger nextSlot;
+        final AtomicInteger totalFilledSlots;
+
+        ObservationBuffer(byte[] observations) {
+            this.observations = observations;
+            nextSlot = new AtomicInteger();
+            totalFilledSlots = new AtomicInteger();
+        }
+    }
+
+    private final Sas7bdatExporter exporter;
+    private final Sas7bdatVariablesLayout variablesLayout;
+    private final int rowLength;
+    private final int observationsPerBuffer;
+    private final AtomicLong remainingCapacity;
+    private final ReentrantLock exporterLock; // guards exporter
+    private final ConcurrentLinkedQueue<byte[]> freeArrays;
+    private final AtomicReference<Exception> failure; // holds null, unless observations couldn't be exported.
+
+    private volatile ObservationBuffer currentBuffer;
+    private volatile boolean isClosed;
+
+    /**
+     * Creates a thread-safe exporter that writes its observations to another exporter.
+     *
+     * @param exporter
+     *     The exporter to which the observations are written.  This exporter takes ownership of it, so it must not be
+     *     used directly after this constructor is invoked.  Any observation that was begun on it with
+     *     {@link Sas7bdatExporter#beginObservation()} but not committed is discarded when the first observations are
+     *     written.
+     *
+     * @throws NullPointerException
+     *     if {@code exporter} is {@code null}.
+     * @throws IllegalStateException
+     *     if {@code exporter} is closed.
+     */
+    public ConcurrentSas7bdatExporter(Sas7bdatExporter exporter) {
+        ArgumentUtil.checkNotNull(exporter, "exporter");
+        if (exporter.isClosed()) {
+            throw new IllegalStateException("exporter is closed");
+        }
+
+        this.exporter = exporter;
+        variablesLayout = exporter.variablesLayout();
+        rowLength = variablesLayout.rowLength();
+
+        // Fill a data page with each buffer.
+        observationsPerBuffer = Sas7bdatPage.maxObservationsPerDataPage(exporter.pageSize(), variablesLayout);
+        remainingCapacity = new AtomicLong(exporter.remainingCapacity());
+        exporterLock = new ReentrantLock();
+        freeArrays = new ConcurrentLinkedQueue<>();
+        failure = new AtomicReference<>();
+
+        currentBuffer = newBuffer();
+        isClosed = false;
+    }
+
+    private ObservationBuffer newBuffer() {
+        // Reuse the array of a buffer that was already written, if there is one.  Every slot of the array is
+        // overwritten before it is written again.
+        final byte[] observations = freeArrays.poll();
+        return new ObservationBuffer(observations != null ? observations : new byte[observationsPerBuffer * rowLength]);
+    }
+
+    private void fail(Exception exception) {
+        // Only the first failure is kept, since it's the one that caused observations to be lost.
+        failure.compareAndSet(null, exception);
+    }
+
+    private void checkNotFailed() {
+        final Exception exception = failure.get();
+        if (exception != null) {
+            throw new IllegalStateException("observations that were written earlier could not be exported", exception);
+        }
+    }
+
+    /**
+     * Appends an observation (row) to the SAS7BDAT that is being exported.  This may be invoked by any number of
+     * threads at the same time.
+     * <p>
+     * If the exporter that was given to this object's constructor was constructed with a
+     * {@code totalObservationInDataset} argument, then this must be called exactly that number of times.
+     * </p>
+     *
+     * @param observation
+     *     The observation to write to the SAS7BDAT, given as a list of objects.  The legal values are the same as for
+     *     {@link Sas7bdatExporter#writeObservation(List)}.  The observation is serialized before this method returns,
+     *     so subsequent modifications to it don't change the SAS7BDAT that is exported.
+     *
+     * @throws NullPointerException
+     *     If {@code observation} is {@code null}, or if a {@code null} value is given for a variable whose type is
+     *     {@code VariableType.CHARACTER}.
+     * @throws IllegalStateException
+     *     If writing this observation would exceed the {@code totalObservationsInDataset} argument given to the
+     *     underlying exporter's constructor, if this exporter has already been closed, or if observations that were
+     *     written earlier could not be exported.
+     * @throws IllegalArgumentException
+     *     if {@code observation} contains a value that doesn't conform to the {@code Sas7bdatMetadata} that was given
+     *     to the underlying exporter's constructor.
+     * @throws IOException
+     *     If an I/O error prevented a buffer of observations from being written.
+     */
+    public void writeObservation(List<Object> observation) throws IOException {
+        ArgumentUtil.checkNotNull(observation, "observation");
+        if (isClosed) {
+            throw new IllegalStateException("Cannot invoke writeObservation on closed exporter");
+        }
+        checkNotFailed();
+
+        // Check the observation before reserving a slot for it, since every reserved slot must be filled.
+        variablesLayout.checkObservation(observation);
+        reserveCapacity();
+
+        while (true) {
+            final ObservationBuffer buffer = currentBuffer;
+            final int slot = buffer.nextSlot.getAndIncrement();
+            if (slot < observationsPerBuffer) {
+                // Serialize the observation into the reserved slot, concurrently with the other producers.
+                // This only fails if the observation was modified after it was checked, but then the buffer can
+                // never be filled, so the observations in it are lost.
+                try {
+                    variablesLayout.writeObservation(buffer.observations, slot * rowLength, observation);
+                } catch (RuntimeException exception) {
+                    fail(exception);
+                    throw exception;
+                }
+
+                // The producer that fills the final slot writes the buffer.
+                if (buffer.totalFilledSlots.incrementAndGet() == observationsPerBuffer) {
+                    writeBuffer(buffer, observationsPerBuffer);
+                }
+                return;
+            }
+
+            if (slot == observationsPerBuffer) {
+                // This is the first producer to find the buffer full, so it replaces it.  Any producer that is still
+                // filling a slot in the old buffer keeps a reference to it.
+                currentBuffer = newBuffer();
+            } else {
+                // Another producer is replacing the buffer.  This only needs to allocate an array, so spin.
+                while (currentBuffer == buffer) {
+                    Thread.onSpinWait();
+                }
+            }
+        }
+    }
+
+    private void reserveCapacity() {
+        while (true) {
+            final long capacity = remainingCapacity.get();
+            if (capacity == 0) {
+                throw new IllegalStateException("wrote more observations than promised in the constructor");
+            }
+            if (remainingCapacity.compareAndSet(capacity, capacity - 1)) {
+                return;
+            }
+        }
+    }
+
+    private void writeBuffer(ObservationBuffer buffer, int totalObservations) throws IOException {
+        exporterLock.lock();
+        try {
+            // Once observations have been lost, writing the ones after them would only hide the loss.
+            checkNotFailed();
+            exporter.writeSerializedObservations(buffer.observations, totalObservations);
+        } catch (IOException | RuntimeException exception) {
+            fail(exception);
+            throw exception;
+        } finally {
+            exporterLock.unlock();
+        }
+
+        // The observations were copied into the exporter's page, so the array can be reused.
+        freeArrays.offer(buffer.observations);
+    }
+
+    /**
+     * Writes the observations that haven't yet been written and closes the underlying exporter.
+     * <p>
+     * This must only be invoked after every invocation of {@link #writeObservation(List)} has returned.  It's safe to
+     * invoke multiple times.
+     * </p>
+     *
+     * @throws IOException
+     *     if there was a problem writing the remaining observations or closing the underlying exporter.
+     * @throws IllegalStateException
+     *     if this method is invoked before all observations that were promised in the underlying exporter's
+     *     constructor have been written, or if observations that were written earlier could not be exported.  In
+     *     this case, the resulting SAS7BDAT file is corrupt.
+     */
+    public void close() throws IOException {
+        exporterLock.lock();
+        try {
+            if (!isClosed) {
+                isClosed = true;
+
+                final Exception exception = failure.get();
+                if (exception != null) {
+                    // Close the underlying exporter to release its output, but report the lost observations.
+                    IllegalStateException failedException = new IllegalStateException(
+                        "observations that were written earlier could not be exported", exception);
+                    try {
+                        exporter.close();
+                    } catch (IOException | RuntimeException closeException) {
+                        failedException.addSuppressed(closeException);
+                    }
+                    throw failedException;
+                }
+
+                // Write the partially filled buffer.  A full buffer was already written by the producer that filled it.
+                final int totalObservations = currentBuffer.totalFilledSlots.get();
+                if (totalObservations < observationsPerBuffer) {
+                    exporter.writeSerializedObservations(currentBuffer.observations, totalObservations);
+                }
+                exporter.close();
+            }
+        } finally {
+            exporterLock.unlock();
+        }
+    }
+}
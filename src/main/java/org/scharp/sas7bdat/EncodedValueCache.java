@@ -0,0 +1,143 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded cache of the serialized form of a CHARACTER variable's recently used values.
+ * <p>
+ * Each value is cached as it appears in an observation: encoded in UTF-8 and padded with blanks to the variable's
+ * length.  A value that is in the cache is written by copying its bytes instead of encoding it again.  When the cache
+ * is full, a value that hasn't been used since the last time it was considered for eviction is evicted (the CLOCK, or
+ * second-chance, approximation of least recently used).
+ * </p>
+ * <p>
+ * A variables layout is shared by every thread that encodes pages for it, and by every exporter that is created from
+ * the same {@link Sas7bdatExportPlan}, so this class is thread-safe without locking.  Looking up a cached value only
+ * reads a {@link ConcurrentHashMap} and, the first time the value is used after it was considered for eviction, sets
+ * a flag on its entry.  Adding a value claims a slot in a fixed-size ring with compare-and-set.  While values are
+ * being added concurrently, the cache may briefly hold more than its maximum size, by at most the number of threads
+ * that are adding values.
+ * </p>
+ */
+final class EncodedValueCache {
+
+    /** A cached value. */
+    private static final class Entry {
+        final String value;
+        final byte[] encodedValue;
+
+        /** Whether this entry was used since the clock hand last passed it. */
+        volatile boolean isReferenced;
+
+        Entry(String value, byte[] encodedValue) {
+            this.value = value;
+            this.encodedValue = encodedValue;
+            this.isReferenced = false;
+        }
+    }
+
+    private final Variable variable;
+    private final ConcurrentHashMap<String, Entry> entries;
+    private final AtomicReferenceArray<Entry> clock; // the entries in the order they're considered for eviction
+    private final AtomicInteger clockHand;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param variable
+     *     The CHARACTER variable whose values are cached.
+     * @param maximumSize
+     *     The most values to cache.  This must be positive.
+     */
+    EncodedValueCache(Variable variable, int maximumSize) {
+        assert variable.type() == VariableType.CHARACTER;
+        assert 0 < maximumSize;
+
+        this.variable = variable;
+        this.entries = new ConcurrentHashMap<>();
+        this.clock = new AtomicReferenceArray<>(maximumSize);
+        this.clockHand = new AtomicInteger();
+    }
+
+    /**
+     * Serializes a value of this cache's variable to a buffer, adding the value to the cache if it's not there.
+     *
+     * @param buffer
+     *     The buffer to which the value should be serialized
+     * @param offsetOfValue
+     *     The offset within {@code buffer} where the value should be written.
+     * @param value
+     *     The value to write.
+     *
+     * @throws IllegalArgumentException
+     *     if {@code value} is too long for the variable.
+     */
+    void write(byte[] buffer, int offsetOfValue, String value) {
+        Entry entry = entries.get(value);
+        if (entry != null) {
+            if (!entry.isReferenced) {
+                entry.isReferenced = true; // only write when it changes, so that hits don't contend for the entry
+            }
+        } else {
+            // This throws an exception if the value is too long, so only values that fit are cached.
+            byte[] encodedValue = new byte[variable.length()];
+            Sas7bdatVariablesLayout.writeString(encodedValue, 0, variable, value);
+
+            entry = new Entry(value, encodedValue);
+            Entry existingEntry = entries.putIfAbsent(value, entry);
+            if (existingEntry == null) {
+                addToClock(entry);
+            } else {
+                // Another thread added the value first.
+                entry = existingEntry;
+            }
+        }
+
+        System.arraycopy(entry.encodedValue, 0, buffer, offsetOfValue, entry.encodedValue.length);
+    }
+
+    private void addToClock(Entry newEntry) {
+        final int clockSize = clock.length();
+        while (true) {
+            final int slot = (clockHand.getAndIncrement() & Integer.MAX_VALUE) % clockSize;
+            final Entry entry = clock.get(slot);
+            if (entry == null) {
+                // The cache isn't full yet.
+                if (clock.compareAndSet(slot, null, newEntry)) {
+                    return;
+                }
+            } else if (entry.isReferenced) {
+                // The entry was used recently, so give it a second chance.
+                entry.isReferenced = false;
+            } else if (clock.compareAndSet(slot, entry, newEntry)) {
+                // Evict the entry that was in this slot.
+                entries.remove(entry.value, entry);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the variable whose values are cached.
+     *
+     * @return The variable.
+     */
+    Variable variable() {
+        return variable;
+    }
+
+    /**
+     * Gets the number of values in this cache.
+     *
+     * @return The number of values in this cache.
+     */
+    int size() {
+        return entries.size();
+    }
+}
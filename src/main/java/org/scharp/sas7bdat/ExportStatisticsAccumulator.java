@@ -0,0 +1,161 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Accumulates the per-variable statistics of the observations that a {@link Sas7bdatExporter} writes.
+ * <p>
+ * The statistics are taken from the serialized observations, just before their page is written.  Every way of giving
+ * observations to an exporter ends up with the same bytes in a page, so this sees each observation exactly once,
+ * no matter how it was given.  The accumulators are primitive arrays that are indexed by variable, so accumulating an
+ * observation doesn't allocate anything.
+ * </p>
+ * <p>
+ * This is not thread-safe.  It's only used by the thread which writes the pages.
+ * </p>
+ */
+final class ExportStatisticsAccumulator {
+
+    private static final MissingValue[] MISSING_VALUES = MissingValue.values();
+
+    /** The missing value for each possible value of the byte that distinguishes them, or {@code null}. */
+    private static final MissingValue[] MISSING_VALUES_BY_TAG = new MissingValue[256];
+
+    static {
+        for (MissingValue missingValue : MISSING_VALUES) {
+            MISSING_VALUES_BY_TAG[(int) (missingValue.rawLongBits() >>> 40) & 0xFF] = missingValue;
+        }
+    }
+
+    private final List<Variable> variables;
+    private final boolean[] isNumeric;
+    private final int[] physicalOffsets;
+    private final int[] lengths;
+    private final int rowLength;
+
+    private long totalObservations;
+    private final double[] minimums;
+    private final double[] maximums;
+    private final long[] missingValueCounts; // indexed by variableIndex * MISSING_VALUES.length + ordinal
+    private final long[][] lengthHistograms; // null for NUMERIC variables
+
+    ExportStatisticsAccumulator(Sas7bdatVariablesLayout variablesLayout) {
+        variables = variablesLayout.variables();
+        final int totalVariables = variables.size();
+
+        isNumeric = new boolean[totalVariables];
+        physicalOffsets = new int[totalVariables];
+        lengths = new int[totalVariables];
+        rowLength = variablesLayout.rowLength();
+
+        totalObservations = 0;
+        minimums = new double[totalVariables];
+        maximums = new double[totalVariables];
+        missingValueCounts = new long[totalVariables * MISSING_VALUES.length];
+        lengthHistograms = new long[totalVariables][];
+
+        List<Integer> physicalOffsetsList = variablesLayout.physicalOffsets();
+        for (int i = 0; i < totalVariables; i++) {
+            Variable variable = variables.get(i);
+            isNumeric[i] = variable.type() == VariableType.NUMERIC;
+            physicalOffsets[i] = physicalOffsetsList.get(i);
+            lengths[i] = variable.length();
+            if (!isNumeric[i]) {
+                // A CHARACTER value can be anywhere from 0 bytes to the variable's length.
+                lengthHistograms[i] = new long[variable.length() + 1];
+            }
+        }
+        Arrays.fill(minimums, Double.POSITIVE_INFINITY);
+        Arrays.fill(maximums, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Adds the statistics of consecutive serialized observations.
+     *
+     * @param buffer
+     *     The buffer which holds the observations.
+     * @param offsetOfFirstObservation
+     *     The offset of the first observation within {@code buffer}.
+     * @param count
+     *     The number of observations.
+     */
+    void accumulate(byte[] buffer, int offsetOfFirstObservation, int count) {
+        final int endOfObservations = offsetOfFirstObservation + count * rowLength;
+        for (int variableIndex = 0; variableIndex < isNumeric.length; variableIndex++) {
+            final int physicalOffset = physicalOffsets[variableIndex];
+            final int length = lengths[variableIndex];
+
+            if (isNumeric[variableIndex]) {
+                double minimum = minimums[variableIndex];
+                double maximum = maximums[variableIndex];
+                for (int offset = offsetOfFirstObservation; offset < endOfObservations; offset += rowLength) {
+                    final long valueBits = numericValueBits(buffer, offset + physicalOffset, length);
+                    final MissingValue missingValue = missingValue(valueBits);
+                    if (missingValue != null) {
+                        missingValueCounts[variableIndex * MISSING_VALUES.length + missingValue.ordinal()]++;
+                    } else {
+                        // A NaN that isn't a SAS missing value has no order, so it's ignored.
+                        final double value = Double.longBitsToDouble(valueBits);
+                        if (!Double.isNaN(value)) {
+                            minimum = Math.min(minimum, value);
+                            maximum = Math.max(maximum, value);
+                        }
+                    }
+                }
+                minimums[variableIndex] = minimum;
+                maximums[variableIndex] = maximum;
+
+            } else {
+                final long[] lengthHistogram = lengthHistograms[variableIndex];
+                for (int offset = offsetOfFirstObservation; offset < endOfObservations; offset += rowLength) {
+                    lengthHistogram[
+                        Sas7bdatImporter.lengthWithoutTrailingBlanks(buffer, offset + physicalOffset, length)]++;
+                }
+            }
+        }
+        totalObservations += count;
+    }
+
+    private static long numericValueBits(byte[] buffer, int offsetOfValue, int length) {
+        // The value is little-endian.  A value whose length is less than 8 holds only the most significant bytes.
+        long valueBits = 0;
+        for (int i = 0; i < length; i++) {
+            valueBits |= (buffer[offsetOfValue + i] & 0xFFL) << (8 * (8 - length + i));
+        }
+        return valueBits;
+    }
+
+    private static MissingValue missingValue(long valueBits) {
+        if ((valueBits >>> 48) != 0xFFFF) {
+            return null;
+        }
+        return MISSING_VALUES_BY_TAG[(int) (valueBits >>> 40) & 0xFF];
+    }
+
+    /**
+     * Creates an immutable copy of the statistics that have been accumulated so far.
+     *
+     * @return The statistics.
+     */
+    Sas7bdatExportStatistics toStatistics() {
+        long[][] lengthHistogramsCopy = new long[lengthHistograms.length][];
+        for (int i = 0; i < lengthHistograms.length; i++) {
+            if (lengthHistograms[i] != null) {
+                lengthHistogramsCopy[i] = lengthHistograms[i].clone();
+            }
+        }
+
+        return new Sas7bdatExportStatistics(
+            variables,
+            totalObservations,
+            minimums.clone(),
+            maximums.clone(),
+            missingValueCounts.clone(),
+            lengthHistogramsCopy);
+    }
+}
@@ -0,0 +1,108 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+
+/**
+ * An output stream that writes to a file of a known size by copying the data into memory-mapped regions of the file.
+ * <p>
+ * Writing to the mapped regions doesn't require a system call, so this is faster than a stream that writes to the file
+ * when the data is written in large blocks.  The file is mapped in regions so that files larger than 2 GiB can be
+ * written.  {@link #setLength(long)} must be invoked before any data is written.
+ * </p>
+ */
+final class MappedFileOutputStream extends OutputStream {
+
+    /** The size of each mapped region of the file. */
+    static final int REGION_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final int regionSize;
+
+    private long fileLength; // -1, until setLength() is invoked.
+    private long position;
+    private MappedByteBuffer region;
+
+    /**
+     * Creates an output stream which writes to a file channel.
+     *
+     * @param channel
+     *     A channel that was opened for reading and writing.  The stream owns this channel and closes it when it is
+     *     closed.
+     * @param regionSize
+     *     The size of each region that is mapped.
+     */
+    MappedFileOutputStream(FileChannel channel, int regionSize) {
+        assert 0 < regionSize : "regionSize must be positive";
+
+        this.channel = channel;
+        this.regionSize = regionSize;
+        fileLength = -1;
+        position = 0;
+        region = null;
+    }
+
+    /**
+     * Sets the length of the file, which is the total number of bytes that will be written to it.
+     *
+     * @param fileLength
+     *     The length of the file.
+     */
+    void setLength(long fileLength) {
+        assert this.fileLength == -1 : "length set multiple times";
+        assert 0 <= fileLength : "length must not be negative";
+
+        this.fileLength = fileLength;
+    }
+
+    private void mapNextRegion() throws IOException {
+        assert fileLength != -1 : "data written before the length was set";
+
+        if (fileLength <= position) {
+            throw new IOException("attempted to write more than " + fileLength + " bytes to a memory-mapped file");
+        }
+
+        // Mapping a region past the end of the file grows the file.
+        region = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.min(regionSize, fileLength - position));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (region == null || !region.hasRemaining()) {
+            mapNextRegion();
+        }
+        region.put((byte) b);
+        position++;
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, data.length);
+
+        while (0 < length) {
+            if (region == null || !region.hasRemaining()) {
+                mapNextRegion();
+            }
+
+            final int chunkSize = Math.min(length, region.remaining());
+            region.put(data, offset, chunkSize);
+            position += chunkSize;
+            offset += chunkSize;
+            length -= chunkSize;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The mapped regions are unmapped when they are garbage collected.
+        region = null;
+        channel.close();
+    }
+}
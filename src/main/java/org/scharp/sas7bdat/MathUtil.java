@@ -30,4 +30,22 @@ abstract class MathUtil {
 
         return (dividend + divisor - 1) / divisor;
     }
+
+    /**
+     * Computes dividend / divisor, but instead of truncating any remainder, it always rounds up.
+     *
+     * @param dividend
+     *     the dividend
+     * @param divisor
+     *     the divisor
+     *
+     * @return The result of the calculation.
+     */
+    static long divideAndRoundUp(long dividend, long divisor) {
+        assert 0 <= divisor : "divideAndRoundUp doesn't handle negative numbers";
+        assert 0 <= dividend : "divideAndRoundUp doesn't handle negative numbers";
+
+        // This is written so that it can't overflow when dividend is close to Long.MAX_VALUE.
+        return dividend / divisor + (dividend % divisor == 0 ? 0 : 1);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,276 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A batch of observations (rows) that is given as one array of values per variable (column).
+ * <p>
+ * This is for writing data that is already stored in columns to a {@link Sas7bdatExporter} with
+ * {@link Sas7bdatExporter#writeObservations(ObservationBatch)}, without transposing it into a list of observations.
+ * Each variable's values are given as an array whose first {@link #size()} elements are the values for the
+ * observations in the batch.  NUMERIC variables are given as a {@code double[]} with an optional {@code MissingValue[]}
+ * which marks which values are missing.  CHARACTER variables are given as a {@code String[]} or, if they're already
+ * encoded in UTF-8, as a {@code byte[][]}.
+ * </p>
+ * <p>
+ * The arrays are not copied, so they must not be modified until the batch has been written.  A batch can be re-used
+ * for the next set of observations by setting new arrays or by changing the contents of the arrays that it holds.
+ * Any variable whose values are not set is written as missing values: the standard missing value for a NUMERIC
+ * variable or a blank string for a CHARACTER variable.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public final class ObservationBatch {
+
+    private final List<Variable> variables;
+    private final int size;
+    private final Object[] values;
+    private final MissingValue[][] missingValues;
+
+    /**
+     * Creates a new batch of observations in which all values are missing.
+     *
+     * @param metadata
+     *     The metadata of the dataset to which the observations will be written.
+     * @param size
+     *     The number of observations in this batch.
+     *
+     * @throws NullPointerException
+     *     if {@code metadata} is {@code null}.
+     * @throws IllegalArgumentException
+     *     if {@code size} is negative.
+     */
+    public ObservationBatch(Sas7bdatMetadata metadata, int size) {
+        ArgumentUtil.checkNotNull(metadata, "metadata");
+        ArgumentUtil.checkNotNegative(size, "size");
+
+        this.variables = new ArrayList<>(metadata.variables()); // copy to a class that has O(1) random access
+        this.size = size;
+        this.values = new Object[variables.size()];
+        this.missingValues = new MissingValue[variables.size()][];
+    }
+
+    private void checkArrayLength(int arrayLength, String argumentName) {
+        if (arrayLength < size) {
+            throw new IllegalArgumentException(
+                argumentName + " has " + arrayLength + " elements but the batch has " + size + " observations");
+        }
+    }
+
+    private void checkVariableType(int variableIndex, VariableType expectedType) {
+        Variable variable = variables.get(variableIndex);
+        if (variable.type() != expectedType) {
+            throw new IllegalArgumentException(
+                "the variable named " + variable.name() + " has a " + variable.type() + " type");
+        }
+    }
+
+    /**
+     * Sets the values of a NUMERIC variable.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     * @param values
+     *     The variable's values, one for each observation in the batch.
+     *
+     * @return This batch
+     *
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws NullPointerException
+     *     if {@code values} is {@code null}.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a NUMERIC type or if {@code values} has fewer elements than the batch has
+     *     observations.
+     */
+    public ObservationBatch setNumericValues(int variableIndex, double[] values) {
+        return setNumericValues(variableIndex, values, null);
+    }
+
+    /**
+     * Sets the values of a NUMERIC variable, some of which may be missing.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     * @param values
+     *     The variable's values, one for each observation in the batch.
+     * @param missingValues
+     *     For each observation, the missing value that should be written instead of the corresponding element of
+     *     {@code values}, or {@code null} if the value isn't missing.  If this is {@code null}, then no values are
+     *     missing.
+     *
+     * @return This batch
+     *
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws NullPointerException
+     *     if {@code values} is {@code null}.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a NUMERIC type or if {@code values} or {@code missingValues} has fewer elements
+     *     than the batch has observations.
+     */
+    public ObservationBatch setNumericValues(int variableIndex, double[] values, MissingValue[] missingValues) {
+        checkVariableType(variableIndex, VariableType.NUMERIC);
+        ArgumentUtil.checkNotNull(values, "values");
+        checkArrayLength(values.length, "values");
+        if (missingValues != null) {
+            checkArrayLength(missingValues.length, "missingValues");
+        }
+
+        this.values[variableIndex] = values;
+        this.missingValues[variableIndex] = missingValues;
+        return this;
+    }
+
+    /**
+     * Sets the values of a CHARACTER variable.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     * @param values
+     *     The variable's values, one for each observation in the batch.  Each value is encoded in UTF-8 and padded
+     *     with blanks to the variable's length.  These must not be {@code null}.
+     *
+     * @return This batch
+     *
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws NullPointerException
+     *     if {@code values} is {@code null}.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a CHARACTER type or if {@code values} has fewer elements than the batch has
+     *     observations.
+     */
+    public ObservationBatch setCharacterValues(int variableIndex, String[] values) {
+        checkVariableType(variableIndex, VariableType.CHARACTER);
+        ArgumentUtil.checkNotNull(values, "values");
+        checkArrayLength(values.length, "values");
+
+        this.values[variableIndex] = values;
+        return this;
+    }
+
+    /**
+     * Sets the values of a CHARACTER variable, each of which is already encoded in UTF-8.
+     * <p>
+     * The values are copied into the SAS7BDAT without being checked, so they must be valid UTF-8.  This is for values
+     * that are already stored as bytes or that are re-used in many observations, such as codes from a small set.
+     * </p>
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     * @param values
+     *     The variable's values, one for each observation in the batch.  Each value is padded with blanks to the
+     *     variable's length.  These must not be {@code null}.
+     *
+     * @return This batch
+     *
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws NullPointerException
+     *     if {@code values} is {@code null}.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a CHARACTER type or if {@code values} has fewer elements than the batch has
+     *     observations.
+     */
+    public ObservationBatch setCharacterValues(int variableIndex, byte[][] values) {
+        checkVariableType(variableIndex, VariableType.CHARACTER);
+        ArgumentUtil.checkNotNull(values, "values");
+        checkArrayLength(values.length, "values");
+
+        this.values[variableIndex] = values;
+        return this;
+    }
+
+    /**
+     * Sets all values of a variable in this batch to missing values.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     *
+     * @return This batch
+     *
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     */
+    public ObservationBatch clearValues(int variableIndex) {
+        variables.get(variableIndex); // check the index
+        values[variableIndex] = null;
+        missingValues[variableIndex] = null;
+        return this;
+    }
+
+    /**
+     * Gets the number of observations in this batch.
+     *
+     * @return The number of observations in this batch.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the variables for which this batch was created.
+     *
+     * @return An unmodifiable list of variables.
+     */
+    List<Variable> variables() {
+        return Collections.unmodifiableList(variables);
+    }
+
+    /**
+     * Gets the values of a NUMERIC variable.
+     *
+     * @param variableIndex
+     *     The index of a NUMERIC variable.
+     *
+     * @return The variable's values or {@code null} if they haven't been set.
+     */
+    double[] numericValues(int variableIndex) {
+        return (double[]) values[variableIndex];
+    }
+
+    /**
+     * Gets the missing values of a NUMERIC variable.
+     *
+     * @param variableIndex
+     *     The index of a NUMERIC variable.
+     *
+     * @return The variable's missing values or {@code null} if there are none.
+     */
+    MissingValue[] missingValues(int variableIndex) {
+        return missingValues[variableIndex];
+    }
+
+    /**
+     * Gets the values of a CHARACTER variable.
+     *
+     * @param variableIndex
+     *     The index of a CHARACTER variable.
+     *
+     * @return The variable's values or {@code null} if they haven't been set as strings.
+     */
+    String[] characterValues(int variableIndex) {
+        return values[variableIndex] instanceof String[] stringValues ? stringValues : null;
+    }
+
+    /**
+     * Gets the values of a CHARACTER variable that were set already encoded in UTF-8.
+     *
+     * @param variableIndex
+     *     The index of a CHARACTER variable.
+     *
+     * @return The variable's values or {@code null} if they haven't been set as bytes.
+     */
+    byte[][] encodedCharacterValues(int variableIndex) {
+        return values[variableIndex] instanceof byte[][] encodedValues ? encodedValues : null;
+    }
+}
@@ -0,0 +1,49 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+/**
+ * An algorithm for compressing a serialized observation, as SAS does for datasets that are created with the
+ * {@code COMPRESS=} option.
+ * <p>
+ * In a compressed dataset, each observation is stored in its own subheader.  SAS only stores the compressed form of an
+ * observation if it's smaller than the uncompressed form, so a compressor reports when compression doesn't help.
+ * </p>
+ */
+abstract class ObservationCompressor {
+
+    /**
+     * Creates a compressor for a compression method.
+     *
+     * @param compression
+     *     The compression method.
+     *
+     * @return A new compressor, or {@code null} if {@code compression} is {@link Compression#NONE}.
+     */
+    static ObservationCompressor newCompressor(Compression compression) {
+        return switch (compression) {
+            case NONE -> null;
+            case CHAR -> new RleCompressor();
+            case BINARY -> new RdcCompressor();
+        };
+    }
+
+    /**
+     * Compresses a serialized observation.
+     *
+     * @param observation
+     *     The array which holds the serialized observation, starting at offset 0.
+     * @param length
+     *     The length of the serialized observation.
+     * @param destination
+     *     The array to which the compressed observation is written, starting at offset 0.  This must be at least
+     *     {@code length} bytes long.  If the observation can't be compressed, then the contents of this array are
+     *     undefined.
+     *
+     * @return The length of the compressed observation, or -1 if compressing the observation wouldn't make it smaller
+     *     than {@code length} bytes.
+     */
+    abstract int compress(byte[] observation, int length, byte[] destination);
+}
@@ -0,0 +1,482 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * A cursor for reading the observations (rows) of a SAS7BDAT one value at a time.
+ * <p>
+ * This is obtained from {@link Sas7bdatImporter#cursor()}.  It starts before the first observation, and each call to
+ * {@link #next()} moves it to the next one.  The values of the current observation are decoded directly from the
+ * mapped page when they are requested, so moving the cursor doesn't allocate anything, and a value that isn't
+ * requested is never decoded.  Variables are identified by their (0-based) index in the
+ * {@link Sas7bdatMetadata#variables() metadata's variables}, which can be resolved once with
+ * {@link Sas7bdatMetadata#variableIndex(String)}.
+ * </p>
+ * <p>
+ * CHARACTER values are stored padded with blanks, so the trailing blanks of a value are not part of the value that is
+ * read.  A cursor is not thread-safe.
+ * </p>
+ *
+ * <pre>
+ * ObservationCursor cursor = importer.cursor();
+ * while (cursor.next()) {
+ *     String city = cursor.getString(cityIndex);
+ *     double high = cursor.getDouble(highIndex);
+ *     ...
+ * }
+ * </pre>
+ */
+public final class ObservationCursor {
+
+    private static final MissingValue[] MISSING_VALUES = MissingValue.values();
+
+    /** The bits of a NUMERIC value that identify which missing value it is. */
+    private static final long MISSING_VALUE_MASK = 0xFFFF_FF_0000000000L;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final Sas7bdatImporter importer;
+    private final Sas7bdatMetadata metadata;
+    private final VariableType[] variableTypes;
+    private final int[] physicalOffsets;
+    private final int[] lengths;
+    private final int rowLength;
+
+    private final long endPageIndex;
+    private final boolean isPageRange;
+    private long nextPageIndex;
+    private long totalObservationsRemaining;
+
+    private ByteBuffer segment; // the mapped segment of the file that holds the current page
+    private int offsetOfNextObservation;
+    private int totalObservationsRemainingOnPage;
+    private int offsetOfObservation; // -1 when the cursor isn't on an observation
+    private byte[] bytesOfValue; // a scratch buffer for decoding CHARACTER values
+
+    ObservationCursor(Sas7bdatImporter importer) {
+        this(importer, 0, importer.totalPages(), false);
+    }
+
+    /**
+     * Creates a cursor that only reads the observations on a range of pages.
+     *
+     * @param importer
+     *     The importer whose pages are read.
+     * @param firstPageIndex
+     *     The (0-based) index of the first page to read.
+     * @param endPageIndex
+     *     The index of the page after the last one to read.
+     */
+    ObservationCursor(Sas7bdatImporter importer, long firstPageIndex, long endPageIndex) {
+        this(importer, firstPageIndex, endPageIndex, true);
+    }
+
+    private ObservationCursor(Sas7bdatImporter importer, long firstPageIndex, long endPageIndex, boolean isPageRange) {
+        this.importer = importer;
+        metadata = importer.metadata();
+        variableTypes = importer.variableTypes();
+        physicalOffsets = importer.physicalOffsets();
+        lengths = importer.lengths();
+        rowLength = importer.rowLength();
+
+        this.endPageIndex = endPageIndex;
+        this.isPageRange = isPageRange;
+        nextPageIndex = firstPageIndex;
+
+        // A cursor over a range of pages reads as many observations as the pages' headers say they have.
+        totalObservationsRemaining = isPageRange ? Long.MAX_VALUE : importer.totalObservations();
+
+        segment = null;
+        offsetOfNextObservation = -1;
+        totalObservationsRemainingOnPage = 0;
+        offsetOfObservation = -1;
+        bytesOfValue = null;
+    }
+
+    /**
+     * Creates a cursor that reads a range of observations.
+     * <p>
+     * Every data page but the last one is full, so the page that holds the first observation and its slot on that page
+     * are computed from its index.  None of the pages before it are read.
+     * </p>
+     *
+     * @param importer
+     *     The importer whose pages are read.
+     * @param fromIndex
+     *     The (0-based) index of the first observation to read.
+     * @param toIndex
+     *     The index of the observation after the last one to read.
+     *
+     * @return A new cursor, which is positioned before the observation at {@code fromIndex}.
+     *
+     * @throws UncheckedIOException
+     *     if the SAS7BDAT doesn't have an observation where its metadata says it should be.
+     */
+    static ObservationCursor forObservations(Sas7bdatImporter importer, long fromIndex, long toIndex) {
+        ObservationCursor cursor = new ObservationCursor(importer);
+        if (fromIndex == toIndex) {
+            cursor.totalObservationsRemaining = 0;
+            return cursor;
+        }
+
+        // The first observations are on the mixed page, which is the page before the first data page.
+        final long pageIndex;
+        final int slot;
+        final int totalObservationsOnMixedPage = importer.totalObservationsOnMixedPage();
+        if (fromIndex < totalObservationsOnMixedPage) {
+            pageIndex = importer.firstDataPageIndex() - 1;
+            slot = (int) fromIndex;
+        } else {
+            final int maxObservationsPerPage = importer.maxObservationsPerPage();
+            if (maxObservationsPerPage == 0) {
+                throw new UncheckedIOException(new IOException("the SAS7BDAT is malformed"));
+            }
+            final long dataPageObservationIndex = fromIndex - totalObservationsOnMixedPage;
+            pageIndex = importer.firstDataPageIndex() + dataPageObservationIndex / maxObservationsPerPage;
+            slot = (int) (dataPageObservationIndex % maxObservationsPerPage);
+        }
+        if (importer.totalPages() <= pageIndex) {
+            throw new UncheckedIOException(
+                new IOException("the SAS7BDAT has fewer observations than its metadata declares"));
+        }
+
+        // Load the page as if the observations before the slot were also being read, then skip over them.
+        cursor.nextPageIndex = pageIndex;
+        cursor.totalObservationsRemaining = slot + (toIndex - fromIndex);
+        cursor.loadNextPage();
+        if (cursor.totalObservationsRemainingOnPage <= slot) {
+            throw new UncheckedIOException(
+                new IOException("the SAS7BDAT has a page with fewer observations than its layout requires"));
+        }
+        cursor.offsetOfNextObservation += slot * cursor.rowLength;
+        cursor.totalObservationsRemainingOnPage -= slot;
+        cursor.totalObservationsRemaining -= slot;
+        return cursor;
+    }
+
+    /**
+     * Moves this cursor to the next observation.
+     *
+     * @return {@code true}, if the cursor is on the next observation; {@code false}, if there are no more observations.
+     *
+     * @throws UncheckedIOException
+     *     if the SAS7BDAT has fewer observations than its metadata declares.
+     */
+    public boolean next() {
+        if (totalObservationsRemaining == 0) {
+            offsetOfObservation = -1;
+            return false;
+        }
+
+        while (totalObservationsRemainingOnPage == 0) {
+            if (nextPageIndex == endPageIndex) {
+                if (isPageRange) {
+                    offsetOfObservation = -1;
+                    return false;
+                }
+                throw new UncheckedIOException(
+                    new IOException("the SAS7BDAT has fewer observations than its metadata declares"));
+            }
+            loadNextPage();
+        }
+
+        offsetOfObservation = offsetOfNextObservation;
+        offsetOfNextObservation += rowLength;
+        totalObservationsRemainingOnPage--;
+        totalObservationsRemaining--;
+        return true;
+    }
+
+    private void loadNextPage() {
+        segment = importer.segment(nextPageIndex);
+        final int pageOffset = importer.offsetOfPage(nextPageIndex);
+        nextPageIndex++;
+
+        // A data page has only observations.  The final metadata page is a mixed page, whose observations follow
+        // the subheader index.
+        final short pageType = segment.getShort(pageOffset + 32);
+        final int totalBlocks = Short.toUnsignedInt(segment.getShort(pageOffset + 34));
+        final int totalSubheaders = Short.toUnsignedInt(segment.getShort(pageOffset + 36));
+        final int totalObservationsOnPage;
+        if (pageType == Sas7bdatPage.PAGE_TYPE_DATA) {
+            totalObservationsOnPage = totalBlocks;
+        } else if (pageType == Sas7bdatPage.PAGE_TYPE_MIX) {
+            totalObservationsOnPage = totalBlocks - totalSubheaders;
+        } else {
+            totalObservationsOnPage = 0;
+        }
+
+        offsetOfNextObservation = pageOffset + Sas7bdatPage.DATA_PAGE_HEADER_SIZE +
+            totalSubheaders * Sas7bdatPage.SUBHEADER_OFFSET_SIZE_64BIT;
+        totalObservationsRemainingOnPage = (int) Math.min(totalObservationsOnPage, totalObservationsRemaining);
+    }
+
+    private int checkType(int variableIndex, VariableType type) {
+        if (offsetOfObservation < 0) {
+            throw new IllegalStateException("no observation is being read (next must be invoked first)");
+        }
+        if (variableTypes[variableIndex] != type) {
+            throw new IllegalArgumentException(
+                "A " + (type == VariableType.NUMERIC ? "numeric" : "string") +
+                    " value was requested from the variable named " + metadata.variables().get(variableIndex).name() +
+                    ", which has a " + variableTypes[variableIndex] + " type");
+        }
+        return offsetOfObservation + physicalOffsets[variableIndex];
+    }
+
+    private long numericValueBits(int variableIndex) {
+        final int offsetOfValue = checkType(variableIndex, VariableType.NUMERIC);
+        final int length = lengths[variableIndex];
+        if (length == 8) {
+            return segment.getLong(offsetOfValue);
+        }
+
+        // A NUMERIC value whose length is less than 8 holds only the most significant bytes.
+        long valueBits = 0;
+        for (int i = 0; i < length; i++) {
+            valueBits |= (segment.get(offsetOfValue + i) & 0xFFL) << (8 * (8 - length + i));
+        }
+        return valueBits;
+    }
+
+    /**
+     * Gets the value of a NUMERIC variable in the current observation.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     *
+     * @return The value.  If the value is missing, this is a {@code NaN}.
+     *
+     * @throws IllegalStateException
+     *     if the cursor isn't on an observation.
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a NUMERIC type.
+     */
+    public double getDouble(int variableIndex) {
+        return Double.longBitsToDouble(numericValueBits(variableIndex));
+    }
+
+    /**
+     * Gets the missing value of a NUMERIC variable in the current observation.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     *
+     * @return The missing value, or {@code null} if the value isn't a SAS missing value.
+     *
+     * @throws IllegalStateException
+     *     if the cursor isn't on an observation.
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a NUMERIC type.
+     */
+    public MissingValue getMissingValue(int variableIndex) {
+        return missingValue(numericValueBits(variableIndex));
+    }
+
+    private static MissingValue missingValue(long valueBits) {
+        final long missingValueBits = valueBits & MISSING_VALUE_MASK;
+        for (MissingValue missingValue : MISSING_VALUES) {
+            if (missingValue.rawLongBits() == missingValueBits) {
+                return missingValue;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the value of a NUMERIC variable in the current observation as a date.  The value is interpreted as a SAS
+     * date, the number of days since 1960-01-01.  Any fraction of a day is ignored.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     *
+     * @return The date, or {@code null} if the value is missing.
+     *
+     * @throws IllegalStateException
+     *     if the cursor isn't on an observation.
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a NUMERIC type.
+     */
+    public LocalDate getDate(int variableIndex) {
+        final double value = getDouble(variableIndex);
+        if (Double.isNaN(value)) {
+            return null;
+        }
+        return LocalDate.ofEpochDay((long) Math.floor(value) + Sas7bdatVariablesLayout.SAS_EPOCH_DAY);
+    }
+
+    /**
+     * Gets the value of a NUMERIC variable in the current observation as a time.  The value is interpreted as a SAS
+     * time, the number of seconds since midnight.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     *
+     * @return The time, or {@code null} if the value is missing.
+     *
+     * @throws IllegalStateException
+     *     if the cursor isn't on an observation.
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a NUMERIC type.
+     * @throws java.time.DateTimeException
+     *     if the value is not within a day.
+     */
+    public LocalTime getTime(int variableIndex) {
+        final double value = getDouble(variableIndex);
+        if (Double.isNaN(value)) {
+            return null;
+        }
+        return LocalTime.ofNanoOfDay(Math.round(value * NANOS_PER_SECOND));
+    }
+
+    /**
+     * Gets the value of a NUMERIC variable in the current observation as a timestamp.  The value is interpreted as a
+     * SAS datetime, the number of seconds since 1960-01-01T00:00:00.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     *
+     * @return The timestamp, or {@code null} if the value is missing.
+     *
+     * @throws IllegalStateException
+     *     if the cursor isn't on an observation.
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a NUMERIC type.
+     */
+    public LocalDateTime getDateTime(int variableIndex) {
+        final double value = getDouble(variableIndex);
+        if (Double.isNaN(value)) {
+            return null;
+        }
+
+        long seconds = (long) Math.floor(value);
+        long nanos = Math.round((value - seconds) * NANOS_PER_SECOND);
+        if (nanos == NANOS_PER_SECOND) {
+            seconds++;
+            nanos = 0;
+        }
+        return LocalDateTime.ofEpochSecond(seconds + Sas7bdatVariablesLayout.SAS_EPOCH_SECOND, (int) nanos,
+            ZoneOffset.UTC);
+    }
+
+    /**
+     * Gets the value of a CHARACTER variable in the current observation.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     *
+     * @return The value, without trailing blanks.  This is never {@code null}.
+     *
+     * @throws IllegalStateException
+     *     if the cursor isn't on an observation.
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a CHARACTER type.
+     */
+    public String getString(int variableIndex) {
+        final int offsetOfValue = checkType(variableIndex, VariableType.CHARACTER);
+        final int length = lengths[variableIndex];
+        if (bytesOfValue == null || bytesOfValue.length < length) {
+            bytesOfValue = new byte[length];
+        }
+        segment.get(offsetOfValue, bytesOfValue, 0, length);
+
+        final int valueLength = Sas7bdatImporter.lengthWithoutTrailingBlanks(bytesOfValue, 0, length);
+        return valueLength == 0 ? "" : new String(bytesOfValue, 0, valueLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Copies the UTF-8 encoding of a CHARACTER variable's value in the current observation to an array, without
+     * decoding it.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     * @param destination
+     *     The array to which the value is copied, starting at index 0.  This must be at least as long as the
+     *     variable.
+     *
+     * @return The number of bytes in the value, without trailing blanks.
+     *
+     * @throws IllegalStateException
+     *     if the cursor isn't on an observation.
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset or if {@code destination} is shorter
+     *     than the variable.
+     * @throws NullPointerException
+     *     if {@code destination} is {@code null}.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a CHARACTER type.
+     */
+    public int getBytes(int variableIndex, byte[] destination) {
+        final int offsetOfValue = checkType(variableIndex, VariableType.CHARACTER);
+        ArgumentUtil.checkNotNull(destination, "destination");
+        final int length = lengths[variableIndex];
+        segment.get(offsetOfValue, destination, 0, length);
+        return Sas7bdatImporter.lengthWithoutTrailingBlanks(destination, 0, length);
+    }
+
+    /**
+     * Gets the value of a variable in the current observation as an object of the type that
+     * {@link Sas7bdatExporter#writeObservation(java.util.List)} accepts for it.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     *
+     * @return A {@code String} for a CHARACTER variable.  For a NUMERIC variable, a {@code MissingValue} if the value
+     *     is a SAS missing value, or a {@code Double} otherwise.
+     *
+     * @throws IllegalStateException
+     *     if the cursor isn't on an observation.
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     */
+    public Object getValue(int variableIndex) {
+        if (variableTypes[variableIndex] == VariableType.CHARACTER) {
+            return getString(variableIndex);
+        }
+
+        final long valueBits = numericValueBits(variableIndex);
+        final MissingValue missingValue = missingValue(valueBits);
+        return missingValue != null ? missingValue : Double.longBitsToDouble(valueBits);
+    }
+
+    /**
+     * Gets the values of some variables in the current observation, as they would be returned by
+     * {@link #getValue(int)}.
+     *
+     * @param variableIndices
+     *     The (0-based) indices of the variables.
+     *
+     * @return An unmodifiable list of the values, in the same order as {@code variableIndices}.
+     */
+    List<Object> getValues(int[] variableIndices) {
+        Object[] values = new Object[variableIndices.length];
+        for (int i = 0; i < variableIndices.length; i++) {
+            values[i] = getValue(variableIndices[i]);
+        }
+        return List.of(values);
+    }
+}
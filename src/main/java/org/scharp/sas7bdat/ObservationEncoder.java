@@ -0,0 +1,176 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+/**
+ * Serializes observations with code that is specialized for a set of variables.
+ * <p>
+ * {@link Sas7bdatVariablesLayout#writeObservation} loops over the variables and branches on each variable's type.
+ * This composes a method handle for each variable, in which the variable's index, offset, and type are bound as
+ * constants, into a single method handle for the whole observation.  When the method handle is invoked often enough,
+ * the JIT compiles it into straight-line code.
+ * </p>
+ * <p>
+ * The values are serialized in the same order as {@code writeObservation()} serializes them, with the same checks, so
+ * an invalid observation throws the same exception.
+ * </p>
+ */
+final class ObservationEncoder {
+
+    /**
+     * The most variables for which an encoder is compiled.  The JIT doesn't inline the code for much wider observations,
+     * so an encoder would be no faster than the loop.
+     */
+    static final int MAX_VARIABLES = 256;
+
+    private static final MethodHandle WRITE_NUMERIC;
+    private static final MethodHandle WRITE_SHORT_NUMERIC;
+    private static final MethodHandle WRITE_CHARACTER;
+    private static final MethodHandle WRITE_CACHED_CHARACTER;
+    private static final MethodHandle LIST_GET;
+
+    static {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final MethodType writeValueType = MethodType.methodType(
+            void.class, Variable.class, int.class, byte[].class, int.class, Object.class);
+        try {
+            WRITE_NUMERIC = lookup.findStatic(ObservationEncoder.class, "writeNumeric", writeValueType);
+            WRITE_SHORT_NUMERIC = lookup.findStatic(ObservationEncoder.class, "writeShortNumeric", writeValueType);
+            WRITE_CHARACTER = lookup.findStatic(ObservationEncoder.class, "writeCharacter", writeValueType);
+            WRITE_CACHED_CHARACTER = lookup.findStatic(ObservationEncoder.class, "writeCachedCharacter",
+                writeValueType.changeParameterType(0, EncodedValueCache.class));
+            LIST_GET = lookup.findVirtual(List.class, "get", MethodType.methodType(Object.class, int.class));
+        } catch (NoSuchMethodException | IllegalAccessException exception) {
+            throw new ExceptionInInitializerError(exception);
+        }
+    }
+
+    /** A method handle of type {@code (byte[], int, List)void} that serializes an observation. */
+    private final MethodHandle encoder;
+
+    private ObservationEncoder(MethodHandle encoder) {
+        this.encoder = encoder;
+    }
+
+    /**
+     * Compiles an encoder for a set of variables.
+     *
+     * @param variables
+     *     The variables.
+     * @param physicalOffsets
+     *     The offset of each variable's value within an observation.
+     * @param encodedValueCaches
+     *     The cache of each variable's values, or {@code null} for a variable whose values aren't cached.
+     *
+     * @return An encoder, or {@code null} if there are no variables or too many variables for an encoder to help.
+     */
+    static ObservationEncoder compile(List<Variable> variables, int[] physicalOffsets,
+        EncodedValueCache[] encodedValueCaches) {
+        assert variables.size() == physicalOffsets.length;
+        assert variables.size() == encodedValueCaches.length;
+        if (variables.isEmpty() || MAX_VARIABLES < variables.size()) {
+            return null;
+        }
+
+        // Create a method handle of type (byte[], int, List)void for each variable.
+        final MethodHandle[] writeValues = new MethodHandle[variables.size()];
+        for (int i = 0; i < writeValues.length; i++) {
+            final Variable variable = variables.get(i);
+            final MethodHandle writeValue;
+            if (encodedValueCaches[i] != null) {
+                writeValue = MethodHandles.insertArguments(WRITE_CACHED_CHARACTER, 0, encodedValueCaches[i],
+                    physicalOffsets[i]);
+            } else if (variable.type() == VariableType.CHARACTER) {
+                writeValue = MethodHandles.insertArguments(WRITE_CHARACTER, 0, variable, physicalOffsets[i]);
+            } else if (variable.length() == 8) {
+                writeValue = MethodHandles.insertArguments(WRITE_NUMERIC, 0, variable, physicalOffsets[i]);
+            } else {
+                writeValue = MethodHandles.insertArguments(WRITE_SHORT_NUMERIC, 0, variable, physicalOffsets[i]);
+            }
+
+            final MethodHandle getValue = MethodHandles.insertArguments(LIST_GET, 1, i);
+            writeValues[i] = MethodHandles.filterArguments(writeValue, 2, getValue);
+        }
+
+        return new ObservationEncoder(sequence(writeValues, 0, writeValues.length));
+    }
+
+    /**
+     * Composes a range of method handles into one that invokes them in order with the same arguments.  The method
+     * handles are composed as a balanced tree so that deeply nested method handles don't exhaust the stack or the
+     * JIT's inlining depth.
+     */
+    private static MethodHandle sequence(MethodHandle[] methodHandles, int start, int end) {
+        if (end - start == 1) {
+            return methodHandles[start];
+        }
+
+        // foldArguments() invokes its combiner (the first half) before its target (the second half).
+        final int middle = (start + end) >>> 1;
+        return MethodHandles.foldArguments(sequence(methodHandles, middle, end), sequence(methodHandles, start, middle));
+    }
+
+    /**
+     * Serializes an observation.
+     *
+     * @param buffer
+     *     The buffer to which the values should be serialized
+     * @param offsetOfObservation
+     *     The offset within {@code buffer} where the observation should be written.
+     * @param observation
+     *     A list of values which correspond to the variables for which this encoder was compiled.  This must have the
+     *     same number of values as there are variables and should have O(1) random access.
+     *
+     * @throws NullPointerException
+     *     If {@code observation} has a {@code null} value that is given to a variable whose type is
+     *     {@code VariableType.CHARACTER}.
+     * @throws IllegalArgumentException
+     *     if {@code observation} contains a value that doesn't conform to the variables.
+     */
+    void encode(byte[] buffer, int offsetOfObservation, List<Object> observation) {
+        try {
+            encoder.invokeExact(buffer, offsetOfObservation, observation);
+        } catch (RuntimeException | Error exception) {
+            throw exception;
+        } catch (Throwable throwable) {
+            // None of the method handles throw a checked exception.
+            throw new AssertionError(throwable);
+        }
+    }
+
+    private static void writeNumeric(Variable variable, int physicalOffset, byte[] buffer, int offsetOfObservation,
+        Object value) {
+        // Most numeric values are Doubles, so check for them before checking for all other types.
+        final long valueBits = value instanceof Double doubleValue ?
+            Double.doubleToRawLongBits(doubleValue) :
+            Sas7bdatVariablesLayout.numericValueBits(variable, value);
+        WriteUtil.write8(buffer, offsetOfObservation + physicalOffset, valueBits);
+    }
+
+    private static void writeShortNumeric(Variable variable, int physicalOffset, byte[] buffer,
+        int offsetOfObservation, Object value) {
+        final long valueBits = value instanceof Double doubleValue ?
+            Double.doubleToRawLongBits(doubleValue) :
+            Sas7bdatVariablesLayout.numericValueBits(variable, value);
+        WriteUtil.writeMostSignificantBytes(buffer, offsetOfObservation + physicalOffset, valueBits, variable.length());
+    }
+
+    private static void writeCharacter(Variable variable, int physicalOffset, byte[] buffer, int offsetOfObservation,
+        Object value) {
+        Sas7bdatVariablesLayout.writeString(buffer, offsetOfObservation + physicalOffset, variable,
+            Sas7bdatVariablesLayout.characterValue(variable, value));
+    }
+
+    private static void writeCachedCharacter(EncodedValueCache encodedValueCache, int physicalOffset, byte[] buffer,
+        int offsetOfObservation, Object value) {
+        encodedValueCache.write(buffer, offsetOfObservation + physicalOffset,
+            Sas7bdatVariablesLayout.characterValue(encodedValueCache.variable(), value));
+    }
+}
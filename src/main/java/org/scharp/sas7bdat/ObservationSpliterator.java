@@ -0,0 +1,97 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Spliterator} over the observations on a range of a {@link Sas7bdatImporter}'s pages, projected onto some of
+ * the dataset's variables.
+ * <p>
+ * The range is only split on page boundaries, and only before any observation has been read, so each page is decoded
+ * by exactly one spliterator.
+ * </p>
+ */
+final class ObservationSpliterator implements Spliterator<List<Object>> {
+
+    private final Sas7bdatImporter importer;
+    private final int[] variableIndices;
+
+    private long firstPageIndex;
+    private final long endPageIndex;
+    private boolean isWholeDataset;
+    private ObservationCursor cursor; // null until the first observation is read
+
+    ObservationSpliterator(Sas7bdatImporter importer, int[] variableIndices) {
+        this(importer, variableIndices, 0, importer.totalPages(), true);
+    }
+
+    private ObservationSpliterator(Sas7bdatImporter importer, int[] variableIndices, long firstPageIndex,
+        long endPageIndex, boolean isWholeDataset) {
+        this.importer = importer;
+        this.variableIndices = variableIndices;
+        this.firstPageIndex = firstPageIndex;
+        this.endPageIndex = endPageIndex;
+        this.isWholeDataset = isWholeDataset;
+        cursor = null;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super List<Object>> action) {
+        if (cursor == null) {
+            // A cursor over the whole dataset also checks that it has as many observations as its metadata declares.
+            cursor = isWholeDataset ?
+                new ObservationCursor(importer) :
+                new ObservationCursor(importer, firstPageIndex, endPageIndex);
+        }
+
+        if (!cursor.next()) {
+            return false;
+        }
+
+        action.accept(cursor.getValues(variableIndices));
+        return true;
+    }
+
+    @Override
+    public Spliterator<List<Object>> trySplit() {
+        final long totalPages = endPageIndex - firstPageIndex;
+        if (cursor != null || totalPages < 2) {
+            return null;
+        }
+
+        // The prefix covers the first half of the pages, since it must come first in the encounter order.
+        final long middlePageIndex = firstPageIndex + totalPages / 2;
+        Spliterator<List<Object>> prefix = new ObservationSpliterator(
+            importer,
+            variableIndices,
+            firstPageIndex,
+            middlePageIndex,
+            false);
+        firstPageIndex = middlePageIndex;
+        isWholeDataset = false;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        if (isWholeDataset) {
+            return importer.totalObservations();
+        }
+        final long totalPages = endPageIndex - firstPageIndex;
+        final long maxObservationsPerPage = importer.maxObservationsPerPage();
+        if (maxObservationsPerPage != 0 && Long.MAX_VALUE / maxObservationsPerPage < totalPages) {
+            return Long.MAX_VALUE;
+        }
+        return Math.min(totalPages * maxObservationsPerPage, importer.totalObservations());
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+}
@@ -0,0 +1,367 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * A cursor for writing a single observation (row) to a {@link Sas7bdatExporter} one value at a time.
+ * <p>
+ * This is obtained from {@link Sas7bdatExporter#beginObservation()}.  Each value is serialized directly into the
+ * exporter's page as soon as it is set, so writing an observation this way does not box numeric values or allocate a
+ * list. Variables are identified by their (0-based) index in the {@link Sas7bdatMetadata#variables() metadata's
+ * variables}, which can be resolved once with {@link Sas7bdatMetadata#variableIndex(String)}.
+ * </p>
+ * <p>
+ * Any variable whose value is not set is written as a missing value: the standard missing value for a NUMERIC variable
+ * or a blank string for a CHARACTER variable.  If a value is set more than once, the last one wins.  The observation is
+ * not part of the dataset until {@link #commit()} is invoked.
+ * </p>
+ * <p>
+ * The exporter re-uses the same {@code ObservationWriter} for every observation, so it is only valid between a call to
+ * {@code beginObservation()} and the matching call to {@code commit()}.  Like the exporter, it is not thread-safe.
+ * </p>
+ *
+ * <pre>
+ * final int city = metadata.variableIndex("CITY");
+ * final int high = metadata.variableIndex("HIGH");
+ * ...
+ * exporter.beginObservation().setString(city, "Atlanta").setDouble(high, 72).commit();
+ * </pre>
+ */
+public final class ObservationWriter {
+
+    private final Sas7bdatExporter exporter;
+    private final Sas7bdatVariablesLayout variablesLayout;
+
+    private byte[] buffer;
+    private int offsetOfObservation;
+
+    ObservationWriter(Sas7bdatExporter exporter, Sas7bdatVariablesLayout variablesLayout) {
+        this.exporter = exporter;
+        this.variablesLayout = variablesLayout;
+        buffer = null;
+        offsetOfObservation = -1;
+    }
+
+    /**
+     * Starts a new observation at the given location, initializing all of its values to missing values.
+     *
+     * @param buffer
+     *     The buffer in which the observation is serialized.
+     * @param offsetOfObservation
+     *     The offset within {@code buffer} where the observation is serialized.
+     */
+    void begin(byte[] buffer, int offsetOfObservation) {
+        this.buffer = buffer;
+        this.offsetOfObservation = offsetOfObservation;
+        variablesLayout.writeEmptyObservation(buffer, offsetOfObservation);
+    }
+
+    /**
+     * Discards the observation that is being written, if any.
+     */
+    void abandon() {
+        buffer = null;
+        offsetOfObservation = -1;
+    }
+
+    private void checkInProgress() {
+        if (buffer == null) {
+            throw new IllegalStateException("no observation is being written (beginObservation must be invoked first)");
+        }
+    }
+
+    /**
+     * Sets the value of a NUMERIC variable.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     * @param value
+     *     The value.  Note that a {@code NaN} is not the same as a SAS missing value; use
+     *     {@link #setMissing(int, MissingValue)} for that.
+     *
+     * @return This writer
+     *
+     * @throws IllegalStateException
+     *     if this writer was already committed or abandoned.
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a NUMERIC type.
+     */
+    public ObservationWriter setDouble(int variableIndex, double value) {
+        checkInProgress();
+        variablesLayout.writeNumericValue(buffer, offsetOfObservation, variableIndex,
+            Double.doubleToRawLongBits(value));
+        return this;
+    }
+
+    /**
+     * Sets the value of a NUMERIC variable to a missing value.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     * @param missingValue
+     *     The missing value.
+     *
+     * @return This writer
+     *
+     * @throws IllegalStateException
+     *     if this writer was already committed or abandoned.
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws NullPointerException
+     *     if {@code missingValue} is {@code null}.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a NUMERIC type.
+     */
+    public ObservationWriter setMissing(int variableIndex, MissingValue missingValue) {
+        checkInProgress();
+        ArgumentUtil.checkNotNull(missingValue, "missingValue");
+        variablesLayout.writeNumericValue(buffer, offsetOfObservation, variableIndex, missingValue.rawLongBits());
+        return this;
+    }
+
+    /**
+     * Sets the value of a NUMERIC variable to a SAS date, the number of days between 1960-01-01 and {@code date}.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     * @param date
+     *     The date.
+     *
+     * @return This writer
+     *
+     * @throws IllegalStateException
+     *     if this writer was already committed or abandoned.
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws NullPointerException
+     *     if {@code date} is {@code null}.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a NUMERIC type.
+     */
+    public ObservationWriter setDate(int variableIndex, LocalDate date) {
+        checkInProgress();
+        ArgumentUtil.checkNotNull(date, "date");
+        variablesLayout.writeNumericValue(buffer, offsetOfObservation, variableIndex,
+            Sas7bdatVariablesLayout.sasDate(date));
+        return this;
+    }
+
+    /**
+     * Sets the value of a NUMERIC variable to a SAS time, the number of seconds between midnight and {@code time}.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     * @param time
+     *     The time.
+     *
+     * @return This writer
+     *
+     * @throws IllegalStateException
+     *     if this writer was already committed or abandoned.
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws NullPointerException
+     *     if {@code time} is {@code null}.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a NUMERIC type.
+     */
+    public ObservationWriter setTime(int variableIndex, LocalTime time) {
+        checkInProgress();
+        ArgumentUtil.checkNotNull(time, "time");
+        variablesLayout.writeNumericValue(buffer, offsetOfObservation, variableIndex,
+            Sas7bdatVariablesLayout.sasTime(time));
+        return this;
+    }
+
+    /**
+     * Sets the value of a NUMERIC variable to a SAS datetime, the number of seconds between 1960-01-01T00:00:00 and
+     * {@code dateTime}.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     * @param dateTime
+     *     The timestamp.
+     *
+     * @return This writer
+     *
+     * @throws IllegalStateException
+     *     if this writer was already committed or abandoned.
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws NullPointerException
+     *     if {@code dateTime} is {@code null}.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a NUMERIC type.
+     */
+    public ObservationWriter setDateTime(int variableIndex, LocalDateTime dateTime) {
+        checkInProgress();
+        ArgumentUtil.checkNotNull(dateTime, "dateTime");
+        variablesLayout.writeNumericValue(buffer, offsetOfObservation, variableIndex,
+            Sas7bdatVariablesLayout.sasDateTime(dateTime));
+        return this;
+    }
+
+    /**
+     * Sets the value of a NUMERIC variable to a SAS date, given as the number of days since 1970-01-01.
+     * <p>
+     * This is the same as {@code setDate(variableIndex, LocalDate.ofEpochDay(epochDay))} but doesn't need a
+     * {@code LocalDate}.
+     * </p>
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     * @param epochDay
+     *     The date, as the number of days since 1970-01-01.
+     *
+     * @return This writer
+     *
+     * @throws IllegalStateException
+     *     if this writer was already committed or abandoned.
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a NUMERIC type.
+     */
+    public ObservationWriter setEpochDay(int variableIndex, long epochDay) {
+        checkInProgress();
+        variablesLayout.writeNumericValue(buffer, offsetOfObservation, variableIndex,
+            Sas7bdatVariablesLayout.sasDateFromEpochDay(epochDay));
+        return this;
+    }
+
+    /**
+     * Sets the value of a NUMERIC variable to a SAS datetime, given as the number of milliseconds since
+     * 1970-01-01T00:00:00.
+     * <p>
+     * Like {@link #setDateTime(int, LocalDateTime)}, no time zone is involved, so the timestamp is written as the
+     * date and time that {@code epochMilli} has in UTC.  This doesn't need a {@code LocalDateTime}.
+     * </p>
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     * @param epochMilli
+     *     The timestamp, as the number of milliseconds since 1970-01-01T00:00:00.
+     *
+     * @return This writer
+     *
+     * @throws IllegalStateException
+     *     if this writer was already committed or abandoned.
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a NUMERIC type.
+     */
+    public ObservationWriter setEpochMilli(int variableIndex, long epochMilli) {
+        checkInProgress();
+        variablesLayout.writeNumericValue(buffer, offsetOfObservation, variableIndex,
+            Sas7bdatVariablesLayout.sasDateTimeFromEpochMilli(epochMilli));
+        return this;
+    }
+
+    /**
+     * Sets the value of a CHARACTER variable.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     * @param value
+     *     The value.  This is encoded in UTF-8 and padded with blanks to the variable's length.
+     *
+     * @return This writer
+     *
+     * @throws IllegalStateException
+     *     if this writer was already committed or abandoned.
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws NullPointerException
+     *     if {@code value} is {@code null}.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a CHARACTER type or if {@code value} is too long for the variable.
+     */
+    public ObservationWriter setString(int variableIndex, String value) {
+        checkInProgress();
+        variablesLayout.writeCharacterValue(buffer, offsetOfObservation, variableIndex, value);
+        return this;
+    }
+
+    /**
+     * Sets the value of a CHARACTER variable to a value that is already encoded in UTF-8.
+     * <p>
+     * The value is copied into the SAS7BDAT without being checked, so it must be valid UTF-8.  This avoids encoding
+     * values that are already stored as bytes or that are re-used in many observations, such as codes from a small
+     * set.
+     * </p>
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     * @param value
+     *     The value, encoded in UTF-8.  This is padded with blanks to the variable's length.  The array is not
+     *     modified.
+     *
+     * @return This writer
+     *
+     * @throws IllegalStateException
+     *     if this writer was already committed or abandoned.
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws NullPointerException
+     *     if {@code value} is {@code null}.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a CHARACTER type or if {@code value} is too long for the variable.
+     */
+    public ObservationWriter setBytes(int variableIndex, byte[] value) {
+        checkInProgress();
+        variablesLayout.writeCharacterValue(buffer, offsetOfObservation, variableIndex, value);
+        return this;
+    }
+
+    /**
+     * Sets the value of a CHARACTER variable to a value that is already encoded in UTF-8.
+     * <p>
+     * This is like {@link #setBytes(int, byte[])}, except that the value is given as the bytes between the buffer's
+     * position and its limit.  The buffer's position, limit, and contents are not modified.
+     * </p>
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     * @param value
+     *     The value, encoded in UTF-8.  This is padded with blanks to the variable's length.
+     *
+     * @return This writer
+     *
+     * @throws IllegalStateException
+     *     if this writer was already committed or abandoned.
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws NullPointerException
+     *     if {@code value} is {@code null}.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a CHARACTER type or if {@code value} is too long for the variable.
+     */
+    public ObservationWriter setBytes(int variableIndex, ByteBuffer value) {
+        checkInProgress();
+        variablesLayout.writeCharacterValue(buffer, offsetOfObservation, variableIndex, value);
+        return this;
+    }
+
+    /**
+     * Adds the observation to the dataset.  After this is invoked, this writer can't be used until the next call to
+     * {@link Sas7bdatExporter#beginObservation()}.
+     *
+     * @throws IllegalStateException
+     *     if this writer was already committed or abandoned.
+     */
+    public void commit() {
+        checkInProgress();
+        abandon();
+        exporter.commitObservation();
+    }
+}
@@ -0,0 +1,167 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * Computes the CRC32C checksum of each page that a {@link Sas7bdatExporter} writes, as it's written.
+ * <p>
+ * The file header is the same size as a page, so it's treated as the first page.  When the number of observations
+ * isn't known until the exporter is closed, the header and the first metadata page are patched after they were
+ * written.  This keeps a copy of those pages, so that their checksums can be recomputed without reading them back.
+ * </p>
+ * <p>
+ * This is not thread-safe.  It's only used by the thread which writes the pages.
+ * </p>
+ */
+final class PageChecksumAccumulator {
+
+    /** The number of pages at the beginning of a SAS7BDAT that may be patched after they're written. */
+    private static final int TOTAL_PATCHABLE_PAGES = 2;
+
+    /** The CRC32C polynomial, in the reversed bit order that's used by {@link CRC32C}. */
+    private static final int CRC32C_POLYNOMIAL = 0x82F63B78;
+
+    private final int pageSize;
+    private final CRC32C crc32c;
+    private final byte[][] patchablePages;
+
+    private int[] checksums;
+    private int totalPages;
+
+    PageChecksumAccumulator(int pageSize) {
+        this.pageSize = pageSize;
+        crc32c = new CRC32C();
+        patchablePages = new byte[TOTAL_PATCHABLE_PAGES][];
+
+        checksums = new int[64];
+        totalPages = 0;
+    }
+
+    private int checksum(byte[] page) {
+        crc32c.reset();
+        crc32c.update(page, 0, pageSize);
+        return (int) crc32c.getValue();
+    }
+
+    /**
+     * Adds the checksum of the next page that was written.
+     *
+     * @param page
+     *     The page's data.
+     */
+    void addPage(byte[] page) {
+        assert page.length == pageSize : "page is not sized correctly: " + page.length;
+
+        if (totalPages < TOTAL_PATCHABLE_PAGES) {
+            patchablePages[totalPages] = page.clone();
+        }
+        if (totalPages == checksums.length) {
+            checksums = Arrays.copyOf(checksums, Math.toIntExact(2L * checksums.length));
+        }
+        checksums[totalPages] = checksum(page);
+        totalPages++;
+    }
+
+    /**
+     * Updates the checksums of pages that were overwritten after they were added.
+     *
+     * @param position
+     *     The position within the SAS7BDAT at which {@code data} was written.  This must be within the first
+     *     {@value #TOTAL_PATCHABLE_PAGES} pages.
+     * @param data
+     *     The data that was written.
+     * @param offset
+     *     The offset of the first byte within {@code data} that was written.
+     * @param length
+     *     The number of bytes that were written.
+     */
+    void patch(long position, byte[] data, int offset, int length) {
+        while (0 < length) {
+            final int pageIndex = (int) (position / pageSize);
+            final int offsetInPage = (int) (position % pageSize);
+            final int lengthInPage = Math.min(length, pageSize - offsetInPage);
+            assert pageIndex < totalPages && pageIndex < TOTAL_PATCHABLE_PAGES : "can't patch page " + pageIndex;
+
+            System.arraycopy(data, offset, patchablePages[pageIndex], offsetInPage, lengthInPage);
+            checksums[pageIndex] = checksum(patchablePages[pageIndex]);
+
+            position += lengthInPage;
+            offset += lengthInPage;
+            length -= lengthInPage;
+        }
+    }
+
+    /**
+     * Creates an immutable copy of the checksums of the pages that have been added so far.
+     *
+     * @return The checksums, including the checksum of the whole SAS7BDAT.
+     */
+    Sas7bdatPageChecksums toPageChecksums() {
+        // The CRC of the whole file is derived from the CRC of each page, since the first pages may have been patched.
+        // Appending a page to a sequence of bytes whose CRC is c gives a CRC of shift(c) ^ crc(page), where shift is
+        // a linear operator that depends only on the page's length.  (This is how zlib's crc32_combine() works.)
+        final int[] shiftByPage = shiftOperator(pageSize);
+        int fileChecksum = 0;
+        for (int i = 0; i < totalPages; i++) {
+            fileChecksum = multiply(shiftByPage, fileChecksum) ^ checksums[i];
+        }
+
+        return new Sas7bdatPageChecksums(pageSize, Arrays.copyOf(checksums, totalPages), fileChecksum);
+    }
+
+    /**
+     * Computes the operator, as a 32x32 matrix over GF(2), that appends a number of zero bytes to a CRC.
+     *
+     * @param length
+     *     The number of zero bytes.
+     *
+     * @return The operator, as one column per element.
+     */
+    private static int[] shiftOperator(long length) {
+        // Start with the operator for one zero bit.
+        int[] operator = new int[32];
+        operator[0] = CRC32C_POLYNOMIAL;
+        for (int i = 1; i < 32; i++) {
+            operator[i] = 1 << (i - 1);
+        }
+
+        // Square it to get the operator for one zero byte, then square it again for each bit of the length.
+        for (int i = 0; i < 3; i++) {
+            operator = multiply(operator, operator);
+        }
+        int[] result = null;
+        while (length != 0) {
+            if ((length & 1) != 0) {
+                result = result == null ? operator : multiply(operator, result);
+            }
+            length >>>= 1;
+            if (length != 0) {
+                operator = multiply(operator, operator);
+            }
+        }
+        return result;
+    }
+
+    private static int multiply(int[] matrix, int vector) {
+        int product = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                product ^= matrix[i];
+            }
+        }
+        return product;
+    }
+
+    private static int[] multiply(int[] left, int[] right) {
+        int[] product = new int[32];
+        for (int i = 0; i < 32; i++) {
+            product[i] = multiply(left, right[i]);
+        }
+        return product;
+    }
+}
@@ -0,0 +1,217 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Encodes pages of observations on an executor and writes them to an output stream in the order in which they were
+ * submitted.
+ * <p>
+ * Observations which were given as a list are only checked when they are added to a page.  They are serialized into
+ * the page's buffer on the executor, along with the page header and subheaders, after the page is submitted.
+ * Observations which were serialized directly into the buffer by the caller are left as they are.  The encoded pages are
+ * written by the thread that submits pages, so only one thread ever writes to the output stream.
+ * </p>
+ * <p>
+ * Each page that is in flight has its own buffer.  The buffers are recycled after their page is written.
+ * </p>
+ */
+final class PageEncodingPipeline {
+
+    /** A page, its buffer, and the observations that must be serialized into the buffer before it's written. */
+    private static final class PendingPage {
+        final byte[] buffer;
+        final Object[][] deferredObservations;
+        final int[] deferredOffsets;
+
+        Sas7bdatPage page;
+        int totalDeferredObservations;
+
+        PendingPage(int pageSize, int maxObservationsPerPage) {
+            buffer = new byte[pageSize];
+            deferredObservations = new Object[maxObservationsPerPage][];
+            deferredOffsets = new int[maxObservationsPerPage];
+            page = null;
+            totalDeferredObservations = 0;
+        }
+    }
+
+    private final OutputStream outputStream;
+    private final Sas7bdatVariablesLayout variablesLayout;
+    private final Executor executor;
+    private final int maxPagesInFlight;
+    private final int pageSize;
+    private final int maxObservationsPerPage;
+    private final ArrayDeque<CompletableFuture<PendingPage>> pagesInFlight;
+    private final ArrayDeque<PendingPage> freePages;
+    private final ExportStatisticsAccumulator statisticsAccumulator; // null, unless statistics are collected.
+    private final PageChecksumAccumulator pageChecksumAccumulator; // null, unless page checksums are computed.
+
+    private PendingPage currentPage;
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param outputStream
+     *     The stream to which encoded pages are written.
+     * @param variablesLayout
+     *     The layout of the observations.
+     * @param pageSize
+     *     The size of each page, in bytes.
+     * @param executor
+     *     The executor on which pages are encoded.
+     * @param maxPagesInFlight
+     *     The maximum number of pages that are submitted but not yet written.
+     * @param statisticsAccumulator
+     *     The accumulator to which each page's observations are added when it's written, or {@code null}.
+     * @param pageChecksumAccumulator
+     *     The accumulator to which each page is added when it's written, or {@code null}.
+     */
+    PageEncodingPipeline(OutputStream outputStream, Sas7bdatVariablesLayout variablesLayout, int pageSize,
+        Executor executor, int maxPagesInFlight, ExportStatisticsAccumulator statisticsAccumulator,
+        PageChecksumAccumulator pageChecksumAccumulator) {
+        assert 0 < maxPagesInFlight : "maxPagesInFlight must be positive";
+
+        this.outputStream = outputStream;
+        this.variablesLayout = variablesLayout;
+        this.executor = executor;
+        this.maxPagesInFlight = maxPagesInFlight;
+        this.pageSize = pageSize;
+        maxObservationsPerPage = Sas7bdatPage.maxObservationsPerDataPage(pageSize, variablesLayout);
+        pagesInFlight = new ArrayDeque<>(maxPagesInFlight);
+        freePages = new ArrayDeque<>(maxPagesInFlight + 1);
+        this.statisticsAccumulator = statisticsAccumulator;
+        this.pageChecksumAccumulator = pageChecksumAccumulator;
+        currentPage = null;
+    }
+
+    private PendingPage currentPage() {
+        if (currentPage == null) {
+            currentPage = freePages.isEmpty() ? new PendingPage(pageSize, maxObservationsPerPage) : freePages.remove();
+        }
+        return currentPage;
+    }
+
+    /**
+     * Gets the buffer for the page that is being filled.  Observations can be serialized into it directly.
+     *
+     * @return The buffer for the page that is being filled.
+     */
+    byte[] buffer() {
+        return currentPage().buffer;
+    }
+
+    /**
+     * Adds an observation to the page that is being filled, to be serialized after the page is submitted.  The caller
+     * must have already checked that the observation is well-formed.
+     *
+     * @param offsetOfObservation
+     *     The offset within the page at which the observation should be serialized.
+     * @param observation
+     *     The observation.  This is copied.
+     */
+    void deferObservation(int offsetOfObservation, List<Object> observation) {
+        PendingPage page = currentPage();
+        assert page.totalDeferredObservations < maxObservationsPerPage : "too many observations on page";
+
+        page.deferredObservations[page.totalDeferredObservations] = observation.toArray();
+        page.deferredOffsets[page.totalDeferredObservations] = offsetOfObservation;
+        page.totalDeferredObservations++;
+    }
+
+    /**
+     * Submits the page that is being filled to be encoded on the executor.  The next call to {@link #buffer()} returns
+     * the buffer for a new page.
+     * <p>
+     * If too many pages are in flight, this waits for the oldest one to be encoded and writes it.
+     * </p>
+     *
+     * @param page
+     *     The page whose observations were added to the current buffer.
+     *
+     * @throws IOException
+     *     If an I/O error prevented a previous page from being written.
+     */
+    void submitPage(Sas7bdatPage page) throws IOException {
+        // Write all pages that are already encoded, and make room for this one.
+        while (!pagesInFlight.isEmpty() && (pagesInFlight.size() == maxPagesInFlight || pagesInFlight.peek().isDone())) {
+            writeOldestPage();
+        }
+
+        PendingPage pendingPage = currentPage();
+        pendingPage.page = page;
+        pagesInFlight.add(CompletableFuture.supplyAsync(() -> encode(pendingPage), executor));
+        currentPage = null;
+    }
+
+    /**
+     * Waits for every submitted page to be encoded and writes them.
+     *
+     * @throws IOException
+     *     If an I/O error prevented a page from being written.
+     */
+    void flush() throws IOException {
+        while (!pagesInFlight.isEmpty()) {
+            writeOldestPage();
+        }
+    }
+
+    private PendingPage encode(PendingPage pendingPage) {
+        for (int i = 0; i < pendingPage.totalDeferredObservations; i++) {
+            variablesLayout.writeObservation(
+                pendingPage.buffer,
+                pendingPage.deferredOffsets[i],
+                Arrays.asList(pendingPage.deferredObservations[i]));
+        }
+        pendingPage.page.write(pendingPage.buffer);
+        return pendingPage;
+    }
+
+    private void writeOldestPage() throws IOException {
+        final PendingPage pendingPage;
+        try {
+            pendingPage = pagesInFlight.peek().join();
+        } catch (CompletionException exception) {
+            // The observations were checked before they were added, so this is a bug.  Report what went wrong.
+            Throwable cause = exception.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw exception;
+        }
+
+        // The statistics and checksums are accumulated on this thread, in page order, so the accumulators aren't
+        // shared.
+        if (statisticsAccumulator != null) {
+            statisticsAccumulator.accumulate(
+                pendingPage.buffer,
+                pendingPage.page.offsetOfFirstObservation(),
+                pendingPage.page.totalObservations());
+        }
+        if (pageChecksumAccumulator != null) {
+            pageChecksumAccumulator.addPage(pendingPage.buffer);
+        }
+
+        outputStream.write(pendingPage.buffer);
+        pagesInFlight.remove();
+
+        // Recycle the page's buffer.
+        Arrays.fill(pendingPage.deferredObservations, 0, pendingPage.totalDeferredObservations, null);
+        pendingPage.totalDeferredObservations = 0;
+        pendingPage.page = null;
+        freePages.add(pendingPage);
+    }
+}
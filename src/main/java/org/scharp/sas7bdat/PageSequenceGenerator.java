@@ -24,7 +24,8 @@ class PageSequenceGenerator {
     // For 0x3664FB??, it goes up by one, then down by 4
     //  5A,5B, 58,59, 5E,5F,  5C,5D,  52,53,  50,51,  56,57,  54,55, ...
     //
-    // The pattern below starts with 0xF4A4????.
+    // The pattern below starts with 0xF4A4FFF?.  Bits 4 and above count down by one for every
+    // sixteen pages.  This continues past bit 31, since page sequence numbers are 8 bytes.
     private static final int[] pageSequenceNumbers = new int[] {
         0x6, 0x7,
         0x4, 0x5,
@@ -36,19 +37,44 @@ class PageSequenceGenerator {
         0x8, 0x9,
     };
 
-    int pageSequenceIndex;
+    private static final long INITIAL_PAGE_SEQUENCE_PREFIX = 0xF4A4FFFL;
+
+    long pageSequenceIndex;
 
     /** Create a new page sequence generator that can be used to create legal page sequence */
     PageSequenceGenerator() {
         pageSequenceIndex = 0;
     }
 
-    private static long pageSequence(int pageIndex) {
-        return 0xFFFFFFFFL & (
-            0xF4_A4_00_00L | // bits 16-31
-                ((0x0000FF00) & ((0xFF - (pageIndex / 256)) << 8)) | // bits 8-15
-                ((0x000000F0) & (0xF0 - ((pageIndex / 16) << 4))) |  // bits 4-7
-                ((0x0000000F) & (pageSequenceNumbers[pageIndex % 16]))); // bits 0-3
+    /**
+     * Create a page sequence generator that continues from where another one is.
+     *
+     * @param pageSequenceGenerator
+     *     The page sequence generator to copy.  This is not incremented.
+     */
+    PageSequenceGenerator(PageSequenceGenerator pageSequenceGenerator) {
+        pageSequenceIndex = pageSequenceGenerator.pageSequenceIndex;
+    }
+
+    /**
+     * Create a page sequence generator that is a number of pages ahead of another one.
+     *
+     * @param pageSequenceGenerator
+     *     The page sequence generator to copy.  This is not incremented.
+     * @param totalPagesToSkip
+     *     The number of times to increment the copy.
+     */
+    PageSequenceGenerator(PageSequenceGenerator pageSequenceGenerator, long totalPagesToSkip) {
+        assert 0 <= totalPagesToSkip : "negative totalPagesToSkip: " + totalPagesToSkip;
+        if (Long.MAX_VALUE - pageSequenceGenerator.pageSequenceIndex < totalPagesToSkip) {
+            throw new IllegalStateException("This code does not support more than " + Long.MAX_VALUE + " pages");
+        }
+        pageSequenceIndex = pageSequenceGenerator.pageSequenceIndex + totalPagesToSkip;
+    }
+
+    private static long pageSequence(long pageIndex) {
+        return ((INITIAL_PAGE_SEQUENCE_PREFIX - pageIndex / 16) << 4) | // bits 4-63
+            pageSequenceNumbers[(int) (pageIndex % 16)]; // bits 0-3
     }
 
     /**
@@ -72,9 +98,9 @@ class PageSequenceGenerator {
      *     if the page sequence has been exhausted.
      */
     void incrementPageSequence() {
-        pageSequenceIndex++;
-        if (pageSequenceIndex > 0x7FFF) {
-            throw new IllegalStateException("This code does not support more than " + 0x7FFF + " pages");
+        if (pageSequenceIndex == Long.MAX_VALUE) {
+            throw new IllegalStateException("This code does not support more than " + Long.MAX_VALUE + " pages");
         }
+        pageSequenceIndex++;
     }
 }
\ No newline at end of file
@@ -0,0 +1,478 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Exports a SAS7BDAT file whose observations are written in partitions, each of which may be written by its own
+ * thread.
+ * <p>
+ * When the number of observations in an uncompressed dataset is known in advance, the page and offset of every
+ * observation is fixed as soon as the metadata is laid out.  This exporter writes the header and metadata when it's
+ * created.  The caller then creates a {@link Partition} for each range of observations, and each partition serializes
+ * its observations into its own page buffer and writes them directly to their final location in the file with
+ * {@link FileChannel#write(ByteBuffer, long)}.  The partitions don't share any mutable state, so they don't need to be
+ * merged and don't wait for each other.
+ * </p>
+ * <p>
+ * A page that is shared by two partitions is written in disjoint pieces: the partition with the page's first
+ * observation writes the page header, the partition with the page's last observation writes the end of the page, and
+ * each partition writes its own observations.
+ * </p>
+ * <p>
+ * The partitions must cover every observation in the dataset exactly once.  Each partition must be closed before this
+ * exporter is closed.
+ * </p>
+ *
+ * <pre>
+ * Sas7bdatExportPlan plan = Sas7bdatExportPlan.compile(metadata);
+ * try (PartitionedSas7bdatExporter exporter = plan.newPartitionedExporter(path, 1_000_000)) {
+ *     // Each of these can be run on a different thread.
+ *     try (PartitionedSas7bdatExporter.Partition partition = exporter.newPartition(0, 500_000)) {
+ *         // write observations 0-499,999
+ *     }
+ *     try (PartitionedSas7bdatExporter.Partition partition = exporter.newPartition(500_000, 500_000)) {
+ *         // write observations 500,000-999,999
+ *     }
+ * }
+ * </pre>
+ */
+public final class PartitionedSas7bdatExporter implements AutoCloseable {
+
+    /**
+     * A range of consecutive observations within a {@link PartitionedSas7bdatExporter}.
+     * <p>
+     * A partition is not thread-safe, but different partitions of the same dataset can be written concurrently.
+     * </p>
+     */
+    public static final class Partition implements AutoCloseable {
+
+        private final PartitionedSas7bdatExporter exporter;
+        private final long firstObservation;
+        private final long endObservation; // exclusive
+        private final byte[] pageBuffer;
+
+        private long nextObservation;
+        private boolean isClosed;
+
+        // The page to which observations are currently written.
+        private long pageIndex; // 0 is the mixed page
+        private Sas7bdatPage dataPage; // null for the mixed page
+        private long firstObservationOnPage;
+        private long endObservationOnPage; // exclusive
+        private int offsetOfFirstObservationOnPage;
+        private long firstObservationInBuffer; // the first of this partition's observations on the page
+
+        private Partition(PartitionedSas7bdatExporter exporter, long firstObservation, long totalObservations) {
+            this.exporter = exporter;
+            this.firstObservation = firstObservation;
+            this.endObservation = firstObservation + totalObservations;
+            this.pageBuffer = new byte[exporter.plan.pageLayout.pageSize];
+
+            nextObservation = firstObservation;
+            isClosed = false;
+            endObservationOnPage = firstObservation; // no page yet
+        }
+
+        /**
+         * Gets the index of the first observation in this partition.
+         *
+         * @return The index of this partition's first observation within the dataset.
+         */
+        public long firstObservation() {
+            return firstObservation;
+        }
+
+        /**
+         * Gets the number of observations in this partition.
+         *
+         * @return The number of observations that must be written to this partition.
+         */
+        public long totalObservations() {
+            return endObservation - firstObservation;
+        }
+
+        /**
+         * Writes the next observation (row) of this partition.
+         * <p>
+         * This must be called exactly {@link #totalObservations()} times.  The observations are written in order,
+         * starting at {@link #firstObservation()}.
+         * </p>
+         *
+         * @param observation
+         *     The observation to write, given as a list of objects.  The legal values are the same as for
+         *     {@link Sas7bdatExporter#writeObservation(List)}.  The observation is serialized before this method
+         *     returns, so subsequent modifications to it don't change the SAS7BDAT that is exported.
+         *
+         * @throws NullPointerException
+         *     If {@code observation} is {@code null}, or if a {@code null} value is given for a variable whose type
+         *     is {@code VariableType.CHARACTER}.
+         * @throws IllegalStateException
+         *     If every observation in this partition has already been written or if this partition has already been
+         *     closed.
+         * @throws IllegalArgumentException
+         *     if {@code observation} contains a value that doesn't conform to the dataset's metadata.
+         * @throws IOException
+         *     If an I/O error prevented a page from being written.
+         */
+        public void writeObservation(List<Object> observation) throws IOException {
+            ArgumentUtil.checkNotNull(observation, "observation");
+            if (isClosed) {
+                throw new IllegalStateException("Cannot invoke writeObservation on closed partition");
+            }
+            if (nextObservation == endObservation) {
+                throw new IllegalStateException("wrote more observations than the partition holds");
+            }
+
+            if (nextObservation == endObservationOnPage) {
+                beginPage(exporter.pageIndexOf(nextObservation));
+            }
+
+            // If the observation is malformed, this throws an exception before the observation is counted, so the
+            // next observation is written over whatever was partially serialized.
+            exporter.plan.variablesLayout.writeObservation(pageBuffer, offsetOfObservation(nextObservation),
+                observation);
+            nextObservation++;
+
+            if (nextObservation == endObservationOnPage || nextObservation == endObservation) {
+                writePage();
+            }
+        }
+
+        private void beginPage(long newPageIndex) {
+            pageIndex = newPageIndex;
+            firstObservationOnPage = exporter.firstObservationOnPage(newPageIndex);
+            endObservationOnPage = exporter.firstObservationOnPage(newPageIndex + 1);
+            firstObservationInBuffer = nextObservation;
+
+            if (newPageIndex == 0) {
+                // The mixed page's header and subheaders were written by the exporter.
+                dataPage = null;
+                offsetOfFirstObservationOnPage = exporter.offsetOfFirstObservationOnMixedPage;
+            } else {
+                // Data pages are numbered after the mixed page.
+                dataPage = new Sas7bdatPage(
+                    new PageSequenceGenerator(exporter.plan.pageSequenceGenerator, newPageIndex - 1),
+                    pageBuffer.length,
+                    exporter.plan.variablesLayout);
+                dataPage.finalizeSubheaders(); // a data page has no subheaders
+                offsetOfFirstObservationOnPage = dataPage.offsetOfNextObservation();
+                dataPage.commitObservations(Math.toIntExact(endObservationOnPage - firstObservationOnPage));
+            }
+        }
+
+        private int offsetOfObservation(long observationIndex) {
+            final int indexOnPage = Math.toIntExact(observationIndex - firstObservationOnPage);
+            return offsetOfFirstObservationOnPage + indexOnPage * exporter.plan.variablesLayout.rowLength();
+        }
+
+        /**
+         * Writes the part of the current page that belongs to this partition.
+         */
+        private void writePage() throws IOException {
+            int startOfPiece = offsetOfObservation(firstObservationInBuffer);
+            int endOfPiece = offsetOfObservation(nextObservation);
+            if (dataPage != null) {
+                // Fill in the header and the space after the observations, then take whichever of them are adjacent
+                // to this partition's observations.
+                dataPage.write(pageBuffer);
+                if (firstObservationInBuffer == firstObservationOnPage) {
+                    startOfPiece = 0;
+                }
+                if (nextObservation == endObservationOnPage) {
+                    endOfPiece = pageBuffer.length;
+                }
+            }
+
+            exporter.write(exporter.positionOfPage(pageIndex) + startOfPiece, pageBuffer, startOfPiece,
+                endOfPiece - startOfPiece);
+            exporter.totalObservationsWritten.addAndGet(nextObservation - firstObservationInBuffer);
+        }
+
+        /**
+         * Closes this partition.  Each page is written as soon as this partition's observations on it are written, so
+         * this doesn't write anything.
+         * <p>
+         * This is safe to invoke multiple times.
+         * </p>
+         *
+         * @throws IllegalStateException
+         *     if this method is invoked before all observations in this partition have been written.  In this case,
+         *     the resulting SAS7BDAT file is corrupt.
+         */
+        @Override
+        public void close() {
+            if (!isClosed) {
+                isClosed = true;
+                if (nextObservation != endObservation) {
+                    throw new IllegalStateException(
+                        "The partition was told to expect " + totalObservations() + " observation(s) but only " +
+                            (nextObservation - firstObservation) + " were written.");
+                }
+            }
+        }
+    }
+
+    private final Sas7bdatExportPlan plan;
+    private final FileChannel channel;
+    private final long totalObservationsInDataset;
+    private final int maxObservationsOnMixedPage;
+    private final int maxObservationsPerDataPage;
+    private final int offsetOfFirstObservationOnMixedPage;
+    private final AtomicLong totalObservationsWritten;
+    private final ReentrantLock partitionsLock; // guards partitions and isClosed
+    private final TreeMap<Long, Long> partitions; // first observation -> end observation (exclusive)
+
+    private boolean isClosed;
+
+    /**
+     * Creates a {@code PartitionedSas7bdatExporter} with a compiled plan.  This implements
+     * {@link Sas7bdatExportPlan#newPartitionedExporter(Path, long)}.
+     */
+    PartitionedSas7bdatExporter(Sas7bdatExportPlan plan, Path targetLocation, long totalObservationsInDataset)
+        throws IOException {
+        ArgumentUtil.checkNotNull(targetLocation, "targetLocation");
+        ArgumentUtil.checkNotNegative(totalObservationsInDataset, "totalObservationsInDataset");
+        if (plan.options.compression() != Compression.NONE) {
+            // The size of a compressed observation isn't known until it's compressed, so its location isn't fixed.
+            throw new IllegalArgumentException("compression is not supported by a partitioned exporter");
+        }
+        if (plan.options.collectStatistics()) {
+            // The partitions are written independently, and this exporter has no way to return statistics.
+            throw new IllegalArgumentException("statistics are not supported by a partitioned exporter");
+        }
+        if (plan.options.pageChecksums()) {
+            // The partitions write their pages independently, and this exporter has no way to return checksums.
+            throw new IllegalArgumentException("page checksums are not supported by a partitioned exporter");
+        }
+
+        this.plan = plan;
+        this.totalObservationsInDataset = totalObservationsInDataset;
+        maxObservationsOnMixedPage = plan.finalMetadataPage.maxObservations();
+        maxObservationsPerDataPage = Sas7bdatPage.maxObservationsPerDataPage(plan.pageLayout.pageSize,
+            plan.variablesLayout);
+        totalObservationsWritten = new AtomicLong();
+        partitionsLock = new ReentrantLock();
+        partitions = new TreeMap<>();
+        isClosed = false;
+
+        channel = FileChannel.open(
+            targetLocation,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE);
+        try {
+            offsetOfFirstObservationOnMixedPage = writeMetadata();
+        } catch (Throwable throwable) {
+            // If something goes wrong, and we can't construct the exporter, then
+            // close the channel that we opened to avoid leaking a file handle.
+            channel.close();
+            throw throwable;
+        }
+    }
+
+    /**
+     * Writes the header, the metadata pages, and the mixed page, without its observations.
+     *
+     * @return The offset of the first observation on the mixed page.
+     *
+     * @throws IOException
+     *     If an I/O problem prevented the metadata from being written.
+     */
+    private int writeMetadata() throws IOException {
+        final int pageSize = plan.pageLayout.pageSize;
+        final byte[] pageBuffer = new byte[pageSize];
+
+        RowSizeSubheader rowSizeSubheader = new RowSizeSubheader(plan.rowSizeSubheader);
+        rowSizeSubheader.setTotalObservationsInDataset(totalObservationsInDataset);
+
+        // Write the file header.  SAS uses the same value for page size and header size.
+        Sas7bdatHeader header = new Sas7bdatHeader(
+            new PageSequenceGenerator(plan.pageSequenceGenerator),
+            pageSize,
+            pageSize,
+            plan.metadata.datasetName(),
+            plan.metadata.creationTime(),
+            plan.totalPagesInDataset(totalObservationsInDataset));
+        header.write(pageBuffer);
+        write(0, pageBuffer, 0, pageSize);
+
+        // Write the metadata pages that the plan encoded, with this dataset's RowSizeSubheader.
+        for (int pageIndex = 0; pageIndex < plan.totalMetadataPageImages(); pageIndex++) {
+            plan.copyMetadataPageImage(pageIndex, pageBuffer);
+            if (pageIndex == 0) {
+                rowSizeSubheader.writeSubheader(pageBuffer, pageSize - rowSizeSubheader.size());
+            }
+            write((1L + pageIndex) * pageSize, pageBuffer, 0, pageSize);
+        }
+
+        // Write the mixed page.  Its observations are left blank for the partitions to fill in.
+        Sas7bdatPage mixedPage = new Sas7bdatPage(plan.finalMetadataPage, rowSizeSubheader);
+        final int offsetOfFirstObservation = mixedPage.hasSpaceForObservation() ?
+            mixedPage.offsetOfNextObservation() :
+            pageSize; // the mixed page can't hold any observations
+        final int totalObservationsOnMixedPage = Math.toIntExact(
+            Math.min(totalObservationsInDataset, maxObservationsOnMixedPage));
+        if (totalObservationsOnMixedPage != 0) {
+            mixedPage.commitObservations(totalObservationsOnMixedPage);
+        }
+        Arrays.fill(pageBuffer, (byte) 0x00);
+        mixedPage.write(pageBuffer);
+        write(positionOfPage(0), pageBuffer, 0, pageSize);
+
+        return offsetOfFirstObservation;
+    }
+
+    /**
+     * Gets the page on which an observation is written.
+     *
+     * @param observationIndex
+     *     The index of the observation within the dataset.
+     *
+     * @return The index of the page, where 0 is the mixed page and 1 is the first data page.
+     */
+    long pageIndexOf(long observationIndex) {
+        if (observationIndex < maxObservationsOnMixedPage) {
+            return 0;
+        }
+        return 1 + (observationIndex - maxObservationsOnMixedPage) / maxObservationsPerDataPage;
+    }
+
+    /**
+     * Gets the first observation on a page.
+     *
+     * @param pageIndex
+     *     The index of the page, where 0 is the mixed page and 1 is the first data page.
+     *
+     * @return The index of the first observation on the page, or the number of observations in the dataset if the
+     *     page is beyond the end of the dataset.
+     */
+    long firstObservationOnPage(long pageIndex) {
+        final long firstObservation = pageIndex == 0 ?
+            0 :
+            maxObservationsOnMixedPage + (pageIndex - 1) * maxObservationsPerDataPage;
+        return Math.min(firstObservation, totalObservationsInDataset);
+    }
+
+    /**
+     * Gets the location of a page within the file.
+     *
+     * @param pageIndex
+     *     The index of the page, where 0 is the mixed page and 1 is the first data page.
+     *
+     * @return The position of the page's first byte.
+     */
+    long positionOfPage(long pageIndex) {
+        // The header and the metadata pages that don't hold observations precede the mixed page.
+        return (1 + plan.totalMetadataPageImages() + pageIndex) * plan.pageLayout.pageSize;
+    }
+
+    private void write(long position, byte[] data, int offset, int length) throws IOException {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(data, offset, length);
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer, position + byteBuffer.position() - offset);
+        }
+    }
+
+    /**
+     * Gets the number of observations in the dataset.
+     *
+     * @return The number of observations that was given when this exporter was created.
+     */
+    public long totalObservationsInDataset() {
+        return totalObservationsInDataset;
+    }
+
+    /**
+     * Creates a partition for writing a range of observations.  This may be invoked by any thread.
+     *
+     * @param firstObservation
+     *     The index of the first observation in the partition, where 0 is the first observation in the dataset.
+     * @param totalObservations
+     *     The number of observations in the partition.
+     *
+     * @return A new partition.
+     *
+     * @throws IllegalArgumentException
+     *     if {@code firstObservation} or {@code totalObservations} is negative, if the range extends beyond the end of
+     *     the dataset, or if it overlaps a partition that was already created.
+     * @throws IllegalStateException
+     *     if this exporter has already been closed.
+     */
+    public Partition newPartition(long firstObservation, long totalObservations) {
+        ArgumentUtil.checkNotNegative(firstObservation, "firstObservation");
+        ArgumentUtil.checkNotNegative(totalObservations, "totalObservations");
+        if (totalObservationsInDataset - firstObservation < totalObservations) {
+            throw new IllegalArgumentException("the partition extends beyond the end of the dataset");
+        }
+
+        partitionsLock.lock();
+        try {
+            if (isClosed) {
+                throw new IllegalStateException("Cannot invoke newPartition on closed exporter");
+            }
+
+            if (totalObservations != 0) {
+                final long endObservation = firstObservation + totalObservations;
+                Map.Entry<Long, Long> previous = partitions.floorEntry(firstObservation);
+                Map.Entry<Long, Long> next = partitions.ceilingEntry(firstObservation);
+                if ((previous != null && firstObservation < previous.getValue()) ||
+                    (next != null && next.getKey() < endObservation)) {
+                    throw new IllegalArgumentException("the partition overlaps another partition");
+                }
+                partitions.put(firstObservation, endObservation);
+            }
+        } finally {
+            partitionsLock.unlock();
+        }
+
+        return new Partition(this, firstObservation, totalObservations);
+    }
+
+    /**
+     * Closes the file.  Every partition must have been closed first.
+     * <p>
+     * This is safe to invoke multiple times.
+     * </p>
+     *
+     * @throws IOException
+     *     if there was a problem closing the file.
+     * @throws IllegalStateException
+     *     if fewer observations were written than were promised when this exporter was created.  In this case, the
+     *     resulting SAS7BDAT file is corrupt.
+     */
+    @Override
+    public void close() throws IOException {
+        partitionsLock.lock();
+        try {
+            if (!isClosed) {
+                isClosed = true;
+                try {
+                    final long totalWritten = totalObservationsWritten.get();
+                    if (totalWritten != totalObservationsInDataset) {
+                        throw new IllegalStateException(
+                            "The exporter was told to expect " + totalObservationsInDataset +
+                                " observation(s) but only " + totalWritten + " were written.");
+                    }
+                } finally {
+                    channel.close();
+                }
+            }
+        } finally {
+            partitionsLock.unlock();
+        }
+    }
+}
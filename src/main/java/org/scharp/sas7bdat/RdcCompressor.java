@@ -0,0 +1,173 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+/**
+ * Compresses observations with the Ross Data Compression (RDC) algorithm, which SAS uses for datasets that are created
+ * with {@code COMPRESS=BINARY}.
+ * <p>
+ * The compressed form is a sequence of groups.  Each group starts with a 16-bit, big-endian control word followed by up
+ * to 16 items.  The bits of the control word, starting with the most significant bit, indicate whether the
+ * corresponding item is a literal byte (0) or a command (1).  The high nibble of a command's first byte selects what it
+ * does.
+ * </p>
+ * <table>
+ *     <caption>RDC Commands</caption>
+ *     <thead>
+ *         <tr><th>Command</th><th>Meaning</th></tr>
+ *     </thead>
+ *     <tbody>
+ *         <tr><td>{@code 0x0n b}</td><td>insert (n + 3) copies of b</td></tr>
+ *         <tr><td>{@code 0x1n c b}</td><td>insert (n + c * 16 + 19) copies of b</td></tr>
+ *         <tr><td>{@code 0x2n o c}</td><td>copy (c + 16) bytes from (n + o * 16 + 3) bytes back</td></tr>
+ *         <tr><td>{@code 0xkn o}</td><td>for k &ge; 3, copy k bytes from (n + o * 16 + 3) bytes back</td></tr>
+ *     </tbody>
+ * </table>
+ * <p>
+ * Some readers don't handle a copy whose source overlaps its destination, so this never writes one.
+ * </p>
+ * <p>
+ * A compressed observation is stored in a subheader and readers identify subheaders by their first eight bytes.  The
+ * first item can't be a copy, so if the control word starts with a 1 bit, the next byte is {@code 0x0n} or
+ * {@code 0x1n}.  Therefore, a compressed observation can't be mistaken for a subheader signature.
+ * </p>
+ */
+final class RdcCompressor extends ObservationCompressor {
+
+    private static final int HASH_TABLE_SIZE = 4096;
+
+    private static final int MAX_RUN_LENGTH = 0x0F + 0xFF * 16 + 19;
+    private static final int MAX_COPY_LENGTH = 0xFF + 16;
+    private static final int MAX_COPY_DISTANCE = 0x0F + 0xFF * 16 + 3;
+
+    /**
+     * The most recent offset of each three-byte sequence, by hash.  This isn't cleared between observations, so its
+     * entries are only hints that must be checked.
+     */
+    private final int[] hashTable;
+
+    RdcCompressor() {
+        hashTable = new int[HASH_TABLE_SIZE];
+    }
+
+    private static int hash(byte[] observation, int offset) {
+        final int key = (observation[offset] & 0xFF) << 8 ^ (observation[offset + 1] & 0xFF) << 4 ^
+            (observation[offset + 2] & 0xFF);
+        return (40543 * key >>> 4) & (HASH_TABLE_SIZE - 1);
+    }
+
+    @Override
+    int compress(byte[] observation, int length, byte[] destination) {
+        assert length <= destination.length : "destination is too small";
+
+        int outputOffset = 0;
+        int controlWordOffset = 0;
+        int controlWord = 0;
+        int controlBit = 0; // 0 when a new control word is needed
+        int offset = 0;
+        while (offset < length) {
+            if (controlBit == 0) {
+                // Start a new group of items, after finishing the previous group's control word.
+                if (outputOffset != 0) {
+                    writeControlWord(destination, controlWordOffset, controlWord);
+                }
+                if (length <= outputOffset + 2) {
+                    return -1;
+                }
+                controlWordOffset = outputOffset;
+                outputOffset += 2;
+                controlWord = 0;
+                controlBit = 0x8000;
+            }
+
+            // Determine how many times the current byte repeats.
+            final byte value = observation[offset];
+            final int maxRunLength = Math.min(MAX_RUN_LENGTH, length - offset);
+            int runLength = 1;
+            while (runLength < maxRunLength && observation[offset + runLength] == value) {
+                runLength++;
+            }
+
+            // Find the most recent occurrence of the next three bytes.
+            int copyLength = 0;
+            int copyDistance = 0;
+            if (runLength < 3 && offset + 3 <= length) {
+                final int hash = hash(observation, offset);
+                final int candidate = hashTable[hash];
+                hashTable[hash] = offset;
+
+                copyDistance = offset - candidate;
+                if (candidate < offset && 3 <= copyDistance && copyDistance <= MAX_COPY_DISTANCE) {
+                    // The copy must not overlap the bytes that it creates.
+                    final int maxCopyLength = Math.min(Math.min(MAX_COPY_LENGTH, copyDistance), length - offset);
+                    while (copyLength < maxCopyLength &&
+                        observation[candidate + copyLength] == observation[offset + copyLength]) {
+                        copyLength++;
+                    }
+                }
+            }
+
+            if (3 <= runLength) {
+                // Insert the run.
+                controlWord |= controlBit;
+                if (runLength <= 18) {
+                    if (length <= outputOffset + 2) {
+                        return -1;
+                    }
+                    destination[outputOffset++] = (byte) (runLength - 3);
+                } else {
+                    if (length <= outputOffset + 3) {
+                        return -1;
+                    }
+                    final int count = runLength - 19;
+                    destination[outputOffset++] = (byte) (0x10 | (count & 0x0F));
+                    destination[outputOffset++] = (byte) (count >>> 4);
+                }
+                destination[outputOffset++] = value;
+                offset += runLength;
+
+            } else if (3 <= copyLength) {
+                // Copy the bytes from earlier in the observation.
+                controlWord |= controlBit;
+                final int distance = copyDistance - 3;
+                if (copyLength < 16) {
+                    if (length <= outputOffset + 2) {
+                        return -1;
+                    }
+                    destination[outputOffset++] = (byte) (copyLength << 4 | (distance & 0x0F));
+                    destination[outputOffset++] = (byte) (distance >>> 4);
+                } else {
+                    if (length <= outputOffset + 3) {
+                        return -1;
+                    }
+                    destination[outputOffset++] = (byte) (0x20 | (distance & 0x0F));
+                    destination[outputOffset++] = (byte) (distance >>> 4);
+                    destination[outputOffset++] = (byte) (copyLength - 16);
+                }
+                offset += copyLength;
+
+            } else {
+                // Write the byte literally.
+                if (length <= outputOffset + 1) {
+                    return -1;
+                }
+                destination[outputOffset++] = value;
+                offset++;
+            }
+
+            controlBit >>>= 1;
+        }
+
+        if (outputOffset != 0) {
+            writeControlWord(destination, controlWordOffset, controlWord);
+        }
+        return outputOffset;
+    }
+
+    private static void writeControlWord(byte[] destination, int offset, int controlWord) {
+        destination[offset] = (byte) (controlWord >>> 8);
+        destination[offset + 1] = (byte) controlWord;
+    }
+}
@@ -0,0 +1,188 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+/**
+ * Compresses observations with the run-length encoding that SAS uses for datasets that are created with
+ * {@code COMPRESS=CHAR}.
+ * <p>
+ * The compressed form is a sequence of commands.  The high nibble of a command's first byte selects what it does and the
+ * low nibble is part of its count.
+ * </p>
+ * <table>
+ *     <caption>Run-Length Encoding Commands</caption>
+ *     <thead>
+ *         <tr><th>Command</th><th>Meaning</th></tr>
+ *     </thead>
+ *     <tbody>
+ *         <tr><td>{@code 0x0n}</td><td>copy the next (n * 256 + next byte + 64) bytes</td></tr>
+ *         <tr><td>{@code 0x4n}</td><td>insert (n * 256 + next byte + 18) copies of the byte after that</td></tr>
+ *         <tr><td>{@code 0x6n}</td><td>insert (n * 256 + next byte + 17) blanks</td></tr>
+ *         <tr><td>{@code 0x7n}</td><td>insert (n * 256 + next byte + 17) zero bytes</td></tr>
+ *         <tr><td>{@code 0x8n}</td><td>copy the next (n + 1) bytes</td></tr>
+ *         <tr><td>{@code 0x9n}</td><td>copy the next (n + 17) bytes</td></tr>
+ *         <tr><td>{@code 0xAn}</td><td>copy the next (n + 33) bytes</td></tr>
+ *         <tr><td>{@code 0xBn}</td><td>copy the next (n + 49) bytes</td></tr>
+ *         <tr><td>{@code 0xCn}</td><td>insert (n + 3) copies of the next byte</td></tr>
+ *         <tr><td>{@code 0xDn}</td><td>insert (n + 2) {@code @} characters</td></tr>
+ *         <tr><td>{@code 0xEn}</td><td>insert (n + 2) blanks</td></tr>
+ *         <tr><td>{@code 0xFn}</td><td>insert (n + 2) zero bytes</td></tr>
+ *     </tbody>
+ * </table>
+ * <p>
+ * Some readers ignore the low nibble of the {@code 0x4n} and {@code 0x7n} commands, so this always sets it to 0.
+ * </p>
+ * <p>
+ * A compressed observation is stored in a subheader and readers identify subheaders by their first eight bytes.  A run
+ * of zero bytes is always written as a single command, so a compressed observation never starts with two
+ * {@code 0xFn} commands, and therefore can't be mistaken for a subheader signature.
+ * </p>
+ */
+final class RleCompressor extends ObservationCompressor {
+
+    private static final byte BLANK = ' ';
+    private static final byte ZERO = 0x00;
+    private static final byte AT_SIGN = '@';
+
+    /** The most bytes that a single copy command can copy. */
+    private static final int MAX_COPY_LENGTH = 0x0F * 256 + 0xFF + 64;
+
+    @Override
+    int compress(byte[] observation, int length, byte[] destination) {
+        assert length <= destination.length : "destination is too small";
+
+        int outputOffset = 0;
+        int startOfLiteral = 0;
+        int offset = 0;
+        while (offset < length) {
+            // Determine how many times the current byte repeats.
+            final byte value = observation[offset];
+            final int maxRunLength = Math.min(maxRunLength(value), length - offset);
+            int runLength = 1;
+            while (runLength < maxRunLength && observation[offset + runLength] == value) {
+                runLength++;
+            }
+
+            if (runLength < minRunLength(value)) {
+                // The run is too short to be worth a command, so the byte is copied with the bytes around it.
+                offset++;
+            } else {
+                // Copy the bytes before the run, then insert the run.
+                outputOffset = writeCopy(observation, startOfLiteral, offset - startOfLiteral, destination,
+                    outputOffset, length);
+                if (outputOffset < 0) {
+                    return -1;
+                }
+                outputOffset = writeRun(value, runLength, destination, outputOffset, length);
+                if (outputOffset < 0) {
+                    return -1;
+                }
+
+                offset += runLength;
+                startOfLiteral = offset;
+            }
+        }
+
+        // Copy any bytes after the final run.
+        return writeCopy(observation, startOfLiteral, length - startOfLiteral, destination, outputOffset, length);
+    }
+
+    private static int minRunLength(byte value) {
+        // A run of blanks, zeros, or @ is inserted with a one-byte command, so it's worth it for short runs.
+        // A run of any other byte takes a two-byte command.
+        return value == BLANK || value == ZERO || value == AT_SIGN ? 3 : 4;
+    }
+
+    private static int maxRunLength(byte value) {
+        return switch (value) {
+            case BLANK -> 0x0F * 256 + 0xFF + 17; // 0x6n
+            case ZERO -> 0xFF + 17; // 0x70
+            default -> 0xFF + 18; // 0x40
+        };
+    }
+
+    /**
+     * Writes a command to insert a run of bytes.
+     *
+     * @return The offset after the command, or -1 if the command would make the output at least {@code limit} bytes.
+     */
+    private static int writeRun(byte value, int runLength, byte[] destination, int outputOffset, int limit) {
+        final int commandLength;
+        if (value == BLANK || value == ZERO || (value == AT_SIGN && runLength <= 17)) {
+            commandLength = runLength <= 17 ? 1 : 2;
+        } else {
+            commandLength = runLength <= 18 ? 2 : 3;
+        }
+        if (limit <= outputOffset + commandLength) {
+            return -1;
+        }
+
+        if (value == BLANK) {
+            if (runLength <= 17) {
+                destination[outputOffset] = (byte) (0xE0 | (runLength - 2));
+            } else {
+                destination[outputOffset] = (byte) (0x60 | ((runLength - 17) >>> 8));
+                destination[outputOffset + 1] = (byte) (runLength - 17);
+            }
+        } else if (value == ZERO) {
+            if (runLength <= 17) {
+                destination[outputOffset] = (byte) (0xF0 | (runLength - 2));
+            } else {
+                destination[outputOffset] = (byte) 0x70;
+                destination[outputOffset + 1] = (byte) (runLength - 17);
+            }
+        } else if (value == AT_SIGN && runLength <= 17) {
+            destination[outputOffset] = (byte) (0xD0 | (runLength - 2));
+        } else if (runLength <= 18) {
+            destination[outputOffset] = (byte) (0xC0 | (runLength - 3));
+            destination[outputOffset + 1] = value;
+        } else {
+            destination[outputOffset] = (byte) 0x40;
+            destination[outputOffset + 1] = (byte) (runLength - 18);
+            destination[outputOffset + 2] = value;
+        }
+        return outputOffset + commandLength;
+    }
+
+    /**
+     * Writes commands to copy bytes from the observation.
+     *
+     * @return The offset after the commands, or -1 if the commands would make the output at least {@code limit} bytes.
+     */
+    private static int writeCopy(byte[] observation, int offset, int length, byte[] destination, int outputOffset,
+        int limit) {
+        while (0 < length) {
+            final int copyLength;
+            if (64 <= length) {
+                copyLength = Math.min(length, MAX_COPY_LENGTH);
+                if (limit <= outputOffset + 2 + copyLength) {
+                    return -1;
+                }
+                destination[outputOffset++] = (byte) ((copyLength - 64) >>> 8);
+                destination[outputOffset++] = (byte) (copyLength - 64);
+            } else {
+                copyLength = length;
+                if (limit <= outputOffset + 1 + copyLength) {
+                    return -1;
+                }
+                if (copyLength <= 16) {
+                    destination[outputOffset++] = (byte) (0x80 | (copyLength - 1));
+                } else if (copyLength <= 32) {
+                    destination[outputOffset++] = (byte) (0x90 | (copyLength - 17));
+                } else if (copyLength <= 48) {
+                    destination[outputOffset++] = (byte) (0xA0 | (copyLength - 33));
+                } else {
+                    destination[outputOffset++] = (byte) (0xB0 | (copyLength - 49));
+                }
+            }
+
+            System.arraycopy(observation, offset, destination, outputOffset, copyLength);
+            outputOffset += copyLength;
+            offset += copyLength;
+            length -= copyLength;
+        }
+        return outputOffset;
+    }
+}
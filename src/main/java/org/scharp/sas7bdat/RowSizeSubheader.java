@@ -16,7 +16,6 @@ class RowSizeSubheader extends FixedSizeSubheader {
 
     private final String datasetType;
     private final String datasetLabel;
-    private final int totalObservationsInDataset;
     private final Sas7bdatPageLayout pageLayout;
     private final long initialPageSequenceNumber;
 
@@ -27,6 +26,10 @@ class RowSizeSubheader extends FixedSizeSubheader {
 
     private final int maxObservationsPerDataPage;
 
+    private long totalObservationsInDataset;
+    private long totalPagesInCompressedDataset;
+    private int totalObservationsOnFinalCompressedPage;
+
     /**
      * Creates a Row Size Subheader
      *
@@ -47,7 +50,7 @@ class RowSizeSubheader extends FixedSizeSubheader {
      *     The total number of observations in the dataset.
      */
     RowSizeSubheader(PageSequenceGenerator pageSequenceGenerator, String datasetType, String datasetLabel,
-        Sas7bdatVariablesLayout variablesLayout, Sas7bdatPageLayout pageLayout, int totalObservationsInDataset) {
+        Sas7bdatVariablesLayout variablesLayout, Sas7bdatPageLayout pageLayout, long totalObservationsInDataset) {
         this.datasetType = datasetType;
         this.datasetLabel = datasetLabel;
         this.totalObservationsInDataset = totalObservationsInDataset;
@@ -74,6 +77,65 @@ class RowSizeSubheader extends FixedSizeSubheader {
         this.maxVariableNameLength = maxVariableNameLength;
         this.maxVariableLabelLength = maxVariableLabelLength;
         this.maxObservationsPerDataPage = Sas7bdatPage.maxObservationsPerDataPage(pageLayout.pageSize, variablesLayout);
+
+        this.totalPagesInCompressedDataset = 0;
+        this.totalObservationsOnFinalCompressedPage = 0;
+    }
+
+    /**
+     * Creates a copy of a Row Size Subheader, so that a dataset with the same metadata can be written with a different
+     * number of observations.
+     *
+     * @param rowSizeSubheader
+     *     The subheader to copy.
+     */
+    RowSizeSubheader(RowSizeSubheader rowSizeSubheader) {
+        this.datasetType = rowSizeSubheader.datasetType;
+        this.datasetLabel = rowSizeSubheader.datasetLabel;
+        this.pageLayout = rowSizeSubheader.pageLayout;
+        this.initialPageSequenceNumber = rowSizeSubheader.initialPageSequenceNumber;
+
+        this.rowSizeInBytes = rowSizeSubheader.rowSizeInBytes;
+        this.totalVariableNameLength = rowSizeSubheader.totalVariableNameLength;
+        this.maxVariableNameLength = rowSizeSubheader.maxVariableNameLength;
+        this.maxVariableLabelLength = rowSizeSubheader.maxVariableLabelLength;
+
+        this.maxObservationsPerDataPage = rowSizeSubheader.maxObservationsPerDataPage;
+
+        this.totalObservationsInDataset = rowSizeSubheader.totalObservationsInDataset;
+        this.totalPagesInCompressedDataset = rowSizeSubheader.totalPagesInCompressedDataset;
+        this.totalObservationsOnFinalCompressedPage = rowSizeSubheader.totalObservationsOnFinalCompressedPage;
+    }
+
+    /**
+     * Sets the total number of observations in the dataset.  This is for datasets whose number of observations isn't
+     * known until after all of them are written, in which case this subheader must be written again.
+     *
+     * @param totalObservationsInDataset
+     *     The total number of observations in the dataset.
+     */
+    void setTotalObservationsInDataset(long totalObservationsInDataset) {
+        assert 0 <= totalObservationsInDataset : "negative totalObservationsInDataset: " + totalObservationsInDataset;
+        this.totalObservationsInDataset = totalObservationsInDataset;
+    }
+
+    /**
+     * Sets the location of the final observation in a compressed dataset.  The observations in a compressed dataset
+     * take a varying amount of space, so, unlike an uncompressed dataset, their location can't be calculated from the
+     * number of observations.
+     *
+     * @param totalPagesInDataset
+     *     The total number of metadata and data pages in the dataset.
+     * @param totalObservationsOnFinalPage
+     *     The number of observations on the final page of the dataset.
+     */
+    void setLocationOfFinalCompressedObservation(long totalPagesInDataset, int totalObservationsOnFinalPage) {
+        assert pageLayout.compression != Compression.NONE : "setting observation location of uncompressed dataset";
+        assert 0 <= totalPagesInDataset : "negative totalPagesInDataset: " + totalPagesInDataset;
+        assert 0 <= totalObservationsOnFinalPage : "negative totalObservationsOnFinalPage: " + totalObservationsOnFinalPage;
+
+        this.totalPagesInCompressedDataset = totalPagesInDataset;
+        this.totalObservationsOnFinalCompressedPage = totalObservationsOnFinalPage;
     }
 
     private void writeRecordLocation(byte[] page, int offset, long pageIndex, long recordIndex) {
@@ -182,8 +244,10 @@ class RowSizeSubheader extends FixedSizeSubheader {
 
         // How many observations can fit on a 'mix' page.
         // This may be larger than the number of observations that are actually on the page.
+        // A compressed dataset stores its observations as subheaders on their own pages, so it has no mixed page.
+        final boolean isCompressed = pageLayout.compression != Compression.NONE;
         final Sas7bdatPage finalMetadataPage = pageLayout.currentMetadataPage;
-        final int totalPossibleObservationsOnMixedPage = finalMetadataPage.maxObservations();
+        final int totalPossibleObservationsOnMixedPage = isCompressed ? 0 : finalMetadataPage.maxObservations();
         write8(page, subheaderOffset + 120, totalPossibleObservationsOnMixedPage);
 
         write8(page, subheaderOffset + 128, 0xFFFFFFFFFFFFFFFFL); // bit pattern
@@ -248,7 +312,9 @@ class RowSizeSubheader extends FixedSizeSubheader {
             finalMetadataPage.subheaders().size() - 1);
 
         // The location of the first data record.
-        int totalObservationsOnMixedPage = Math.min(totalPossibleObservationsOnMixedPage, totalObservationsInDataset);
+        int totalObservationsOnMixedPage = (int) Math.min(
+            totalPossibleObservationsOnMixedPage,
+            totalObservationsInDataset);
         if (totalObservationsInDataset == 0) {
             writeRecordLocation(page, subheaderOffset + 544, 0, 3); // why 3?
         } else {
@@ -269,12 +335,16 @@ class RowSizeSubheader extends FixedSizeSubheader {
         // The location of the last data record.
         if (totalObservationsInDataset == 0) {
             writeRecordLocation(page, subheaderOffset + 560, 0, 3); // why 3?
+        } else if (isCompressed) {
+            // The location of the last compressed observation was given by the exporter.
+            writeRecordLocation(page, subheaderOffset + 560, totalPagesInCompressedDataset,
+                totalObservationsOnFinalCompressedPage);
         } else {
             // If this is obviously corrupt, for example if it's zero or out
             // of the possible range, then SAS won't load the dataset.  However,
             // SAS still loads the dataset if it's legal but incorrect.
             // I don't know what this is used for.
-            final int totalPagesInDataset;
+            final long totalPagesInDataset;
             final int lastRecordIndex;
             if (totalObservationsInDataset == totalObservationsOnMixedPage) {
                 // There are no data pages, so the last data record is the last index on the mixed page.
@@ -282,13 +352,13 @@ class RowSizeSubheader extends FixedSizeSubheader {
                 lastRecordIndex = finalMetadataPage.subheaders().size() + totalObservationsOnMixedPage;
             } else {
                 // The number of data pages is how many it takes to hold the observations not on the mixed page.
-                int totalObservationsOnAllDataPages = totalObservationsInDataset - totalObservationsOnMixedPage;
-                int totalDataPages = divideAndRoundUp(totalObservationsOnAllDataPages, maxObservationsPerDataPage);
+                long totalObservationsOnAllDataPages = totalObservationsInDataset - totalObservationsOnMixedPage;
+                long totalDataPages = divideAndRoundUp(totalObservationsOnAllDataPages, maxObservationsPerDataPage);
                 totalPagesInDataset = subheaderInformation.maxMetadataPageNumber + totalDataPages;
 
                 // The last index on the last page is however many are left over after removing all
                 // the whole pages.
-                int lastIndex = totalObservationsOnAllDataPages % maxObservationsPerDataPage;
+                int lastIndex = (int) (totalObservationsOnAllDataPages % maxObservationsPerDataPage);
                 if (lastIndex == 0) {
                     // This happens when the all data pages are completely full.
                     // In this case, the index of the last record isn't 0, it's last index
@@ -332,10 +402,14 @@ class RowSizeSubheader extends FixedSizeSubheader {
         // The reference to the dataset type string in the column text.
         pageLayout.columnText.writeTextLocation(page, subheaderOffset + 684, datasetType);
 
-        // Unknown
-        write2(page, subheaderOffset + 690, (short) 0x00);
-        write2(page, subheaderOffset + 692, (short) 0x00);
-        write2(page, subheaderOffset + 694, (short) 0x00);
+        // The reference to the compression literal in the column text, which is blank for an uncompressed dataset.
+        if (isCompressed) {
+            pageLayout.columnText.writeTextLocation(page, subheaderOffset + 690, pageLayout.compression.literal());
+        } else {
+            write2(page, subheaderOffset + 690, (short) 0x00);
+            write2(page, subheaderOffset + 692, (short) 0x00);
+            write2(page, subheaderOffset + 694, (short) 0x00);
+        }
 
         // Unknown: possibly a reference to the eight spaces that are the second entry in ColumnText.
         write2(page, subheaderOffset + 696, (short) 0x00); // unknown
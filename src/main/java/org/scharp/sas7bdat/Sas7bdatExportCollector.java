@@ -0,0 +1,225 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * {@link Collector Collectors} that write the observations of a stream to a {@link Sas7bdatExporter}.
+ * <p>
+ * This is an alternative to collecting the observations into a list and passing it to
+ * {@link Sas7bdatExporter#exportDataset}.  As each observation is accumulated, it's serialized into a page-sized chunk
+ * in the form in which it's written to the SAS7BDAT, so no reference to the observation itself is kept.  For a parallel
+ * stream, each fork-join task serializes its observations into its own chunks, and the chunks are merged in the
+ * stream's encounter order, so the observations are exported in the same order as from a sequential stream.
+ * </p>
+ * <p>
+ * A collector can't write anything until the stream is finished, since it can't know which of its containers holds the
+ * first observations in the encounter order.  To export a sequential stream without holding all of its observations,
+ * use {@link #exportStream(Stream, Sas7bdatExporter)} instead, which writes each observation as it's consumed.
+ * </p>
+ *
+ * <pre>
+ * try (Sas7bdatExporter exporter = new Sas7bdatExporter(path, metadata)) {
+ *     records.parallelStream().
+ *         map(record -> List.&lt;Object>of(record.city(), record.high())).
+ *         collect(Sas7bdatExportCollector.toExporter(exporter));
+ * }
+ * </pre>
+ */
+public final class Sas7bdatExportCollector {
+
+    private Sas7bdatExportCollector() {
+    }
+
+    /** A chunk of serialized observations. */
+    private record Chunk(byte[] observations, int totalObservations) {
+    }
+
+    /** The container into which a stream (or a fork-join task of a parallel stream) accumulates its observations. */
+    private static final class SerializedObservations {
+        private final Sas7bdatVariablesLayout variablesLayout;
+        private final int observationsPerChunk;
+        private final List<Chunk> completedChunks;
+
+        private byte[] currentChunk; // null until the first observation is accumulated
+        private int totalObservationsInCurrentChunk;
+        private long totalObservations;
+
+        SerializedObservations(Sas7bdatVariablesLayout variablesLayout, int observationsPerChunk) {
+            this.variablesLayout = variablesLayout;
+            this.observationsPerChunk = observationsPerChunk;
+            completedChunks = new ArrayList<>();
+
+            currentChunk = null;
+            totalObservationsInCurrentChunk = 0;
+            totalObservations = 0;
+        }
+
+        void accumulate(List<Object> observation) {
+            ArgumentUtil.checkNotNull(observation, "observation");
+            variablesLayout.checkObservation(observation);
+
+            if (currentChunk == null) {
+                currentChunk = new byte[observationsPerChunk * variablesLayout.rowLength()];
+            } else if (totalObservationsInCurrentChunk == observationsPerChunk) {
+                completeCurrentChunk();
+                currentChunk = new byte[observationsPerChunk * variablesLayout.rowLength()];
+            }
+
+            variablesLayout.writeObservation(
+                currentChunk,
+                totalObservationsInCurrentChunk * variablesLayout.rowLength(),
+                observation);
+            totalObservationsInCurrentChunk++;
+            totalObservations++;
+        }
+
+        private void completeCurrentChunk() {
+            if (totalObservationsInCurrentChunk != 0) {
+                completedChunks.add(new Chunk(currentChunk, totalObservationsInCurrentChunk));
+            }
+            currentChunk = null;
+            totalObservationsInCurrentChunk = 0;
+        }
+
+        SerializedObservations combine(SerializedObservations following) {
+            // The observations in "following" come after this container's observations in the encounter order.
+            // Only the chunk lists are joined, so a partially filled chunk may be left in the middle.
+            completeCurrentChunk();
+            completedChunks.addAll(following.completedChunks);
+            currentChunk = following.currentChunk;
+            totalObservationsInCurrentChunk = following.totalObservationsInCurrentChunk;
+            totalObservations += following.totalObservations;
+            return this;
+        }
+
+        long writeTo(Sas7bdatExporter exporter) {
+            completeCurrentChunk();
+            try {
+                for (Chunk chunk : completedChunks) {
+                    exporter.writeSerializedObservations(chunk.observations(), chunk.totalObservations());
+                }
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            completedChunks.clear();
+            return totalObservations;
+        }
+    }
+
+    /**
+     * Creates a collector that writes the observations of a stream to an exporter, in the stream's encounter order.
+     * <p>
+     * The observations are written to the exporter when the stream is finished, so an observation that doesn't conform
+     * to the exporter's metadata is reported before any observation is written.  Until then, each observation is held
+     * in its serialized form, which is as many bytes as the dataset's row length.  For a large sequential stream, use
+     * {@link #exportStream(Stream, Sas7bdatExporter)} instead.
+     * </p>
+     * <p>
+     * The collector doesn't close the exporter, so more observations can be written to it after the stream is
+     * finished.  The exporter must not be used while the stream is being collected.
+     * </p>
+     * <p>
+     * When the stream is collected, a {@code NullPointerException} is thrown if an observation is {@code null} or if a
+     * {@code null} value is given for a variable whose type is {@code VariableType.CHARACTER}.  An
+     * {@code IllegalArgumentException} is thrown if an observation contains a value that doesn't conform to the
+     * {@code Sas7bdatMetadata} that was given to the exporter's constructor.  An {@code IllegalStateException} is
+     * thrown if the stream has more observations than were promised in the exporter's constructor.  An
+     * {@code UncheckedIOException} is thrown if an I/O error prevented the observations from being written.
+     * </p>
+     *
+     * @param exporter
+     *     The exporter to which the observations are written.
+     *
+     * @return A collector whose result is the number of observations that were written to the exporter.
+     *
+     * @throws NullPointerException
+     *     if {@code exporter} is {@code null}.
+     * @throws IllegalStateException
+     *     if {@code exporter} is closed.
+     */
+    public static Collector<List<Object>, ?, Long> toExporter(Sas7bdatExporter exporter) {
+        ArgumentUtil.checkNotNull(exporter, "exporter");
+        if (exporter.isClosed()) {
+            throw new IllegalStateException("exporter is closed");
+        }
+
+        final Sas7bdatVariablesLayout variablesLayout = exporter.variablesLayout();
+
+        // Each chunk fills a data page.
+        final int observationsPerChunk = Math.max(1,
+            Sas7bdatPage.maxObservationsPerDataPage(exporter.pageSize(), variablesLayout));
+
+        return Collector.of(
+            () -> new SerializedObservations(variablesLayout, observationsPerChunk),
+            SerializedObservations::accumulate,
+            SerializedObservations::combine,
+            observations -> observations.writeTo(exporter));
+    }
+
+    /**
+     * Writes the observations of a stream to an exporter, in the stream's encounter order.
+     * <p>
+     * If the stream is sequential, then each observation is written to the exporter as it's consumed, so the
+     * observations are never held in memory.  In this case, an observation that doesn't conform to the exporter's
+     * metadata is only reported after the observations that precede it have been written.  If the stream is parallel,
+     * then it's collected with {@link #toExporter(Sas7bdatExporter)}, which holds the serialized observations until the
+     * stream is finished.
+     * </p>
+     * <p>
+     * This doesn't close the exporter, so more observations can be written to it afterward.  The exporter must not be
+     * used while the stream is being consumed.
+     * </p>
+     *
+     * @param observations
+     *     The stream of observations.  Each observation is given as a list of objects, whose legal values are the same
+     *     as for {@link Sas7bdatExporter#writeObservation(List)}.
+     * @param exporter
+     *     The exporter to which the observations are written.
+     *
+     * @return The number of observations that were written to the exporter.
+     *
+     * @throws NullPointerException
+     *     if {@code observations} or {@code exporter} is {@code null}, if an observation is {@code null}, or if a
+     *     {@code null} value is given for a variable whose type is {@code VariableType.CHARACTER}.
+     * @throws IllegalArgumentException
+     *     if an observation contains a value that doesn't conform to the {@code Sas7bdatMetadata} that was given to
+     *     the exporter's constructor.
+     * @throws IllegalStateException
+     *     if {@code exporter} is closed or if the stream has more observations than were promised in the exporter's
+     *     constructor.
+     * @throws UncheckedIOException
+     *     if an I/O error prevented the observations from being written.
+     */
+    public static long exportStream(Stream<List<Object>> observations, Sas7bdatExporter exporter) {
+        ArgumentUtil.checkNotNull(observations, "observations");
+        ArgumentUtil.checkNotNull(exporter, "exporter");
+        if (exporter.isClosed()) {
+            throw new IllegalStateException("exporter is closed");
+        }
+
+        if (observations.isParallel()) {
+            return observations.collect(toExporter(exporter));
+        }
+
+        final AtomicLong totalObservations = new AtomicLong();
+        observations.forEachOrdered(observation -> {
+            try {
+                exporter.writeObservation(observation);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            totalObservations.incrementAndGet();
+        });
+        return totalObservations.get();
+    }
+}
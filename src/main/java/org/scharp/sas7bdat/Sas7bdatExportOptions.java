@@ -0,0 +1,390 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Options that control how a {@link Sas7bdatExporter} writes a SAS7BDAT.
+ * <p>
+ * Instances of this class are immutable.  They are created with a {@link Sas7bdatExportOptions.Builder}:
+ * </p>
+ * <pre>
+ * Sas7bdatExportOptions options = Sas7bdatExportOptions.builder().
+ *     parallelism(8).
+ *     build();
+ *
+ * try (Sas7bdatExporter exporter = new Sas7bdatExporter(targetLocation, metadata, totalObservations, options)) {
+ *     ...
+ * }
+ * </pre>
+ * <p>
+ * By default, each observation is encoded on the thread that gives it to the exporter and each page is written as
+ * soon as it is full.  If the parallelism is greater than 1, then the observations that are given to
+ * {@link Sas7bdatExporter#writeObservation(java.util.List) writeObservation} are only checked on the caller's thread.
+ * They are encoded when their page is full, on the executor, while the caller continues to fill the next page.  The
+ * encoded pages are written to the SAS7BDAT in order by the thread which is using the exporter.  The resulting
+ * SAS7BDAT is identical to the one that would be written without parallelism.
+ * </p>
+ * <p>
+ * Observations that are given to {@link Sas7bdatExporter#beginObservation() beginObservation} or
+ * {@link Sas7bdatExporter#writeObservations(ObservationBatch) writeObservations} are always encoded on the caller's
+ * thread, since they are serialized as they are given, directly into the page's buffer.  Only the page header and
+ * subheaders of their pages are written on the executor.
+ * </p>
+ * <p>
+ * When encoding in parallel, the exporter holds a reference to each value in an observation until its page is
+ * encoded, so a mutable {@code Number}, such as an {@code AtomicInteger}, must not be modified after it is written.
+ * </p>
+ */
+public final class Sas7bdatExportOptions {
+
+    /** The options that are used by the constructors that don't take options */
+    static final Sas7bdatExportOptions DEFAULT = builder().build();
+
+    private final int parallelism;
+    private final Executor executor;
+    private final boolean memoryMapped;
+    private final Compression compression;
+    private final boolean compiledEncoder;
+    private final int characterValueCacheSize;
+    private final boolean collectStatistics;
+    private final boolean pageChecksums;
+
+    /**
+     * A builder class for {@link Sas7bdatExportOptions}.
+     */
+    public final static class Builder {
+        private int parallelism;
+        private Executor executor;
+        private boolean memoryMapped;
+        private Compression compression;
+        private boolean compiledEncoder;
+        private int characterValueCacheSize;
+        private boolean collectStatistics;
+        private boolean pageChecksums;
+
+        /**
+         * Creates a {@code Sas7bdatExportOptions} builder initialized with a parallelism of 1, the common fork-join
+         * pool as the executor, no memory-mapping, no compression, no compiled encoder, no character value cache, no
+         * statistics, and no page checksums.
+         */
+        private Builder() {
+            this.parallelism = 1;
+            this.executor = ForkJoinPool.commonPool();
+            this.memoryMapped = false;
+            this.compression = Compression.NONE;
+            this.compiledEncoder = false;
+            this.characterValueCacheSize = 0;
+            this.collectStatistics = false;
+            this.pageChecksums = false;
+        }
+
+        /**
+         * Sets the maximum number of pages that may be encoded concurrently.
+         * <p>
+         * A value of 1 encodes every observation on the thread which gives it to the exporter.  Each page that is
+         * being encoded holds a page-sized buffer, so larger values use more memory.
+         * </p>
+         *
+         * @param parallelism
+         *     The maximum number of pages that may be encoded concurrently.
+         *
+         * @return This builder
+         *
+         * @throws IllegalArgumentException
+         *     if {@code parallelism} is less than 1.
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be positive");
+            }
+
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Sets the executor on which pages are encoded when the parallelism is greater than 1.
+         * <p>
+         * The exporter does not shut down the executor.
+         * </p>
+         *
+         * @param executor
+         *     The executor on which to encode pages.
+         *
+         * @return This builder
+         *
+         * @throws NullPointerException
+         *     if {@code executor} is {@code null}.
+         */
+        public Builder executor(Executor executor) {
+            ArgumentUtil.checkNotNull(executor, "executor");
+
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets whether a file should be written through a memory mapping instead of a stream.
+         * <p>
+         * When this is {@code true}, each page is copied into a memory-mapped region of the file instead of being
+         * written with a system call.  This is only possible when the size of the file is known when the exporter is
+         * constructed, so it only applies to
+         * {@link Sas7bdatExporter#Sas7bdatExporter(java.nio.file.Path, Sas7bdatMetadata, long, Sas7bdatExportOptions)}.
+         * The other constructors ignore it.
+         * </p>
+         *
+         * @param memoryMapped
+         *     {@code true}, if the file should be memory-mapped; {@code false}, otherwise.
+         *
+         * @return This builder
+         */
+        public Builder memoryMapped(boolean memoryMapped) {
+            this.memoryMapped = memoryMapped;
+            return this;
+        }
+
+        /**
+         * Sets how the observations in the SAS7BDAT should be compressed.
+         * <p>
+         * Each observation in a compressed SAS7BDAT takes a different amount of space, so the number of pages isn't
+         * known until all observations are written.  Therefore, compression is only supported by the constructors which
+         * don't take the number of observations, such as
+         * {@link Sas7bdatExporter#Sas7bdatExporter(java.nio.channels.SeekableByteChannel, Sas7bdatMetadata,
+         * Sas7bdatExportOptions)}.  The other constructors throw an {@code IllegalArgumentException} if the options
+         * specify compression.  Observations are always compressed on the thread which gives them to the exporter, so
+         * the parallelism is ignored.
+         * </p>
+         *
+         * @param compression
+         *     The compression method.
+         *
+         * @return This builder
+         *
+         * @throws NullPointerException
+         *     if {@code compression} is {@code null}.
+         */
+        public Builder compression(Compression compression) {
+            ArgumentUtil.checkNotNull(compression, "compression");
+
+            this.compression = compression;
+            return this;
+        }
+
+        /**
+         * Sets whether observations should be serialized by an encoder that is compiled for the dataset's variables.
+         * <p>
+         * By default, each observation that is given to
+         * {@link Sas7bdatExporter#writeObservation(java.util.List) writeObservation} is serialized by a loop which
+         * checks each variable's type.  When this is {@code true}, the exporter instead composes a serializer for the
+         * variables when it is constructed, in which each variable's offset and type are constants.  Once the JIT
+         * compiles it, this serializes observations with many variables faster, but it costs more to set up, so it's
+         * best for large datasets and for exporters created from a {@link Sas7bdatExportPlan}.  If the dataset has
+         * too many variables for a compiled encoder to help, the loop is used.  The SAS7BDAT is the same either way.
+         * </p>
+         *
+         * @param compiledEncoder
+         *     {@code true}, if the observations should be serialized by a compiled encoder; {@code false}, otherwise.
+         *
+         * @return This builder
+         */
+        public Builder compiledEncoder(boolean compiledEncoder) {
+            this.compiledEncoder = compiledEncoder;
+            return this;
+        }
+
+        /**
+         * Sets the number of distinct values of each CHARACTER variable whose encodings are cached.
+         * <p>
+         * By default, each CHARACTER value is encoded in UTF-8 every time it is written.  When this is positive, the
+         * exporter keeps the padded encodings of each CHARACTER variable's recently used values, up to this
+         * many, and copies a value's encoding instead of encoding it again.  This helps variables that hold a small
+         * set of codes that are repeated in many observations, such as a country or a visit name.  Each cached
+         * encoding takes as many bytes as its variable's length, so the cache can use up to this many times the
+         * length of all CHARACTER variables.  The SAS7BDAT is the same either way.
+         * </p>
+         *
+         * @param characterValueCacheSize
+         *     The most values to cache for each CHARACTER variable, or 0 to not cache them.
+         *
+         * @return This builder
+         *
+         * @throws IllegalArgumentException
+         *     if {@code characterValueCacheSize} is negative.
+         */
+        public Builder characterValueCacheSize(int characterValueCacheSize) {
+            ArgumentUtil.checkNotNegative(characterValueCacheSize, "characterValueCacheSize");
+
+            this.characterValueCacheSize = characterValueCacheSize;
+            return this;
+        }
+
+        /**
+         * Sets whether the exporter should collect statistics of each variable's values.
+         * <p>
+         * When this is {@code true}, the exporter accumulates the minimum and maximum of each NUMERIC variable, the
+         * number of each kind of missing value, and a histogram of the lengths of each CHARACTER variable's values as
+         * it writes the observations.  They're available from {@link Sas7bdatExporter#statistics()} after the
+         * exporter is closed, so the SAS7BDAT doesn't have to be read again to compute them.  The SAS7BDAT is the same
+         * either way.
+         * </p>
+         *
+         * @param collectStatistics
+         *     {@code true}, if statistics should be collected; {@code false}, otherwise.
+         *
+         * @return This builder
+         */
+        public Builder collectStatistics(boolean collectStatistics) {
+            this.collectStatistics = collectStatistics;
+            return this;
+        }
+
+        /**
+         * Sets whether the exporter should compute a checksum of each page as it writes it.
+         * <p>
+         * When this is {@code true}, the exporter computes the CRC32C checksum of each page, including the file header,
+         * and of the whole SAS7BDAT.  They're available from {@link Sas7bdatExporter#pageChecksums()} after the
+         * exporter is closed, so that a copy of the SAS7BDAT can be verified without reading the original again.  The
+         * SAS7BDAT is the same either way.
+         * </p>
+         *
+         * @param pageChecksums
+         *     {@code true}, if page checksums should be computed; {@code false}, otherwise.
+         *
+         * @return This builder
+         */
+        public Builder pageChecksums(boolean pageChecksums) {
+            this.pageChecksums = pageChecksums;
+            return this;
+        }
+
+        /**
+         * Builds the immutable {@code Sas7bdatExportOptions} with the configured options.
+         *
+         * @return A {@code Sas7bdatExportOptions}
+         */
+        public Sas7bdatExportOptions build() {
+            return new Sas7bdatExportOptions(parallelism, executor, memoryMapped, compression, compiledEncoder,
+                characterValueCacheSize, collectStatistics, pageChecksums);
+        }
+    }
+
+    /**
+     * Creates a new {@code Sas7bdatExportOptions} builder initialized with a parallelism of 1, the common fork-join
+     * pool as the executor, no memory-mapping, no compression, no compiled encoder, no character value cache, no
+     * statistics, and no page checksums.
+     *
+     * @return A new builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * A private constructor, invoked only by {@link Builder}.
+     *
+     * @param parallelism
+     *     The maximum number of pages to encode concurrently
+     * @param executor
+     *     The executor on which pages are encoded
+     * @param memoryMapped
+     *     Whether a file should be written through a memory mapping
+     * @param compression
+     *     How the observations should be compressed
+     * @param compiledEncoder
+     *     Whether observations should be serialized by a compiled encoder
+     * @param characterValueCacheSize
+     *     The most values to cache for each CHARACTER variable
+     * @param collectStatistics
+     *     Whether statistics of each variable's values should be collected
+     * @param pageChecksums
+     *     Whether a checksum of each page should be computed
+     */
+    private Sas7bdatExportOptions(int parallelism, Executor executor, boolean memoryMapped, Compression compression,
+        boolean compiledEncoder, int characterValueCacheSize, boolean collectStatistics, boolean pageChecksums) {
+        this.parallelism = parallelism;
+        this.executor = executor;
+        this.memoryMapped = memoryMapped;
+        this.compression = compression;
+        this.compiledEncoder = compiledEncoder;
+        this.characterValueCacheSize = characterValueCacheSize;
+        this.collectStatistics = collectStatistics;
+        this.pageChecksums = pageChecksums;
+    }
+
+    /**
+     * Gets the maximum number of pages that may be encoded concurrently.
+     *
+     * @return The parallelism.  This is always positive.
+     */
+    public int parallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Gets the executor on which pages are encoded when the parallelism is greater than 1.
+     *
+     * @return The executor.  This is never {@code null}.
+     */
+    public Executor executor() {
+        return executor;
+    }
+
+    /**
+     * Gets whether a file should be written through a memory mapping instead of a stream.
+     *
+     * @return {@code true}, if a file should be memory-mapped; {@code false}, otherwise.
+     */
+    public boolean memoryMapped() {
+        return memoryMapped;
+    }
+
+    /**
+     * Gets how the observations in the SAS7BDAT should be compressed.
+     *
+     * @return The compression method.  This is never {@code null}.
+     */
+    public Compression compression() {
+        return compression;
+    }
+
+    /**
+     * Gets whether observations should be serialized by an encoder that is compiled for the dataset's variables.
+     *
+     * @return {@code true}, if observations should be serialized by a compiled encoder; {@code false}, otherwise.
+     */
+    public boolean compiledEncoder() {
+        return compiledEncoder;
+    }
+
+    /**
+     * Gets the number of distinct values of each CHARACTER variable whose encodings are cached.
+     *
+     * @return The most values to cache for each CHARACTER variable, or 0 if they aren't cached.
+     */
+    public int characterValueCacheSize() {
+        return characterValueCacheSize;
+    }
+
+    /**
+     * Gets whether the exporter should collect statistics of each variable's values.
+     *
+     * @return {@code true}, if statistics should be collected; {@code false}, otherwise.
+     */
+    public boolean collectStatistics() {
+        return collectStatistics;
+    }
+
+    /**
+     * Gets whether the exporter should compute a checksum of each page as it writes it.
+     *
+     * @return {@code true}, if page checksums should be computed; {@code false}, otherwise.
+     */
+    public boolean pageChecksums() {
+        return pageChecksums;
+    }
+}
@@ -0,0 +1,437 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+
+import static org.scharp.sas7bdat.MathUtil.divideAndRoundUp;
+
+/**
+ * A precompiled plan for exporting any number of SAS7BDAT files that have the same metadata.
+ * <p>
+ * Laying out the variables and the metadata pages of a SAS7BDAT is done once, when the plan is compiled.  Each
+ * exporter that is created from the plan copies the encoded metadata pages and only fills in the parts that depend on
+ * the number of observations.  This makes creating an exporter cheap, which matters when many small datasets with the
+ * same variables are exported.
+ * </p>
+ * <pre>
+ * Sas7bdatExportPlan plan = Sas7bdatExportPlan.compile(metadata);
+ *
+ * for (Site site : sites) {
+ *     List&lt;List&lt;Object&gt;&gt; observations = site.observations();
+ *     try (Sas7bdatExporter exporter = plan.newExporter(site.targetLocation(), observations.size())) {
+ *         for (List&lt;Object&gt; observation : observations) {
+ *             exporter.writeObservation(observation);
+ *         }
+ *     }
+ * }
+ * </pre>
+ * <p>
+ * Instances of this class are immutable and may be used by multiple threads concurrently.  The SAS7BDAT that an
+ * exporter from a plan writes is identical to the one that would be written by an exporter which was constructed with
+ * the plan's metadata and options.
+ * </p>
+ * <p>
+ * If the plan's options set a {@link Sas7bdatExportOptions.Builder#characterValueCacheSize(int) character value cache
+ * size}, then the exporters from the plan share its caches of encoded values.  The caches are lock-free, and they only
+ * change how quickly values are encoded, not what is written.
+ * </p>
+ */
+public final class Sas7bdatExportPlan {
+
+    final Sas7bdatMetadata metadata;
+    final Sas7bdatExportOptions options;
+    final Sas7bdatVariablesLayout variablesLayout;
+    final Sas7bdatPageLayout pageLayout;
+
+    /** The page sequence generator, as it is after the metadata pages were created. */
+    final PageSequenceGenerator pageSequenceGenerator;
+
+    /** The RowSizeSubheader, for a dataset without observations. */
+    final RowSizeSubheader rowSizeSubheader;
+
+    /** The final metadata page, which is the mixed page in an uncompressed dataset. */
+    final Sas7bdatPage finalMetadataPage;
+
+    /**
+     * The encoded metadata pages that don't hold observations.  The RowSizeSubheader on the first of these is encoded
+     * for a dataset without observations.
+     */
+    private final byte[][] metadataPageImages;
+
+    private Sas7bdatExportPlan(Sas7bdatMetadata metadata, Sas7bdatExportOptions options) {
+        this.metadata = metadata;
+        this.options = options;
+        variablesLayout = new Sas7bdatVariablesLayout(metadata.variables(), options.compiledEncoder(),
+            options.characterValueCacheSize());
+        pageSequenceGenerator = new PageSequenceGenerator();
+        pageLayout = new Sas7bdatPageLayout(pageSequenceGenerator, variablesLayout, options.compression());
+
+        // SAS always pads the dataset type with spaces so that it's 8 bytes.
+        String paddedDatasetType = metadata.datasetType() + " ".repeat(
+            8 - WriteUtil.utf8Length(metadata.datasetType()));
+
+        // Add the subheaders in the order in which they should be listed in the subheaders index.
+        // Note that this is the reverse order in which they appear on a metadata page.
+        rowSizeSubheader = new RowSizeSubheader(
+            pageSequenceGenerator,
+            paddedDatasetType,
+            metadata.datasetLabel(),
+            variablesLayout,
+            pageLayout,
+            0); // Each exporter sets the number of observations in its own copy.
+        pageLayout.addSubheader(rowSizeSubheader);
+
+        pageLayout.addSubheader(new ColumnSizeSubheader(metadata.variables()));
+
+        pageLayout.addSubheader(new SubheaderCountsSubheader(pageLayout));
+
+        // Next, SAS adds the ColumnTextSubheaders.  Since a Subheader cannot be larger than Short.MAX_SIZE
+        // bytes, if there's a lot of metadata text, multiple ColumnTextSubheaders may be needed.
+        // SAS adds these in a way that is aware of how much space is left on the metadata page so that
+        // a subheader is limited to fill what's left on the page.  Therefore, populating the
+        // ColumnTextSubheaders must be coupled with the logic for adding subheaders to pages.
+        // And since all ColumnTextSubheaders must be consecutive, all text must be added at the same time.
+        //
+        // I would have preferred a design where each subheader that needs to reference a string would
+        // be the one to add it to the ColumnText.  I think that would have been better encapsulation.
+        // However, I wasn't able to make that design work and still limit the column text subheaders
+        // to fit the available space on the page.  Therefore, all strings referenced by any subheader
+        // are added here.
+        //
+        // To assist with troubleshooting, the text is added in the same order in which SAS adds it.
+
+        // The first ColumnTextSubheader in the datasets which SAS generates has an extra
+        // four bytes of padding between the size of the header and the first string.
+        // Adding the string of 0x00 0x00 0x00 0x00 matches what SAS usually generates.
+        // Sometimes SAS generates 0x00 0x00 0x00 0x14 or 0x00 0x00 0x00 0x1d,
+        // but I don't know if this has any meaning.
+        pageLayout.columnText.add("\0\0\0\0");
+
+        // SAS puts the name of the compression method here.  Uncompressed datasets have blanks.
+        final Compression compression = pageLayout.compression;
+        pageLayout.columnText.add(compression == Compression.NONE ? " ".repeat(8) : compression.literal());
+        pageLayout.columnText.add(paddedDatasetType); // Add the dataset type, padded with spaces.
+        pageLayout.columnText.add("DATASTEP"); // add the PROC step which created the dataset
+        pageLayout.columnText.add(metadata.datasetLabel()); // add the dataset label
+
+        for (Variable variable : metadata.variables()) {
+            pageLayout.columnText.add(variable.name());
+            pageLayout.columnText.add(variable.label());
+
+            // CONSIDER: SAS uppercases the format names before storing them.
+            pageLayout.columnText.add(variable.inputFormat().name());
+            pageLayout.columnText.add(variable.outputFormat().name());
+        }
+
+        // Add the partially-written column text subheader to the metadata page.
+        // This is essential, as all column text subheaders must be added before
+        // the next subheader type is added.
+        pageLayout.columnText.noMoreText();
+
+        int offset = 0;
+        while (offset < variablesLayout.totalVariables()) {
+            ColumnNameSubheader nextSubheader = new ColumnNameSubheader(
+                metadata.variables(),
+                offset,
+                pageLayout.columnText);
+            pageLayout.addSubheader(nextSubheader);
+            offset += nextSubheader.totalVariablesInSubheader();
+        }
+
+        // Add the ColumnAttributesSubheaders
+        offset = 0;
+        while (offset < variablesLayout.totalVariables()) {
+            // Datasets that are generated by SAS limit the size of this subheader to 24588 bytes.
+            // In theory, it should be able to hold (Short.MAX_VALUE - 8) / 16 bytes, or 2047 variables.
+            //
+            // If there isn't enough space on the current metadata page for a subheader that contains all variables,
+            // then split the subheader so that we use all remaining space on the metadata pages.  This is what
+            // SAS does.
+            final int spaceInPage = pageLayout.currentMetadataPage.totalBytesRemainingForNewSubheader();
+            final int maxSize;
+            if (spaceInPage < ColumnAttributesSubheader.MIN_SIZE) {
+                // There's not enough space remaining for a useful header. Pick a large subheader for the next page.
+                maxSize = 24588;
+            } else {
+                maxSize = Math.min(24588, spaceInPage);
+            }
+
+            ColumnAttributesSubheader nextSubheader = new ColumnAttributesSubheader(variablesLayout, offset, maxSize);
+            pageLayout.addSubheader(nextSubheader);
+            offset += nextSubheader.totalVariablesInSubheader();
+        }
+
+        // Add the column list subheaders.  SAS only adds them if there's more than one variable.
+        if (1 < variablesLayout.totalVariables()) {
+            offset = 0;
+            while (offset < variablesLayout.totalVariables()) {
+                ColumnListSubheader nextSubheader = new ColumnListSubheader(variablesLayout, offset);
+                pageLayout.addSubheader(nextSubheader);
+                offset += nextSubheader.totalVariablesInSubheader();
+            }
+        }
+
+        // Add the column format subheaders.
+        for (Variable variable : metadata.variables()) {
+            pageLayout.addSubheader(new ColumnFormatSubheader(variable, pageLayout.columnText));
+        }
+
+        // Finalize the subheaders on the final metadata page.
+        finalMetadataPage = pageLayout.finalizeMetadata();
+
+        // Encode all metadata pages except the last one, which may be able to hold observations.
+        // Compressed observations are stored as subheaders on the pages after the metadata, so in that case, all
+        // metadata pages are encoded.
+        final int totalMetadataPageImages = compression == Compression.NONE ?
+            pageLayout.completeMetadataPages.size() - 1 :
+            pageLayout.completeMetadataPages.size();
+        metadataPageImages = new byte[totalMetadataPageImages][];
+        for (int i = 0; i < totalMetadataPageImages; i++) {
+            byte[] pageImage = new byte[pageLayout.pageSize];
+            pageLayout.completeMetadataPages.get(i).write(pageImage);
+            metadataPageImages[i] = pageImage;
+        }
+    }
+
+    /**
+     * Compiles a plan for exporting SAS7BDAT files with the default options.
+     *
+     * @param metadata
+     *     The metadata of the SAS7BDAT files.
+     *
+     * @return A new plan.
+     *
+     * @throws NullPointerException
+     *     if {@code metadata} is {@code null}.
+     */
+    public static Sas7bdatExportPlan compile(Sas7bdatMetadata metadata) {
+        return compile(metadata, Sas7bdatExportOptions.DEFAULT);
+    }
+
+    /**
+     * Compiles a plan for exporting SAS7BDAT files.
+     *
+     * @param metadata
+     *     The metadata of the SAS7BDAT files.
+     * @param options
+     *     Options that control how the SAS7BDAT files are written.
+     *
+     * @return A new plan.
+     *
+     * @throws NullPointerException
+     *     if {@code metadata} or {@code options} are {@code null}.
+     */
+    public static Sas7bdatExportPlan compile(Sas7bdatMetadata metadata, Sas7bdatExportOptions options) {
+        ArgumentUtil.checkNotNull(metadata, "metadata");
+        ArgumentUtil.checkNotNull(options, "options");
+        return new Sas7bdatExportPlan(metadata, options);
+    }
+
+    /**
+     * Gets the metadata of the SAS7BDAT files that are exported with this plan.
+     *
+     * @return This plan's metadata.
+     */
+    public Sas7bdatMetadata metadata() {
+        return metadata;
+    }
+
+    /**
+     * Gets the options that control how the SAS7BDAT files are written.
+     *
+     * @return This plan's options.
+     */
+    public Sas7bdatExportOptions options() {
+        return options;
+    }
+
+    /**
+     * Gets the number of metadata pages that were encoded when this plan was compiled.
+     *
+     * @return The number of encoded metadata pages.
+     */
+    int totalMetadataPageImages() {
+        return metadataPageImages.length;
+    }
+
+    /**
+     * Copies an encoded metadata page into a buffer.
+     *
+     * @param pageIndex
+     *     The index of the metadata page, where 0 is the first metadata page.
+     * @param data
+     *     The page-sized buffer into which the metadata page is copied.
+     */
+    void copyMetadataPageImage(int pageIndex, byte[] data) {
+        assert data.length == pageLayout.pageSize : "data is not sized correctly: " + data.length;
+        System.arraycopy(metadataPageImages[pageIndex], 0, data, 0, data.length);
+    }
+
+    /**
+     * Calculates how many pages are needed in the dataset, not including the file header.
+     *
+     * @param totalObservationsInDataset
+     *     The number of observations in the dataset.
+     *
+     * @return The total number of metadata, mixed, and data pages.
+     */
+    long totalPagesInDataset(long totalObservationsInDataset) {
+        final int maxObservationsOnMixedPage = pageLayout.currentMetadataPage.maxObservations();
+        final long totalNumberOfDataPages;
+        if (totalObservationsInDataset <= maxObservationsOnMixedPage) {
+            // All observations can fit on the mixed page, so there's no need for data pages.
+            totalNumberOfDataPages = 0;
+        } else {
+            long observationsOnAllDataPages = totalObservationsInDataset - maxObservationsOnMixedPage;
+            final int maxObservationsPerDataPage = Sas7bdatPage.maxObservationsPerDataPage(
+                pageLayout.pageSize,
+                variablesLayout);
+
+            // observationsOnAllDataPages / observationsPerDataPage rounded up
+            totalNumberOfDataPages = divideAndRoundUp(observationsOnAllDataPages, maxObservationsPerDataPage);
+        }
+
+        final int totalNumberOfMetadataPages = pageLayout.completeMetadataPages.size();
+        return totalNumberOfMetadataPages + totalNumberOfDataPages;
+    }
+
+    /**
+     * Creates a {@code Sas7bdatExporter} for streaming a SAS7BDAT with this plan to an output stream.
+     * <p>
+     * This is like {@link Sas7bdatExporter#Sas7bdatExporter(OutputStream, Sas7bdatMetadata, long,
+     * Sas7bdatExportOptions)}, except that the metadata is not laid out again.
+     * </p>
+     *
+     * @param outputStream
+     *     An output stream to which the SAS7BDAT should be written.  The resulting exporter owns this stream and will
+     *     close it when it is closed.
+     * @param totalObservationsInDataset
+     *     The total number of observation that will be written to the dataset.  You must invoke
+     *     {@link Sas7bdatExporter#writeObservation writeObservation} exactly this number of times before invoking
+     *     {@link Sas7bdatExporter#close}, or else the SAS7BDAT may be corrupt.
+     *
+     * @return A new exporter.
+     *
+     * @throws IOException
+     *     If an I/O problem prevented the SAS7BDAT from being written.
+     * @throws NullPointerException
+     *     if {@code outputStream} is {@code null}.
+     * @throws IllegalArgumentException
+     *     if {@code totalObservationsInDataset} is negative or if this plan's options specify compression.
+     */
+    public Sas7bdatExporter newExporter(OutputStream outputStream, long totalObservationsInDataset)
+        throws IOException {
+        return new Sas7bdatExporter(this, outputStream, totalObservationsInDataset);
+    }
+
+    /**
+     * Creates a {@code Sas7bdatExporter} for streaming a SAS7BDAT with this plan to a file.
+     * <p>
+     * This is like {@link Sas7bdatExporter#Sas7bdatExporter(Path, Sas7bdatMetadata, long, Sas7bdatExportOptions)},
+     * except that the metadata is not laid out again.
+     * </p>
+     *
+     * @param targetLocation
+     *     The path to the file to which the SAS7BDAT should be written. If the file doesn't exist, then it will be
+     *     created.  If the file does exist, then its contents will be replaced.
+     * @param totalObservationsInDataset
+     *     The total number of observation that will be written to the dataset.  You must invoke
+     *     {@link Sas7bdatExporter#writeObservation writeObservation} exactly this number of times before invoking
+     *     {@link Sas7bdatExporter#close}, or else the SAS7BDAT may be corrupt.
+     *
+     * @return A new exporter.
+     *
+     * @throws IOException
+     *     If an I/O problem prevented the SAS7BDAT from being created.
+     * @throws NullPointerException
+     *     if {@code targetLocation} is {@code null}.
+     * @throws IllegalArgumentException
+     *     if {@code totalObservationsInDataset} is negative or if this plan's options specify compression.
+     */
+    public Sas7bdatExporter newExporter(Path targetLocation, long totalObservationsInDataset) throws IOException {
+        return new Sas7bdatExporter(this, targetLocation, totalObservationsInDataset);
+    }
+
+    /**
+     * Creates a {@code Sas7bdatExporter} for streaming a SAS7BDAT with this plan and an unknown number of
+     * observations to a seekable byte channel.
+     * <p>
+     * This is like {@link Sas7bdatExporter#Sas7bdatExporter(SeekableByteChannel, Sas7bdatMetadata,
+     * Sas7bdatExportOptions)}, except that the metadata is not laid out again.
+     * </p>
+     *
+     * @param channel
+     *     A channel to which the SAS7BDAT should be written, starting at its current position.  The resulting exporter
+     *     owns this channel and will close it when it is closed.
+     *
+     * @return A new exporter.
+     *
+     * @throws IOException
+     *     If an I/O problem prevented the SAS7BDAT from being written.
+     * @throws NullPointerException
+     *     if {@code channel} is {@code null}.
+     */
+    public Sas7bdatExporter newExporter(SeekableByteChannel channel) throws IOException {
+        return new Sas7bdatExporter(this, channel, false);
+    }
+
+    /**
+     * Creates a {@code Sas7bdatExporter} for streaming a SAS7BDAT with this plan and an unknown number of
+     * observations to a file.
+     * <p>
+     * This is like {@link Sas7bdatExporter#Sas7bdatExporter(Path, Sas7bdatMetadata, Sas7bdatExportOptions)}, except
+     * that the metadata is not laid out again.
+     * </p>
+     *
+     * @param targetLocation
+     *     The path to the file to which the SAS7BDAT should be written. If the file doesn't exist, then it will be
+     *     created.  If the file does exist, then its contents will be replaced.
+     *
+     * @return A new exporter.
+     *
+     * @throws IOException
+     *     If an I/O problem prevented the SAS7BDAT from being created.
+     * @throws NullPointerException
+     *     if {@code targetLocation} is {@code null}.
+     */
+    public Sas7bdatExporter newExporter(Path targetLocation) throws IOException {
+        return new Sas7bdatExporter(this, targetLocation);
+    }
+
+    /**
+     * Creates a {@code PartitionedSas7bdatExporter} for writing a SAS7BDAT with this plan to a file in partitions
+     * that can be written concurrently.
+     * <p>
+     * The header and metadata are written before this method returns.  This plan's parallelism, executor, and
+     * memory-mapping options are not used, since each partition writes its own pages to the file.  Its compression,
+     * statistics collection, and page checksum options are not supported.
+     * </p>
+     *
+     * @param targetLocation
+     *     The path to the file to which the SAS7BDAT should be written. If the file doesn't exist, then it will be
+     *     created.  If the file does exist, then its contents will be replaced.
+     * @param totalObservationsInDataset
+     *     The total number of observation that will be written to the dataset.  The partitions must cover exactly
+     *     this number of observations, or else the SAS7BDAT may be corrupt.
+     *
+     * @return A new partitioned exporter.
+     *
+     * @throws IOException
+     *     If an I/O problem prevented the SAS7BDAT from being created.
+     * @throws NullPointerException
+     *     if {@code targetLocation} is {@code null}.
+     * @throws IllegalArgumentException
+     *     if {@code totalObservationsInDataset} is negative or if this plan's options specify compression,
+     *     statistics collection, or page checksums.
+     */
+    public PartitionedSas7bdatExporter newPartitionedExporter(Path targetLocation, long totalObservationsInDataset)
+        throws IOException {
+        return new PartitionedSas7bdatExporter(this, targetLocation, totalObservationsInDataset);
+    }
+}
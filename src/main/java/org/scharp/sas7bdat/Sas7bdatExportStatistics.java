@@ -0,0 +1,170 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.util.List;
+
+/**
+ * Per-variable statistics of the observations that a {@link Sas7bdatExporter} wrote.
+ * <p>
+ * These are only collected if {@link Sas7bdatExportOptions.Builder#collectStatistics(boolean)} was enabled, and they're
+ * available from {@link Sas7bdatExporter#statistics()} once the exporter is closed.  They're accumulated while the
+ * observations are written, so they don't require the SAS7BDAT to be read again.
+ * </p>
+ * <p>
+ * The statistics describe the values as they were written to the SAS7BDAT.  For example, the minimum of a NUMERIC
+ * variable whose length is less than 8 is its value after it was truncated, and the length of a CHARACTER value is the
+ * number of bytes in its UTF-8 encoding, not counting trailing blanks.
+ * </p>
+ * <p>
+ * Instances of this class are immutable.
+ * </p>
+ */
+public final class Sas7bdatExportStatistics {
+
+    private static final int TOTAL_MISSING_VALUES = MissingValue.values().length;
+
+    private final List<Variable> variables;
+    private final long totalObservations;
+    private final double[] minimums;
+    private final double[] maximums;
+    private final long[] missingValueCounts;
+    private final long[][] lengthHistograms;
+
+    Sas7bdatExportStatistics(List<Variable> variables, long totalObservations, double[] minimums, double[] maximums,
+        long[] missingValueCounts, long[][] lengthHistograms) {
+        this.variables = variables;
+        this.totalObservations = totalObservations;
+        this.minimums = minimums;
+        this.maximums = maximums;
+        this.missingValueCounts = missingValueCounts;
+        this.lengthHistograms = lengthHistograms;
+    }
+
+    private void checkType(int variableIndex, VariableType type) {
+        Variable variable = variables.get(variableIndex);
+        if (variable.type() != type) {
+            throw new IllegalArgumentException(
+                "A " + (type == VariableType.NUMERIC ? "numeric" : "character") +
+                    " statistic was requested from the variable named " + variable.name() + ", which has a " +
+                    variable.type() + " type");
+        }
+    }
+
+    /**
+     * Gets the number of observations that were written.
+     *
+     * @return The number of observations.
+     */
+    public long totalObservations() {
+        return totalObservations;
+    }
+
+    /**
+     * Gets the smallest value of a NUMERIC variable, ignoring missing values.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     *
+     * @return The smallest value, or {@code NaN} if every value was missing.
+     *
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a NUMERIC type.
+     */
+    public double minimum(int variableIndex) {
+        checkType(variableIndex, VariableType.NUMERIC);
+        return minimums[variableIndex] <= maximums[variableIndex] ? minimums[variableIndex] : Double.NaN;
+    }
+
+    /**
+     * Gets the largest value of a NUMERIC variable, ignoring missing values.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     *
+     * @return The largest value, or {@code NaN} if every value was missing.
+     *
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a NUMERIC type.
+     */
+    public double maximum(int variableIndex) {
+        checkType(variableIndex, VariableType.NUMERIC);
+        return minimums[variableIndex] <= maximums[variableIndex] ? maximums[variableIndex] : Double.NaN;
+    }
+
+    /**
+     * Gets the number of times that a NUMERIC variable had a specific missing value.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     * @param missingValue
+     *     The missing value to count.
+     *
+     * @return The number of observations in which the variable's value was {@code missingValue}.
+     *
+     * @throws NullPointerException
+     *     if {@code missingValue} is {@code null}.
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a NUMERIC type.
+     */
+    public long totalMissingValues(int variableIndex, MissingValue missingValue) {
+        ArgumentUtil.checkNotNull(missingValue, "missingValue");
+        checkType(variableIndex, VariableType.NUMERIC);
+        return missingValueCounts[variableIndex * TOTAL_MISSING_VALUES + missingValue.ordinal()];
+    }
+
+    /**
+     * Gets the number of times that a variable's value was missing.
+     * <p>
+     * For a NUMERIC variable, this counts every kind of {@link MissingValue}.  For a CHARACTER variable, this counts
+     * the values that were empty or entirely blank.
+     * </p>
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     *
+     * @return The number of observations in which the variable's value was missing.
+     *
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     */
+    public long totalMissingValues(int variableIndex) {
+        if (variables.get(variableIndex).type() == VariableType.CHARACTER) {
+            return lengthHistograms[variableIndex][0];
+        }
+
+        long totalMissingValues = 0;
+        for (int i = 0; i < TOTAL_MISSING_VALUES; i++) {
+            totalMissingValues += missingValueCounts[variableIndex * TOTAL_MISSING_VALUES + i];
+        }
+        return totalMissingValues;
+    }
+
+    /**
+     * Gets a histogram of the lengths of a CHARACTER variable's values.
+     *
+     * @param variableIndex
+     *     The (0-based) index of the variable in the dataset's metadata.
+     *
+     * @return An array whose element at index {@code n} is the number of values that were {@code n} bytes long, not
+     *     counting trailing blanks.  It has one more element than the variable's length.  This is a copy, so it may be
+     *     modified.
+     *
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable in the dataset.
+     * @throws IllegalArgumentException
+     *     if the variable doesn't have a CHARACTER type.
+     */
+    public long[] lengthHistogram(int variableIndex) {
+        checkType(variableIndex, VariableType.CHARACTER);
+        return lengthHistograms[variableIndex].clone();
+    }
+}
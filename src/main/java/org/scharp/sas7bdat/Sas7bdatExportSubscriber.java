@@ -0,0 +1,243 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.BiConsumer;
+
+/**
+ * A {@link Flow.Subscriber} that writes the rows it receives to a {@link Sas7bdatExporter}.
+ * <p>
+ * Rows are requested a page at a time.  When a page's worth of rows has been received, they are written to the
+ * exporter on an executor, and the next page's worth is only requested after they have been written.  This way, the
+ * publisher's thread never blocks on the exporter, the demand follows the speed at which the SAS7BDAT can be written,
+ * and at most one page of rows is buffered.
+ * </p>
+ * <p>
+ * The exporter is closed when the publisher completes.  The outcome of the export is reported by
+ * {@link #completion()}.  If the publisher signals an error or a row can't be written, then the subscription is
+ * cancelled, the exporter is closed, and {@code completion()} completes exceptionally.
+ * </p>
+ *
+ * <pre>
+ * Sas7bdatExportSubscriber&lt;List&lt;Object>> subscriber = Sas7bdatExportSubscriber.newSubscriber(
+ *     new Sas7bdatExporter(path, metadata),
+ *     ioExecutor);
+ * publisher.subscribe(subscriber);
+ * subscriber.completion().whenComplete((result, exception) -> ...);
+ * </pre>
+ *
+ * @param <T>
+ *     The type of the rows.
+ */
+public final class Sas7bdatExportSubscriber<T> implements Flow.Subscriber<T> {
+
+    private final Sas7bdatExporter exporter;
+    private final Executor executor;
+    private final BiConsumer<? super T, ObservationWriter> rowWriter; // null if the rows are lists
+    private final Object[] batch;
+    private final CompletableFuture<Void> completion;
+
+    // These are only accessed by the subscriber's signals, which the publisher must invoke serially, and by the
+    // batches that are written on the executor, which are chained to run serially after them.
+    private Flow.Subscription subscription;
+    private int totalRowsInBatch;
+    private CompletableFuture<Void> pendingWrites; // completes after all batches so far have been written
+    private volatile boolean isDone; // also read by onNext after the subscription is cancelled
+
+    private Sas7bdatExportSubscriber(Sas7bdatExporter exporter, Executor executor,
+        BiConsumer<? super T, ObservationWriter> rowWriter) {
+        this.exporter = exporter;
+        this.executor = executor;
+        this.rowWriter = rowWriter;
+
+        // Request a page's worth of rows at a time.
+        final int rowsPerBatch = Sas7bdatPage.maxObservationsPerDataPage(exporter.pageSize(),
+            exporter.variablesLayout());
+        batch = new Object[Math.max(1, rowsPerBatch)];
+        completion = new CompletableFuture<>();
+
+        subscription = null;
+        totalRowsInBatch = 0;
+        pendingWrites = CompletableFuture.completedFuture(null);
+        isDone = false;
+    }
+
+    /**
+     * Creates a subscriber that writes rows which are given as lists of values, as with
+     * {@link Sas7bdatExporter#writeObservation(List)}.
+     *
+     * @param exporter
+     *     The exporter to which the rows are written.  The subscriber takes ownership of it and closes it when the
+     *     publisher completes.
+     * @param executor
+     *     The executor on which the rows are written.
+     *
+     * @return A new subscriber.
+     *
+     * @throws NullPointerException
+     *     if {@code exporter} or {@code executor} is {@code null}.
+     */
+    public static Sas7bdatExportSubscriber<List<Object>> newSubscriber(Sas7bdatExporter exporter, Executor executor) {
+        ArgumentUtil.checkNotNull(exporter, "exporter");
+        ArgumentUtil.checkNotNull(executor, "executor");
+        return new Sas7bdatExportSubscriber<>(exporter, executor, null);
+    }
+
+    /**
+     * Creates a subscriber that writes rows of any type by setting their values on an {@link ObservationWriter}.
+     * <p>
+     * For each row, the subscriber begins an observation, gives it to {@code rowWriter} with the row, and then commits
+     * it.  This avoids boxing numbers and allocating a list for each row.
+     * </p>
+     *
+     * @param exporter
+     *     The exporter to which the rows are written.  The subscriber takes ownership of it and closes it when the
+     *     publisher completes.
+     * @param executor
+     *     The executor on which the rows are written.
+     * @param rowWriter
+     *     A function that sets a row's values on an observation writer.  It must not commit the observation.
+     * @param <T>
+     *     The type of the rows.
+     *
+     * @return A new subscriber.
+     *
+     * @throws NullPointerException
+     *     if {@code exporter}, {@code executor}, or {@code rowWriter} is {@code null}.
+     */
+    public static <T> Sas7bdatExportSubscriber<T> newSubscriber(Sas7bdatExporter exporter, Executor executor,
+        BiConsumer<? super T, ObservationWriter> rowWriter) {
+        ArgumentUtil.checkNotNull(exporter, "exporter");
+        ArgumentUtil.checkNotNull(executor, "executor");
+        ArgumentUtil.checkNotNull(rowWriter, "rowWriter");
+        return new Sas7bdatExportSubscriber<>(exporter, executor, rowWriter);
+    }
+
+    /**
+     * Gets a future that completes when every row has been written and the exporter has been closed.
+     *
+     * @return A future that completes normally when the export succeeds, or exceptionally with the exception that
+     *     caused it to fail.
+     */
+    public CompletableFuture<Void> completion() {
+        return completion;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        ArgumentUtil.checkNotNull(subscription, "subscription");
+        if (this.subscription != null) {
+            // A subscriber can only be subscribed once.
+            subscription.cancel();
+            return;
+        }
+
+        this.subscription = subscription;
+        subscription.request(batch.length);
+    }
+
+    @Override
+    public void onNext(T row) {
+        ArgumentUtil.checkNotNull(row, "row");
+        if (isDone) {
+            return; // the subscription was cancelled, but the publisher hadn't seen it yet.
+        }
+
+        batch[totalRowsInBatch] = row;
+        totalRowsInBatch++;
+        if (totalRowsInBatch == batch.length) {
+            // Write the full batch on the executor, then request the next one.
+            pendingWrites = pendingWrites.thenRunAsync(() -> {
+                if (writeBatch()) {
+                    subscription.request(batch.length);
+                }
+            }, executor);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        ArgumentUtil.checkNotNull(throwable, "throwable");
+        pendingWrites = pendingWrites.thenRunAsync(() -> fail(throwable), executor);
+    }
+
+    @Override
+    public void onComplete() {
+        pendingWrites = pendingWrites.thenRunAsync(() -> {
+            // Write the final, partial batch and close the exporter.
+            if (writeBatch()) {
+                try {
+                    exporter.close();
+                    isDone = true;
+                    completion.complete(null);
+                } catch (Throwable throwable) {
+                    isDone = true;
+                    completion.completeExceptionally(throwable);
+                }
+            }
+        }, executor);
+    }
+
+    /**
+     * Writes the rows in the batch to the exporter.
+     *
+     * @return {@code true}, if the rows were written; {@code false}, if the export failed.
+     */
+    private boolean writeBatch() {
+        if (isDone) {
+            return false;
+        }
+
+        try {
+            for (int i = 0; i < totalRowsInBatch; i++) {
+                @SuppressWarnings("unchecked")
+                T row = (T) batch[i];
+                batch[i] = null;
+
+                if (rowWriter == null) {
+                    @SuppressWarnings("unchecked")
+                    List<Object> observation = (List<Object>) row;
+                    exporter.writeObservation(observation);
+                } else {
+                    ObservationWriter observationWriter = exporter.beginObservation();
+                    rowWriter.accept(row, observationWriter);
+                    observationWriter.commit();
+                }
+            }
+            totalRowsInBatch = 0;
+            return true;
+
+        } catch (Throwable throwable) {
+            subscription.cancel();
+            fail(throwable);
+            return false;
+        }
+    }
+
+    /**
+     * Closes the exporter after the export failed.  The SAS7BDAT is incomplete.
+     *
+     * @param throwable
+     *     The cause of the failure.
+     */
+    private void fail(Throwable throwable) {
+        if (isDone) {
+            return;
+        }
+        isDone = true;
+
+        try {
+            exporter.close();
+        } catch (Throwable closeException) {
+            // Closing an incomplete export is expected to fail, so this is secondary to the original failure.
+            throwable.addSuppressed(closeException);
+        }
+        completion.completeExceptionally(throwable);
+    }
+}
@@ -6,9 +6,13 @@ package org.scharp.sas7bdat;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.time.Instant;
@@ -18,8 +22,6 @@ import java.time.LocalTime;
 import java.util.Arrays;
 import java.util.List;
 
-import static org.scharp.sas7bdat.MathUtil.divideAndRoundUp;
-
 /**
  * <p>
  * The general usage paradigm for generate a SAS7BDAT file is to construct an in-memory representation of the SAS7BDAT
@@ -90,8 +92,8 @@ import static org.scharp.sas7bdat.MathUtil.divideAndRoundUp;
  *
  * <p>
  * To export a SAS7BDAT without holding all rows in memory, you can construct as {@code Sas7bdatExporter} and write each
- * observation in sequence.  However, you must know the number of observations that you intend to write. This looks
- * like:
+ * observation in sequence.  If you are writing to an {@code OutputStream}, you must know the number of observations
+ * that you intend to write. This looks like:
  * </p>
  *
  * <pre>
@@ -146,18 +148,42 @@ import static org.scharp.sas7bdat.MathUtil.divideAndRoundUp;
  *         exporter.writeObservation(List.of("Washington", "DC", 68, 52));
  *     }</b>
  * </pre>
+ *
+ * <p>
+ * If you are writing to a file or a {@link SeekableByteChannel}, then you can use the constructors that don't need the
+ * number of observations.  When the exporter is closed, it seeks backward to fill in the number of observations in the
+ * header and metadata.
+ * </p>
  */
 // Note: This is called "Exporter" instead of "Writer" because it doesn't extend the Writer class as so is not a Writer.
 public final class Sas7bdatExporter implements AutoCloseable {
 
+    /** A value for {@code totalObservationsInDataset} which indicates that it isn't known until the exporter is closed */
+    private static final long UNKNOWN_TOTAL_OBSERVATIONS = -1;
+
     private final OutputStream outputStream;
+    private final SeekableByteChannel seekableChannel; // null, unless the metadata is patched on close.
+    private final MappedFileOutputStream mappedFile; // null, unless the file is memory-mapped.
+    private final long startOfDataset; // the position of the dataset within seekableChannel.
+    private final Sas7bdatExportPlan plan;
     private final Sas7bdatVariablesLayout variablesLayout;
-    private final int totalObservationsInDataset;
+    private final long totalObservationsInDataset;
     private final PageSequenceGenerator pageSequenceGenerator;
+    private final Sas7bdatPageLayout pageLayout;
     private final byte[] pageBuffer;
+    private final PageEncodingPipeline pipeline; // null, unless pages are encoded in parallel.
+    private final ObservationWriter observationWriter;
+    private final ObservationCompressor compressor; // null, unless the observations are compressed.
+    private final byte[] observationBuffer; // holds an observation while it's compressed.
+    private final byte[] compressedObservationBuffer; // holds a compressed observation.
+    private final ExportStatisticsAccumulator statisticsAccumulator; // null, unless statistics are collected.
+    private final PageChecksumAccumulator pageChecksumAccumulator; // null, unless page checksums are computed.
 
-    private int totalObservationsWritten;
+    private RowSizeSubheader rowSizeSubheader;
+    private long totalObservationsWritten;
     private Sas7bdatPage currentPage;
+    private CompressedObservationSubheader pendingObservation; // committed, but not yet added to a page.
+    private long totalCompressedPagesWritten;
 
     /**
      * Writes the header and metadata pages.
@@ -169,163 +195,141 @@ public final class Sas7bdatExporter implements AutoCloseable {
      * @throws IOException
      *     If an I/O problem prevented the metadata from being written.
      */
-    private void writeMetadata(Sas7bdatMetadata metadata, Sas7bdatPageLayout pageLayout) throws IOException {
-
-        // SAS always pads the dataset type with spaces so that it's 8 bytes.
-        String paddedDatasetType = metadata.datasetType() + " ".repeat(
-            8 - metadata.datasetType().getBytes(StandardCharsets.UTF_8).length);
-
-        // Add the subheaders in the order in which they should be listed in the subheaders index.
-        // Note that this is the reverse order in which they appear on a metadata page.
-        RowSizeSubheader rowSizeSubheader = new RowSizeSubheader(
-            pageSequenceGenerator,
-            paddedDatasetType,
-            metadata.datasetLabel(),
-            variablesLayout,
-            pageLayout,
-            totalObservationsInDataset);
-        pageLayout.addSubheader(rowSizeSubheader);
-
-        pageLayout.addSubheader(new ColumnSizeSubheader(metadata.variables()));
-
-        pageLayout.addSubheader(new SubheaderCountsSubheader(pageLayout));
-
-        // Next, SAS adds the ColumnTextSubheaders.  Since a Subheader cannot be larger than Short.MAX_SIZE
-        // bytes, if there's a lot of metadata text, multiple ColumnTextSubheaders may be needed.
-        // SAS adds these in a way that is aware of how much space is left on the metadata page so that
-        // a subheader is limited to fill what's left on the page.  Therefore, populating the
-        // ColumnTextSubheaders must be coupled with the logic for adding subheaders to pages.
-        // And since all ColumnTextSubheaders must be consecutive, all text must be added at the same time.
-        //
-        // I would have preferred a design where each subheader that needs to reference a string would
-        // be the one to add it to the ColumnText.  I think that would have been better encapsulation.
-        // However, I wasn't able to make that design work and still limit the column text subheaders
-        // to fit the available space on the page.  Therefore, all strings referenced by any subheader
-        // are added here.
-        //
-        // To assist with troubleshooting, the text is added in the same order in which SAS adds it.
-
-        // The first ColumnTextSubheader in the datasets which SAS generates has an extra
-        // four bytes of padding between the size of the header and the first string.
-        // Adding the string of 0x00 0x00 0x00 0x00 matches what SAS usually generates.
-        // Sometimes SAS generates 0x00 0x00 0x00 0x14 or 0x00 0x00 0x00 0x1d,
-        // but I don't know if this has any meaning.
-        pageLayout.columnText.add("\0\0\0\0");
-
-        pageLayout.columnText.add(" ".repeat(8)); // unknown
-        pageLayout.columnText.add(paddedDatasetType); // Add the dataset type, padded with spaces.
-        pageLayout.columnText.add("DATASTEP"); // add the PROC step which created the dataset
-        pageLayout.columnText.add(metadata.datasetLabel()); // add the dataset label
-
-        for (Variable variable : metadata.variables()) {
-            pageLayout.columnText.add(variable.name());
-            pageLayout.columnText.add(variable.label());
-
-            // CONSIDER: SAS uppercases the format names before storing them.
-            pageLayout.columnText.add(variable.inputFormat().name());
-            pageLayout.columnText.add(variable.outputFormat().name());
-        }
-
-        // Add the partially-written column text subheader to the metadata page.
-        // This is essential, as all column text subheaders must be added before
-        // the next subheader type is added.
-        pageLayout.columnText.noMoreText();
-
-        int offset = 0;
-        while (offset < variablesLayout.totalVariables()) {
-            ColumnNameSubheader nextSubheader = new ColumnNameSubheader(
-                metadata.variables(),
-                offset,
-                pageLayout.columnText);
-            pageLayout.addSubheader(nextSubheader);
-            offset += nextSubheader.totalVariablesInSubheader();
-        }
-
-        // Add the ColumnAttributesSubheaders
-        offset = 0;
-        while (offset < variablesLayout.totalVariables()) {
-            // Datasets that are generated by SAS limit the size of this subheader to 24588 bytes.
-            // In theory, it should be able to hold (Short.MAX_VALUE - 8) / 16 bytes, or 2047 variables.
-            //
-            // If there isn't enough space on the current metadata page for a subheader that contains all variables,
-            // then split the subheader so that we use all remaining space on the metadata pages.  This is what
-            // SAS does.
-            final int spaceInPage = pageLayout.currentMetadataPage.totalBytesRemainingForNewSubheader();
-            final int maxSize;
-            if (spaceInPage < ColumnAttributesSubheader.MIN_SIZE) {
-                // There's not enough space remaining for a useful header. Pick a large subheader for the next page.
-                maxSize = 24588;
-            } else {
-                maxSize = Math.min(24588, spaceInPage);
-            }
+    private void writeMetadata() throws IOException {
+        // The metadata was laid out when the plan was compiled.  Only the RowSizeSubheader depends on the number of
+        // observations, so this exporter gets its own copy of it.
+        // An unknown number of observations is patched in close().
+        rowSizeSubheader = new RowSizeSubheader(plan.rowSizeSubheader);
+        rowSizeSubheader.setTotalObservationsInDataset(Math.max(0, totalObservationsInDataset));
 
-            ColumnAttributesSubheader nextSubheader = new ColumnAttributesSubheader(variablesLayout, offset, maxSize);
-            pageLayout.addSubheader(nextSubheader);
-            offset += nextSubheader.totalVariablesInSubheader();
+        // Write the file header.
+        // An unknown number of observations is patched in close().
+        writeHeader(plan.totalPagesInDataset(Math.max(0, totalObservationsInDataset)));
+        if (mappedFile != null) {
+            // Now that the number of pages is known, the memory-mapped file can be sized.
+            // SAS uses the same value for page size and header size.
+            final long totalPagesInFile = 1 + plan.totalPagesInDataset(totalObservationsInDataset);
+            mappedFile.setLength(totalPagesInFile * pageLayout.pageSize);
         }
+        writePageBuffer();
 
-        // Add the column list subheaders.  SAS only adds them if there's more than one variable.
-        if (1 < variablesLayout.totalVariables()) {
-            offset = 0;
-            while (offset < variablesLayout.totalVariables()) {
-                ColumnListSubheader nextSubheader = new ColumnListSubheader(variablesLayout, offset);
-                pageLayout.addSubheader(nextSubheader);
-                offset += nextSubheader.totalVariablesInSubheader();
+        // Write out the metadata pages that the plan encoded, which are all metadata pages except the last one in an
+        // uncompressed dataset.  The RowSizeSubheader is the first subheader on the first metadata page, which puts
+        // it at the end of the page, so it's written over the plan's copy.
+        for (int pageIndex = 0; pageIndex < plan.totalMetadataPageImages(); pageIndex++) {
+            plan.copyMetadataPageImage(pageIndex, pageBuffer);
+            if (pageIndex == 0) {
+                rowSizeSubheader.writeSubheader(pageBuffer, pageLayout.pageSize - rowSizeSubheader.size());
             }
+            writePageBuffer();
         }
 
-        // Add the column format subheaders.
-        for (Variable variable : metadata.variables()) {
-            pageLayout.addSubheader(new ColumnFormatSubheader(variable, pageLayout.columnText));
+        // From here on, observations are serialized directly into pageBuffer, so it must start out clean.
+        Arrays.fill(pageBuffer, (byte) 0x00);
+
+        totalObservationsWritten = 0;
+        if (compressor == null) {
+            // The final metadata page is the mixed page.
+            currentPage = new Sas7bdatPage(plan.finalMetadataPage, rowSizeSubheader);
+        } else {
+            currentPage = new Sas7bdatPage(pageSequenceGenerator, pageLayout.pageSize, variablesLayout);
         }
+        pendingObservation = null;
+        totalCompressedPagesWritten = 0;
+    }
 
-        // Finalize the subheaders on the final metadata page.
-        Sas7bdatPage mixedPage = pageLayout.finalizeMetadata();
+    /**
+     * Serializes the file header into {@code pageBuffer}.
+     *
+     * @param totalPagesInDataset
+     *     The total number of pages in the dataset, not including the file header.
+     */
+    private void writeHeader(long totalPagesInDataset) {
+        Sas7bdatHeader header = new Sas7bdatHeader(
+            pageSequenceGenerator,
+            pageLayout.pageSize, // SAS uses the same value for page size and header size
+            pageLayout.pageSize,
+            plan.metadata.datasetName(),
+            plan.metadata.creationTime(),
+            totalPagesInDataset);
 
-        // Calculate how many pages will be needed in the dataset.
-        final int totalPagesInDataset;
-        {
-            final int maxObservationsOnMixedPage = mixedPage.maxObservations();
-            final int totalNumberOfDataPages;
-            if (totalObservationsInDataset <= maxObservationsOnMixedPage) {
-                // All observations can fit on the mixed page, so there's no need for data pages.
-                totalNumberOfDataPages = 0;
-            } else {
-                int observationsOnAllDataPages = totalObservationsInDataset - maxObservationsOnMixedPage;
-                final int maxObservationsPerDataPage = Sas7bdatPage.maxObservationsPerDataPage(
-                    pageLayout.pageSize,
-                    variablesLayout);
+        Arrays.fill(pageBuffer, (byte) 0x00);
+        header.write(pageBuffer);
+    }
 
-                // observationsOnAllDataPages / observationsPerDataPage rounded up
-                totalNumberOfDataPages = divideAndRoundUp(observationsOnAllDataPages, maxObservationsPerDataPage);
-            }
+    /**
+     * Rewrites the parts of the header and metadata that depend on the number of observations in the dataset.  This is
+     * only possible when writing to a {@code SeekableByteChannel}.
+     *
+     * @throws IOException
+     *     If an I/O problem prevented the metadata from being written.
+     */
+    private void patchMetadata() throws IOException {
+        assert seekableChannel != null : "can't patch an OutputStream";
 
-            final int totalNumberOfMetadataPages = pageLayout.completeMetadataPages.size();
-            totalPagesInDataset = totalNumberOfMetadataPages + totalNumberOfDataPages;
+        final int pageSize = pageLayout.pageSize;
+
+        // Rewrite the header page, which includes the total number of pages.
+        // The size of a compressed observation varies, so the number of pages in a compressed dataset was counted.
+        writeHeader(compressor == null ?
+            plan.totalPagesInDataset(totalObservationsWritten) :
+            pageLayout.completeMetadataPages.size() + totalCompressedPagesWritten);
+        writeFully(startOfDataset, pageBuffer, 0, pageSize);
+
+        // Rewrite the RowSizeSubheader, which includes the total number of observations and the location of the last
+        // observation.  This is the first subheader on the first metadata page, which puts it at the end of the page.
+        // It is re-serialized into a page-sized buffer because the subheader also records the page size.
+        assert pageLayout.completeMetadataPages.get(0).subheaders().get(0) instanceof RowSizeSubheader;
+        final int subheaderOffset = pageSize - rowSizeSubheader.size();
+        rowSizeSubheader.setTotalObservationsInDataset(totalObservationsWritten);
+        Arrays.fill(pageBuffer, (byte) 0x00);
+        rowSizeSubheader.writeSubheader(pageBuffer, subheaderOffset);
+        writeFully(startOfDataset + pageSize + subheaderOffset, pageBuffer, subheaderOffset, rowSizeSubheader.size());
+    }
+
+    private void writeFully(long position, byte[] data, int offset, int length) throws IOException {
+        seekableChannel.position(position);
+        ByteBuffer byteBuffer = ByteBuffer.wrap(data, offset, length);
+        while (byteBuffer.hasRemaining()) {
+            seekableChannel.write(byteBuffer);
         }
 
-        // Write the file header.
-        {
-            Sas7bdatHeader header = new Sas7bdatHeader(
-                pageSequenceGenerator,
-                pageLayout.pageSize, // SAS uses the same value for page size and header size
-                pageLayout.pageSize,
-                metadata.datasetName(),
-                metadata.creationTime(),
-                totalPagesInDataset);
-            header.write(pageBuffer);
-            outputStream.write(pageBuffer);
-        }
-
-        // Write out all metadata pages except the last one, which may be able to hold observations.
-        for (Sas7bdatPage currentMetadataPage : pageLayout.completeMetadataPages) {
-            if (currentMetadataPage != mixedPage) {
-                writePage(currentMetadataPage);
-            }
+        // The checksum of a page that was patched must be recomputed.
+        if (pageChecksumAccumulator != null) {
+            pageChecksumAccumulator.patch(position - startOfDataset, data, offset, length);
         }
+    }
 
-        totalObservationsWritten = 0;
-        currentPage = mixedPage;
+    /**
+     * Writes {@code pageBuffer} to the output stream as the next page.
+     *
+     * @throws IOException
+     *     If an I/O problem prevented the page from being written.
+     */
+    private void writePageBuffer() throws IOException {
+        if (pageChecksumAccumulator != null) {
+            pageChecksumAccumulator.addPage(pageBuffer);
+        }
+        outputStream.write(pageBuffer);
+    }
+
+    /**
+     * Creates the pipeline for encoding pages in parallel, if the options call for one.  The {@code outputStream},
+     * {@code variablesLayout}, {@code pageLayout}, {@code statisticsAccumulator}, and {@code pageChecksumAccumulator}
+     * fields must have already been initialized.
+     *
+     * @param options
+     *     The export options.
+     *
+     * @return A new pipeline, or {@code null} if pages should be encoded on the caller's thread.
+     */
+    private PageEncodingPipeline newPipeline(Sas7bdatExportOptions options) {
+        if (options.parallelism() == 1 || options.compression() != Compression.NONE) {
+            // Compressed observations are always compressed on the caller's thread.
+            return null;
+        }
+        return new PageEncodingPipeline(outputStream, variablesLayout, pageLayout.pageSize, options.executor(),
+            options.parallelism(), statisticsAccumulator, pageChecksumAccumulator);
     }
 
     /**
@@ -353,27 +357,83 @@ public final class Sas7bdatExporter implements AutoCloseable {
      * @throws IllegalArgumentException
      *     if {@code totalObservationsInDataset} is negative.
      */
+    public Sas7bdatExporter(OutputStream outputStream, Sas7bdatMetadata metadata, long totalObservationsInDataset)
+        throws IOException {
+        this(outputStream, metadata, totalObservationsInDataset, Sas7bdatExportOptions.DEFAULT);
+    }
+
+    /**
+     * Creates a {@code Sas7bdatExporter} for streaming a SAS7BDAT to an output stream.
+     * <p>
+     * After creating the exporter, you must invoke {@link Sas7bdatExporter#writeObservation writeObservation()} to
+     * write each observation.  After you have provided the final observation, you must invoke
+     * {@link Sas7bdatExporter#close()} to flush any buffered data.
+     * </p>
+     *
+     * @param outputStream
+     *     An output stream to which the SAS7BDAT should be written.  The resulting exporter owns this stream and will
+     *     close it when it is closed.
+     * @param metadata
+     *     The metadata for the SAS7BDAT.
+     * @param totalObservationsInDataset
+     *     The total number of observation that will be written to the dataset.  You must invoke
+     *     {@link Sas7bdatExporter#writeObservation writeObservation} exactly this number of times before invoking
+     *     {@link Sas7bdatExporter#close}, or else the SAS7BDAT may be corrupt.
+     * @param options
+     *     Options that control how the SAS7BDAT is written.
+     *
+     * @throws IOException
+     *     If an I/O problem prevented the SAS7BDAT from being written.
+     * @throws NullPointerException
+     *     if {@code outputStream}, {@code metadata}, or {@code options} are {@code null}.
+     * @throws IllegalArgumentException
+     *     if {@code totalObservationsInDataset} is negative or if {@code options} specifies compression.
+     */
     // The totalObservationsInDataset parameter is a kludge that enables that header and metadata pages to be completely
-    // written by the time this method returns.  It would be a better API if the caller didn't have to provide this
-    // information up-front, but that would require seeking backward and fixing the parts of the metadata that
-    // depend on the observations count.  Perhaps a future implementation will do this.
-    public Sas7bdatExporter(OutputStream outputStream, Sas7bdatMetadata metadata, int totalObservationsInDataset)
+    // written by the time this method returns.  An OutputStream can't seek backward to fix the parts of the metadata
+    // that depend on the observations count, so it must be known up-front.  The constructors that write to a
+    // SeekableByteChannel don't have this limitation.
+    public Sas7bdatExporter(OutputStream outputStream, Sas7bdatMetadata metadata, long totalObservationsInDataset,
+        Sas7bdatExportOptions options) throws IOException {
+        this(compilePlan(outputStream, "outputStream", metadata, options), outputStream, totalObservationsInDataset);
+    }
+
+    /**
+     * Creates a {@code Sas7bdatExporter} for streaming a SAS7BDAT with a compiled plan to an output stream.  This
+     * implements {@link Sas7bdatExportPlan#newExporter(OutputStream, long)}.
+     */
+    Sas7bdatExporter(Sas7bdatExportPlan plan, OutputStream outputStream, long totalObservationsInDataset)
         throws IOException {
         ArgumentUtil.checkNotNull(outputStream, "outputStream");
-        ArgumentUtil.checkNotNull(metadata, "metadata");
         ArgumentUtil.checkNotNegative(totalObservationsInDataset, "totalObservationsInDataset");
+        checkNotCompressed(plan.options);
 
         this.outputStream = outputStream;
-        variablesLayout = new Sas7bdatVariablesLayout(metadata.variables());
+        seekableChannel = null;
+        mappedFile = null;
+        startOfDataset = 0;
+        this.plan = plan;
+        variablesLayout = plan.variablesLayout;
         this.totalObservationsInDataset = totalObservationsInDataset;
-        pageSequenceGenerator = new PageSequenceGenerator();
+        pageSequenceGenerator = new PageSequenceGenerator(plan.pageSequenceGenerator);
 
-        // Create the metadata for this dataset.
-        Sas7bdatPageLayout pageLayout = new Sas7bdatPageLayout(pageSequenceGenerator, variablesLayout);
+        // The metadata for this dataset was laid out when the plan was compiled.
+        pageLayout = plan.pageLayout;
         pageBuffer = new byte[pageLayout.pageSize];
+        statisticsAccumulator = plan.options.collectStatistics() ?
+            new ExportStatisticsAccumulator(variablesLayout) :
+            null;
+        pageChecksumAccumulator = plan.options.pageChecksums() ?
+            new PageChecksumAccumulator(pageLayout.pageSize) :
+            null;
+        pipeline = newPipeline(plan.options);
+        observationWriter = new ObservationWriter(this, variablesLayout);
+        compressor = null;
+        observationBuffer = null;
+        compressedObservationBuffer = null;
 
         // Write the header and metadata pages.
-        writeMetadata(metadata, pageLayout);
+        writeMetadata();
     }
 
     /**
@@ -401,28 +461,98 @@ public final class Sas7bdatExporter implements AutoCloseable {
      * @throws IllegalArgumentException
      *     if {@code totalObservationsInDataset} is negative.
      */
+    public Sas7bdatExporter(Path targetLocation, Sas7bdatMetadata metadata, long totalObservationsInDataset)
+        throws IOException {
+        this(targetLocation, metadata, totalObservationsInDataset, Sas7bdatExportOptions.DEFAULT);
+    }
+
+    /**
+     * Creates a {@code Sas7bdatExporter} for streaming a SAS7BDAT to a file.
+     * <p>
+     * After creating the exporter, you must invoke {@link Sas7bdatExporter#writeObservation writeObservation()} to
+     * write each observation.  After you have provided the final observation, you must invoke
+     * {@link Sas7bdatExporter#close()} to flush any buffered data.
+     * </p>
+     *
+     * @param targetLocation
+     *     The path to the file to which the SAS7BDAT should be written. If the file doesn't exist, then it will be
+     *     created.  If the file does exist, then its contents will be replaced.
+     * @param metadata
+     *     The metadata for the SAS7BDAT.
+     * @param totalObservationsInDataset
+     *     The total number of observation that will be written to the dataset.  You must invoke
+     *     {@link Sas7bdatExporter#writeObservation writeObservation} exactly this number of times before invoking
+     *     {@link Sas7bdatExporter#close}, or else the SAS7BDAT may be corrupt.
+     * @param options
+     *     Options that control how the SAS7BDAT is written.
+     *
+     * @throws IOException
+     *     If an I/O problem prevented the SAS7BDAT from being created.
+     * @throws NullPointerException
+     *     if {@code targetLocation}, {@code metadata}, or {@code options} are {@code null}.
+     * @throws IllegalArgumentException
+     *     if {@code totalObservationsInDataset} is negative or if {@code options} specifies compression.
+     */
     // The totalObservationsInDataset parameter is a kludge that enables that header and metadata pages to be completely
-    // written by the time this method returns.  It would be a better API if the caller didn't have to provide this
-    // information up-front, but that would require seeking backward and fixing the parts of the metadata that
-    // depend on the observations count.  Perhaps a future implementation will do this.
-    public Sas7bdatExporter(Path targetLocation, Sas7bdatMetadata metadata, int totalObservationsInDataset)
+    // written by the time this method returns.  An OutputStream can't seek backward to fix the parts of the metadata
+    // that depend on the observations count, so it must be known up-front.  The constructors that write to a
+    // SeekableByteChannel don't have this limitation.
+    public Sas7bdatExporter(Path targetLocation, Sas7bdatMetadata metadata, long totalObservationsInDataset,
+        Sas7bdatExportOptions options) throws IOException {
+        this(compilePlan(targetLocation, "targetLocation", metadata, options), targetLocation,
+            totalObservationsInDataset);
+    }
+
+    /**
+     * Creates a {@code Sas7bdatExporter} for streaming a SAS7BDAT with a compiled plan to a file.  This implements
+     * {@link Sas7bdatExportPlan#newExporter(Path, long)}.
+     */
+    Sas7bdatExporter(Sas7bdatExportPlan plan, Path targetLocation, long totalObservationsInDataset)
         throws IOException {
         ArgumentUtil.checkNotNull(targetLocation, "targetLocation");
-        ArgumentUtil.checkNotNull(metadata, "metadata");
         ArgumentUtil.checkNotNegative(totalObservationsInDataset, "totalObservationsInDataset");
+        checkNotCompressed(plan.options);
 
-        variablesLayout = new Sas7bdatVariablesLayout(metadata.variables());
+        seekableChannel = null;
+        startOfDataset = 0;
+        this.plan = plan;
+        variablesLayout = plan.variablesLayout;
         this.totalObservationsInDataset = totalObservationsInDataset;
-        pageSequenceGenerator = new PageSequenceGenerator();
+        pageSequenceGenerator = new PageSequenceGenerator(plan.pageSequenceGenerator);
 
-        // Create the metadata for this dataset.
-        Sas7bdatPageLayout pageLayout = new Sas7bdatPageLayout(pageSequenceGenerator, variablesLayout);
+        // The metadata for this dataset was laid out when the plan was compiled.
+        pageLayout = plan.pageLayout;
         pageBuffer = new byte[pageLayout.pageSize];
+        observationWriter = new ObservationWriter(this, variablesLayout);
+        compressor = null;
+        observationBuffer = null;
+        compressedObservationBuffer = null;
 
-        outputStream = Files.newOutputStream(targetLocation);
+        if (plan.options.memoryMapped()) {
+            // The size of the file is known as soon as the metadata is laid out, so it can be memory-mapped.
+            mappedFile = new MappedFileOutputStream(
+                FileChannel.open(
+                    targetLocation,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE),
+                MappedFileOutputStream.REGION_SIZE);
+            outputStream = mappedFile;
+        } else {
+            mappedFile = null;
+            outputStream = Files.newOutputStream(targetLocation);
+        }
+        statisticsAccumulator = plan.options.collectStatistics() ?
+            new ExportStatisticsAccumulator(variablesLayout) :
+            null;
+        pageChecksumAccumulator = plan.options.pageChecksums() ?
+            new PageChecksumAccumulator(pageLayout.pageSize) :
+            null;
+        pipeline = newPipeline(plan.options);
         try {
             // Write the header and metadata pages.
-            writeMetadata(metadata, pageLayout);
+            writeMetadata();
 
         } catch (Throwable throwable) {
             // If something goes wrong, and we can't construct the exporter, then
@@ -432,11 +562,202 @@ public final class Sas7bdatExporter implements AutoCloseable {
         }
     }
 
+    /**
+     * Creates a {@code Sas7bdatExporter} for streaming a SAS7BDAT with an unknown number of observations to a
+     * seekable byte channel, such as a {@link FileChannel}.
+     * <p>
+     * After creating the exporter, you should invoke {@link Sas7bdatExporter#writeObservation writeObservation()} to
+     * write each observation.  After you have provided the final observation, you must invoke
+     * {@link Sas7bdatExporter#close()}, which seeks backward to fill in the parts of the header and metadata that
+     * depend on the number of observations that were written.
+     * </p>
+     *
+     * @param channel
+     *     A channel to which the SAS7BDAT should be written, starting at its current position.  The resulting exporter
+     *     owns this channel and will close it when it is closed.
+     * @param metadata
+     *     The metadata for the SAS7BDAT.
+     *
+     * @throws IOException
+     *     If an I/O problem prevented the SAS7BDAT from being written.
+     * @throws NullPointerException
+     *     if {@code channel} or {@code metadata} are {@code null}.
+     */
+    public Sas7bdatExporter(SeekableByteChannel channel, Sas7bdatMetadata metadata) throws IOException {
+        this(channel, metadata, Sas7bdatExportOptions.DEFAULT);
+    }
+
+    /**
+     * Creates a {@code Sas7bdatExporter} for streaming a SAS7BDAT with an unknown number of observations to a
+     * seekable byte channel, such as a {@link FileChannel}.
+     * <p>
+     * After creating the exporter, you should invoke {@link Sas7bdatExporter#writeObservation writeObservation()} to
+     * write each observation.  After you have provided the final observation, you must invoke
+     * {@link Sas7bdatExporter#close()}, which seeks backward to fill in the parts of the header and metadata that
+     * depend on the number of observations that were written.
+     * </p>
+     *
+     * @param channel
+     *     A channel to which the SAS7BDAT should be written, starting at its current position.  The resulting exporter
+     *     owns this channel and will close it when it is closed.
+     * @param metadata
+     *     The metadata for the SAS7BDAT.
+     * @param options
+     *     Options that control how the SAS7BDAT is written.
+     *
+     * @throws IOException
+     *     If an I/O problem prevented the SAS7BDAT from being written.
+     * @throws NullPointerException
+     *     if {@code channel}, {@code metadata}, or {@code options} are {@code null}.
+     */
+    public Sas7bdatExporter(SeekableByteChannel channel, Sas7bdatMetadata metadata, Sas7bdatExportOptions options)
+        throws IOException {
+        this(compilePlan(channel, "channel", metadata, options), channel, false);
+    }
+
+    /**
+     * Creates a {@code Sas7bdatExporter} for streaming a SAS7BDAT with an unknown number of observations to a file.
+     * <p>
+     * After creating the exporter, you should invoke {@link Sas7bdatExporter#writeObservation writeObservation()} to
+     * write each observation.  After you have provided the final observation, you must invoke
+     * {@link Sas7bdatExporter#close()}, which seeks backward to fill in the parts of the header and metadata that
+     * depend on the number of observations that were written.
+     * </p>
+     *
+     * @param targetLocation
+     *     The path to the file to which the SAS7BDAT should be written. If the file doesn't exist, then it will be
+     *     created.  If the file does exist, then its contents will be replaced.
+     * @param metadata
+     *     The metadata for the SAS7BDAT.
+     *
+     * @throws IOException
+     *     If an I/O problem prevented the SAS7BDAT from being created.
+     * @throws NullPointerException
+     *     if {@code targetLocation} or {@code metadata} are {@code null}.
+     */
+    public Sas7bdatExporter(Path targetLocation, Sas7bdatMetadata metadata) throws IOException {
+        this(targetLocation, metadata, Sas7bdatExportOptions.DEFAULT);
+    }
+
+    /**
+     * Creates a {@code Sas7bdatExporter} for streaming a SAS7BDAT with an unknown number of observations to a file.
+     * <p>
+     * After creating the exporter, you should invoke {@link Sas7bdatExporter#writeObservation writeObservation()} to
+     * write each observation.  After you have provided the final observation, you must invoke
+     * {@link Sas7bdatExporter#close()}, which seeks backward to fill in the parts of the header and metadata that
+     * depend on the number of observations that were written.
+     * </p>
+     *
+     * @param targetLocation
+     *     The path to the file to which the SAS7BDAT should be written. If the file doesn't exist, then it will be
+     *     created.  If the file does exist, then its contents will be replaced.
+     * @param metadata
+     *     The metadata for the SAS7BDAT.
+     * @param options
+     *     Options that control how the SAS7BDAT is written.
+     *
+     * @throws IOException
+     *     If an I/O problem prevented the SAS7BDAT from being created.
+     * @throws NullPointerException
+     *     if {@code targetLocation}, {@code metadata}, or {@code options} are {@code null}.
+     */
+    public Sas7bdatExporter(Path targetLocation, Sas7bdatMetadata metadata, Sas7bdatExportOptions options)
+        throws IOException {
+        this(compilePlan(targetLocation, "targetLocation", metadata, options), targetLocation);
+    }
+
+    /**
+     * Creates a {@code Sas7bdatExporter} for streaming a SAS7BDAT with a compiled plan and an unknown number of
+     * observations to a file.  This implements {@link Sas7bdatExportPlan#newExporter(Path)}.
+     */
+    Sas7bdatExporter(Sas7bdatExportPlan plan, Path targetLocation) throws IOException {
+        this(plan, openFileChannel(targetLocation), true);
+    }
+
+    private static void checkNotCompressed(Sas7bdatExportOptions options) {
+        if (options.compression() != Compression.NONE) {
+            throw new IllegalArgumentException(
+                "compression is only supported by the constructors that don't take totalObservationsInDataset");
+        }
+    }
+
+    private static Sas7bdatExportPlan compilePlan(Object target, String targetName, Sas7bdatMetadata metadata,
+        Sas7bdatExportOptions options) {
+        // Check the arguments in the order in which they're given before laying out the metadata.
+        ArgumentUtil.checkNotNull(target, targetName);
+        return Sas7bdatExportPlan.compile(metadata, options);
+    }
+
+    private static SeekableByteChannel openFileChannel(Path targetLocation) throws IOException {
+        // Check the argument before creating the file.
+        ArgumentUtil.checkNotNull(targetLocation, "targetLocation");
+
+        return FileChannel.open(
+            targetLocation,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Creates a {@code Sas7bdatExporter} for streaming a SAS7BDAT with a compiled plan and an unknown number of
+     * observations to a seekable byte channel.  This implements
+     * {@link Sas7bdatExportPlan#newExporter(SeekableByteChannel)}.
+     */
+    Sas7bdatExporter(Sas7bdatExportPlan plan, SeekableByteChannel channel, boolean closeChannelOnError)
+        throws IOException {
+        ArgumentUtil.checkNotNull(channel, "channel");
+
+        // Observations are written sequentially through a stream, but the channel is retained for seeking backward.
+        outputStream = Channels.newOutputStream(channel);
+        seekableChannel = channel;
+        mappedFile = null;
+        this.plan = plan;
+        variablesLayout = plan.variablesLayout;
+        totalObservationsInDataset = UNKNOWN_TOTAL_OBSERVATIONS;
+        pageSequenceGenerator = new PageSequenceGenerator(plan.pageSequenceGenerator);
+
+        // The metadata for this dataset was laid out when the plan was compiled.
+        pageLayout = plan.pageLayout;
+        pageBuffer = new byte[pageLayout.pageSize];
+        statisticsAccumulator = plan.options.collectStatistics() ?
+            new ExportStatisticsAccumulator(variablesLayout) :
+            null;
+        pageChecksumAccumulator = plan.options.pageChecksums() ?
+            new PageChecksumAccumulator(pageLayout.pageSize) :
+            null;
+        pipeline = newPipeline(plan.options);
+        observationWriter = new ObservationWriter(this, variablesLayout);
+        compressor = ObservationCompressor.newCompressor(plan.options.compression());
+        if (compressor == null) {
+            observationBuffer = null;
+            compressedObservationBuffer = null;
+        } else {
+            observationBuffer = new byte[variablesLayout.rowLength()];
+            compressedObservationBuffer = new byte[variablesLayout.rowLength()];
+        }
+
+        try {
+            startOfDataset = channel.position();
+
+            // Write the header and metadata pages.
+            writeMetadata();
+
+        } catch (Throwable throwable) {
+            // If something goes wrong, and we can't construct the exporter, then
+            // close the channel that we opened to avoid leaking a file handle.
+            if (closeChannelOnError) {
+                channel.close();
+            }
+            throw throwable;
+        }
+    }
+
     /**
      * Appends an observation (row) to the SAS7BDAT that is being exported.
      * <p>
-     * This must be called exactly the same number of times as the {@code totalObservationInDataset} argument to this
-     * exporter's constructor.
+     * If this exporter was constructed with a {@code totalObservationInDataset} argument, then this must be called
+     * exactly that number of times.
      * </p>
      *
      * @param observation
@@ -499,7 +820,10 @@ public final class Sas7bdatExporter implements AutoCloseable {
      *     </p>
      *     <p>
      *     The observation and its data are immediately copied, so subsequent modifications to it don't change the
-     *     SAS7BDAT that is exported.
+     *     SAS7BDAT that is exported.  The exception is when this exporter's options have a
+     *     {@link Sas7bdatExportOptions.Builder#parallelism(int) parallelism} greater than 1.  Then the observation is
+     *     checked immediately, but its values are only serialized when its page is encoded, so a mutable
+     *     {@code Number} must not be modified after it is given to this method.
      *     </p>
      *
      * @throws NullPointerException
@@ -516,50 +840,388 @@ public final class Sas7bdatExporter implements AutoCloseable {
      */
     public void writeObservation(List<Object> observation) throws IOException {
         ArgumentUtil.checkNotNull(observation, "observation");
+        checkCanWriteObservation("writeObservation");
+
+        // Serialize the observation directly into the page buffer.  This also copies it, in case the caller modifies it.
+        // This overwrites any observation that was begun by beginObservation() but not committed.
+        observationWriter.abandon();
+        if (compressor != null) {
+            // Serialize the observation into a scratch buffer, from which it's compressed into its own subheader.
+            addPendingObservation();
+            variablesLayout.writeObservation(observationBuffer, 0, observation);
+            addCompressedObservation(compressObservation());
+        } else {
+            ensureSpaceForObservation();
+            if (pipeline == null) {
+                boolean success = currentPage.addObservation(pageBuffer, observation);
+                assert success : "couldn't write to page with space";
+            } else {
+                // Check the observation now, but defer serializing it until its page is encoded on the executor.
+                variablesLayout.checkObservation(observation);
+                pipeline.deferObservation(currentPage.offsetOfNextObservation(), observation);
+                currentPage.commitObservations(1);
+            }
+        }
+
+        totalObservationsWritten++;
+    }
+
+    /**
+     * Appends a batch of observations (rows), given as one array of values per variable, to the SAS7BDAT that is being
+     * exported.
+     * <p>
+     * This is an alternative to {@link #writeObservation(List)} for data that is already stored in columns.  The values
+     * are serialized one variable at a time for all observations that fit on a page.  Each observation in the batch
+     * counts towards the {@code totalObservationInDataset} argument to this exporter's constructor.
+     * </p>
+     * <p>
+     * All values in the batch are checked before any are written, so if an exception is thrown, none of the batch's
+     * observations are written.  The batch may be modified or re-used after this method returns.
+     * </p>
+     *
+     * @param batch
+     *     The observations to write.  This must have been created with metadata that has the same variables as the
+     *     {@code Sas7bdatMetadata} that was given to this exporter's constructor.
+     *
+     * @throws NullPointerException
+     *     If {@code batch} is {@code null} or if it has a {@code null} value for a CHARACTER variable.
+     * @throws IllegalStateException
+     *     If writing the batch would exceed the {@code totalObservationsInDataset} argument given in the constructor or
+     *     if this exporter has already been closed.
+     * @throws IllegalArgumentException
+     *     if {@code batch} was created for different variables or if it has a value that doesn't conform to its
+     *     variable.
+     * @throws IOException
+     *     If an I/O error prevented the observations from being written.
+     */
+    public void writeObservations(ObservationBatch batch) throws IOException {
+        ArgumentUtil.checkNotNull(batch, "batch");
         if (isClosed()) {
-            throw new IllegalStateException("Cannot invoke writeObservation on closed exporter");
+            throw new IllegalStateException("Cannot invoke writeObservations on closed exporter");
         }
-        if (totalObservationsInDataset <= totalObservationsWritten) {
-            throw new IllegalStateException("wrote more observations than promised in the constructor");
+        checkCapacity(batch.size());
+        if (!variablesLayout.variables().equals(batch.variables())) {
+            throw new IllegalArgumentException("batch was created for different variables than this exporter's");
+        }
+        variablesLayout.checkObservations(batch);
+
+        // This overwrites any observation that was begun by beginObservation() but not committed.
+        observationWriter.abandon();
+
+        if (compressor != null) {
+            // Each observation is compressed on its own.
+            addPendingObservation();
+            for (int i = 0; i < batch.size(); i++) {
+                variablesLayout.writeObservations(observationBuffer, 0, batch, i, 1);
+                addCompressedObservation(compressObservation());
+                totalObservationsWritten++;
+            }
+            return;
+        }
+
+        // Fill each page with as many observations as it can hold, one variable at a time.
+        int totalWritten = 0;
+        while (totalWritten < batch.size()) {
+            ensureSpaceForObservation();
+
+            final int count = Math.min(batch.size() - totalWritten, currentPage.totalObservationsRemaining());
+            variablesLayout.writeObservations(currentPageBuffer(), currentPage.offsetOfNextObservation(), batch,
+                totalWritten, count);
+            currentPage.commitObservations(count);
+
+            totalWritten += count;
+            totalObservationsWritten += count;
+        }
+    }
+
+    /**
+     * Appends observations that were already serialized with this exporter's variables layout.  This is how a
+     * {@link ConcurrentSas7bdatExporter} hands over the observations that its producers encoded.
+     *
+     * @param observations
+     *     The serialized observations, one after another, each {@code variablesLayout().rowLength()} bytes long.
+     * @param totalObservations
+     *     The number of observations in {@code observations}.
+     *
+     * @throws IllegalStateException
+     *     If writing the observations would exceed the {@code totalObservationsInDataset} argument given in the
+     *     constructor or if this exporter has already been closed.
+     * @throws IOException
+     *     If an I/O error prevented the observations from being written.
+     */
+    void writeSerializedObservations(byte[] observations, int totalObservations) throws IOException {
+        if (isClosed()) {
+            throw new IllegalStateException("Cannot invoke writeSerializedObservations on closed exporter");
+        }
+        checkCapacity(totalObservations);
+
+        // This overwrites any observation that was begun by beginObservation() but not committed.
+        observationWriter.abandon();
+
+        final int rowLength = variablesLayout.rowLength();
+        if (compressor != null) {
+            // Each observation is compressed on its own.
+            addPendingObservation();
+            for (int i = 0; i < totalObservations; i++) {
+                System.arraycopy(observations, i * rowLength, observationBuffer, 0, rowLength);
+                addCompressedObservation(compressObservation());
+                totalObservationsWritten++;
+            }
+            return;
+        }
+
+        // Copy as many observations onto each page as it can hold.
+        int totalWritten = 0;
+        while (totalWritten < totalObservations) {
+            ensureSpaceForObservation();
+
+            final int count = Math.min(totalObservations - totalWritten, currentPage.totalObservationsRemaining());
+            System.arraycopy(observations, totalWritten * rowLength, currentPageBuffer(),
+                currentPage.offsetOfNextObservation(), count * rowLength);
+            currentPage.commitObservations(count);
+
+            totalWritten += count;
+            totalObservationsWritten += count;
+        }
+    }
+
+    /**
+     * Gets the number of observations that can still be written to this exporter.
+     *
+     * @return The number of observations that were promised in the constructor but not yet written, or, if the
+     *     number of observations wasn't given, the most that a SAS7BDAT can hold.
+     */
+    long remainingCapacity() {
+        if (totalObservationsInDataset == UNKNOWN_TOTAL_OBSERVATIONS) {
+            return Long.MAX_VALUE - totalObservationsWritten;
+        }
+        return totalObservationsInDataset - totalObservationsWritten;
+    }
+
+    /**
+     * Gets the layout of the observations that this exporter writes.
+     *
+     * @return This exporter's variables layout.
+     */
+    Sas7bdatVariablesLayout variablesLayout() {
+        return variablesLayout;
+    }
+
+    /**
+     * Gets the size of each page in the SAS7BDAT that is being exported.
+     *
+     * @return The page size, in bytes.
+     */
+    int pageSize() {
+        return pageLayout.pageSize;
+    }
+
+    /**
+     * Begins appending an observation (row) to the SAS7BDAT that is being exported, one value at a time.
+     * <p>
+     * This is an alternative to {@link #writeObservation(List)} that serializes each value directly into the SAS7BDAT
+     * without boxing numbers or allocating a list.  The values are set on the returned {@link ObservationWriter}, which
+     * must then be committed for the observation to be added.  For example:
+     * </p>
+     * <pre>
+     * exporter.beginObservation().setString(0, "Atlanta").setString(1, "GA").setDouble(2, 72).setDouble(3, 53).commit();
+     * </pre>
+     * <p>
+     * Each committed observation counts towards the {@code totalObservationInDataset} argument to this exporter's
+     * constructor, just like an observation given to {@code writeObservation}.  If the observation is not committed,
+     * it is discarded by the next call to {@code beginObservation}, {@code writeObservation}, or {@code close}.
+     * </p>
+     *
+     * @return An observation writer whose values are all initially missing.  The same object is returned for every
+     *     observation.
+     *
+     * @throws IllegalStateException
+     *     If writing another observation would exceed the {@code totalObservationsInDataset} argument given in the
+     *     constructor or if this exporter has already been closed.
+     * @throws IOException
+     *     If an I/O error prevented a previous observation from being written.
+     */
+    public ObservationWriter beginObservation() throws IOException {
+        checkCanWriteObservation("beginObservation");
+
+        if (compressor != null) {
+            addPendingObservation();
+            observationWriter.begin(observationBuffer, 0);
+        } else {
+            ensureSpaceForObservation();
+            observationWriter.begin(currentPageBuffer(), currentPage.offsetOfNextObservation());
+        }
+        return observationWriter;
+    }
+
+    /**
+     * Adds the observation that was written by {@link #observationWriter} to the current page.
+     */
+    void commitObservation() {
+        assert !isClosed() : "committed an observation to a closed exporter";
+        if (compressor != null) {
+            // Adding a compressed observation may require writing a full page, which can't be done here because this
+            // can't throw an IOException.  Compress the observation now and add it the next time something is written.
+            assert pendingObservation == null : "multiple observations are pending";
+            pendingObservation = compressObservation();
+        } else {
+            currentPage.commitObservations(1);
+        }
+        totalObservationsWritten++;
+    }
+
+    /**
+     * Compresses the observation that was serialized into {@link #observationBuffer}.
+     *
+     * @return A subheader which holds the compressed observation.
+     */
+    private CompressedObservationSubheader compressObservation() {
+        if (statisticsAccumulator != null) {
+            statisticsAccumulator.accumulate(observationBuffer, 0, 1);
+        }
+        return new CompressedObservationSubheader(compressor, observationBuffer, variablesLayout.rowLength(),
+            compressedObservationBuffer);
+    }
+
+    /**
+     * Adds a compressed observation to the current page, first writing the current page if it's full.
+     *
+     * @param observation
+     *     The compressed observation.
+     *
+     * @throws IOException
+     *     If an I/O error prevented a full page from being written.
+     */
+    private void addCompressedObservation(CompressedObservationSubheader observation) throws IOException {
+        if (!currentPage.addSubheader(observation)) {
+            // The page is full.  Write it.
+            writeCompressedPage();
+
+            // Start a new page.  The page size ensures that any observation fits on an empty page.
+            currentPage = new Sas7bdatPage(pageSequenceGenerator, currentPage.pageSize(), variablesLayout);
+            boolean success = currentPage.addSubheader(observation);
+            assert success : "couldn't add an observation to an empty page";
+        }
+    }
+
+    /**
+     * Adds the observation that was committed by {@link #observationWriter}, if any, to the current page.
+     *
+     * @throws IOException
+     *     If an I/O error prevented a full page from being written.
+     */
+    private void addPendingObservation() throws IOException {
+        if (pendingObservation != null) {
+            addCompressedObservation(pendingObservation);
+            pendingObservation = null;
         }
+    }
+
+    private void writeCompressedPage() throws IOException {
+        currentPage.finalizeSubheaders();
+        writePage(currentPage);
+        totalCompressedPagesWritten++;
+    }
 
-        // Copy the observation to a byte array in case the caller modifies it.
-        // TODO: it would be more efficient to copy it directly to the page's byte array.
-        byte[] serializedObservation = new byte[variablesLayout.rowLength()];
-        variablesLayout.writeObservation(serializedObservation, 0, observation);
+    private void checkCanWriteObservation(String methodName) {
+        if (isClosed()) {
+            throw new IllegalStateException("Cannot invoke " + methodName + " on closed exporter");
+        }
+        checkCapacity(1);
+    }
 
-        if (!currentPage.addObservation(serializedObservation)) {
-            // The page is full.  Start the next one.
+    private void checkCapacity(int totalNewObservations) {
+        if (totalObservationsInDataset == UNKNOWN_TOTAL_OBSERVATIONS) {
+            if (Long.MAX_VALUE - totalObservationsWritten < totalNewObservations) {
+                throw new IllegalStateException(
+                    "A SAS7BDAT cannot have more than " + Long.MAX_VALUE + " observations");
+            }
+        } else if (totalObservationsInDataset - totalObservationsWritten < totalNewObservations) {
+            throw new IllegalStateException("wrote more observations than promised in the constructor");
+        }
+    }
 
-            // Write the page.
+    private void ensureSpaceForObservation() throws IOException {
+        if (!currentPage.hasSpaceForObservation()) {
+            // The page is full.  Write it.
             writePage(currentPage);
 
             // Start a new data page.
             currentPage = new Sas7bdatPage(pageSequenceGenerator, currentPage.pageSize(), variablesLayout);
             currentPage.finalizeSubheaders(); // a data page has no subheaders
-
-            // Write the observation to the new page.
-            boolean success = currentPage.addObservation(serializedObservation);
-            assert success : "couldn't write to new page";
         }
-
-        totalObservationsWritten++;
     }
 
     private void writePage(Sas7bdatPage page) throws IOException {
-        // Clear the data on the buffer so that parts of the previous page
-        // don't get repeated in this page for the parts that aren't filled in.
-        //
-        // That said, SAS echos part of the second-to-final page on the conceptually
-        // blank parts of the final data page, so using a dirty buffer may better
-        // match what SAS does.  On the other hand, re-using a dirty buffer has
-        // put some information on the first data page that caused SAS to skip
-        // data on the second data page, so there must be some part of the
-        // data footer that is significant.
-        Arrays.fill(pageBuffer, (byte) 0x00);
+        if (pipeline != null) {
+            // The page is encoded on the executor and written after the pages that were submitted before it.
+            pipeline.submitPage(page);
+            return;
+        }
+
+        // The statistics of a compressed observation were accumulated before it was compressed.
+        if (statisticsAccumulator != null && compressor == null) {
+            statisticsAccumulator.accumulate(pageBuffer, page.offsetOfFirstObservation(), page.totalObservations());
+        }
 
+        // The observations on this page were already serialized into pageBuffer.  The page's
+        // write() method fills in the rest, including zeroing the unused space, so the
+        // buffer doesn't need to be cleared first.  This is the only copy of the page's data.
         page.write(pageBuffer);
-        outputStream.write(pageBuffer);
+        writePageBuffer();
+    }
+
+    /**
+     * Gets the buffer into which the current page's observations are serialized.
+     *
+     * @return The current page's buffer.
+     */
+    private byte[] currentPageBuffer() {
+        return pipeline == null ? pageBuffer : pipeline.buffer();
+    }
+
+    /**
+     * Gets the statistics of the observations that were written.
+     * <p>
+     * This is only available if {@link Sas7bdatExportOptions.Builder#collectStatistics(boolean)} was enabled in the
+     * options that were given to this exporter's constructor, and only after this exporter is closed.
+     * </p>
+     *
+     * @return The statistics of every observation that was written to this exporter.  This is never {@code null}.
+     *
+     * @throws IllegalStateException
+     *     if statistics weren't collected or if this exporter hasn't been closed.
+     */
+    public Sas7bdatExportStatistics statistics() {
+        if (statisticsAccumulator == null) {
+            throw new IllegalStateException("statistics were not collected");
+        }
+        if (!isClosed()) {
+            throw new IllegalStateException("Cannot invoke statistics before the exporter is closed");
+        }
+        return statisticsAccumulator.toStatistics();
+    }
+
+    /**
+     * Gets the checksums of the pages that were written.
+     * <p>
+     * This is only available if {@link Sas7bdatExportOptions.Builder#pageChecksums(boolean)} was enabled in the
+     * options that were given to this exporter's constructor, and only after this exporter is closed.
+     * </p>
+     *
+     * @return The checksum of every page of the SAS7BDAT, and of the whole SAS7BDAT.  This is never {@code null}.
+     *
+     * @throws IllegalStateException
+     *     if page checksums weren't computed or if this exporter hasn't been closed.
+     */
+    public Sas7bdatPageChecksums pageChecksums() {
+        if (pageChecksumAccumulator == null) {
+            throw new IllegalStateException("page checksums were not computed");
+        }
+        if (!isClosed()) {
+            throw new IllegalStateException("Cannot invoke pageChecksums before the exporter is closed");
+        }
+        return pageChecksumAccumulator.toPageChecksums();
     }
 
     /**
@@ -567,7 +1229,7 @@ public final class Sas7bdatExporter implements AutoCloseable {
      *
      * @return {@code true}, if this exporter is closed; {@code false}, otherwise.
      */
-    private boolean isClosed() {
+    boolean isClosed() {
         return currentPage == null;
     }
 
@@ -595,17 +1257,45 @@ public final class Sas7bdatExporter implements AutoCloseable {
             // unhandled exception while writing the observations, then we will throw a rather
             // obvious exception here.  In this case, the JVM will suppress this exception and
             // continue with the original one.
-            if (totalObservationsInDataset != totalObservationsWritten) {
+            if (totalObservationsInDataset != UNKNOWN_TOTAL_OBSERVATIONS &&
+                totalObservationsInDataset != totalObservationsWritten) {
                 throw new IllegalStateException(
                     "The constructor was told to expect " + totalObservationsInDataset +
                         " observation(s) but only " + totalObservationsWritten + " were written.");
             }
 
-            // Write the page.
-            writePage(currentPage);
+            // Write the page.  This discards any observation that was begun but never committed.
+            observationWriter.abandon();
+            if (compressor == null) {
+                writePage(currentPage);
+            } else {
+                addPendingObservation();
+
+                // Every observation is a subheader on a compressed page, so the final page is only empty if there
+                // are no observations, in which case it isn't written.
+                final int totalObservationsOnFinalPage = currentPage.subheaders().size();
+                if (totalObservationsOnFinalPage != 0) {
+                    writeCompressedPage();
+                }
+                rowSizeSubheader.setLocationOfFinalCompressedObservation(
+                    pageLayout.completeMetadataPages.size() + totalCompressedPagesWritten,
+                    totalObservationsOnFinalPage);
+            }
             currentPage = null;
 
-            outputStream.close();
+            try {
+                // Wait for the pages that are being encoded in parallel to be written.
+                if (pipeline != null) {
+                    pipeline.flush();
+                }
+
+                // Now that the number of observations is known, fix the parts of the metadata that depend on it.
+                if (totalObservationsInDataset == UNKNOWN_TOTAL_OBSERVATIONS) {
+                    patchMetadata();
+                }
+            } finally {
+                outputStream.close();
+            }
         }
     }
 
@@ -613,7 +1303,7 @@ public final class Sas7bdatExporter implements AutoCloseable {
      * Writes a SAS7BDAT file with the given metadata and observations to the file system.
      * <p>
      * If your dataset is too large to hold in memory, then you should use the
-     * {@link Sas7bdatExporter#Sas7bdatExporter(Path, Sas7bdatMetadata, int)} constructor and stream the observations
+     * {@link Sas7bdatExporter#Sas7bdatExporter(Path, Sas7bdatMetadata, long)} constructor and stream the observations
      * using {@link Sas7bdatExporter#writeObservation writeObservation}.
      * </p>
      *
@@ -4,6 +4,7 @@
 ///////////////////////////////////////////////////////////////////////////////
 package org.scharp.sas7bdat;
 
+import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -17,20 +18,20 @@ import static org.scharp.sas7bdat.WriteUtil.writeUtf8;
 class Sas7bdatHeader {
 
     private static final byte ALIGNMENT_OFFSET_0 = 0x22;
-    private static final byte ALIGNMENT_OFFSET_4 = 0x33;
+    static final byte ALIGNMENT_OFFSET_4 = 0x33;
 
     private static final byte BIG_ENDIAN = 0x00;
-    private static final byte LITTLE_ENDIAN = 0x01;
+    static final byte LITTLE_ENDIAN = 0x01;
 
     private static final byte OS_UNIX = '1';
     private static final byte OS_WINDOWS = '2';
 
-    private static final byte ENCODING_UTF8 = 20;
+    static final byte ENCODING_UTF8 = 20;
 
     /**
      * The magic number for SAS7BDAT files (first 32 bytes)
      */
-    private final byte[] magicNumber = new byte[] { //
+    private static final byte[] MAGIC_NUMBER = new byte[] { //
         0x00, 0x00, 0x00, 0x00, //
         0x00, 0x00, 0x00, 0x00, //
         0x00, 0x00, 0x00, 0x00, //
@@ -68,15 +69,43 @@ class Sas7bdatHeader {
         return secondsSince1960;
     }
 
+    /**
+     * Converts a SAS Epoch time to a LocalDateTime.  This is the inverse of {@link #toSasEpoch(LocalDateTime)}.
+     *
+     * @param secondsSince1960
+     *     The time since the SAS Epoch, in the local time zone.
+     *
+     * @return the corresponding local time.
+     */
+    static LocalDateTime fromSasEpoch(double secondsSince1960) {
+        // As in toSasEpoch(), the seconds are added to a ZonedDateTime so that Daylight Saving Time is handled.
+        ZoneId systemDefaultZone = ZoneId.systemDefault();
+        final ZonedDateTime sasEpoch = ZonedDateTime.of(1960, 1, 1, 0, 0, 0, 0, systemDefaultZone);
+        return sasEpoch.plusSeconds((long) secondsSince1960).toLocalDateTime();
+    }
+
+    /**
+     * Determines if a buffer starts with the magic number for SAS7BDAT files.
+     *
+     * @param header
+     *     The beginning of a file.  Its position is not changed.
+     *
+     * @return {@code true}, if {@code header} starts with the magic number; {@code false}, otherwise.
+     */
+    static boolean hasMagicNumber(ByteBuffer header) {
+        return MAGIC_NUMBER.length <= header.limit() &&
+            header.slice(0, MAGIC_NUMBER.length).equals(ByteBuffer.wrap(MAGIC_NUMBER));
+    }
+
     private final int headerSize;
     private final int pageSize;
     private final long initialPageSequenceNumber;
     private final String datasetName;
     private final LocalDateTime creationDate;
-    private final int totalPages;
+    private final long totalPages;
 
     Sas7bdatHeader(PageSequenceGenerator pageSequenceGenerator, int headerSize, int pageSize,
-        String datasetName, LocalDateTime creationDate, int totalPages) {
+        String datasetName, LocalDateTime creationDate, long totalPages) {
         this.headerSize = headerSize;
         this.pageSize = pageSize;
         this.initialPageSequenceNumber = pageSequenceGenerator.initialPageSequence();
@@ -93,7 +122,7 @@ class Sas7bdatHeader {
         final byte intAlignmentOffset = intAlignmentOffsetByte == ALIGNMENT_OFFSET_4 ? 4 : 0;
 
         // Set the magic number in the first 32 bytes
-        System.arraycopy(magicNumber, 0, data, 0, magicNumber.length);
+        System.arraycopy(MAGIC_NUMBER, 0, data, 0, MAGIC_NUMBER.length);
 
         data[32] = doubleAlignmentOffsetByte; // if (byte==x33) a2=4 else a2=0 . u64 is true if a2=4 (unix 64 bit format).
         data[33] = 0x22; // unknown purpose
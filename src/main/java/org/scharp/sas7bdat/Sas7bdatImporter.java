@@ -0,0 +1,608 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads a SAS7BDAT file by mapping it into memory.
+ * <p>
+ * This understands the layout of the SAS7BDAT files that {@link Sas7bdatExporter} writes: 64-bit, little-endian,
+ * UTF-8, and uncompressed.  Files with any other layout are rejected.  The metadata is parsed when the importer is
+ * constructed.  The observations are read with an {@link ObservationCursor}, which decodes each value directly from
+ * the mapped page when it's requested.
+ * </p>
+ * <p>
+ * An importer is safe to share between threads, but each thread must use its own cursor.
+ * </p>
+ *
+ * <pre>
+ * try (Sas7bdatImporter importer = new Sas7bdatImporter(path)) {
+ *     final int city = importer.metadata().variableIndex("CITY");
+ *     final int high = importer.metadata().variableIndex("HIGH");
+ *     ObservationCursor cursor = importer.cursor();
+ *     while (cursor.next()) {
+ *         System.out.println(cursor.getString(city) + ": " + cursor.getDouble(high));
+ *     }
+ * }
+ * </pre>
+ */
+public final class Sas7bdatImporter implements AutoCloseable {
+
+    /** The number of bytes at the beginning of the header that are needed to interpret it (through the page count). */
+    private static final int HEADER_PREFIX_SIZE = 216;
+
+    /** The offset, within the first ColumnTextSubheader, of the name of the compression method. */
+    private static final int OFFSET_OF_COMPRESSION_LITERAL = 20;
+
+    private static final byte[] COMPRESSION_LITERAL_PREFIX = "SASYZCR".getBytes(StandardCharsets.US_ASCII);
+
+    /** A reference to a string in a ColumnTextSubheader. */
+    private record TextReference(int subheaderIndex, int offset, int length) {
+    }
+
+    private final FileChannel channel;
+    private final int headerSize;
+    private final int pageSize;
+    private final long totalPages;
+    private final int pagesPerSegment;
+    private final MappedByteBuffer[] segments;
+
+    private final Sas7bdatMetadata metadata;
+    private final long totalObservations;
+    private final int rowLength;
+    private final int maxObservationsPerPage;
+    private final long firstDataPageIndex;
+    private final int totalObservationsOnMixedPage; // on the page before firstDataPageIndex
+    private final VariableType[] variableTypes;
+    private final int[] physicalOffsets;
+    private final int[] lengths;
+    private final int[] allVariableIndices; // 0, 1, 2, ...
+
+    private volatile boolean isClosed;
+
+    /**
+     * Opens a SAS7BDAT file and reads its metadata.
+     *
+     * @param sourceLocation
+     *     The path to the SAS7BDAT file.
+     *
+     * @throws NullPointerException
+     *     if {@code sourceLocation} is {@code null}.
+     * @throws IOException
+     *     if the file can't be read, if it isn't a SAS7BDAT file, or if its layout is not supported.
+     */
+    public Sas7bdatImporter(Path sourceLocation) throws IOException {
+        ArgumentUtil.checkNotNull(sourceLocation, "sourceLocation");
+
+        channel = FileChannel.open(sourceLocation, StandardOpenOption.READ);
+        try {
+            // Read the header.
+            final long fileSize = channel.size();
+            if (fileSize < HEADER_PREFIX_SIZE) {
+                throw new IOException("not a SAS7BDAT file");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_PREFIX_SIZE).
+                order(ByteOrder.LITTLE_ENDIAN);
+            if (!Sas7bdatHeader.hasMagicNumber(header)) {
+                throw new IOException("not a SAS7BDAT file");
+            }
+            if (header.get(32) != Sas7bdatHeader.ALIGNMENT_OFFSET_4) {
+                throw new IOException("only 64-bit SAS7BDAT files are supported");
+            }
+            if (header.get(37) != Sas7bdatHeader.LITTLE_ENDIAN) {
+                throw new IOException("only little-endian SAS7BDAT files are supported");
+            }
+            if (header.get(70) != Sas7bdatHeader.ENCODING_UTF8) {
+                throw new IOException("only UTF-8 SAS7BDAT files are supported");
+            }
+
+            // With 64-bit alignment, the dates and sizes are four bytes later than in a 32-bit file, and the page
+            // count is a further four bytes later.
+            final String datasetName = readBlankPaddedString(header, 92, 64);
+            final double creationTime = header.getDouble(164 + 4);
+            headerSize = header.getInt(196 + 4);
+            pageSize = header.getInt(200 + 4);
+            totalPages = header.getLong(200 + 4 + 4);
+            if (headerSize < HEADER_PREFIX_SIZE || pageSize < Sas7bdatPage.DATA_PAGE_HEADER_SIZE || totalPages < 0 ||
+                (fileSize - headerSize) / pageSize < totalPages) {
+                throw new IOException("the SAS7BDAT is truncated or malformed");
+            }
+
+            // Map the pages.  A mapping can't be larger than 2GiB, so a large file is mapped as several segments,
+            // each of which has a whole number of pages.
+            pagesPerSegment = Integer.MAX_VALUE / pageSize;
+            final int totalSegments = Math.toIntExact((totalPages + pagesPerSegment - 1) / pagesPerSegment);
+            segments = new MappedByteBuffer[totalSegments];
+            for (int i = 0; i < totalSegments; i++) {
+                final long firstPage = (long) i * pagesPerSegment;
+                final long totalPagesInSegment = Math.min(pagesPerSegment, totalPages - firstPage);
+                segments[i] = channel.map(
+                    FileChannel.MapMode.READ_ONLY,
+                    headerSize + firstPage * pageSize,
+                    totalPagesInSegment * pageSize);
+                segments[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+
+            // Read the metadata from the subheaders.
+            long totalObservationsInDataset = -1;
+            int rowLengthInDataset = -1;
+            int totalVariables = -1;
+            String datasetType = "";
+            String datasetLabel = "";
+            TextReference datasetTypeReference = null;
+            TextReference datasetLabelReference = null;
+            List<byte[]> columnTextSubheaders = new ArrayList<>();
+            List<TextReference> nameReferences = new ArrayList<>();
+            List<long[]> attributes = new ArrayList<>(); // { offset, length, type }
+            List<TextReference[]> formatReferences = new ArrayList<>(); // { input format, output format, label }
+            List<short[]> formatSizes = new ArrayList<>(); // { output width, output digits, input width, input digits }
+
+            // The metadata is on the pages before the first data page.
+            long firstDataPageIndexInDataset = totalPages;
+            int totalObservationsOnMixedPageInDataset = 0;
+            for (long pageIndex = 0; pageIndex < totalPages; pageIndex++) {
+                final ByteBuffer segment = segment(pageIndex);
+                final int pageOffset = offsetOfPage(pageIndex);
+                final short pageType = segment.getShort(pageOffset + 32);
+                if (pageType == Sas7bdatPage.PAGE_TYPE_DATA) {
+                    firstDataPageIndexInDataset = pageIndex;
+                    break;
+                }
+
+                final int totalSubheaders = Short.toUnsignedInt(segment.getShort(pageOffset + 36));
+                for (int i = 0; i < totalSubheaders; i++) {
+                    final int indexEntryOffset = pageOffset + Sas7bdatPage.DATA_PAGE_HEADER_SIZE +
+                        i * Sas7bdatPage.SUBHEADER_OFFSET_SIZE_64BIT;
+                    final long subheaderOffsetInPage = segment.getLong(indexEntryOffset);
+                    final long subheaderSize = segment.getLong(indexEntryOffset + 8);
+                    final byte compressionCode = segment.get(indexEntryOffset + 16);
+                    if (subheaderSize == 0 || compressionCode == Subheader.COMPRESSION_TRUNCATED) {
+                        continue; // a terminal subheader
+                    }
+                    if (compressionCode != Subheader.COMPRESSION_UNCOMPRESSED) {
+                        throw new IOException("compressed SAS7BDAT files are not supported");
+                    }
+                    if (subheaderOffsetInPage < 0 || pageSize < subheaderOffsetInPage + subheaderSize) {
+                        throw new IOException("the SAS7BDAT has a subheader that extends beyond its page");
+                    }
+
+                    final int subheaderOffset = pageOffset + (int) subheaderOffsetInPage;
+                    final long signature = segment.getLong(subheaderOffset);
+                    if (signature == Subheader.SIGNATURE_ROW_SIZE) {
+                        rowLengthInDataset = Math.toIntExact(segment.getLong(subheaderOffset + 40));
+                        totalObservationsInDataset = segment.getLong(subheaderOffset + 48);
+                        datasetLabelReference = readTextReference(segment, subheaderOffset + 678);
+                        datasetTypeReference = readTextReference(segment, subheaderOffset + 684);
+
+                    } else if (signature == Subheader.SIGNATURE_COLUMN_SIZE) {
+                        totalVariables = Math.toIntExact(segment.getLong(subheaderOffset + 8));
+
+                    } else if (signature == Subheader.SIGNATURE_COLUMN_TEXT) {
+                        byte[] columnText = new byte[(int) subheaderSize];
+                        segment.get(subheaderOffset, columnText);
+                        columnTextSubheaders.add(columnText);
+
+                    } else if (signature == Subheader.SIGNATURE_COLUMN_NAME) {
+                        // Each entry is a reference to the name's text, followed by two bytes of padding.
+                        final int totalEntries = ((int) subheaderSize - VariableSizeSubheader.VARIABLE_SUBHEADER_OVERHEAD) / 8;
+                        for (int entry = 0; entry < totalEntries; entry++) {
+                            nameReferences.add(readTextReference(segment, subheaderOffset + 16 + entry * 8));
+                        }
+
+                    } else if (signature == Subheader.SIGNATURE_COLUMN_ATTRS) {
+                        // Each entry has the variable's offset in the row, its length, flags, and type.
+                        final int totalEntries = ((int) subheaderSize - VariableSizeSubheader.VARIABLE_SUBHEADER_OVERHEAD) / 16;
+                        for (int entry = 0; entry < totalEntries; entry++) {
+                            final int entryOffset = subheaderOffset + 16 + entry * 16;
+                            attributes.add(new long[] {
+                                segment.getLong(entryOffset),
+                                segment.getInt(entryOffset + 8),
+                                segment.getShort(entryOffset + 14) });
+                        }
+
+                    } else if (signature == Subheader.SIGNATURE_COLUMN_FORMAT) {
+                        formatSizes.add(new short[] {
+                            segment.getShort(subheaderOffset + 24),
+                            segment.getShort(subheaderOffset + 26),
+                            segment.getShort(subheaderOffset + 28),
+                            segment.getShort(subheaderOffset + 30) });
+                        formatReferences.add(new TextReference[] {
+                            readTextReference(segment, subheaderOffset + 40),
+                            readTextReference(segment, subheaderOffset + 46),
+                            readTextReference(segment, subheaderOffset + 52) });
+                    }
+                }
+
+                if (pageType == Sas7bdatPage.PAGE_TYPE_MIX) {
+                    // The final metadata page, which may also have the first observations.
+                    final int totalBlocks = Short.toUnsignedInt(segment.getShort(pageOffset + 34));
+                    totalObservationsOnMixedPageInDataset = Math.max(0, totalBlocks - totalSubheaders);
+                    firstDataPageIndexInDataset = pageIndex + 1;
+                    break;
+                }
+            }
+
+            if (totalObservationsInDataset < 0 || rowLengthInDataset < 0 || totalVariables < 0 ||
+                columnTextSubheaders.isEmpty()) {
+                throw new IOException("the SAS7BDAT is missing required metadata");
+            }
+            if (nameReferences.size() != totalVariables || attributes.size() != totalVariables ||
+                formatReferences.size() != totalVariables) {
+                throw new IOException("the SAS7BDAT has inconsistent metadata for its variables");
+            }
+
+            // SAS puts the name of the compression method in the first text subheader.
+            final byte[] firstColumnText = columnTextSubheaders.get(0);
+            if (OFFSET_OF_COMPRESSION_LITERAL + COMPRESSION_LITERAL_PREFIX.length <= firstColumnText.length &&
+                ByteBuffer.wrap(firstColumnText, OFFSET_OF_COMPRESSION_LITERAL, COMPRESSION_LITERAL_PREFIX.length).
+                    equals(ByteBuffer.wrap(COMPRESSION_LITERAL_PREFIX))) {
+                throw new IOException("compressed SAS7BDAT files are not supported");
+            }
+
+            // Build the variables.
+            variableTypes = new VariableType[totalVariables];
+            physicalOffsets = new int[totalVariables];
+            lengths = new int[totalVariables];
+            List<Variable> variables = new ArrayList<>(totalVariables);
+            try {
+                for (int i = 0; i < totalVariables; i++) {
+                    final long[] attribute = attributes.get(i);
+                    final TextReference[] references = formatReferences.get(i);
+                    final short[] sizes = formatSizes.get(i);
+
+                    physicalOffsets[i] = Math.toIntExact(attribute[0]);
+                    lengths[i] = (int) attribute[1];
+                    variableTypes[i] = attribute[2] == 1 ? VariableType.NUMERIC : VariableType.CHARACTER;
+                    if (rowLengthInDataset < physicalOffsets[i] + lengths[i]) {
+                        throw new IOException("the SAS7BDAT has a variable that extends beyond its row");
+                    }
+
+                    variables.add(Variable.builder().
+                        name(readText(columnTextSubheaders, nameReferences.get(i))).
+                        type(variableTypes[i]).
+                        length(lengths[i]).
+                        label(readText(columnTextSubheaders, references[2])).
+                        inputFormat(new Format(readText(columnTextSubheaders, references[0]), sizes[2], sizes[3])).
+                        outputFormat(new Format(readText(columnTextSubheaders, references[1]), sizes[0], sizes[1])).
+                        build());
+                }
+
+                if (datasetTypeReference != null) {
+                    datasetType = stripTrailingBlanks(readText(columnTextSubheaders, datasetTypeReference));
+                }
+                if (datasetLabelReference != null) {
+                    datasetLabel = readText(columnTextSubheaders, datasetLabelReference);
+                }
+
+                metadata = Sas7bdatMetadata.builder().
+                    creationTime(Sas7bdatHeader.fromSasEpoch(creationTime)).
+                    datasetName(datasetName).
+                    datasetType(datasetType).
+                    datasetLabel(datasetLabel).
+                    variables(variables).
+                    build();
+            } catch (IllegalArgumentException exception) {
+                throw new IOException("the SAS7BDAT has malformed metadata: " + exception.getMessage(), exception);
+            }
+
+            // The values are decoded at the offsets that were read from the file, but a projection is only correct if
+            // those offsets follow the same layout that Sas7bdatExporter writes.
+            Sas7bdatVariablesLayout variablesLayout = new Sas7bdatVariablesLayout(variables);
+            for (int i = 0; i < totalVariables; i++) {
+                if (physicalOffsets[i] != variablesLayout.physicalOffsets().get(i)) {
+                    throw new IOException("the SAS7BDAT has a row layout that is not supported");
+                }
+            }
+            if (variablesLayout.rowLength() != rowLengthInDataset) {
+                throw new IOException("the SAS7BDAT has a row layout that is not supported");
+            }
+
+            totalObservations = totalObservationsInDataset;
+            rowLength = rowLengthInDataset;
+            maxObservationsPerPage = Sas7bdatPage.maxObservationsPerDataPage(pageSize, variablesLayout);
+            firstDataPageIndex = firstDataPageIndexInDataset;
+            allVariableIndices = new int[totalVariables];
+            Arrays.setAll(allVariableIndices, i -> i);
+            totalObservationsOnMixedPage = totalObservationsOnMixedPageInDataset;
+            isClosed = false;
+
+        } catch (IndexOutOfBoundsException | ArithmeticException exception) {
+            // An offset or size that doesn't fit in the mapped pages means that the file is malformed.
+            channel.close();
+            throw new IOException("the SAS7BDAT is malformed", exception);
+        } catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    private static TextReference readTextReference(ByteBuffer buffer, int offset) {
+        return new TextReference(
+            Short.toUnsignedInt(buffer.getShort(offset)),
+            Short.toUnsignedInt(buffer.getShort(offset + 2)),
+            Short.toUnsignedInt(buffer.getShort(offset + 4)));
+    }
+
+    private static String readText(List<byte[]> columnTextSubheaders, TextReference reference) throws IOException {
+        if (reference.length() == 0) {
+            return "";
+        }
+        if (columnTextSubheaders.size() <= reference.subheaderIndex()) {
+            throw new IOException("the SAS7BDAT has a reference to a missing text subheader");
+        }
+
+        // The offset is relative to the end of the signature.
+        final byte[] columnText = columnTextSubheaders.get(reference.subheaderIndex());
+        final int offset = Subheader.SIGNATURE_SIZE + reference.offset();
+        if (columnText.length < offset + reference.length()) {
+            throw new IOException("the SAS7BDAT has a reference beyond the end of a text subheader");
+        }
+        return new String(columnText, offset, reference.length(), StandardCharsets.UTF_8);
+    }
+
+    private static String readBlankPaddedString(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, 0, lengthWithoutTrailingBlanks(bytes, 0, length), StandardCharsets.UTF_8);
+    }
+
+    private static String stripTrailingBlanks(String string) {
+        int length = string.length();
+        while (0 < length && string.charAt(length - 1) == ' ') {
+            length--;
+        }
+        return string.substring(0, length);
+    }
+
+    static int lengthWithoutTrailingBlanks(byte[] bytes, int offset, int length) {
+        while (0 < length && bytes[offset + length - 1] == ' ') {
+            length--;
+        }
+        return length;
+    }
+
+    /**
+     * Gets the mapped segment of the file that holds a page.
+     *
+     * @param pageIndex
+     *     The (0-based) index of the page, not counting the header.
+     *
+     * @return The segment.  The caller must only read from it with absolute methods.
+     */
+    ByteBuffer segment(long pageIndex) {
+        return segments[(int) (pageIndex / pagesPerSegment)];
+    }
+
+    /**
+     * Gets the offset of a page within its segment.
+     *
+     * @param pageIndex
+     *     The (0-based) index of the page, not counting the header.
+     *
+     * @return The offset of the page within the buffer returned by {@link #segment(long)}.
+     */
+    int offsetOfPage(long pageIndex) {
+        return (int) (pageIndex % pagesPerSegment) * pageSize;
+    }
+
+    long totalPages() {
+        return totalPages;
+    }
+
+    int rowLength() {
+        return rowLength;
+    }
+
+    int maxObservationsPerPage() {
+        return maxObservationsPerPage;
+    }
+
+    long firstDataPageIndex() {
+        return firstDataPageIndex;
+    }
+
+    int totalObservationsOnMixedPage() {
+        return totalObservationsOnMixedPage;
+    }
+
+    VariableType[] variableTypes() {
+        return variableTypes;
+    }
+
+    int[] physicalOffsets() {
+        return physicalOffsets;
+    }
+
+    int[] lengths() {
+        return lengths;
+    }
+
+    /**
+     * Gets the metadata of the dataset, as it would be given to a {@link Sas7bdatExporter} to write the same
+     * dataset.
+     *
+     * @return The dataset's metadata.  This is never {@code null}.
+     */
+    public Sas7bdatMetadata metadata() {
+        return metadata;
+    }
+
+    /**
+     * Gets the number of observations in the dataset.
+     *
+     * @return The number of observations.
+     */
+    public long totalObservations() {
+        return totalObservations;
+    }
+
+    /**
+     * Creates a cursor that reads the observations from the first to the last.
+     * <p>
+     * Any number of cursors may be created.  Each one reads the observations independently of the others.
+     * </p>
+     *
+     * @return A new cursor, which is positioned before the first observation.
+     *
+     * @throws IllegalStateException
+     *     if this importer has been closed.
+     */
+    public ObservationCursor cursor() {
+        if (isClosed) {
+            throw new IllegalStateException("Cannot invoke cursor on closed importer");
+        }
+        return new ObservationCursor(this);
+    }
+
+    /**
+     * Creates a cursor that reads a range of the observations.
+     * <p>
+     * The observations are fixed-width and every data page but the last is full, so the page and offset of the
+     * observation at {@code fromIndex} are computed directly, without reading the pages before it.  This makes it
+     * cheap to read one page of results from anywhere in a large dataset.
+     * </p>
+     *
+     * @param fromIndex
+     *     The (0-based) index of the first observation to read.
+     * @param toIndex
+     *     The index of the observation after the last one to read.
+     *
+     * @return A new cursor, which is positioned before the observation at {@code fromIndex}.
+     *
+     * @throws IndexOutOfBoundsException
+     *     if {@code fromIndex} is negative, if {@code toIndex} is greater than the number of observations, or if
+     *     {@code fromIndex} is greater than {@code toIndex}.
+     * @throws IllegalStateException
+     *     if this importer has been closed.
+     * @throws UncheckedIOException
+     *     if the SAS7BDAT doesn't have an observation where its metadata says it should be.
+     */
+    public ObservationCursor cursor(long fromIndex, long toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, totalObservations);
+        if (isClosed) {
+            throw new IllegalStateException("Cannot invoke cursor on closed importer");
+        }
+        return ObservationCursor.forObservations(this, fromIndex, toIndex);
+    }
+
+    /**
+     * Reads a single observation.
+     * <p>
+     * Like {@link #cursor(long, long)}, this goes directly to the observation's page.  The observation is returned as
+     * an unmodifiable list in the form that's given by {@link #observations()}.
+     * </p>
+     *
+     * @param index
+     *     The (0-based) index of the observation.
+     *
+     * @return The observation's values, in the same order as the variables.
+     *
+     * @throws IndexOutOfBoundsException
+     *     if {@code index} is negative or not less than the number of observations.
+     * @throws IllegalStateException
+     *     if this importer has been closed.
+     * @throws UncheckedIOException
+     *     if the SAS7BDAT doesn't have an observation where its metadata says it should be.
+     */
+    public List<Object> observation(long index) {
+        Objects.checkIndex(index, totalObservations);
+        if (isClosed) {
+            throw new IllegalStateException("Cannot invoke observation on closed importer");
+        }
+
+        ObservationCursor cursor = ObservationCursor.forObservations(this, index, index + 1);
+        cursor.next();
+        return cursor.getValues(allVariableIndices);
+    }
+
+    /**
+     * Creates a stream of the dataset's observations, with every variable.
+     * <p>
+     * This is the same as invoking {@link #observations(List)} with the names of all the variables.
+     * </p>
+     *
+     * @return A new stream of observations.
+     *
+     * @throws IllegalStateException
+     *     if this importer has been closed.
+     */
+    public Stream<List<Object>> observations() {
+        if (isClosed) {
+            throw new IllegalStateException("Cannot invoke observations on closed importer");
+        }
+        return StreamSupport.stream(new ObservationSpliterator(this, allVariableIndices), false);
+    }
+
+    /**
+     * Creates a stream of the dataset's observations, projected onto some of its variables.
+     * <p>
+     * Only the requested variables are decoded.  Each observation is an unmodifiable list whose values are in the same
+     * order as {@code variableNames}.  As with {@link ObservationCursor#getValue}, a CHARACTER value is a
+     * {@code String} and a NUMERIC value is either a {@code Double} or a {@code MissingValue}.
+     * </p>
+     * <p>
+     * The stream is ordered.  When it's made parallel, it's split on page boundaries, so that each thread decodes the
+     * observations of whole pages, and each page is only read by one thread.
+     * </p>
+     *
+     * @param variableNames
+     *     The names of the variables to include in each observation, in the order they should be given.  A variable
+     *     may be given more than once.
+     *
+     * @return A new stream of observations.
+     *
+     * @throws NullPointerException
+     *     if {@code variableNames} is {@code null} or contains a {@code null} name.
+     * @throws IllegalArgumentException
+     *     if there is no variable with one of the names in {@code variableNames}.
+     * @throws IllegalStateException
+     *     if this importer has been closed.
+     */
+    public Stream<List<Object>> observations(List<String> variableNames) {
+        ArgumentUtil.checkNotNull(variableNames, "variableNames");
+        final int[] variableIndices = new int[variableNames.size()];
+        for (int i = 0; i < variableIndices.length; i++) {
+            variableIndices[i] = metadata.variableIndex(variableNames.get(i));
+        }
+        if (isClosed) {
+            throw new IllegalStateException("Cannot invoke observations on closed importer");
+        }
+
+        return StreamSupport.stream(new ObservationSpliterator(this, variableIndices), false);
+    }
+
+    /**
+     * Closes the file.  It's safe to invoke this multiple times.
+     * <p>
+     * The file stays mapped until the mapping is garbage collected, so a cursor that was created before the importer
+     * was closed can still be used, but no new cursors can be created.
+     * </p>
+     *
+     * @throws IOException
+     *     if the file couldn't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!isClosed) {
+            isClosed = true;
+            channel.close();
+        }
+    }
+}
@@ -342,4 +342,34 @@ public final class Sas7bdatMetadata {
     public List<Variable> variables() {
         return Collections.unmodifiableList(variables);
     }
+
+    /**
+     * Gets the index of a variable within this metadata's variables.
+     * <p>
+     * This can be used to resolve a variable's name into the index that is given to an {@link ObservationWriter} once,
+     * instead of once per observation.
+     * </p>
+     *
+     * @param variableName
+     *     The name of the variable.  This is case-sensitive.
+     *
+     * @return The (0-based) index of the variable whose name is {@code variableName}.
+     *
+     * @throws NullPointerException
+     *     if {@code variableName} is {@code null}.
+     * @throws IllegalArgumentException
+     *     if there is no variable named {@code variableName}.
+     */
+    public int variableIndex(String variableName) {
+        ArgumentUtil.checkNotNull(variableName, "variableName");
+
+        int i = 0;
+        for (Variable variable : variables) {
+            if (variable.name().equals(variableName)) {
+                return i;
+            }
+            i++;
+        }
+        throw new IllegalArgumentException("there is no variable named \"" + variableName + "\"");
+    }
 }
\ No newline at end of file
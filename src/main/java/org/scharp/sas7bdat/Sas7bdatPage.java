@@ -23,25 +23,25 @@ class Sas7bdatPage {
     // sas chooses 0x10000 for small datasets and increments by 0x400 when more space is needed.
     private static final int MINIMUM_PAGE_SIZE = 0x10000;
 
-    private static final int DATA_PAGE_HEADER_SIZE = 40;
+    static final int DATA_PAGE_HEADER_SIZE = 40;
 
     private static final short PAGE_TYPE_META = 0x0000;
-    private static final short PAGE_TYPE_DATA = 0x0100;
-    private static final short PAGE_TYPE_MIX = 0x0200;
+    static final short PAGE_TYPE_DATA = 0x0100;
+    static final short PAGE_TYPE_MIX = 0x0200;
 
     // For 64-bit, these are each 24 bytes long.
-    private static final int SUBHEADER_OFFSET_SIZE_64BIT = 24;
+    static final int SUBHEADER_OFFSET_SIZE_64BIT = 24;
 
     private final int pageSize;
     private final long pageSequenceNumber;
     private final List<Subheader> subheaders;
-    private final List<byte[]> observations;
     private final Sas7bdatVariablesLayout variablesLayout;
 
     private short pageType;
     private int offsetOfNextSubheaderIndexEntry; // also the index of the last observation written.
     private int endOfDataSection;
     private int maxObservations; // also a flag to indicate if subheaders are finalized
+    private int totalObservations;
 
     Sas7bdatPage(PageSequenceGenerator pageSequenceGenerator, int pageSize,
         Sas7bdatVariablesLayout variablesLayout) {
@@ -52,7 +52,7 @@ class Sas7bdatPage {
         this.variablesLayout = variablesLayout;
 
         subheaders = new ArrayList<>();
-        observations = new ArrayList<>();
+        totalObservations = 0;
 
         pageType = PAGE_TYPE_META;
         offsetOfNextSubheaderIndexEntry = DATA_PAGE_HEADER_SIZE;
@@ -60,6 +60,35 @@ class Sas7bdatPage {
         maxObservations = -1;
     }
 
+    /**
+     * Creates a copy of a metadata page whose subheaders are finalized but which has no observations, so that a
+     * dataset with the same metadata can add its own observations to it.
+     *
+     * @param page
+     *     The page to copy.
+     * @param rowSizeSubheader
+     *     The subheader which replaces any RowSizeSubheader on {@code page}.
+     */
+    Sas7bdatPage(Sas7bdatPage page, RowSizeSubheader rowSizeSubheader) {
+        assert page.subheadersAreFinalized() : "can't copy a page until its subheaders are finalized";
+        assert page.totalObservations == 0 : "can't copy a page with observations";
+
+        pageSize = page.pageSize;
+        pageSequenceNumber = page.pageSequenceNumber;
+        variablesLayout = page.variablesLayout;
+
+        subheaders = new ArrayList<>(page.subheaders.size());
+        for (Subheader subheader : page.subheaders) {
+            subheaders.add(subheader instanceof RowSizeSubheader ? rowSizeSubheader : subheader);
+        }
+        totalObservations = 0;
+
+        pageType = page.pageType;
+        offsetOfNextSubheaderIndexEntry = page.offsetOfNextSubheaderIndexEntry;
+        endOfDataSection = page.endOfDataSection;
+        maxObservations = page.maxObservations;
+    }
+
     private boolean subheadersAreFinalized() {
         return 0 <= maxObservations;
     }
@@ -95,7 +124,7 @@ class Sas7bdatPage {
     boolean addSubheader(Subheader subheader) {
         assert !subheadersAreFinalized() : "cannot add subheaders after they have been finalized";
         assert !(subheader instanceof TerminalSubheader) : "terminal subheaders should only be added by finalize";
-        assert observations.isEmpty() : "adding a subheader after data is written";
+        assert totalObservations == 0 : "adding a subheader after data is written";
 
         // Determine if the page has enough space left to hold the subheader.
         // This requires space for the index (SUBHEADER_OFFSET_SIZE_64BIT) and the subheader itself.
@@ -139,26 +168,112 @@ class Sas7bdatPage {
         maxObservations = totalBitsRemaining / totalBitsPerObservation;
     }
 
-    boolean addObservation(byte[] observation) {
-        assert subheadersAreFinalized() : "can't add an observation until subheaders are finalized";
-        assert observation.length == variablesLayout.rowLength();
+    /**
+     * Serializes an observation directly into the array that holds this page's data, immediately after the previous
+     * observation on the page.
+     * <p>
+     * The observation is not copied anywhere else, so {@code data} must be the same array that is later given to
+     * {@link #write(byte[])} and nothing else may modify the part of it that holds observations.
+     * </p>
+     *
+     * @param data
+     *     The array which represents this page's data.  This must be {@link #pageSize()} bytes long.
+     * @param observation
+     *     A list of values which correspond to the variables in this page's variables layout.
+     *
+     * @return {@code true}, if the observation was added; {@code false}, if there isn't enough space left on this page
+     *     for the observation, in which case {@code data} is not modified.
+     *
+     * @throws NullPointerException
+     *     If {@code observation} has a {@code null} value that is given to a variable whose type is
+     *     {@code VariableType.CHARACTER}.
+     * @throws IllegalArgumentException
+     *     if {@code observation} contains a value that doesn't conform to this page's variables layout. In this case,
+     *     the observation is not added, although part of it may have been serialized into {@code data}.
+     */
+    boolean addObservation(byte[] data, List<Object> observation) {
+        assert data.length == pageSize : "data is not sized correctly: " + data.length;
 
-        if (maxObservations <= observations.size()) {
+        if (!hasSpaceForObservation()) {
             // There isn't enough space between the end of the subheaders and the last subheader written
             // to hold an observation.
             return false;
         }
 
         // There's space for the observation.
-        // It will be written just after the last subheader index entry or the previous observation written.
-        offsetOfNextSubheaderIndexEntry += variablesLayout.rowLength();
-        observations.add(observation);
+        // It is written just after the last subheader index entry or the previous observation written.
+        // If the observation is malformed, this throws an exception before the observation is counted,
+        // so the next observation is written over whatever was partially serialized.
+        variablesLayout.writeObservation(data, offsetOfNextObservation(), observation);
+        commitObservations(1);
+        return true;
+    }
+
+    /**
+     * Determines if there's enough space left on this page for another observation.
+     *
+     * @return {@code true}, if another observation can be added; {@code false}, otherwise.
+     */
+    boolean hasSpaceForObservation() {
+        return 0 < totalObservationsRemaining();
+    }
+
+    /**
+     * Gets the number of observations that can still be added to this page.
+     *
+     * @return The number of observations for which there is space left on this page.
+     */
+    int totalObservationsRemaining() {
+        assert subheadersAreFinalized() : "can't add an observation until subheaders are finalized";
+        return maxObservations - totalObservations;
+    }
+
+    /**
+     * Gets the offset within this page's data at which the next observation should be serialized.
+     *
+     * @return An offset into the array that is given to {@link #write(byte[])}.
+     */
+    int offsetOfNextObservation() {
+        assert hasSpaceForObservation() : "no space for another observation";
+        return offsetOfNextSubheaderIndexEntry;
+    }
+
+    /**
+     * Gets the number of observations on this page.
+     *
+     * @return The number of observations that were added to this page.
+     */
+    int totalObservations() {
+        return totalObservations;
+    }
+
+    /**
+     * Gets the offset within this page's data of the first observation.
+     *
+     * @return An offset into the array that is given to {@link #write(byte[])}.  If this page has no observations, this
+     *     is where the first one would be serialized.
+     */
+    int offsetOfFirstObservation() {
+        return offsetOfNextSubheaderIndexEntry - totalObservations * variablesLayout.rowLength();
+    }
+
+    /**
+     * Adds observations that the caller has already serialized, consecutively, starting at
+     * {@link #offsetOfNextObservation()} to this page.
+     *
+     * @param count
+     *     The number of observations that were serialized.
+     */
+    void commitObservations(int count) {
+        assert 0 < count && count <= totalObservationsRemaining() : "no space for " + count + " observations";
+
+        offsetOfNextSubheaderIndexEntry += count * variablesLayout.rowLength();
+        totalObservations += count;
 
         // metadata pages that also have data are "mixed" pages.
         pageType = PAGE_TYPE_MIX;
 
-        assert subheaders.size() + observations.size() < 0x10000 : "too many blocks on page";
-        return true;
+        assert subheaders.size() + totalObservations < 0x10000 : "too many blocks on page";
     }
 
     void setIsFinalMetadataPage() {
@@ -183,6 +298,13 @@ class Sas7bdatPage {
         return Math.max(0, totalBytesRemaining() - 2 * SUBHEADER_OFFSET_SIZE_64BIT);
     }
 
+    /**
+     * Writes this page's header and subheaders to an array.  Any observations must have already been written to the
+     * same array by {@link #addObservation(byte[], List)}.  The space on the page that isn't used is set to zero.
+     *
+     * @param data
+     *     The array which represents this page's data.  This must be {@link #pageSize()} bytes long.
+     */
     void write(byte[] data) {
         assert data.length == pageSize : "data is not sized correctly: " + data.length;
         write8(data, 0, pageSequenceNumber);
@@ -198,12 +320,12 @@ class Sas7bdatPage {
             DATA_PAGE_HEADER_SIZE + // standard page header
                 subheaders.size() * SUBHEADER_OFFSET_SIZE_64BIT + // subheader index
                 subheaders.stream().map(Subheader::size).reduce(0, Integer::sum) + // subheaders
-                observations.size() * variablesLayout.rowLength() + // observations
-                divideAndRoundUp(observations.size(), 8)); // observation deleted flags
+                totalObservations * variablesLayout.rowLength() + // observations
+                divideAndRoundUp(totalObservations, 8)); // observation deleted flags
         write8(data, 24, totalBytesFree);
 
         write2(data, 32, subheaders.isEmpty() ? PAGE_TYPE_DATA : pageType);
-        write2(data, 34, (short) (subheaders.size() + observations.size())); // data block count
+        write2(data, 34, (short) (subheaders.size() + totalObservations)); // data block count
         write2(data, 36, (short) subheaders.size()); // number of subheaders on page
         write2(data, 38, (short) 0); // unknown purpose (possibly padding)
 
@@ -217,11 +339,8 @@ class Sas7bdatPage {
         }
         assert endOfDataSection == subheaderOffset;
 
-        // Write the observations.
-        for (byte[] observation : observations) {
-            System.arraycopy(observation, 0, data, offset, observation.length);
-            offset += observation.length;
-        }
+        // The observations were already serialized into the data by addObservation().
+        offset += totalObservations * variablesLayout.rowLength();
         assert offsetOfNextSubheaderIndexEntry == offset;
 
         // Immediately before the endOfDataSecond are the "is deleted" flags.
@@ -254,4 +373,14 @@ class Sas7bdatPage {
         // When SAS generates a dataset, it seems to pick page sizes that are multiples of 1KiB (0x400).
         return WriteUtil.align(Math.max(MINIMUM_PAGE_SIZE, dataPageSizeForSingleObservation), 0x400);
     }
+
+    static int calculateCompressedPageSize(Sas7bdatVariablesLayout variablesLayout) {
+        // In a compressed dataset, each observation is stored in a subheader.  An observation that can't be compressed
+        // is stored as it is, so a page must be able to hold an uncompressed observation, its subheader index entry,
+        // and the index entry for the terminal subheader.
+        int pageSizeForSingleObservation =
+            DATA_PAGE_HEADER_SIZE + 2 * SUBHEADER_OFFSET_SIZE_64BIT + variablesLayout.rowLength();
+
+        return WriteUtil.align(Math.max(MINIMUM_PAGE_SIZE, pageSizeForSingleObservation), 0x400);
+    }
 }
\ No newline at end of file
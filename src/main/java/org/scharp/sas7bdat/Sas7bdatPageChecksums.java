@@ -0,0 +1,147 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * The CRC32C checksums of the pages of a SAS7BDAT that a {@link Sas7bdatExporter} wrote.
+ * <p>
+ * These are only computed if {@link Sas7bdatExportOptions.Builder#pageChecksums(boolean)} was enabled, and they're
+ * available from {@link Sas7bdatExporter#pageChecksums()} once the exporter is closed.  They're computed as each page
+ * is written, so they don't require the SAS7BDAT to be read again.  A copy of the SAS7BDAT can be verified one page at
+ * a time, or a range of pages at a time, by comparing the checksum of each page in the copy to its checksum here.
+ * </p>
+ * <p>
+ * The file header is the same size as a page, so it's counted as the first page (index 0).  The SAS7BDAT consists of
+ * its pages, one after the other, with no space between them.
+ * </p>
+ * <p>
+ * Instances of this class are immutable.
+ * </p>
+ */
+public final class Sas7bdatPageChecksums {
+
+    private final int pageSize;
+    private final int[] checksums;
+    private final int fileChecksum;
+
+    Sas7bdatPageChecksums(int pageSize, int[] checksums, int fileChecksum) {
+        this.pageSize = pageSize;
+        this.checksums = checksums;
+        this.fileChecksum = fileChecksum;
+    }
+
+    /**
+     * Gets the size of each page.
+     *
+     * @return The page size, in bytes.
+     */
+    public int pageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Gets the number of pages in the SAS7BDAT, including the file header.
+     *
+     * @return The number of pages.
+     */
+    public long totalPages() {
+        return checksums.length;
+    }
+
+    /**
+     * Gets the size of the SAS7BDAT.
+     *
+     * @return The size of the SAS7BDAT, in bytes.
+     */
+    public long fileSize() {
+        return totalPages() * pageSize;
+    }
+
+    /**
+     * Gets the position of a page within the SAS7BDAT.
+     *
+     * @param pageIndex
+     *     The (0-based) index of the page.
+     *
+     * @return The offset of the page's first byte from the beginning of the SAS7BDAT.
+     *
+     * @throws IndexOutOfBoundsException
+     *     if {@code pageIndex} is negative or not less than the number of pages.
+     */
+    public long offsetOfPage(long pageIndex) {
+        Objects.checkIndex(pageIndex, totalPages());
+        return pageIndex * pageSize;
+    }
+
+    /**
+     * Gets the CRC32C checksum of a page.
+     *
+     * @param pageIndex
+     *     The (0-based) index of the page.
+     *
+     * @return The checksum, as it would be given by {@link java.util.zip.CRC32C#getValue()} after it was updated with
+     *     the page's bytes, truncated to an {@code int}.
+     *
+     * @throws IndexOutOfBoundsException
+     *     if {@code pageIndex} is negative or not less than the number of pages.
+     */
+    public int checksum(long pageIndex) {
+        return checksums[(int) Objects.checkIndex(pageIndex, totalPages())];
+    }
+
+    /**
+     * Gets the CRC32C checksum of the whole SAS7BDAT.
+     *
+     * @return The checksum of every byte in the SAS7BDAT, truncated to an {@code int}.
+     */
+    public int fileChecksum() {
+        return fileChecksum;
+    }
+
+    /**
+     * Writes a manifest of the checksums to a text file, which can be kept beside the SAS7BDAT.
+     * <p>
+     * The first line describes the whole SAS7BDAT.  Each line after it describes a page, giving its index, its offset,
+     * and its checksum.  Checksums are written as eight hexadecimal digits.  For example:
+     * </p>
+     * <pre>
+     * # algorithm=CRC32C page-size=65536 pages=3 file-size=196608 file-checksum=5b8e3c21
+     * 0 0 1f0c2a9e
+     * 1 65536 77d1e042
+     * 2 131072 c39a0b5d
+     * </pre>
+     *
+     * @param manifestLocation
+     *     The path to the file to which the manifest should be written.  If the file doesn't exist, then it will be
+     *     created.  If the file does exist, then its contents will be replaced.
+     *
+     * @throws NullPointerException
+     *     if {@code manifestLocation} is {@code null}.
+     * @throws IOException
+     *     if an I/O error prevented the manifest from being written.
+     */
+    public void writeManifest(Path manifestLocation) throws IOException {
+        ArgumentUtil.checkNotNull(manifestLocation, "manifestLocation");
+
+        try (Writer writer = Files.newBufferedWriter(manifestLocation, StandardCharsets.US_ASCII)) {
+            writer.write("# algorithm=CRC32C page-size=" + pageSize + " pages=" + totalPages() + " file-size=" +
+                fileSize() + " file-checksum=" + toHex(fileChecksum) + "\n");
+            for (int i = 0; i < checksums.length; i++) {
+                writer.write(i + " " + offsetOfPage(i) + " " + toHex(checksums[i]) + "\n");
+            }
+        }
+    }
+
+    private static String toHex(int checksum) {
+        return String.format("%08x", checksum);
+    }
+}
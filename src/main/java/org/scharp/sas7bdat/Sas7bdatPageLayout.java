@@ -24,15 +24,24 @@ class Sas7bdatPageLayout {
     private final PageSequenceGenerator pageSequenceGenerator;
     final int pageSize;
     private final Sas7bdatVariablesLayout variablesLayout;
+    final Compression compression;
     final ColumnText columnText;
     final List<Sas7bdatPage> completeMetadataPages;
 
     Sas7bdatPage currentMetadataPage;
 
     Sas7bdatPageLayout(PageSequenceGenerator pageSequenceGenerator, Sas7bdatVariablesLayout variablesLayout) {
+        this(pageSequenceGenerator, variablesLayout, Compression.NONE);
+    }
+
+    Sas7bdatPageLayout(PageSequenceGenerator pageSequenceGenerator, Sas7bdatVariablesLayout variablesLayout,
+        Compression compression) {
         this.pageSequenceGenerator = pageSequenceGenerator;
-        this.pageSize = Sas7bdatPage.calculatePageSize(variablesLayout);
+        this.pageSize = compression == Compression.NONE ?
+            Sas7bdatPage.calculatePageSize(variablesLayout) :
+            Sas7bdatPage.calculateCompressedPageSize(variablesLayout);
         this.variablesLayout = variablesLayout;
+        this.compression = compression;
         this.columnText = new ColumnText(this);
 
         completeMetadataPages = new ArrayList<>();
@@ -64,13 +73,19 @@ class Sas7bdatPageLayout {
     /**
      * Finalizes the metadata pages and returns the final metadata page, which may be able to hold observations (and is
      * therefore a mixed page).
+     * <p>
+     * In a compressed dataset, the observations are stored as subheaders on the pages that follow the metadata, so the
+     * final metadata page is not a mixed page and must not be given any observations.
+     * </p>
      *
      * @return a mixed page.
      */
     Sas7bdatPage finalizeMetadata() {
-        // Mark the final metadata page as a "mixed" page, even if it doesn't contain data.
-        // This is what SAS does.  I don't know if this is necessary.
-        currentMetadataPage.setIsFinalMetadataPage();
+        if (compression == Compression.NONE) {
+            // Mark the final metadata page as a "mixed" page, even if it doesn't contain data.
+            // This is what SAS does.  I don't know if this is necessary.
+            currentMetadataPage.setIsFinalMetadataPage();
+        }
 
         // Finalize the subheader on the mixed page.
         finalizeSubheadersOnCurrentMetadataPage();
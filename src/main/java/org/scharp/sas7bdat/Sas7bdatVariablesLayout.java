@@ -4,28 +4,49 @@
 ///////////////////////////////////////////////////////////////////////////////
 package org.scharp.sas7bdat;
 
-import java.nio.charset.StandardCharsets;
-import java.time.Duration;
+import java.nio.ByteBuffer;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.temporal.ChronoUnit;
-import java.time.temporal.Temporal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.RandomAccess;
 
 /** A collection of variables in a sas7bdat file that knows how variables are laid out */
 class Sas7bdatVariablesLayout {
 
     private final List<Variable> variables;
+    private final VariableType[] variableTypes;
     private final int[] physicalOffsets;
+    private final int[] lengths;
+    private final int endOfValues;
     private final int rowLength;
+    private final byte[] emptyObservation;
+    private final ObservationEncoder encoder; // null, unless observations are serialized by a compiled encoder.
+    private final EncodedValueCache[] encodedValueCaches; // null elements for NUMERIC variables or without a cache.
 
     Sas7bdatVariablesLayout(List<Variable> variablesList) {
+        this(variablesList, false, 0);
+    }
+
+    /**
+     * Creates a layout for a list of variables.
+     *
+     * @param variablesList
+     *     The variables, in their logical order.
+     * @param compileEncoder
+     *     Whether {@link #writeObservation(byte[], int, List)} should serialize observations with an encoder that is
+     *     compiled for the variables, if one can be.
+     * @param characterValueCacheSize
+     *     The most values of each CHARACTER variable whose serialized form should be cached, or 0 to not cache them.
+     */
+    Sas7bdatVariablesLayout(List<Variable> variablesList, boolean compileEncoder, int characterValueCacheSize) {
         variables = new ArrayList<>(variablesList); // copy to a class that has O(1) random access
+        variableTypes = new VariableType[variables.size()];
         physicalOffsets = new int[variables.size()];
+        lengths = new int[variables.size()];
 
         // Calculate the physical offset of each variable.
         int rowOffset = 0;
@@ -34,18 +55,28 @@ class Sas7bdatVariablesLayout {
         // all first.  I suspect this is because SAS wants to place them according
         // to their natural alignment of 8 bytes without adding padding.  The
         // easiest way to do this is to make them all first.
+        // Numeric variables that are shorter than 8 bytes are placed after the
+        // 8 byte ones, longest first, so that they don't misalign them.
         boolean hasNumericType = false;
         int i = 0;
         for (Variable variable : variables) {
-            if (variable.type() == VariableType.NUMERIC) {
-                hasNumericType = true;
+            variableTypes[i] = variable.type();
+            lengths[i] = variable.length();
+            i++;
+        }
+        for (int numericLength = 8; 0 < numericLength; numericLength--) {
+            i = 0;
+            for (Variable variable : variables) {
+                if (variable.type() == VariableType.NUMERIC && variable.length() == numericLength) {
+                    hasNumericType = true;
 
-                physicalOffsets[i] = rowOffset;
+                    physicalOffsets[i] = rowOffset;
 
-                // Advance to the offset of the next variable.
-                rowOffset += variable.length();
+                    // Advance to the offset of the next variable.
+                    rowOffset += variable.length();
+                }
+                i++;
             }
-            i++;
         }
         i = 0;
         for (Variable variable : variables) {
@@ -58,6 +89,8 @@ class Sas7bdatVariablesLayout {
             i++;
         }
 
+        endOfValues = rowOffset;
+
         // Make sure that padding is added after the last variable if the first variable needs it.
         // If there's any numeric variable, then a numeric variable is given first, and it should be aligned
         // to an 8-byte boundary.
@@ -66,39 +99,409 @@ class Sas7bdatVariablesLayout {
         }
 
         rowLength = rowOffset;
+
+        // Serialize an observation in which every value is missing so that it can be used as the starting point
+        // for observations that are written one value at a time.
+        emptyObservation = new byte[rowLength];
+        for (i = 0; i < variableTypes.length; i++) {
+            if (variableTypes[i] == VariableType.NUMERIC) {
+                writeNumeric(emptyObservation, physicalOffsets[i], MissingValue.STANDARD.rawLongBits(), lengths[i]);
+            } else {
+                Arrays.fill(emptyObservation, physicalOffsets[i], physicalOffsets[i] + variables.get(i).length(),
+                    (byte) ' ');
+            }
+        }
+
+        encodedValueCaches = new EncodedValueCache[variables.size()];
+        if (0 < characterValueCacheSize) {
+            for (i = 0; i < variableTypes.length; i++) {
+                if (variableTypes[i] == VariableType.CHARACTER) {
+                    encodedValueCaches[i] = new EncodedValueCache(variables.get(i), characterValueCacheSize);
+                }
+            }
+        }
+
+        encoder = compileEncoder ? ObservationEncoder.compile(variables, physicalOffsets, encodedValueCaches) : null;
+    }
+
+    /**
+     * Serializes a NUMERIC value.  SAS stores a NUMERIC value whose length is less than 8 by dropping the least
+     * significant bytes of its IEEE 754 representation.
+     */
+    private static void writeNumeric(byte[] buffer, int offsetOfValue, long valueBits, int length) {
+        if (length == 8) {
+            WriteUtil.write8(buffer, offsetOfValue, valueBits);
+        } else {
+            WriteUtil.writeMostSignificantBytes(buffer, offsetOfValue, valueBits, length);
+        }
+    }
+
+    /** The SAS epoch, 1960-01-01, as the number of days since the Java epoch, 1970-01-01. */
+    static final long SAS_EPOCH_DAY = -3653;
+
+    static final long SECONDS_PER_DAY = 24 * 60 * 60;
+
+    /** The SAS epoch, 1960-01-01T00:00:00, as the number of seconds since the Java epoch, 1970-01-01T00:00:00. */
+    static final long SAS_EPOCH_SECOND = SAS_EPOCH_DAY * SECONDS_PER_DAY;
+
+    private static long sasSeconds(long seconds, int nanos) {
+        return Double.doubleToRawLongBits(seconds + nanos * 1E-9);
     }
 
-    private static long daysBetween(Temporal startDay, Temporal endDay) {
-        final long daysSinceSasEpochLong = startDay.until(endDay, ChronoUnit.DAYS);
-        final double daysSinceSasEpochDouble = Long.valueOf(daysSinceSasEpochLong).doubleValue();
-        return Double.doubleToRawLongBits(daysSinceSasEpochDouble);
+    /**
+     * Converts a date to the raw bits of a SAS date, which is the number of days since 1960-01-01.
+     *
+     * @param localDate
+     *     The date to convert.
+     *
+     * @return The SAS date, as given by {@link Double#doubleToRawLongBits}.
+     */
+    static long sasDate(LocalDate localDate) {
+        return sasDateFromEpochDay(localDate.toEpochDay());
     }
 
-    private static long secondsBetween(Temporal startTime, Temporal endTime) {
-        Duration range = Duration.between(startTime, endTime);
-        double rangeInSeconds = range.getSeconds() + range.getNano() * 1E-9;
-        return Double.doubleToRawLongBits(rangeInSeconds);
+    /**
+     * Converts a number of days since 1970-01-01 to the raw bits of a SAS date, which is the number of days since
+     * 1960-01-01.
+     *
+     * @param epochDay
+     *     The date to convert, as given by {@link LocalDate#toEpochDay()}.
+     *
+     * @return The SAS date, as given by {@link Double#doubleToRawLongBits}.
+     */
+    static long sasDateFromEpochDay(long epochDay) {
+        return Double.doubleToRawLongBits((double) (epochDay - SAS_EPOCH_DAY));
     }
 
     /**
-     * Serializes an observation (list of variable values) to a buffer.
+     * Converts a time to the raw bits of a SAS time, which is the number of seconds since midnight.
+     *
+     * @param localTime
+     *     The time to convert.
+     *
+     * @return The SAS time, as given by {@link Double#doubleToRawLongBits}.
+     */
+    static long sasTime(LocalTime localTime) {
+        return sasSeconds(localTime.toSecondOfDay(), localTime.getNano());
+    }
+
+    /**
+     * Converts a timestamp to the raw bits of a SAS datetime, which is the number of seconds since 1960-01-01T00:00:00.
+     *
+     * @param localDateTime
+     *     The timestamp to convert.
+     *
+     * @return The SAS datetime, as given by {@link Double#doubleToRawLongBits}.
+     */
+    static long sasDateTime(LocalDateTime localDateTime) {
+        final long epochSecond = localDateTime.toLocalDate().toEpochDay() * SECONDS_PER_DAY +
+            localDateTime.toLocalTime().toSecondOfDay();
+        return sasSeconds(epochSecond - SAS_EPOCH_SECOND, localDateTime.getNano());
+    }
+
+    /**
+     * Converts a number of milliseconds since 1970-01-01T00:00:00 to the raw bits of a SAS datetime, which is the
+     * number of seconds since 1960-01-01T00:00:00.
+     *
+     * @param epochMilli
+     *     The timestamp to convert.
+     *
+     * @return The SAS datetime, as given by {@link Double#doubleToRawLongBits}.
+     */
+    static long sasDateTimeFromEpochMilli(long epochMilli) {
+        final long epochSecond = Math.floorDiv(epochMilli, 1000);
+        final int nanos = Math.floorMod(epochMilli, 1000) * 1_000_000;
+        return sasSeconds(epochSecond - SAS_EPOCH_SECOND, nanos);
+    }
+
+    /**
+     * Serializes an observation in which every NUMERIC value is the standard missing value and every CHARACTER value
+     * is blank.
      *
      * @param buffer
-     *     The buffer to which the values should be serialized
+     *     The buffer to which the observation should be serialized
      * @param offsetOfObservation
      *     The offset within {@code buffer} where the observation should be written.
-     * @param observation
-     *     A list of values which correspond to the variables that were given in the constructor.
+     */
+    void writeEmptyObservation(byte[] buffer, int offsetOfObservation) {
+        System.arraycopy(emptyObservation, 0, buffer, offsetOfObservation, rowLength);
+    }
+
+    /**
+     * Serializes a single NUMERIC value of an observation to a buffer.
+     *
+     * @param buffer
+     *     The buffer to which the observation is serialized
+     * @param offsetOfObservation
+     *     The offset within {@code buffer} where the observation is written.
+     * @param variableIndex
+     *     The (0-based) index of the variable within the list of variables given in the constructor.
+     * @param valueBits
+     *     The value to write, as given by {@link Double#doubleToRawLongBits}.
+     *
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable.
+     * @throws IllegalArgumentException
+     *     if the variable identified by {@code variableIndex} doesn't have a NUMERIC type.
+     */
+    void writeNumericValue(byte[] buffer, int offsetOfObservation, int variableIndex, long valueBits) {
+        if (variableTypes[variableIndex] != VariableType.NUMERIC) {
+            throw new IllegalArgumentException(
+                "A numeric value was given to the variable named " + variables.get(variableIndex).name() +
+                    ", which has a CHARACTER type");
+        }
+        writeNumeric(buffer, offsetOfObservation + physicalOffsets[variableIndex], valueBits, lengths[variableIndex]);
+    }
+
+    /**
+     * Serializes a single CHARACTER value of an observation to a buffer.
      *
+     * @param buffer
+     *     The buffer to which the observation is serialized
+     * @param offsetOfObservation
+     *     The offset within {@code buffer} where the observation is written.
+     * @param variableIndex
+     *     The (0-based) index of the variable within the list of variables given in the constructor.
+     * @param value
+     *     The value to write.
+     *
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable.
      * @throws NullPointerException
-     *     If {@code observation} has a {@code null} value that is given to a variable whose type is
-     *     {@code VariableType.CHARACTER}.
+     *     if {@code value} is {@code null}.
      * @throws IllegalArgumentException
-     *     if {@code observation} contains a value that doesn't conform to the {@code variables} that was given to this
-     *     object's constructor.
+     *     if the variable identified by {@code variableIndex} doesn't have a CHARACTER type or if {@code value} is
+     *     too long for the variable.
      */
-    void writeObservation(byte[] buffer, int offsetOfObservation, List<Object> observation) {
+    void writeCharacterValue(byte[] buffer, int offsetOfObservation, int variableIndex, String value) {
+        final Variable variable = checkCharacterValue(variableIndex, value);
+
+        // Check the length before writing the value so that a value which is too long doesn't overwrite part of the
+        // variable's current value.
+        checkStringLength(variable, value);
+        writeString(buffer, offsetOfObservation + physicalOffsets[variableIndex], variableIndex, value);
+    }
+
+    /**
+     * Serializes a single CHARACTER value of an observation that is already encoded in UTF-8 to a buffer.
+     *
+     * @param buffer
+     *     The buffer to which the observation is serialized
+     * @param offsetOfObservation
+     *     The offset within {@code buffer} where the observation is written.
+     * @param variableIndex
+     *     The (0-based) index of the variable within the list of variables given in the constructor.
+     * @param value
+     *     The value to write, encoded in UTF-8.
+     *
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable.
+     * @throws NullPointerException
+     *     if {@code value} is {@code null}.
+     * @throws IllegalArgumentException
+     *     if the variable identified by {@code variableIndex} doesn't have a CHARACTER type or if {@code value} is
+     *     too long for the variable.
+     */
+    void writeCharacterValue(byte[] buffer, int offsetOfObservation, int variableIndex, byte[] value) {
+        final Variable variable = checkCharacterValue(variableIndex, value);
+        checkBytesLength(variable, value.length);
+        writeBytes(buffer, offsetOfObservation + physicalOffsets[variableIndex], variable, value);
+    }
+
+    /**
+     * Serializes a single CHARACTER value of an observation that is already encoded in UTF-8 to a buffer.
+     *
+     * @param buffer
+     *     The buffer to which the observation is serialized
+     * @param offsetOfObservation
+     *     The offset within {@code buffer} where the observation is written.
+     * @param variableIndex
+     *     The (0-based) index of the variable within the list of variables given in the constructor.
+     * @param value
+     *     The value to write, encoded in UTF-8.  The value is the bytes between the buffer's position and its limit.
+     *     Neither the position nor the limit is changed.
+     *
+     * @throws IndexOutOfBoundsException
+     *     if {@code variableIndex} doesn't identify a variable.
+     * @throws NullPointerException
+     *     if {@code value} is {@code null}.
+     * @throws IllegalArgumentException
+     *     if the variable identified by {@code variableIndex} doesn't have a CHARACTER type or if {@code value} is
+     *     too long for the variable.
+     */
+    void writeCharacterValue(byte[] buffer, int offsetOfObservation, int variableIndex, ByteBuffer value) {
+        final Variable variable = checkCharacterValue(variableIndex, value);
+        final int valueLength = value.remaining();
+        checkBytesLength(variable, valueLength);
+
+        final int offsetOfValue = offsetOfObservation + physicalOffsets[variableIndex];
+        value.get(value.position(), buffer, offsetOfValue, valueLength);
+        Arrays.fill(buffer, offsetOfValue + valueLength, offsetOfValue + variable.length(), (byte) ' ');
+    }
+
+    private Variable checkCharacterValue(int variableIndex, Object value) {
+        final Variable variable = variables.get(variableIndex);
+        if (variableTypes[variableIndex] != VariableType.CHARACTER) {
+            throw new IllegalArgumentException(
+                "A string was given to the variable named " + variable.name() + ", which has a NUMERIC type");
+        }
+        if (value == null) {
+            throw new NullPointerException(
+                "null given as a value to " + variable.name() + ", which has a CHARACTER type");
+        }
+        return variable;
+    }
 
+    /**
+     * Serializes a CHARACTER value, copying it from the variable's cache if it's there.
+     */
+    private void writeString(byte[] buffer, int offsetOfValue, int variableIndex, String value) {
+        final EncodedValueCache encodedValueCache = encodedValueCaches[variableIndex];
+        if (encodedValueCache != null) {
+            encodedValueCache.write(buffer, offsetOfValue, value);
+        } else {
+            writeString(buffer, offsetOfValue, variables.get(variableIndex), value);
+        }
+    }
+
+    static void writeString(byte[] buffer, int offsetOfValue, Variable variable, String value) {
+        // Encode the data directly into the buffer, which also checks that it fits without truncation.
+        final int valueLength = WriteUtil.encodeUtf8(buffer, offsetOfValue, value, variable.length());
+        if (valueLength < 0) {
+            throw new IllegalArgumentException(
+                "A value of " + WriteUtil.utf8Length(value) + " bytes was given to the variable named " +
+                    variable.name() + ", which has a length of " + variable.length());
+        }
+
+        // Pad the data
+        Arrays.fill(buffer, offsetOfValue + valueLength, offsetOfValue + variable.length(), (byte) ' ');
+    }
+
+    private static void writeBytes(byte[] buffer, int offsetOfValue, Variable variable, byte[] value) {
+        System.arraycopy(value, 0, buffer, offsetOfValue, value.length);
+        Arrays.fill(buffer, offsetOfValue + value.length, offsetOfValue + variable.length(), (byte) ' ');
+    }
+
+    /**
+     * Checks that every value in a batch of observations can be serialized by
+     * {@link #writeObservations(byte[], int, ObservationBatch, int, int)}.
+     *
+     * @param batch
+     *     The batch to check.  This must have been created for the variables that were given in the constructor.
+     *
+     * @throws NullPointerException
+     *     If {@code batch} has a {@code null} value for a CHARACTER variable.
+     * @throws IllegalArgumentException
+     *     if {@code batch} has a CHARACTER value that is too long for its variable.
+     */
+    void checkObservations(ObservationBatch batch) {
+        assert variables.equals(batch.variables()) : "batch was created for different variables";
+
+        for (int i = 0; i < variableTypes.length; i++) {
+            if (variableTypes[i] == VariableType.CHARACTER) {
+                final Variable variable = variables.get(i);
+                final String[] values = batch.characterValues(i);
+                final byte[][] encodedValues = batch.encodedCharacterValues(i);
+                if (values != null) {
+                    for (int j = 0; j < batch.size(); j++) {
+                        final String value = values[j];
+                        if (value == null) {
+                            throw new NullPointerException(
+                                "null given as a value to " + variable.name() + ", which has a CHARACTER type");
+                        }
+
+                        checkStringLength(variable, value);
+                    }
+                } else if (encodedValues != null) {
+                    for (int j = 0; j < batch.size(); j++) {
+                        final byte[] value = encodedValues[j];
+                        if (value == null) {
+                            throw new NullPointerException(
+                                "null given as a value to " + variable.name() + ", which has a CHARACTER type");
+                        }
+
+                        checkBytesLength(variable, value.length);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Serializes a range of consecutive observations from a batch to a buffer, one variable at a time.
+     *
+     * @param buffer
+     *     The buffer to which the values should be serialized
+     * @param offsetOfFirstObservation
+     *     The offset within {@code buffer} where the first observation should be written.  The remaining observations
+     *     are written immediately after it.
+     * @param batch
+     *     The batch of observations.  This must have already been checked with
+     *     {@link #checkObservations(ObservationBatch)}.
+     * @param start
+     *     The index of the first observation in {@code batch} to write.
+     * @param count
+     *     The number of observations to write.
+     */
+    void writeObservations(byte[] buffer, int offsetOfFirstObservation, ObservationBatch batch, int start, int count) {
+        assert 0 <= start && 0 <= count && start + count <= batch.size();
+        assert offsetOfFirstObservation + count * rowLength <= buffer.length;
+
+        final int end = start + count;
+        for (int i = 0; i < variableTypes.length; i++) {
+            int offsetOfValue = offsetOfFirstObservation + physicalOffsets[i];
+            if (variableTypes[i] == VariableType.NUMERIC) {
+                final double[] values = batch.numericValues(i);
+                final MissingValue[] missingValues = batch.missingValues(i);
+                final int length = lengths[i];
+                if (values == null) {
+                    final long missingValueBits = MissingValue.STANDARD.rawLongBits();
+                    for (int j = start; j < end; j++, offsetOfValue += rowLength) {
+                        writeNumeric(buffer, offsetOfValue, missingValueBits, length);
+                    }
+                } else if (missingValues == null) {
+                    for (int j = start; j < end; j++, offsetOfValue += rowLength) {
+                        writeNumeric(buffer, offsetOfValue, Double.doubleToRawLongBits(values[j]), length);
+                    }
+                } else {
+                    for (int j = start; j < end; j++, offsetOfValue += rowLength) {
+                        final MissingValue missingValue = missingValues[j];
+                        writeNumeric(buffer, offsetOfValue,
+                            missingValue == null ? Double.doubleToRawLongBits(values[j]) : missingValue.rawLongBits(),
+                            length);
+                    }
+                }
+
+            } else {
+                final Variable variable = variables.get(i);
+                final String[] values = batch.characterValues(i);
+                final byte[][] encodedValues = batch.encodedCharacterValues(i);
+                if (values != null) {
+                    for (int j = start; j < end; j++, offsetOfValue += rowLength) {
+                        writeString(buffer, offsetOfValue, i, values[j]);
+                    }
+                } else if (encodedValues != null) {
+                    for (int j = start; j < end; j++, offsetOfValue += rowLength) {
+                        writeBytes(buffer, offsetOfValue, variable, encodedValues[j]);
+                    }
+                } else {
+                    for (int j = start; j < end; j++, offsetOfValue += rowLength) {
+                        Arrays.fill(buffer, offsetOfValue, offsetOfValue + variable.length(), (byte) ' ');
+                    }
+                }
+            }
+        }
+
+        // Clear the padding at the end of each observation, since the buffer may hold data from a previous page.
+        if (endOfValues != rowLength) {
+            int offsetOfObservation = offsetOfFirstObservation;
+            for (int j = 0; j < count; j++, offsetOfObservation += rowLength) {
+                Arrays.fill(buffer, offsetOfObservation + endOfValues, offsetOfObservation + rowLength, (byte) 0);
+            }
+        }
+    }
+
+    private void checkObservationSize(List<Object> observation) {
         // Check that the observation has as many values as there are variables.
         if (totalVariables() != observation.size()) {
             throw new IllegalArgumentException(
@@ -106,93 +509,154 @@ class Sas7bdatVariablesLayout {
                     (totalVariables() < observation.size() ? "many" : "few") +
                     " values, expected " + totalVariables() + " but got " + observation.size());
         }
+    }
+
+    static String characterValue(Variable variable, Object value) {
+        // CHARACTER types only accept String objects (not even null).
+        if (value == null) {
+            throw new NullPointerException(
+                "null given as a value to " + variable.name() + ", which has a CHARACTER type");
+        }
+        if (!(value instanceof String stringValue)) {
+            throw new IllegalArgumentException(
+                "A " + value.getClass().getTypeName() + " was given as a value to the variable named " +
+                    variable.name() + ", which has a CHARACTER type (CHARACTER values must be of type java.lang.String)");
+        }
+        return stringValue;
+    }
 
-        // Use an iterator in case the given List doesn't have O(1) random access.
-        int i = 0;
-        for (Object value : observation) {
-            Variable variable = variables.get(i);
+    static long numericValueBits(Variable variable, Object value) {
+        // NUMERIC types accept null, MissingValue, Number, and LocalDate objects.
+        // Note: This can be replaced with Pattern Matching for switch in Java 21.
+        final long valueBits;
+        if (value == null) {
+            valueBits = MissingValue.STANDARD.rawLongBits();
 
-            final byte[] valueBytes;
-            if (VariableType.CHARACTER == variable.type()) {
-                // CHARACTER types only accept String objects (not even null).
-                if (value == null) {
-                    throw new NullPointerException(
-                        "null given as a value to " + variable.name() + ", which has a CHARACTER type");
-                }
-                if (!(value instanceof String stringValue)) {
-                    throw new IllegalArgumentException(
-                        "A " + value.getClass().getTypeName() + " was given as a value to the variable named " +
-                            variable.name() + ", which has a CHARACTER type (CHARACTER values must be of type java.lang.String)");
-                }
+        } else if (value instanceof MissingValue missingValue) {
+            valueBits = missingValue.rawLongBits();
 
-                // Check that the value's length fits into the data without truncation.
-                valueBytes = stringValue.getBytes(StandardCharsets.UTF_8);
-                if (variable.length() < valueBytes.length) {
-                    throw new IllegalArgumentException(
-                        "A value of " + valueBytes.length + " bytes was given to the variable named " +
-                            variable.name() + ", which has a length of " + variable.length());
-                }
-            } else {
-                // NUMERIC types accept null, MissingValue, Number, and LocalDate objects.
-                // Note: This can be replaced with Pattern Matching for switch in Java 21.
-                final long valueBits;
-                if (value == null) {
-                    valueBits = MissingValue.STANDARD.rawLongBits();
+        } else if (value instanceof Number numberValue) {
+            valueBits = Double.doubleToRawLongBits(numberValue.doubleValue());
+
+        } else if (value instanceof LocalDate localDate) {
+            // SAS dates are numeric values given as the number of days since 1960-01-01.
+            valueBits = sasDate(localDate);
 
-                } else if (value instanceof MissingValue missingValue) {
-                    valueBits = missingValue.rawLongBits();
+        } else if (value instanceof LocalTime localTime) {
+            // SAS times are numeric values given as the number of seconds since midnight.
+            valueBits = sasTime(localTime);
 
-                } else if (value instanceof Number numberValue) {
-                    valueBits = Double.doubleToRawLongBits(numberValue.doubleValue());
+        } else if (value instanceof LocalDateTime localDateTime) {
+            // SAS timestamps are numeric values given as the number of seconds since 1960-01-01T00:00:00.
+            valueBits = sasDateTime(localDateTime);
 
-                } else if (value instanceof LocalDate localDate) {
-                    // SAS dates are numeric values given as the number of days since 1960-01-01.
-                    valueBits = daysBetween(LocalDate.of(1960, 1, 1), localDate);
+        } else {
+            throw new IllegalArgumentException(
+                "A " + value.getClass().getTypeName() + " was given as a value to the variable named " +
+                    variable.name() + ", which has a NUMERIC type " +
+                    "(NUMERIC values must be null or of type " +
+                    MissingValue.class.getCanonicalName() + ", " +
+                    LocalDate.class.getCanonicalName() + ", " +
+                    LocalTime.class.getCanonicalName() + ", " +
+                    LocalDateTime.class.getCanonicalName() + ", or " +
+                    Number.class.getCanonicalName() + ")");
+        }
+        return valueBits;
+    }
 
-                } else if (value instanceof LocalTime localTime) {
-                    // SAS times are numeric values given as the number of seconds since midnight.
-                    valueBits = secondsBetween(LocalTime.MIDNIGHT, localTime);
+    private static void checkBytesLength(Variable variable, int valueLength) {
+        if (variable.length() < valueLength) {
+            throw new IllegalArgumentException(
+                "A value of " + valueLength + " bytes was given to the variable named " +
+                    variable.name() + ", which has a length of " + variable.length());
+        }
+    }
 
-                } else if (value instanceof LocalDateTime localDateTime) {
-                    // SAS timestamps are numeric values given as the number of seconds since 1960-01-01T00:00:00.
-                    valueBits = secondsBetween(LocalDateTime.of(1960, 1, 1, 0, 0), localDateTime);
+    private static void checkStringLength(Variable variable, String value) {
+        // Each char in a String is at most three bytes in UTF-8, so most values can be checked without encoding them.
+        if (variable.length() / 3 < value.length()) {
+            checkBytesLength(variable, WriteUtil.utf8Length(value));
+        }
+    }
 
-                } else {
-                    throw new IllegalArgumentException(
-                        "A " + value.getClass().getTypeName() + " was given as a value to the variable named " +
-                            variable.name() + ", which has a NUMERIC type " +
-                            "(NUMERIC values must be null or of type " +
-                            MissingValue.class.getCanonicalName() + ", " +
-                            LocalDate.class.getCanonicalName() + ", " +
-                            LocalTime.class.getCanonicalName() + ", " +
-                            LocalDateTime.class.getCanonicalName() + ", or " +
-                            Number.class.getCanonicalName() + ")");
-                }
+    /**
+     * Checks that an observation can be serialized by {@link #writeObservation(byte[], int, List)} without
+     * serializing it.
+     *
+     * @param observation
+     *     A list of values which correspond to the variables that were given in the constructor.
+     *
+     * @throws NullPointerException
+     *     If {@code observation} has a {@code null} value that is given to a variable whose type is
+     *     {@code VariableType.CHARACTER}.
+     * @throws IllegalArgumentException
+     *     if {@code observation} contains a value that doesn't conform to the {@code variables} that was given to this
+     *     object's constructor.
+     */
+    void checkObservation(List<Object> observation) {
+        checkObservationSize(observation);
 
-                valueBytes = new byte[] {
-                    (byte) (valueBits),
-                    (byte) (valueBits >> 8),
-                    (byte) (valueBits >> 16),
-                    (byte) (valueBits >> 24),
-                    (byte) (valueBits >> 32),
-                    (byte) (valueBits >> 40),
-                    (byte) (valueBits >> 48),
-                    (byte) (valueBits >> 56),
-                };
+        int i = 0;
+        for (Object value : observation) {
+            Variable variable = variables.get(i);
+            if (VariableType.CHARACTER == variable.type()) {
+                checkStringLength(variable, characterValue(variable, value));
+            } else {
+                numericValueBits(variable, value);
             }
+            i++;
+        }
+    }
+
+    /**
+     * Serializes an observation (list of variable values) to a buffer.
+     *
+     * @param buffer
+     *     The buffer to which the values should be serialized
+     * @param offsetOfObservation
+     *     The offset within {@code buffer} where the observation should be written.
+     * @param observation
+     *     A list of values which correspond to the variables that were given in the constructor.
+     *
+     * @throws NullPointerException
+     *     If {@code observation} has a {@code null} value that is given to a variable whose type is
+     *     {@code VariableType.CHARACTER}.
+     * @throws IllegalArgumentException
+     *     if {@code observation} contains a value that doesn't conform to the {@code variables} that was given to this
+     *     object's constructor.
+     */
+    void writeObservation(byte[] buffer, int offsetOfObservation, List<Object> observation) {
+        checkObservationSize(observation);
 
-            final int offsetOfValue = offsetOfObservation + physicalOffsets[i];
-            assert offsetOfValue + variable.length() <= buffer.length;
-            assert valueBytes.length <= variable.length();
+        // The compiled encoder gets each value by its index, so it's only used for lists with O(1) random access.
+        if (encoder != null && observation instanceof RandomAccess) {
+            assert offsetOfObservation + rowLength <= buffer.length;
+            encoder.encode(buffer, offsetOfObservation, observation);
 
-            // Copy the data
-            System.arraycopy(valueBytes, 0, buffer, offsetOfValue, valueBytes.length);
+        } else {
+            // Use an iterator in case the given List doesn't have O(1) random access.
+            int i = 0;
+            for (Object value : observation) {
+                Variable variable = variables.get(i);
+                final int offsetOfValue = offsetOfObservation + physicalOffsets[i];
+                assert offsetOfValue + variable.length() <= buffer.length;
 
-            // Pad the data
-            Arrays.fill(buffer, offsetOfValue + valueBytes.length, offsetOfValue + variable.length(), (byte) ' ');
+                if (VariableType.CHARACTER == variable.type()) {
+                    writeString(buffer, offsetOfValue, i, characterValue(variable, value));
 
-            i++;
+                } else {
+                    final long valueBits = numericValueBits(variable, value);
+
+                    // Write the value directly into the buffer (without an intermediate array).
+                    writeNumeric(buffer, offsetOfValue, valueBits, variable.length());
+                }
+
+                i++;
+            }
         }
+
+        // Clear the padding at the end of the observation, since the buffer may hold data from a previous page.
+        Arrays.fill(buffer, offsetOfObservation + endOfValues, offsetOfObservation + rowLength, (byte) 0);
     }
 
     int rowLength() {
@@ -111,6 +111,12 @@ public final class Variable {
          * unused space set to a space character.  If you do this on a dataset with many observations, you may end up
          * with a very large SAS7BDAT file.
          * </p>
+         * <p>
+         * NUMERIC variables must have a length between 3 and 8.  Values of a NUMERIC variable with a length less than 8
+         * are stored with reduced precision: the least significant bytes of their 8-byte IEEE 754 representation are
+         * dropped.  A length of 3 can exactly represent integers up to 8,192 and a length of 4 can exactly represent
+         * integers up to 2,097,152.
+         * </p>
          *
          * @param length
          *     The length of the new variable.
@@ -220,8 +226,8 @@ public final class Variable {
          * @return a {@code Variable}
          *
          * @throws IllegalStateException
-         *     if the type, length, or name haven't been set explicitly; if type is NUMERIC and length is not 8; or if
-         *     the input/output format is for a variable with a different type
+         *     if the type, length, or name haven't been set explicitly; if type is NUMERIC and length is not between 3
+         *     and 8; or if the input/output format is for a variable with a different type
          */
         public Variable build() {
             // There is no meaningful default type, length, or name; it's an error if the caller hasn't set them.
@@ -244,9 +250,9 @@ public final class Variable {
             // The length should already be set to between 1 and 32767, so we don't need to check again
             // for CHARACTER types.
             if (type == VariableType.NUMERIC) {
-                // Sas7BdatExporter only supports numeric values of size 8.
-                if (8 != length) {
-                    throw new IllegalStateException("numeric variables must have a length of 8");
+                // Sas7BdatExporter supports the lengths that are legal in all operating environments.
+                if (length < 3 || 8 < length) {
+                    throw new IllegalStateException("numeric variables must have a length between 3 and 8");
                 }
             }
 
@@ -4,8 +4,8 @@
 ///////////////////////////////////////////////////////////////////////////////
 package org.scharp.sas7bdat;
 
-import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Objects;
 
 /** Utility methods for writing data to a byte array */
 final class WriteUtil {
@@ -82,6 +82,151 @@ final class WriteUtil {
         return 8;
     }
 
+    /**
+     * Writes the most significant bytes of an eight byte numeric value as little endian to an array.  This is how SAS
+     * stores a NUMERIC value whose length is less than 8: the least significant bytes of the mantissa are dropped.
+     *
+     * @param data
+     *     The array to write to.
+     * @param offset
+     *     The offset in the array to write to.
+     * @param number
+     *     The number to write.
+     * @param length
+     *     The number of bytes to write.  This must be between 1 and 8.
+     *
+     * @return The number of bytes written.
+     */
+    static int writeMostSignificantBytes(byte[] data, int offset, long number, int length) {
+        // serialized as little-endian
+        assert 0 < length && length <= 8 : "illegal length: " + length;
+        for (int i = 1; i <= length; i++) {
+            data[offset + length - i] = (byte) (number >> (64 - 8 * i));
+        }
+        return length;
+    }
+
+    /**
+     * Computes the number of bytes in a string when it's encoded in UTF-8, without encoding it.
+     * <p>
+     * Like {@link String#getBytes(java.nio.charset.Charset)}, this counts a malformed surrogate as a one-byte
+     * replacement character.
+     * </p>
+     *
+     * @param string
+     *     The string to measure.
+     *
+     * @return The number of bytes in {@code string} when it's encoded in UTF-8.
+     */
+    static int utf8Length(CharSequence string) {
+        final int stringLength = string.length();
+        int utf8Length = stringLength; // every char is at least one byte
+        for (int i = 0; i < stringLength; i++) {
+            final char c = string.charAt(i);
+            if (c < 0x80) {
+                // ASCII is one byte.
+            } else if (c < 0x800) {
+                utf8Length += 1;
+            } else if (!Character.isSurrogate(c)) {
+                utf8Length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < stringLength &&
+                Character.isLowSurrogate(string.charAt(i + 1))) {
+                // A surrogate pair is four bytes.
+                utf8Length += 2;
+                i++;
+            }
+        }
+        return utf8Length;
+    }
+
+    /**
+     * Encodes a string as UTF-8 directly into a binary array.
+     * <p>
+     * This doesn't allocate an intermediate array and it stops as soon as it finds that the string is too long, so it
+     * can be used to check a string's length while writing it.  The leading ASCII characters of the string, which are
+     * typically all of them, are copied by a loop that doesn't need to check how many bytes each character needs.
+     * </p>
+     * <p>
+     * The bytes are the same as those given by {@link String#getBytes(java.nio.charset.Charset)}, which replaces each
+     * malformed surrogate with {@code '?'}.
+     * </p>
+     *
+     * @param data
+     *     The array to write to.
+     * @param offset
+     *     The offset of the array to which the first byte of the string is written.
+     * @param string
+     *     The string to write.
+     * @param maxLength
+     *     The most bytes that may be written.
+     *
+     * @return The number of bytes written, or -1 if {@code string} is longer than {@code maxLength} bytes when encoded
+     *     in UTF-8.  If -1 is returned, then some of the {@code maxLength} bytes at {@code offset} may have been
+     *     written.
+     */
+    static int encodeUtf8(byte[] data, int offset, CharSequence string, int maxLength) {
+        final int stringLength = string.length();
+        final int end = offset + maxLength;
+
+        // Copy the leading ASCII characters, one byte each.
+        final int asciiEnd = Math.min(stringLength, maxLength);
+        int i = 0;
+        while (i < asciiEnd) {
+            final char c = string.charAt(i);
+            if (0x80 <= c) {
+                break;
+            }
+            data[offset + i] = (byte) c;
+            i++;
+        }
+
+        // Encode the rest of the string, checking for space before each character.
+        int position = offset + i;
+        while (i < stringLength) {
+            final char c = string.charAt(i++);
+            if (c < 0x80) {
+                if (end - position < 1) {
+                    return -1;
+                }
+                data[position++] = (byte) c;
+
+            } else if (c < 0x800) {
+                if (end - position < 2) {
+                    return -1;
+                }
+                data[position++] = (byte) (0xC0 | (c >> 6));
+                data[position++] = (byte) (0x80 | (c & 0x3F));
+
+            } else if (!Character.isSurrogate(c)) {
+                if (end - position < 3) {
+                    return -1;
+                }
+                data[position++] = (byte) (0xE0 | (c >> 12));
+                data[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                data[position++] = (byte) (0x80 | (c & 0x3F));
+
+            } else if (Character.isHighSurrogate(c) && i < stringLength && Character.isLowSurrogate(string.charAt(i))) {
+                if (end - position < 4) {
+                    return -1;
+                }
+                final int codePoint = Character.toCodePoint(c, string.charAt(i++));
+                data[position++] = (byte) (0xF0 | (codePoint >> 18));
+                data[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                data[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                data[position++] = (byte) (0x80 | (codePoint & 0x3F));
+
+            } else {
+                // A malformed surrogate is replaced, as String.getBytes() does.
+                if (end - position < 1) {
+                    return -1;
+                }
+                data[position++] = '?';
+            }
+        }
+
+        return position - offset;
+    }
+
     /**
      * Writes a string to a binary array as UTF-8.
      *
@@ -97,16 +242,21 @@ final class WriteUtil {
      *     {@code string} when encoded in UTF-8.
      * @param paddingByte
      *     What to write in the extra space after {@code string}.
+     *
+     * @throws IndexOutOfBoundsException
+     *     if the {@code length} bytes at {@code offset} are not entirely within {@code data}.  In this case,
+     *     {@code data} is not modified.
      */
     static void writeUtf8(byte[] data, int offset, String string, int length, byte paddingByte) {
-        byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
-        assert utf8.length <= length;
+        // Check the destination range before anything is written, so that data isn't modified on error.
+        Objects.checkFromIndexSize(offset, length, data.length);
 
-        // copy the string
-        System.arraycopy(utf8, 0, data, offset, utf8.length);
+        // encode the string directly into the array
+        final int utf8Length = encodeUtf8(data, offset, string, length);
+        assert 0 <= utf8Length : "string is longer than " + length + " bytes";
 
         // pad the rest
-        Arrays.fill(data, offset + utf8.length, offset + length, paddingByte);
+        Arrays.fill(data, offset + utf8Length, offset + length, paddingByte);
     }
 
     /**
@@ -89,6 +89,7 @@ public class ArgumentUtilTest {
         ArgumentUtil.checkNotNegative(0, "argument");
         ArgumentUtil.checkNotNegative(1, "argument");
         ArgumentUtil.checkNotNegative(Integer.MAX_VALUE, "argument");
+        ArgumentUtil.checkNotNegative(Long.MAX_VALUE, "argument");
 
         Exception exception = assertThrows(
             IllegalArgumentException.class,
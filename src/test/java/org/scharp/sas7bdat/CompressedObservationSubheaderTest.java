@@ -0,0 +1,76 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.scharp.sas7bdat.Subheader.COMPRESSION_RLE_WITH_CONTROL_BYTE;
+import static org.scharp.sas7bdat.Subheader.COMPRESSION_UNCOMPRESSED;
+import static org.scharp.sas7bdat.Subheader.SUBHEADER_TYPE_B;
+
+/** Unit tests for {@link CompressedObservationSubheader}. */
+public class CompressedObservationSubheaderTest {
+
+    private static CompressedObservationSubheader newSubheader(String observation) {
+        // Put the observation in a buffer that's larger than the observation.
+        byte[] observationBuffer = new byte[100];
+        byte[] observationBytes = observation.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(observationBytes, 0, observationBuffer, 0, observationBytes.length);
+
+        return new CompressedObservationSubheader(new RleCompressor(), observationBuffer, observationBytes.length,
+            new byte[observationBytes.length]);
+    }
+
+    private static byte[] writeSubheader(Subheader subheader) {
+        // Write the subheader with a non-zero offset.
+        int offset = 10;
+        byte[] data = new byte[offset + subheader.size()];
+        subheader.writeSubheader(data, offset);
+
+        byte[] subheaderData = new byte[subheader.size()];
+        System.arraycopy(data, offset, subheaderData, 0, subheaderData.length);
+        return subheaderData;
+    }
+
+    @Test
+    void testSignature() {
+        CompressedObservationSubheader subheader = newSubheader("A" + " ".repeat(30));
+        assertEquals(0, subheader.signature());
+    }
+
+    @Test
+    void testTypeCode() {
+        CompressedObservationSubheader subheader = newSubheader("A" + " ".repeat(30));
+        assertEquals(SUBHEADER_TYPE_B, subheader.typeCode());
+    }
+
+    @Test
+    void testCompressedObservation() {
+        CompressedObservationSubheader subheader = newSubheader("A" + " ".repeat(30));
+        assertEquals(COMPRESSION_RLE_WITH_CONTROL_BYTE, subheader.compressionCode());
+
+        byte[] expectedSubheaderData = new byte[] {
+            (byte) 0x80, 'A', // copy 1 byte
+            0x60, 0x0D, // insert 30 blanks
+        };
+        assertEquals(expectedSubheaderData.length, subheader.size());
+        assertArrayEquals(expectedSubheaderData, writeSubheader(subheader));
+    }
+
+    @Test
+    void testIncompressibleObservation() {
+        // An observation that can't be compressed is stored uncompressed.
+        CompressedObservationSubheader subheader = newSubheader("ABCDEFGH");
+        assertEquals(COMPRESSION_UNCOMPRESSED, subheader.compressionCode());
+
+        byte[] expectedSubheaderData = "ABCDEFGH".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(expectedSubheaderData.length, subheader.size());
+        assertArrayEquals(expectedSubheaderData, writeSubheader(subheader));
+    }
+}
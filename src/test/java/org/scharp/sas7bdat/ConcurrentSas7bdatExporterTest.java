@@ -0,0 +1,261 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import com.epam.parso.SasFileReader;
+import com.epam.parso.impl.SasFileReaderImpl;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Unit tests for {@link ConcurrentSas7bdatExporter}. */
+public class ConcurrentSas7bdatExporterTest {
+
+    private static final Sas7bdatMetadata METADATA = SimpleDataset.metadata("CONCURRENT");
+
+    /**
+     * Tests that observations which are written by a single thread are exported exactly as {@link Sas7bdatExporter}
+     * would export them.
+     */
+    @Test
+    public void testSingleProducer() throws IOException {
+        Sas7bdatExportPlan plan = Sas7bdatExportPlan.compile(METADATA);
+        for (int totalObservations : new int[] { 0, 1, 10, 5000 }) {
+            ByteArrayOutputStream expectedOutputStream = new ByteArrayOutputStream();
+            try (Sas7bdatExporter exporter = plan.newExporter(expectedOutputStream, totalObservations)) {
+                for (int i = 0; i < totalObservations; i++) {
+                    exporter.writeObservation(SimpleDataset.observation(i));
+                }
+            }
+
+            ByteArrayOutputStream actualOutputStream = new ByteArrayOutputStream();
+            try (ConcurrentSas7bdatExporter exporter = new ConcurrentSas7bdatExporter(
+                plan.newExporter(actualOutputStream, totalObservations))) {
+                for (int i = 0; i < totalObservations; i++) {
+                    exporter.writeObservation(SimpleDataset.observation(i));
+                }
+            }
+
+            assertArrayEquals(
+                expectedOutputStream.toByteArray(),
+                actualOutputStream.toByteArray(),
+                "wrong dataset for " + totalObservations + " observations");
+        }
+    }
+
+    /**
+     * Tests that observations which are written by a single thread to a compressed dataset are exported exactly as
+     * {@link Sas7bdatExporter} would export them.
+     */
+    @Test
+    public void testSingleProducerWithCompression() throws IOException {
+        Sas7bdatExportOptions options = Sas7bdatExportOptions.builder().compression(Compression.CHAR).build();
+        Sas7bdatExportPlan plan = Sas7bdatExportPlan.compile(METADATA, options);
+        final int totalObservations = 5000;
+
+        Path expectedFile = Files.createTempFile("expected-", ".sas7bdat");
+        Path actualFile = Files.createTempFile("actual-", ".sas7bdat");
+        try {
+            try (Sas7bdatExporter exporter = plan.newExporter(expectedFile)) {
+                for (int i = 0; i < totalObservations; i++) {
+                    exporter.writeObservation(SimpleDataset.observation(i));
+                }
+            }
+
+            try (ConcurrentSas7bdatExporter exporter = new ConcurrentSas7bdatExporter(plan.newExporter(actualFile))) {
+                for (int i = 0; i < totalObservations; i++) {
+                    exporter.writeObservation(SimpleDataset.observation(i));
+                }
+            }
+
+            assertArrayEquals(Files.readAllBytes(expectedFile), Files.readAllBytes(actualFile));
+        } finally {
+            Files.deleteIfExists(expectedFile);
+            Files.deleteIfExists(actualFile);
+        }
+    }
+
+    /**
+     * Tests that every observation written by many threads at the same time is exported exactly once.
+     */
+    @Test
+    public void testManyProducers() throws Exception {
+        final int totalProducers = 8;
+        final int observationsPerProducer = 3000;
+        final int totalObservations = totalProducers * observationsPerProducer;
+
+        Path targetFile = Files.createTempFile("concurrent-", ".sas7bdat");
+        ExecutorService executor = Executors.newFixedThreadPool(totalProducers);
+        try {
+            try (ConcurrentSas7bdatExporter exporter = new ConcurrentSas7bdatExporter(
+                new Sas7bdatExporter(targetFile, METADATA))) {
+
+                List<Future<?>> futures = new ArrayList<>();
+                for (int producer = 0; producer < totalProducers; producer++) {
+                    final int firstObservation = producer * observationsPerProducer;
+                    futures.add(executor.submit(() -> {
+                        for (int i = firstObservation; i < firstObservation + observationsPerProducer; i++) {
+                            exporter.writeObservation(SimpleDataset.observation(i));
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+
+            // Read the dataset with parso to confirm that each observation was written once.
+            try (InputStream inputStream = Files.newInputStream(targetFile)) {
+                SasFileReader sasFileReader = new SasFileReaderImpl(inputStream);
+                assertEquals(totalObservations, sasFileReader.getSasFileProperties().getRowCount());
+
+                boolean[] found = new boolean[totalObservations];
+                int totalRows = 0;
+                Object[] row;
+                while ((row = sasFileReader.readNext()) != null) {
+                    int observationIndex = ((Number) row[1]).intValue();
+                    assertEquals("Value #" + observationIndex, row[0]);
+                    assertEquals(false, found[observationIndex], "observation " + observationIndex + " was repeated");
+                    found[observationIndex] = true;
+                    totalRows++;
+                }
+                assertEquals(totalObservations, totalRows);
+            }
+        } finally {
+            executor.shutdown();
+            Files.deleteIfExists(targetFile);
+        }
+    }
+
+    @Test
+    public void testConstructWithBadExporter() throws IOException {
+        Exception exception = assertThrows(NullPointerException.class, () -> new ConcurrentSas7bdatExporter(null));
+        assertEquals("exporter must not be null", exception.getMessage());
+
+        Sas7bdatExporter closedExporter = new Sas7bdatExporter(new ByteArrayOutputStream(), METADATA, 0);
+        closedExporter.close();
+        exception = assertThrows(IllegalStateException.class, () -> new ConcurrentSas7bdatExporter(closedExporter));
+        assertEquals("exporter is closed", exception.getMessage());
+    }
+
+    @Test
+    public void testWriteBadObservations() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ConcurrentSas7bdatExporter exporter = new ConcurrentSas7bdatExporter(
+            new Sas7bdatExporter(outputStream, METADATA, 2))) {
+
+            Exception exception = assertThrows(NullPointerException.class, () -> exporter.writeObservation(null));
+            assertEquals("observation must not be null", exception.getMessage());
+
+            exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> exporter.writeObservation(List.of("Text")));
+            assertEquals("observation has too few values, expected 2 but got 1", exception.getMessage());
+
+            assertThrows(NullPointerException.class, () -> exporter.writeObservation(Arrays.asList(null, 1)));
+
+            // The rejected observations don't count towards the total.
+            exporter.writeObservation(SimpleDataset.observation(1));
+            exporter.writeObservation(SimpleDataset.observation(2));
+
+            exception = assertThrows(
+                IllegalStateException.class,
+                () -> exporter.writeObservation(SimpleDataset.observation(3)));
+            assertEquals("wrote more observations than promised in the constructor", exception.getMessage());
+        }
+    }
+
+    @Test
+    public void testWriteAfterClose() throws IOException {
+        ConcurrentSas7bdatExporter exporter = new ConcurrentSas7bdatExporter(
+            new Sas7bdatExporter(new ByteArrayOutputStream(), METADATA, 0));
+        exporter.close();
+        exporter.close(); // closing twice is harmless
+
+        Exception exception = assertThrows(
+            IllegalStateException.class,
+            () -> exporter.writeObservation(SimpleDataset.observation(1)));
+        assertEquals("Cannot invoke writeObservation on closed exporter", exception.getMessage());
+    }
+
+    @Test
+    public void testCloseBeforeAllObservationsAreWritten() throws IOException {
+        ConcurrentSas7bdatExporter exporter = new ConcurrentSas7bdatExporter(
+            new Sas7bdatExporter(new ByteArrayOutputStream(), METADATA, 2));
+        exporter.writeObservation(SimpleDataset.observation(1));
+
+        Exception exception = assertThrows(IllegalStateException.class, exporter::close);
+        assertEquals("The constructor was told to expect 2 observation(s) but only 1 were written.",
+            exception.getMessage());
+    }
+
+    /** An OutputStream that throws an exception once it is told to fail. */
+    private static class FailingOutputStream extends OutputStream {
+        boolean isFailing = false;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (isFailing) {
+                throw new IOException("disk is full");
+            }
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            if (isFailing) {
+                throw new IOException("disk is full");
+            }
+        }
+    }
+
+    @Test
+    public void testWriteAfterFailedWrite() throws IOException {
+        final int totalObservations = 10_000;
+        FailingOutputStream outputStream = new FailingOutputStream();
+        ConcurrentSas7bdatExporter exporter = new ConcurrentSas7bdatExporter(
+            new Sas7bdatExporter(outputStream, METADATA, totalObservations));
+
+        // The observations are written until the first full buffer can't be written.
+        outputStream.isFailing = true;
+        Exception exception = assertThrows(
+            IOException.class,
+            () -> {
+                for (int i = 0; i < totalObservations; i++) {
+                    exporter.writeObservation(SimpleDataset.observation(i));
+                }
+            });
+        assertEquals("disk is full", exception.getMessage());
+
+        // The observations in that buffer were lost, so the exporter has failed.
+        exception = assertThrows(
+            IllegalStateException.class,
+            () -> exporter.writeObservation(SimpleDataset.observation(1)));
+        assertEquals("observations that were written earlier could not be exported", exception.getMessage());
+        assertInstanceOf(IOException.class, exception.getCause());
+
+        exception = assertThrows(IllegalStateException.class, exporter::close);
+        assertEquals("observations that were written earlier could not be exported", exception.getMessage());
+        assertInstanceOf(IOException.class, exception.getCause());
+
+        exporter.close(); // closing twice is harmless
+    }
+}
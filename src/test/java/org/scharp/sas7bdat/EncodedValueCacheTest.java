@@ -0,0 +1,121 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Unit tests for {@link EncodedValueCache} */
+public class EncodedValueCacheTest {
+
+    private static final Variable VARIABLE = Variable.builder().
+        name("CODE").type(VariableType.CHARACTER).length(4).build();
+
+    private static byte[] write(EncodedValueCache cache, String value) {
+        // Write the value over garbage to confirm that every byte is written.
+        byte[] data = new byte[VARIABLE.length() + 2];
+        Arrays.fill(data, (byte) 0xA5);
+        cache.write(data, 1, value);
+        return data;
+    }
+
+    @Test
+    void testWrite() {
+        EncodedValueCache cache = new EncodedValueCache(VARIABLE, 3);
+        assertSame(VARIABLE, cache.variable());
+        assertEquals(0, cache.size());
+
+        byte[] expected = { (byte) 0xA5, 'U', 'S', 'A', ' ', (byte) 0xA5 };
+        assertArrayEquals(expected, write(cache, "USA"));
+        assertEquals(1, cache.size());
+
+        // The second time, the value is copied from the cache.
+        assertArrayEquals(expected, write(cache, "USA"));
+        assertEquals(1, cache.size());
+
+        // Non-ASCII and blank values
+        assertArrayEquals(new byte[] { (byte) 0xA5, (byte) 0xC3, (byte) 0xA9, ' ', ' ', (byte) 0xA5 },
+            write(cache, "é"));
+        assertArrayEquals(new byte[] { (byte) 0xA5, ' ', ' ', ' ', ' ', (byte) 0xA5 }, write(cache, ""));
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void testEviction() {
+        EncodedValueCache cache = new EncodedValueCache(VARIABLE, 2);
+
+        write(cache, "A");
+        write(cache, "B");
+        write(cache, "A"); // marks "A" as recently used, so it gets a second chance
+        write(cache, "C"); // evicts "B"
+        assertEquals(2, cache.size());
+
+        // Every value is written correctly, whether it's cached or not.
+        assertArrayEquals(new byte[] { (byte) 0xA5, 'A', ' ', ' ', ' ', (byte) 0xA5 }, write(cache, "A"));
+        assertArrayEquals(new byte[] { (byte) 0xA5, 'B', ' ', ' ', ' ', (byte) 0xA5 }, write(cache, "B"));
+        assertArrayEquals(new byte[] { (byte) 0xA5, 'C', ' ', ' ', ' ', (byte) 0xA5 }, write(cache, "C"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testWriteValueThatIsTooLong() {
+        EncodedValueCache cache = new EncodedValueCache(VARIABLE, 2);
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> write(cache, "TOO LONG"));
+        assertEquals("A value of 8 bytes was given to the variable named CODE, which has a length of 4",
+            exception.getMessage());
+
+        // The value isn't cached, so it's rejected again.
+        assertEquals(0, cache.size());
+        exception = assertThrows(IllegalArgumentException.class, () -> write(cache, "TOO LONG"));
+        assertEquals("A value of 8 bytes was given to the variable named CODE, which has a length of 4",
+            exception.getMessage());
+    }
+
+    /** Tests that values are written correctly when several threads use the same cache. */
+    @Test
+    void testConcurrentWrites() throws Exception {
+        EncodedValueCache cache = new EncodedValueCache(VARIABLE, 8);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                final int seed = thread;
+                futures.add(executor.submit(() -> {
+                    // Use more distinct values than the cache holds, so that values are evicted while others are read.
+                    for (int i = 0; i < 20000; i++) {
+                        String value = Integer.toString((i * 7 + seed) % 20);
+                        byte[] expected = new byte[VARIABLE.length() + 2];
+                        Arrays.fill(expected, (byte) ' ');
+                        expected[0] = (byte) 0xA5;
+                        expected[expected.length - 1] = (byte) 0xA5;
+                        System.arraycopy(value.getBytes(), 0, expected, 1, value.length());
+                        assertArrayEquals(expected, write(cache, value), value);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Once no values are being added, the cache is within its bound.
+        assertEquals(8, cache.size());
+    }
+}
@@ -0,0 +1,97 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Unit tests for {@link MappedFileOutputStream}. */
+public class MappedFileOutputStreamTest {
+
+    private static FileChannel openChannel(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    @Test
+    void testWriteAcrossRegions() throws IOException {
+        Path targetPath = Files.createTempFile("sas7bdat-testWriteAcrossRegions-", ".bin");
+        try {
+            byte[] expectedData = new byte[100];
+            for (int i = 0; i < expectedData.length; i++) {
+                expectedData[i] = (byte) i;
+            }
+
+            FileChannel channel = openChannel(targetPath);
+            try (MappedFileOutputStream outputStream = new MappedFileOutputStream(channel, 16)) {
+                outputStream.setLength(expectedData.length);
+
+                // Write a single byte, then blocks which don't line up with the regions.
+                outputStream.write(expectedData[0]);
+                outputStream.write(expectedData, 1, 14);
+                outputStream.write(expectedData, 15, 2); // crosses the end of the first region
+                outputStream.write(expectedData, 17, 0); // an empty write
+                outputStream.write(expectedData, 17, 50); // spans several regions
+                outputStream.write(expectedData, 67, 33); // exactly fills the file
+            }
+
+            // Closing the stream closes the channel.
+            assertFalse(channel.isOpen(), "channel was not closed");
+
+            assertArrayEquals(expectedData, Files.readAllBytes(targetPath));
+        } finally {
+            Files.deleteIfExists(targetPath); // cleanup
+        }
+    }
+
+    @Test
+    void testWritePastEndOfFile() throws IOException {
+        Path targetPath = Files.createTempFile("sas7bdat-testWritePastEndOfFile-", ".bin");
+        try {
+            try (MappedFileOutputStream outputStream = new MappedFileOutputStream(openChannel(targetPath), 16)) {
+                outputStream.setLength(20);
+                outputStream.write(new byte[18]);
+
+                // Writing past the length of the file is an error.
+                Exception exception = assertThrows(IOException.class, () -> outputStream.write(new byte[3]));
+                assertEquals("attempted to write more than 20 bytes to a memory-mapped file", exception.getMessage());
+
+                // The part that fit was written, so the file is full.
+                exception = assertThrows(IOException.class, () -> outputStream.write(1));
+                assertEquals("attempted to write more than 20 bytes to a memory-mapped file", exception.getMessage());
+            }
+
+            assertEquals(20, Files.size(targetPath));
+        } finally {
+            Files.deleteIfExists(targetPath); // cleanup
+        }
+    }
+
+    @Test
+    void testWriteWithBadArguments() throws IOException {
+        Path targetPath = Files.createTempFile("sas7bdat-testWriteWithBadArguments-", ".bin");
+        try {
+            try (MappedFileOutputStream outputStream = new MappedFileOutputStream(openChannel(targetPath), 16)) {
+                outputStream.setLength(20);
+
+                assertThrows(NullPointerException.class, () -> outputStream.write(null, 0, 1));
+                assertThrows(IndexOutOfBoundsException.class, () -> outputStream.write(new byte[4], -1, 2));
+                assertThrows(IndexOutOfBoundsException.class, () -> outputStream.write(new byte[4], 3, 2));
+                assertThrows(IndexOutOfBoundsException.class, () -> outputStream.write(new byte[4], 0, -1));
+            }
+        } finally {
+            Files.deleteIfExists(targetPath); // cleanup
+        }
+    }
+}
@@ -27,4 +27,22 @@ public class MathUtilTest {
         assertEquals(2, MathUtil.divideAndRoundUp(200, 100));
         assertEquals(3, MathUtil.divideAndRoundUp(201, 100));
     }
+
+    @Test
+    public void testDividedAndRoundUpLong() {
+        // small numbers
+        assertEquals(0L, MathUtil.divideAndRoundUp(0L, 3L));
+        assertEquals(1L, MathUtil.divideAndRoundUp(1L, 3L));
+        assertEquals(1L, MathUtil.divideAndRoundUp(3L, 3L));
+        assertEquals(2L, MathUtil.divideAndRoundUp(4L, 3L));
+
+        // numbers beyond the range of an int
+        assertEquals(0x1_0000_0000L, MathUtil.divideAndRoundUp(0x2_0000_0000L, 2L));
+        assertEquals(0x1_0000_0001L, MathUtil.divideAndRoundUp(0x2_0000_0001L, 2L));
+
+        // numbers that would overflow if the divisor were added to the dividend
+        assertEquals(Long.MAX_VALUE, MathUtil.divideAndRoundUp(Long.MAX_VALUE, 1L));
+        assertEquals(Long.MAX_VALUE / 2 + 1, MathUtil.divideAndRoundUp(Long.MAX_VALUE, 2L));
+        assertEquals(1L, MathUtil.divideAndRoundUp(Long.MAX_VALUE, Long.MAX_VALUE));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,142 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Unit tests for {@link ObservationBatch} */
+public class ObservationBatchTest {
+
+    private static final Sas7bdatMetadata METADATA = Sas7bdatMetadata.builder().
+        variables(List.of(
+            Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(9).build(),
+            Variable.builder().name("NUMBER").type(VariableType.NUMERIC).length(8).build())).
+        build();
+
+    @Test
+    void constructBatch() {
+        ObservationBatch batch = new ObservationBatch(METADATA, 3);
+        assertEquals(3, batch.size());
+        assertEquals(METADATA.variables(), batch.variables());
+
+        // All values are initially unset.
+        assertNull(batch.characterValues(0));
+        assertNull(batch.numericValues(1));
+        assertNull(batch.missingValues(1));
+
+        // An empty batch is legal.
+        assertEquals(0, new ObservationBatch(METADATA, 0).size());
+    }
+
+    @Test
+    void constructWithBadArguments() {
+        Exception exception = assertThrows(NullPointerException.class, () -> new ObservationBatch(null, 1));
+        assertEquals("metadata must not be null", exception.getMessage());
+
+        exception = assertThrows(IllegalArgumentException.class, () -> new ObservationBatch(METADATA, -1));
+        assertEquals("size must not be negative", exception.getMessage());
+    }
+
+    @Test
+    void setValues() {
+        ObservationBatch batch = new ObservationBatch(METADATA, 2);
+
+        // Arrays may be longer than the batch.
+        String[] text = { "A", "B", "C" };
+        double[] numbers = { 1, 2 };
+        MissingValue[] missingValues = { null, MissingValue.Z };
+
+        assertSame(batch, batch.setCharacterValues(0, text));
+        assertSame(batch, batch.setNumericValues(1, numbers, missingValues));
+
+        // The arrays are not copied.
+        assertSame(text, batch.characterValues(0));
+        assertSame(numbers, batch.numericValues(1));
+        assertSame(missingValues, batch.missingValues(1));
+
+        // Setting the values without missing values clears the missing values.
+        assertSame(batch, batch.setNumericValues(1, new double[] { 3, 4 }));
+        assertArrayEquals(new double[] { 3, 4 }, batch.numericValues(1));
+        assertNull(batch.missingValues(1));
+
+        // Values that are already encoded replace the strings.
+        byte[][] encodedText = { { 'D' }, { 'E', 'F' } };
+        assertSame(batch, batch.setCharacterValues(0, encodedText));
+        assertSame(encodedText, batch.encodedCharacterValues(0));
+        assertNull(batch.characterValues(0));
+
+        assertSame(batch, batch.setCharacterValues(0, text));
+        assertSame(text, batch.characterValues(0));
+        assertNull(batch.encodedCharacterValues(0));
+
+        // Clear the values.
+        assertSame(batch, batch.clearValues(0));
+        assertSame(batch, batch.clearValues(1));
+        assertNull(batch.characterValues(0));
+        assertNull(batch.encodedCharacterValues(0));
+        assertNull(batch.numericValues(1));
+    }
+
+    @Test
+    void setValuesWithBadArguments() {
+        ObservationBatch batch = new ObservationBatch(METADATA, 2);
+
+        // Bad variable index
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.setNumericValues(2, new double[2]));
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.setCharacterValues(-1, new String[2]));
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.setCharacterValues(2, new byte[2][]));
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.clearValues(2));
+
+        // Wrong type
+        Exception exception = assertThrows(
+            IllegalArgumentException.class,
+            () -> batch.setNumericValues(0, new double[2]));
+        assertEquals("the variable named TEXT has a CHARACTER type", exception.getMessage());
+
+        exception = assertThrows(IllegalArgumentException.class, () -> batch.setCharacterValues(1, new String[2]));
+        assertEquals("the variable named NUMBER has a NUMERIC type", exception.getMessage());
+
+        exception = assertThrows(IllegalArgumentException.class, () -> batch.setCharacterValues(1, new byte[2][]));
+        assertEquals("the variable named NUMBER has a NUMERIC type", exception.getMessage());
+
+        // null arrays
+        exception = assertThrows(NullPointerException.class, () -> batch.setNumericValues(1, null));
+        assertEquals("values must not be null", exception.getMessage());
+
+        exception = assertThrows(NullPointerException.class, () -> batch.setCharacterValues(0, (String[]) null));
+        assertEquals("values must not be null", exception.getMessage());
+
+        exception = assertThrows(NullPointerException.class, () -> batch.setCharacterValues(0, (byte[][]) null));
+        assertEquals("values must not be null", exception.getMessage());
+
+        // Arrays that are too short
+        exception = assertThrows(IllegalArgumentException.class, () -> batch.setNumericValues(1, new double[1]));
+        assertEquals("values has 1 elements but the batch has 2 observations", exception.getMessage());
+
+        exception = assertThrows(
+            IllegalArgumentException.class,
+            () -> batch.setNumericValues(1, new double[2], new MissingValue[1]));
+        assertEquals("missingValues has 1 elements but the batch has 2 observations", exception.getMessage());
+
+        exception = assertThrows(IllegalArgumentException.class, () -> batch.setCharacterValues(0, new String[0]));
+        assertEquals("values has 0 elements but the batch has 2 observations", exception.getMessage());
+
+        exception = assertThrows(IllegalArgumentException.class, () -> batch.setCharacterValues(0, new byte[1][]));
+        assertEquals("values has 1 elements but the batch has 2 observations", exception.getMessage());
+
+        // The batch should not have been changed.
+        assertNull(batch.characterValues(0));
+        assertNull(batch.encodedCharacterValues(0));
+        assertNull(batch.numericValues(1));
+    }
+}
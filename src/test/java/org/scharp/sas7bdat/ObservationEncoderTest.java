@@ -0,0 +1,170 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Unit tests for {@link ObservationEncoder}. */
+public class ObservationEncoderTest {
+
+    private static Variable newVariable(String name, VariableType type, int length) {
+        return Variable.builder().name(name).type(type).length(length).build();
+    }
+
+    private static List<Variable> newVariables(int totalVariables) {
+        List<Variable> variables = new ArrayList<>(totalVariables);
+        for (int i = 0; i < totalVariables; i++) {
+            variables.add(newVariable("V" + i, VariableType.NUMERIC, 8));
+        }
+        return variables;
+    }
+
+    private static int[] physicalOffsets(Sas7bdatVariablesLayout variablesLayout) {
+        return variablesLayout.physicalOffsets().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static EncodedValueCache[] noCaches(Sas7bdatVariablesLayout variablesLayout) {
+        return new EncodedValueCache[variablesLayout.totalVariables()];
+    }
+
+    /**
+     * Asserts that a layout with a compiled encoder serializes an observation the same as a layout without one, both
+     * with and without a cache of CHARACTER values.
+     */
+    private static void assertSameObservation(List<Variable> variables, List<Object> observation) {
+        Sas7bdatVariablesLayout interpretedLayout = new Sas7bdatVariablesLayout(variables, false, 0);
+
+        // Write the observations over garbage to confirm that every byte is written.
+        final int offset = 8;
+        byte[] expectedData = new byte[offset + interpretedLayout.rowLength() + 5];
+        Arrays.fill(expectedData, (byte) 0xA5);
+        interpretedLayout.writeObservation(expectedData, offset, observation);
+
+        for (Sas7bdatVariablesLayout layout : List.of(
+            new Sas7bdatVariablesLayout(variables, true, 0),
+            new Sas7bdatVariablesLayout(variables, false, 2),
+            new Sas7bdatVariablesLayout(variables, true, 2))) {
+
+            // Write the observation twice so that the second time copies the cached values.
+            for (int i = 0; i < 2; i++) {
+                byte[] actualData = new byte[expectedData.length];
+                Arrays.fill(actualData, (byte) 0xA5);
+                layout.writeObservation(actualData, offset, observation);
+                assertArrayEquals(expectedData, actualData);
+            }
+        }
+    }
+
+    /**
+     * Asserts that a layout with a compiled encoder rejects an observation with the same exception as a layout
+     * without one.
+     */
+    private static void assertSameException(List<Variable> variables, List<Object> observation) {
+        Sas7bdatVariablesLayout interpretedLayout = new Sas7bdatVariablesLayout(variables, false, 0);
+
+        byte[] data = new byte[interpretedLayout.rowLength()];
+        Exception expectedException = assertThrows(
+            RuntimeException.class,
+            () -> interpretedLayout.writeObservation(data, 0, observation));
+
+        for (Sas7bdatVariablesLayout layout : List.of(
+            new Sas7bdatVariablesLayout(variables, true, 0),
+            new Sas7bdatVariablesLayout(variables, true, 2))) {
+            Exception actualException = assertThrows(
+                RuntimeException.class,
+                () -> layout.writeObservation(data, 0, observation));
+            assertEquals(expectedException.getClass(), actualException.getClass());
+            assertEquals(expectedException.getMessage(), actualException.getMessage());
+        }
+    }
+
+    @Test
+    void testCompile() {
+        Sas7bdatVariablesLayout variablesLayout = new Sas7bdatVariablesLayout(newVariables(3));
+        assertNotNull(ObservationEncoder.compile(variablesLayout.variables(), physicalOffsets(variablesLayout),
+            noCaches(variablesLayout)));
+
+        // There's nothing to compile without variables.
+        assertNull(ObservationEncoder.compile(List.of(), new int[0], new EncodedValueCache[0]));
+
+        // An encoder is compiled for the widest observations that are supported.
+        variablesLayout = new Sas7bdatVariablesLayout(newVariables(ObservationEncoder.MAX_VARIABLES));
+        assertNotNull(ObservationEncoder.compile(variablesLayout.variables(), physicalOffsets(variablesLayout),
+            noCaches(variablesLayout)));
+
+        // Wider observations are left to the loop.
+        variablesLayout = new Sas7bdatVariablesLayout(newVariables(ObservationEncoder.MAX_VARIABLES + 1));
+        assertNull(ObservationEncoder.compile(variablesLayout.variables(), physicalOffsets(variablesLayout),
+            noCaches(variablesLayout)));
+    }
+
+    @Test
+    void testEncode() {
+        List<Variable> variables = List.of(
+            newVariable("TEXT", VariableType.CHARACTER, 10),
+            newVariable("NUMBER", VariableType.NUMERIC, 8),
+            newVariable("SHORT", VariableType.NUMERIC, 3),
+            newVariable("MEDIUM", VariableType.NUMERIC, 5),
+            newVariable("INITIAL", VariableType.CHARACTER, 1));
+
+        assertSameObservation(variables, List.of("Text", 1.5, 2.25, Math.PI, "X"));
+        assertSameObservation(variables, List.of("", -100, 7L, new BigDecimal("12.5"), " "));
+        assertSameObservation(variables, Arrays.asList("full-width", null, MissingValue.A, null, "e"));
+        assertSameObservation(variables,
+            List.of("¡Olé!", LocalDate.of(2025, 3, 14), LocalTime.of(15, 9, 26), LocalDateTime.of(1959, 12, 31, 1, 2),
+                "Z"));
+
+        // A list without O(1) random access is serialized by the loop.
+        assertSameObservation(variables, new LinkedList<>(List.of("Text", 1.5, 2.25, Math.PI, "X")));
+    }
+
+    @Test
+    void testEncodeWideObservation() {
+        List<Variable> variables = new ArrayList<>();
+        List<Object> observation = new ArrayList<>();
+        for (int i = 0; i < ObservationEncoder.MAX_VARIABLES; i++) {
+            if (i % 4 == 0) {
+                variables.add(newVariable("TEXT" + i, VariableType.CHARACTER, 1 + i % 13));
+                observation.add(Integer.toString(i % 10));
+            } else {
+                variables.add(newVariable("NUMBER" + i, VariableType.NUMERIC, 3 + i % 6));
+                observation.add(i * 1.25);
+            }
+        }
+
+        assertSameObservation(variables, observation);
+    }
+
+    @Test
+    void testEncodeWithBadValues() {
+        List<Variable> variables = List.of(
+            newVariable("TEXT", VariableType.CHARACTER, 5),
+            newVariable("NUMBER", VariableType.NUMERIC, 8),
+            newVariable("SHORT", VariableType.NUMERIC, 4));
+
+        assertSameException(variables, Arrays.asList(null, 1, 2));
+        assertSameException(variables, List.of(5, 1, 2));
+        assertSameException(variables, List.of("too long", 1, 2));
+        assertSameException(variables, List.of("text", "1", 2));
+        assertSameException(variables, List.of("text", 1, 'c'));
+        assertSameException(variables, List.of("text", 1));
+        assertSameException(variables, List.of("text", 1, 2, 3));
+    }
+}
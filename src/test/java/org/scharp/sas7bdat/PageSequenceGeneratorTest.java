@@ -7,6 +7,7 @@ package org.scharp.sas7bdat;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /** Unit tests for {@link PageSequenceGenerator}. */
@@ -85,14 +86,81 @@ public class PageSequenceGeneratorTest {
     }
 
     @Test
-    void testSequenceEnd() {
+    void testSequenceBeyond16Bits() {
         PageSequenceGenerator pageSequenceGenerator = new PageSequenceGenerator();
-        for (int i = 0; i < 0x7FFF; i++) {
+
+        // Confirm that the sequence continues past where bits 4-15 run out.
+        long previousPageSequence = pageSequenceGenerator.currentPageSequence();
+        for (int i = 1; i < 0x30000; i++) {
             pageSequenceGenerator.incrementPageSequence();
+            long pageSequence = pageSequenceGenerator.currentPageSequence();
+            assertNotEquals(previousPageSequence, pageSequence, "page number " + i);
+            previousPageSequence = pageSequence;
+
+            if (i == 0xFFFF) {
+                assertEquals(0xF4A4_000_9L, pageSequence);
+            } else if (i == 0x10000) {
+                assertEquals(0xF4A3_FFF_6L, pageSequence);
+            }
+        }
+
+        // The initial page sequence shouldn't have changed.
+        assertEquals(0xF4A4_FFF_6L, pageSequenceGenerator.initialPageSequence());
+    }
+
+    @Test
+    void testSequenceBeyond32Bits() {
+        PageSequenceGenerator pageSequenceGenerator = new PageSequenceGenerator();
+
+        // Skip to the page where the sequence number first needs more than 32 bits.
+        pageSequenceGenerator.pageSequenceIndex = 0xF4A4FFFL * 16 + 15;
+        assertEquals(0x0000_0000_0000_0009L, pageSequenceGenerator.currentPageSequence());
+
+        pageSequenceGenerator.incrementPageSequence();
+        assertEquals(0xFFFF_FFFF_FFFF_FFF6L, pageSequenceGenerator.currentPageSequence());
+
+        pageSequenceGenerator.incrementPageSequence();
+        assertEquals(0xFFFF_FFFF_FFFF_FFF7L, pageSequenceGenerator.currentPageSequence());
+    }
+
+    @Test
+    void testSkipPages() {
+        PageSequenceGenerator pageSequenceGenerator = new PageSequenceGenerator();
+        pageSequenceGenerator.incrementPageSequence();
+
+        // Skipping pages is the same as incrementing a copy that many times.
+        PageSequenceGenerator expectedPageSequenceGenerator = new PageSequenceGenerator(pageSequenceGenerator);
+        for (int totalPagesToSkip = 0; totalPagesToSkip < 40; totalPagesToSkip++) {
+            PageSequenceGenerator skippedPageSequenceGenerator = new PageSequenceGenerator(
+                pageSequenceGenerator,
+                totalPagesToSkip);
+            assertEquals(
+                expectedPageSequenceGenerator.currentPageSequence(),
+                skippedPageSequenceGenerator.currentPageSequence(),
+                "skipped " + totalPagesToSkip + " pages");
+            expectedPageSequenceGenerator.incrementPageSequence();
         }
 
+        // The original generator shouldn't have changed.
+        assertEquals(0xF4A4_FFF_7L, pageSequenceGenerator.currentPageSequence());
+
+        // Skipping past the end of the sequence is an error.
+        Exception exception = assertThrows(
+            IllegalStateException.class,
+            () -> new PageSequenceGenerator(pageSequenceGenerator, Long.MAX_VALUE));
+        assertEquals("This code does not support more than 9223372036854775807 pages", exception.getMessage());
+    }
+
+    @Test
+    void testSequenceEnd() {
+        PageSequenceGenerator pageSequenceGenerator = new PageSequenceGenerator();
+
+        // Skip to the end of the sequence.
+        pageSequenceGenerator.pageSequenceIndex = Long.MAX_VALUE - 1;
+        pageSequenceGenerator.incrementPageSequence();
+
         // The sequence should be exhausted.
         Exception exception = assertThrows(IllegalStateException.class, pageSequenceGenerator::incrementPageSequence);
-        assertEquals("This code does not support more than 32767 pages", exception.getMessage());
+        assertEquals("This code does not support more than 9223372036854775807 pages", exception.getMessage());
     }
 }
\ No newline at end of file
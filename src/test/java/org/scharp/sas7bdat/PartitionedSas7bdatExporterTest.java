@@ -0,0 +1,259 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Unit tests for {@link PartitionedSas7bdatExporter}. */
+public class PartitionedSas7bdatExporterTest {
+
+    private static Sas7bdatMetadata newMetadata(int totalVariables) {
+        List<Variable> variables = new ArrayList<>(totalVariables);
+        for (int i = 0; i < totalVariables; i++) {
+            variables.add(
+                Variable.builder().
+                    name("VAR" + i).
+                    type(i % 2 == 0 ? VariableType.CHARACTER : VariableType.NUMERIC).
+                    length(i % 2 == 0 ? 10 : 8).
+                    build());
+        }
+
+        return Sas7bdatMetadata.builder().
+            creationTime(LocalDateTime.of(2025, 3, 14, 15, 9, 26)).
+            datasetName("PARTITIONED").
+            variables(variables).
+            build();
+    }
+
+    private static List<Object> newObservation(Sas7bdatMetadata metadata, long observationIndex) {
+        List<Object> observation = new ArrayList<>(metadata.variables().size());
+        for (int i = 0; i < metadata.variables().size(); i++) {
+            observation.add(i % 2 == 0 ? "Row " + observationIndex : (Object) (observationIndex * 0.5));
+        }
+        return observation;
+    }
+
+    private static void writePartition(PartitionedSas7bdatExporter exporter, Sas7bdatMetadata metadata,
+        long firstObservation, long totalObservations) throws IOException {
+        try (PartitionedSas7bdatExporter.Partition partition = exporter.newPartition(firstObservation,
+            totalObservations)) {
+            for (long i = firstObservation; i < firstObservation + totalObservations; i++) {
+                partition.writeObservation(newObservation(metadata, i));
+            }
+        }
+    }
+
+    /**
+     * Tests that a dataset whose partitions are written concurrently, in any order, and with boundaries that don't
+     * align with the pages, is the same as a dataset that is written sequentially.
+     */
+    @Test
+    public void testWritePartitionsConcurrently() throws Exception {
+        Random random = new Random(18);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Path expectedFile = Files.createTempFile("expected-", ".sas7bdat");
+        Path actualFile = Files.createTempFile("actual-", ".sas7bdat");
+        try {
+            // 3000 variables need several metadata pages, with space for only one observation on the mixed page.
+            for (int totalVariables : new int[] { 2, 40, 3000 }) {
+                Sas7bdatMetadata metadata = newMetadata(totalVariables);
+                Sas7bdatExportPlan plan = Sas7bdatExportPlan.compile(metadata);
+                final int maxObservationsOnMixedPage = plan.finalMetadataPage.maxObservations();
+
+                for (int totalObservations : new int[] { 0, 1, maxObservationsOnMixedPage,
+                    maxObservationsOnMixedPage + 1, 3000 }) {
+
+                    try (Sas7bdatExporter exporter = plan.newExporter(expectedFile, totalObservations)) {
+                        for (int i = 0; i < totalObservations; i++) {
+                            exporter.writeObservation(newObservation(metadata, i));
+                        }
+                    }
+
+                    // Split the dataset into partitions of random sizes and write them in a random order.
+                    List<long[]> partitions = new ArrayList<>();
+                    for (long first = 0; first < totalObservations; ) {
+                        long size = Math.min(totalObservations - first, 1 + random.nextInt(700));
+                        partitions.add(new long[] { first, size });
+                        first += size;
+                    }
+                    Collections.shuffle(partitions, random);
+
+                    try (PartitionedSas7bdatExporter exporter = plan.newPartitionedExporter(actualFile,
+                        totalObservations)) {
+                        assertEquals(totalObservations, exporter.totalObservationsInDataset());
+
+                        List<Future<?>> futures = new ArrayList<>();
+                        for (long[] partition : partitions) {
+                            futures.add(executor.submit(() -> {
+                                writePartition(exporter, metadata, partition[0], partition[1]);
+                                return null;
+                            }));
+                        }
+                        for (Future<?> future : futures) {
+                            future.get();
+                        }
+                    }
+
+                    assertArrayEquals(
+                        Files.readAllBytes(expectedFile),
+                        Files.readAllBytes(actualFile),
+                        "wrong dataset for " + totalVariables + " variables and " + totalObservations +
+                            " observations");
+                }
+            }
+        } finally {
+            executor.shutdown();
+            Files.deleteIfExists(expectedFile);
+            Files.deleteIfExists(actualFile);
+        }
+    }
+
+    @Test
+    public void testNewPartitionedExporterWithBadArguments() throws IOException {
+        Sas7bdatMetadata metadata = newMetadata(2);
+        Sas7bdatExportPlan plan = Sas7bdatExportPlan.compile(metadata);
+        Path targetFile = Files.createTempFile("partitioned-", ".sas7bdat");
+        try {
+            Exception exception = assertThrows(NullPointerException.class, () -> plan.newPartitionedExporter(null, 1));
+            assertEquals("targetLocation must not be null", exception.getMessage());
+
+            exception = assertThrows(IllegalArgumentException.class, () -> plan.newPartitionedExporter(targetFile, -1));
+            assertEquals("totalObservationsInDataset must not be negative", exception.getMessage());
+
+            Sas7bdatExportPlan compressedPlan = Sas7bdatExportPlan.compile(metadata,
+                Sas7bdatExportOptions.builder().compression(Compression.CHAR).build());
+            exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> compressedPlan.newPartitionedExporter(targetFile, 1));
+            assertEquals("compression is not supported by a partitioned exporter", exception.getMessage());
+
+            Sas7bdatExportPlan statisticsPlan = Sas7bdatExportPlan.compile(metadata,
+                Sas7bdatExportOptions.builder().collectStatistics(true).build());
+            exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> statisticsPlan.newPartitionedExporter(targetFile, 1));
+            assertEquals("statistics are not supported by a partitioned exporter", exception.getMessage());
+
+            Sas7bdatExportPlan checksumsPlan = Sas7bdatExportPlan.compile(metadata,
+                Sas7bdatExportOptions.builder().pageChecksums(true).build());
+            exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> checksumsPlan.newPartitionedExporter(targetFile, 1));
+            assertEquals("page checksums are not supported by a partitioned exporter", exception.getMessage());
+        } finally {
+            Files.deleteIfExists(targetFile);
+        }
+    }
+
+    @Test
+    public void testNewPartitionWithBadArguments() throws IOException {
+        Sas7bdatMetadata metadata = newMetadata(2);
+        Sas7bdatExportPlan plan = Sas7bdatExportPlan.compile(metadata);
+        Path targetFile = Files.createTempFile("partitioned-", ".sas7bdat");
+        try {
+            PartitionedSas7bdatExporter exporter = plan.newPartitionedExporter(targetFile, 100);
+
+            Exception exception = assertThrows(IllegalArgumentException.class, () -> exporter.newPartition(-1, 1));
+            assertEquals("firstObservation must not be negative", exception.getMessage());
+
+            exception = assertThrows(IllegalArgumentException.class, () -> exporter.newPartition(0, -1));
+            assertEquals("totalObservations must not be negative", exception.getMessage());
+
+            exception = assertThrows(IllegalArgumentException.class, () -> exporter.newPartition(90, 11));
+            assertEquals("the partition extends beyond the end of the dataset", exception.getMessage());
+
+            // Overlapping partitions
+            PartitionedSas7bdatExporter.Partition partition = exporter.newPartition(20, 30);
+            assertEquals(20, partition.firstObservation());
+            assertEquals(30, partition.totalObservations());
+            for (long[] range : new long[][] { { 10, 11 }, { 49, 10 }, { 25, 5 }, { 0, 100 } }) {
+                exception = assertThrows(
+                    IllegalArgumentException.class,
+                    () -> exporter.newPartition(range[0], range[1]));
+                assertEquals("the partition overlaps another partition", exception.getMessage());
+            }
+
+            // Adjacent and empty partitions are legal.
+            exporter.newPartition(0, 20);
+            exporter.newPartition(50, 50);
+            exporter.newPartition(30, 0);
+
+            // Not all observations were written.
+            exception = assertThrows(IllegalStateException.class, exporter::close);
+            assertEquals("The exporter was told to expect 100 observation(s) but only 0 were written.",
+                exception.getMessage());
+
+            exception = assertThrows(IllegalStateException.class, () -> exporter.newPartition(0, 0));
+            assertEquals("Cannot invoke newPartition on closed exporter", exception.getMessage());
+        } finally {
+            Files.deleteIfExists(targetFile);
+        }
+    }
+
+    @Test
+    public void testWriteObservationsToPartition() throws IOException {
+        Sas7bdatMetadata metadata = newMetadata(2);
+        Sas7bdatExportPlan plan = Sas7bdatExportPlan.compile(metadata);
+        Path targetFile = Files.createTempFile("partitioned-", ".sas7bdat");
+        try {
+            PartitionedSas7bdatExporter exporter = plan.newPartitionedExporter(targetFile, 3);
+            PartitionedSas7bdatExporter.Partition partition = exporter.newPartition(0, 2);
+
+            Exception exception = assertThrows(NullPointerException.class, () -> partition.writeObservation(null));
+            assertEquals("observation must not be null", exception.getMessage());
+
+            // A malformed observation isn't counted.
+            exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> partition.writeObservation(List.of("Text")));
+            assertEquals("observation has too few values, expected 2 but got 1", exception.getMessage());
+
+            partition.writeObservation(newObservation(metadata, 0));
+
+            exception = assertThrows(IllegalStateException.class, partition::close);
+            assertEquals("The partition was told to expect 2 observation(s) but only 1 were written.",
+                exception.getMessage());
+            partition.close(); // closing twice is harmless
+
+            exception = assertThrows(
+                IllegalStateException.class,
+                () -> partition.writeObservation(newObservation(metadata, 1)));
+            assertEquals("Cannot invoke writeObservation on closed partition", exception.getMessage());
+
+            // Write too many observations to another partition.
+            PartitionedSas7bdatExporter.Partition finalPartition = exporter.newPartition(2, 1);
+            finalPartition.writeObservation(newObservation(metadata, 2));
+            exception = assertThrows(
+                IllegalStateException.class,
+                () -> finalPartition.writeObservation(newObservation(metadata, 3)));
+            assertEquals("wrote more observations than the partition holds", exception.getMessage());
+            finalPartition.close();
+
+            // The first partition's observation was never written because the partition wasn't finished.
+            exception = assertThrows(IllegalStateException.class, exporter::close);
+            assertEquals("The exporter was told to expect 3 observation(s) but only 1 were written.",
+                exception.getMessage());
+            exporter.close(); // closing twice is harmless
+        } finally {
+            Files.deleteIfExists(targetFile);
+        }
+    }
+}
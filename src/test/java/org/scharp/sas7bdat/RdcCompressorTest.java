@@ -0,0 +1,91 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Unit tests for {@link RdcCompressor}. */
+public class RdcCompressorTest {
+
+    private static byte[] compress(RdcCompressor compressor, String observation) {
+        byte[] source = observation.getBytes(StandardCharsets.US_ASCII);
+        byte[] destination = new byte[source.length];
+        int length = compressor.compress(source, source.length, destination);
+        return length < 0 ? null : Arrays.copyOf(destination, length);
+    }
+
+    @Test
+    void testRuns() {
+        RdcCompressor compressor = new RdcCompressor();
+
+        // A long run followed by literals
+        assertArrayEquals(
+            new byte[] {
+                (byte) 0x80, 0x00, // control word: command, literal, literal
+                0x11, 0x00, ' ', // insert 20 blanks
+                'A', 'B', // literals
+            },
+            compress(compressor, " ".repeat(20) + "AB"));
+
+        // A short run
+        assertArrayEquals(
+            new byte[] {
+                (byte) 0x80, 0x00, // control word: command, literal
+                0x02, 'x', // insert 5 x
+                'A', // literal
+            },
+            compress(compressor, "xxxxxA"));
+    }
+
+    @Test
+    void testPatterns() {
+        RdcCompressor compressor = new RdcCompressor();
+
+        assertArrayEquals(
+            new byte[] {
+                (byte) 0x84, 0x00, // control word: command, four literals, command
+                0x02, 'x', // insert 5 x
+                'A', 'B', 'C', 'D', // literals
+                0x41, 0x00, // copy 4 bytes from 4 bytes back
+            },
+            compress(compressor, "xxxxxABCDABCD"));
+
+        // The compressor can be re-used for another observation.
+        // A copy never overlaps the bytes that it creates, so the pattern is copied twice.
+        assertArrayEquals(
+            new byte[] {
+                0x00, 0x60, // control word: nine literals, two commands
+                '0', '1', '2', '3', '4', '5', '6', '7', '8',
+                (byte) 0x96, 0x00, // copy 9 bytes from 9 bytes back
+                (byte) 0x96, 0x00, // copy 9 bytes from 9 bytes back
+            },
+            compress(compressor, "012345678".repeat(3)));
+    }
+
+    @Test
+    void testLongPattern() {
+        assertArrayEquals(
+            new byte[] {
+                0x00, 0x00, // control word: sixteen literals
+                'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M', 'N', 'O', 'P',
+                0x08, 0x00, // control word: four literals, command
+                'Q', 'R', 'S', 'T',
+                0x21, 0x01, 0x04, // copy 20 bytes from 20 bytes back
+            },
+            compress(new RdcCompressor(), "ABCDEFGHIJKLMNOPQRST".repeat(2)));
+    }
+
+    @Test
+    void testIncompressibleObservation() {
+        // Compressing this would add a control word, making it larger.
+        assertEquals(null, compress(new RdcCompressor(), "ABCDEFGH"));
+    }
+}
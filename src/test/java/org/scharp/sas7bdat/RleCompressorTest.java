@@ -0,0 +1,93 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Unit tests for {@link RleCompressor}. */
+public class RleCompressorTest {
+
+    private static byte[] compress(byte[] observation) {
+        byte[] destination = new byte[observation.length];
+        int length = new RleCompressor().compress(observation, observation.length, destination);
+        return length < 0 ? null : Arrays.copyOf(destination, length);
+    }
+
+    private static byte[] compress(String observation) {
+        return compress(observation.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testRunsOfBlanks() {
+        // A long run of blanks
+        assertArrayEquals(
+            new byte[] {
+                (byte) 0x81, 'A', 'B', // copy 2 bytes
+                0x60, 0x03, // insert 20 blanks
+            },
+            compress("AB" + " ".repeat(20)));
+
+        // A short run of blanks between literals
+        assertArrayEquals(
+            new byte[] {
+                (byte) 0x83, 'A', 'B', 'C', 'D', // copy 4 bytes
+                (byte) 0xE3, // insert 5 blanks
+                (byte) 0x81, 'E', 'F', // copy 2 bytes
+            },
+            compress("ABCD     EF"));
+    }
+
+    @Test
+    void testRunsOfZeros() {
+        assertArrayEquals(new byte[] { (byte) 0xFE }, compress(new byte[16]));
+        assertArrayEquals(new byte[] { 0x70, 0x53 }, compress(new byte[100]));
+    }
+
+    @Test
+    void testRunsOfOtherBytes() {
+        assertArrayEquals(
+            new byte[] {
+                (byte) 0xD3, // insert 5 @
+                (byte) 0xC7, 'x', // insert 10 x
+            },
+            compress("@@@@@" + "x".repeat(10)));
+
+        // A run that is too long for the 0xCn command
+        assertArrayEquals(new byte[] { 0x40, 0x0C, 'x' }, compress("x".repeat(30)));
+    }
+
+    @Test
+    void testLongLiteral() {
+        byte[] observation = new byte[300];
+        for (int i = 0; i < 100; i++) {
+            observation[i] = (byte) i;
+        }
+        Arrays.fill(observation, 100, 300, (byte) ' ');
+
+        byte[] expected = new byte[104];
+        expected[0] = 0x00; // copy 100 bytes
+        expected[1] = 100 - 64;
+        System.arraycopy(observation, 0, expected, 2, 100);
+        expected[102] = 0x60; // insert 200 blanks
+        expected[103] = (byte) (200 - 17);
+
+        assertArrayEquals(expected, compress(observation));
+    }
+
+    @Test
+    void testIncompressibleObservation() {
+        // Compressing this would add a command byte, making it larger.
+        assertEquals(null, compress("ABCDEFGH"));
+
+        // Compressing this would make it the same size.
+        assertEquals(null, compress("ABCDEF  "));
+    }
+}
@@ -837,4 +837,43 @@ public class RowSizeSubheaderTest {
         // Confirm that writeSubheader() wrote the expected data
         assertArrayEquals(expectedSubheaderData, actualSubheaderData);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that the reference to the compression literal in the column text is written for compressed datasets and
+     * left blank for uncompressed ones.  Readers use this reference to determine how the observations are stored.
+     */
+    @Test
+    void testCompressionLiteralLocation() {
+        for (Compression compression : Compression.values()) {
+            PageSequenceGenerator pageSequenceGenerator = new PageSequenceGenerator();
+            Sas7bdatVariablesLayout variablesLayout = new Sas7bdatVariablesLayout(List.of(
+                Variable.builder().name("VAR").type(VariableType.CHARACTER).length(1).build()));
+            Sas7bdatPageLayout pageLayout = new Sas7bdatPageLayout(pageSequenceGenerator, variablesLayout,
+                compression);
+            RowSizeSubheader rowSizeSubheader = new RowSizeSubheader(pageSequenceGenerator, "TYPE    ",
+                "dataset label", variablesLayout, pageLayout, 0);
+
+            pageLayout.addSubheader(rowSizeSubheader);
+
+            // Add the column text in the same order as Sas7bdatExporter.
+            pageLayout.columnText.add("\0\0\0\0");
+            pageLayout.columnText.add(compression == Compression.NONE ? " ".repeat(8) : compression.literal());
+            pageLayout.columnText.add("TYPE    ");
+            pageLayout.columnText.add("dataset label");
+            pageLayout.columnText.noMoreText();
+            pageLayout.finalizeMetadata();
+
+            // Write the subheader to a data array.
+            byte[] actualSubheaderData = new byte[rowSizeSubheader.size()];
+            rowSizeSubheader.writeSubheader(actualSubheaderData, 0);
+
+            final byte[] expectedCompressionLiteralLocation = compression == Compression.NONE ?
+                new byte[] { 0, 0, 0, 0, 0, 0 } : // blank
+                new byte[] { 0, 0, 12, 0, 8, 0 }; // first ColumnText subheader, offset 12, length 8
+            assertArrayEquals(
+                expectedCompressionLiteralLocation,
+                Arrays.copyOfRange(actualSubheaderData, 690, 696),
+                compression.toString());
+        }
+    }
+}
@@ -0,0 +1,189 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Unit tests for {@link Sas7bdatExportCollector}. */
+public class Sas7bdatExportCollectorTest {
+
+    private static final Sas7bdatMetadata METADATA = SimpleDataset.metadata("COLLECTED");
+
+    private static byte[] exportDataset(int totalObservations) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (Sas7bdatExporter exporter = new Sas7bdatExporter(outputStream, METADATA, totalObservations)) {
+            for (int i = 0; i < totalObservations; i++) {
+                exporter.writeObservation(SimpleDataset.observation(i));
+            }
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] collectDataset(int totalObservations, boolean isParallel) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (Sas7bdatExporter exporter = new Sas7bdatExporter(outputStream, METADATA, totalObservations)) {
+            IntStream observationIndices = IntStream.range(0, totalObservations);
+            if (isParallel) {
+                observationIndices = observationIndices.parallel();
+            }
+            long totalWritten = observationIndices.
+                mapToObj(SimpleDataset::observation).
+                collect(Sas7bdatExportCollector.toExporter(exporter));
+            assertEquals(totalObservations, totalWritten);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Tests that the observations of sequential and parallel streams are exported in encounter order.
+     */
+    @Test
+    public void testCollect() throws IOException {
+        for (int totalObservations : new int[] { 0, 1, 1000, 50000 }) {
+            byte[] expectedDataset = exportDataset(totalObservations);
+            assertArrayEquals(expectedDataset, collectDataset(totalObservations, false),
+                "wrong sequential dataset for " + totalObservations + " observations");
+            assertArrayEquals(expectedDataset, collectDataset(totalObservations, true),
+                "wrong parallel dataset for " + totalObservations + " observations");
+        }
+    }
+
+    /**
+     * Tests that observations can be written to the exporter after the stream is collected.
+     */
+    @Test
+    public void testWriteAfterCollect() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (Sas7bdatExporter exporter = new Sas7bdatExporter(outputStream, METADATA, 3)) {
+            Stream.of(SimpleDataset.observation(0), SimpleDataset.observation(1)).
+                collect(Sas7bdatExportCollector.toExporter(exporter));
+            exporter.writeObservation(SimpleDataset.observation(2));
+        }
+        assertArrayEquals(exportDataset(3), outputStream.toByteArray());
+    }
+
+    @Test
+    public void testCollectBadObservations() throws IOException {
+        try (Sas7bdatExporter exporter = new Sas7bdatExporter(new ByteArrayOutputStream(), METADATA, 2)) {
+            Exception exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> Stream.of(SimpleDataset.observation(0), List.<Object>of("Text")).
+                    collect(Sas7bdatExportCollector.toExporter(exporter)));
+            assertEquals("observation has too few values, expected 2 but got 1", exception.getMessage());
+
+            exception = assertThrows(
+                NullPointerException.class,
+                () -> Stream.of(SimpleDataset.observation(0), null).
+                    collect(Sas7bdatExportCollector.toExporter(exporter)));
+            assertEquals("observation must not be null", exception.getMessage());
+
+            // The stream's observations are only written when it's finished, so none were written.
+            exception = assertThrows(
+                IllegalStateException.class,
+                () -> IntStream.range(0, 3).
+                    mapToObj(SimpleDataset::observation).
+                    collect(Sas7bdatExportCollector.toExporter(exporter)));
+            assertEquals("wrote more observations than promised in the constructor", exception.getMessage());
+
+            Stream.of(SimpleDataset.observation(0), SimpleDataset.observation(1)).
+                collect(Sas7bdatExportCollector.toExporter(exporter));
+        }
+    }
+
+    @Test
+    public void testToExporterWithBadExporter() throws IOException {
+        Exception exception = assertThrows(
+            NullPointerException.class,
+            () -> Sas7bdatExportCollector.toExporter(null));
+        assertEquals("exporter must not be null", exception.getMessage());
+
+        Sas7bdatExporter closedExporter = new Sas7bdatExporter(new ByteArrayOutputStream(), METADATA, 0);
+        closedExporter.close();
+        exception = assertThrows(IllegalStateException.class, () -> Sas7bdatExportCollector.toExporter(closedExporter));
+        assertEquals("exporter is closed", exception.getMessage());
+    }
+
+    /**
+     * Tests that {@link Sas7bdatExportCollector#exportStream} writes the observations of sequential and parallel
+     * streams in encounter order.
+     */
+    @Test
+    public void testExportStream() throws IOException {
+        for (int totalObservations : new int[] { 0, 1, 1000, 50000 }) {
+            byte[] expectedDataset = exportDataset(totalObservations);
+            for (boolean isParallel : new boolean[] { false, true }) {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                try (Sas7bdatExporter exporter = new Sas7bdatExporter(outputStream, METADATA, totalObservations)) {
+                    Stream<List<Object>> observations = IntStream.range(0, totalObservations).
+                        mapToObj(SimpleDataset::observation);
+                    if (isParallel) {
+                        observations = observations.parallel();
+                    }
+                    assertEquals(totalObservations, Sas7bdatExportCollector.exportStream(observations, exporter));
+                }
+                assertArrayEquals(expectedDataset, outputStream.toByteArray(),
+                    "wrong dataset for " + totalObservations + " observations (isParallel=" + isParallel + ")");
+            }
+        }
+    }
+
+    @Test
+    public void testExportStreamWithBadObservations() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (Sas7bdatExporter exporter = new Sas7bdatExporter(outputStream, METADATA, 3)) {
+            // A sequential stream's observations are written as they're consumed, so the first one was written.
+            Exception exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> Sas7bdatExportCollector.exportStream(
+                    Stream.of(SimpleDataset.observation(0), List.<Object>of("Text")),
+                    exporter));
+            assertEquals("observation has too few values, expected 2 but got 1", exception.getMessage());
+
+            exception = assertThrows(
+                NullPointerException.class,
+                () -> Sas7bdatExportCollector.exportStream(Stream.of(SimpleDataset.observation(1), null), exporter));
+            assertEquals("observation must not be null", exception.getMessage());
+
+            exception = assertThrows(
+                IllegalStateException.class,
+                () -> Sas7bdatExportCollector.exportStream(
+                    IntStream.range(2, 4).mapToObj(SimpleDataset::observation),
+                    exporter));
+            assertEquals("wrote more observations than promised in the constructor", exception.getMessage());
+        }
+        assertArrayEquals(exportDataset(3), outputStream.toByteArray());
+    }
+
+    @Test
+    public void testExportStreamWithBadArguments() throws IOException {
+        Sas7bdatExporter exporter = new Sas7bdatExporter(new ByteArrayOutputStream(), METADATA, 0);
+
+        Exception exception = assertThrows(
+            NullPointerException.class,
+            () -> Sas7bdatExportCollector.exportStream(null, exporter));
+        assertEquals("observations must not be null", exception.getMessage());
+
+        exception = assertThrows(
+            NullPointerException.class,
+            () -> Sas7bdatExportCollector.exportStream(Stream.empty(), null));
+        assertEquals("exporter must not be null", exception.getMessage());
+
+        exporter.close();
+        exception = assertThrows(
+            IllegalStateException.class,
+            () -> Sas7bdatExportCollector.exportStream(Stream.empty(), exporter));
+        assertEquals("exporter is closed", exception.getMessage());
+    }
+}
@@ -0,0 +1,90 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Unit tests for {@link Sas7bdatExportOptions}. */
+public class Sas7bdatExportOptionsTest {
+
+    @Test
+    void testDefaults() {
+        Sas7bdatExportOptions options = Sas7bdatExportOptions.builder().build();
+        assertEquals(1, options.parallelism());
+        assertSame(ForkJoinPool.commonPool(), options.executor());
+        assertFalse(options.memoryMapped());
+        assertEquals(Compression.NONE, options.compression());
+        assertFalse(options.compiledEncoder());
+        assertEquals(0, options.characterValueCacheSize());
+        assertFalse(options.collectStatistics());
+        assertFalse(options.pageChecksums());
+    }
+
+    @Test
+    void testBuilder() {
+        Executor executor = Runnable::run;
+
+        Sas7bdatExportOptions.Builder builder = Sas7bdatExportOptions.builder();
+        assertSame(builder, builder.parallelism(16));
+        assertSame(builder, builder.executor(executor));
+        assertSame(builder, builder.memoryMapped(true));
+        assertSame(builder, builder.compression(Compression.BINARY));
+        assertSame(builder, builder.compiledEncoder(true));
+        assertSame(builder, builder.characterValueCacheSize(100));
+        assertSame(builder, builder.collectStatistics(true));
+        assertSame(builder, builder.pageChecksums(true));
+
+        Sas7bdatExportOptions options = builder.build();
+        assertEquals(16, options.parallelism());
+        assertSame(executor, options.executor());
+        assertTrue(options.memoryMapped());
+        assertEquals(Compression.BINARY, options.compression());
+        assertTrue(options.compiledEncoder());
+        assertEquals(100, options.characterValueCacheSize());
+        assertTrue(options.collectStatistics());
+        assertTrue(options.pageChecksums());
+
+        // Changing the builder doesn't change the options that it already built.
+        builder.parallelism(2);
+        assertEquals(16, options.parallelism());
+        assertEquals(2, builder.build().parallelism());
+    }
+
+    @Test
+    void testBuilderWithBadArguments() {
+        Sas7bdatExportOptions.Builder builder = Sas7bdatExportOptions.builder();
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> builder.parallelism(0));
+        assertEquals("parallelism must be positive", exception.getMessage());
+
+        exception = assertThrows(IllegalArgumentException.class, () -> builder.parallelism(-1));
+        assertEquals("parallelism must be positive", exception.getMessage());
+
+        exception = assertThrows(NullPointerException.class, () -> builder.executor(null));
+        assertEquals("executor must not be null", exception.getMessage());
+
+        exception = assertThrows(NullPointerException.class, () -> builder.compression(null));
+        assertEquals("compression must not be null", exception.getMessage());
+
+        exception = assertThrows(IllegalArgumentException.class, () -> builder.characterValueCacheSize(-1));
+        assertEquals("characterValueCacheSize must not be negative", exception.getMessage());
+
+        // The builder should not have been changed.
+        Sas7bdatExportOptions options = builder.build();
+        assertEquals(1, options.parallelism());
+        assertSame(ForkJoinPool.commonPool(), options.executor());
+        assertEquals(Compression.NONE, options.compression());
+        assertEquals(0, options.characterValueCacheSize());
+    }
+}
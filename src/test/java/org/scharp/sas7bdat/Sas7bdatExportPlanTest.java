@@ -0,0 +1,308 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Unit tests for {@link Sas7bdatExportPlan}. */
+public class Sas7bdatExportPlanTest {
+
+    private static Sas7bdatMetadata newMetadata(int totalVariables) {
+        List<Variable> variables = new ArrayList<>(totalVariables);
+        for (int i = 0; i < totalVariables; i++) {
+            variables.add(
+                Variable.builder().
+                    name("VAR" + i).
+                    type(i % 3 == 0 ? VariableType.CHARACTER : VariableType.NUMERIC).
+                    length(i % 3 == 0 ? 12 : 8).
+                    label("Variable #" + i).
+                    outputFormat(i % 3 == 2 ? new Format("YYMMDD", 10) : Format.UNSPECIFIED).
+                    build());
+        }
+
+        return Sas7bdatMetadata.builder().
+            creationTime(LocalDateTime.of(2025, 3, 14, 15, 9, 26)).
+            datasetName("PLAN").
+            datasetLabel("A dataset that is written with a plan").
+            variables(variables).
+            build();
+    }
+
+    private static List<Object> newObservation(Sas7bdatMetadata metadata, int observationIndex) {
+        List<Object> observation = new ArrayList<>(metadata.variables().size());
+        for (int i = 0; i < metadata.variables().size(); i++) {
+            observation.add(switch (i % 3) {
+                case 0 -> "Value #" + observationIndex;
+                case 1 -> observationIndex * 1.5;
+                default -> LocalDate.of(2000, 1, 1).plusDays(observationIndex);
+            });
+        }
+        return observation;
+    }
+
+    private static void writeObservations(Sas7bdatExporter exporter, Sas7bdatMetadata metadata,
+        int totalObservations) throws IOException {
+        for (int i = 0; i < totalObservations; i++) {
+            exporter.writeObservation(newObservation(metadata, i));
+        }
+    }
+
+    @Test
+    public void testCompileWithNullMetadata() {
+        Exception exception = assertThrows(NullPointerException.class, () -> Sas7bdatExportPlan.compile(null));
+        assertEquals("metadata must not be null", exception.getMessage());
+
+        exception = assertThrows(
+            NullPointerException.class,
+            () -> Sas7bdatExportPlan.compile(null, Sas7bdatExportOptions.DEFAULT));
+        assertEquals("metadata must not be null", exception.getMessage());
+    }
+
+    @Test
+    public void testCompileWithNullOptions() {
+        Sas7bdatMetadata metadata = newMetadata(3);
+        Exception exception = assertThrows(
+            NullPointerException.class,
+            () -> Sas7bdatExportPlan.compile(metadata, null));
+        assertEquals("options must not be null", exception.getMessage());
+    }
+
+    @Test
+    public void testBasicProperties() {
+        Sas7bdatMetadata metadata = newMetadata(3);
+        Sas7bdatExportOptions options = Sas7bdatExportOptions.builder().compression(Compression.CHAR).build();
+
+        Sas7bdatExportPlan plan = Sas7bdatExportPlan.compile(metadata, options);
+        assertSame(metadata, plan.metadata());
+        assertSame(options, plan.options());
+
+        Sas7bdatExportPlan defaultPlan = Sas7bdatExportPlan.compile(metadata);
+        assertSame(metadata, defaultPlan.metadata());
+        assertSame(Sas7bdatExportOptions.DEFAULT, defaultPlan.options());
+    }
+
+    /**
+     * Tests that an exporter from a plan writes the same SAS7BDAT as an exporter that is constructed with the same
+     * metadata, even when the plan is reused.
+     */
+    @Test
+    public void testNewExporterWithOutputStream() throws IOException {
+        // 5000 variables need several metadata pages.
+        for (int totalVariables : new int[] { 1, 10, 5000 }) {
+            Sas7bdatMetadata metadata = newMetadata(totalVariables);
+            Sas7bdatExportPlan plan = Sas7bdatExportPlan.compile(metadata);
+
+            for (int totalObservations : new int[] { 0, 1, 10, 2000, 0 }) {
+                ByteArrayOutputStream expectedOutputStream = new ByteArrayOutputStream();
+                try (Sas7bdatExporter exporter = new Sas7bdatExporter(expectedOutputStream, metadata,
+                    totalObservations)) {
+                    writeObservations(exporter, metadata, totalObservations);
+                }
+
+                ByteArrayOutputStream actualOutputStream = new ByteArrayOutputStream();
+                try (Sas7bdatExporter exporter = plan.newExporter(actualOutputStream, totalObservations)) {
+                    writeObservations(exporter, metadata, totalObservations);
+                }
+
+                assertArrayEquals(
+                    expectedOutputStream.toByteArray(),
+                    actualOutputStream.toByteArray(),
+                    "wrong dataset for " + totalVariables + " variables and " + totalObservations + " observations");
+            }
+        }
+    }
+
+    /**
+     * Tests that serializing the observations with a compiled encoder doesn't change the SAS7BDAT.
+     */
+    @Test
+    public void testNewExporterWithCompiledEncoder() throws IOException {
+        Sas7bdatMetadata metadata = newMetadata(10);
+        Sas7bdatExportOptions options = Sas7bdatExportOptions.builder().compiledEncoder(true).build();
+        Sas7bdatExportPlan plan = Sas7bdatExportPlan.compile(metadata, options);
+
+        ByteArrayOutputStream expectedOutputStream = new ByteArrayOutputStream();
+        try (Sas7bdatExporter exporter = new Sas7bdatExporter(expectedOutputStream, metadata, 2000)) {
+            writeObservations(exporter, metadata, 2000);
+        }
+
+        ByteArrayOutputStream actualOutputStream = new ByteArrayOutputStream();
+        try (Sas7bdatExporter exporter = plan.newExporter(actualOutputStream, 2000)) {
+            writeObservations(exporter, metadata, 2000);
+        }
+
+        assertArrayEquals(expectedOutputStream.toByteArray(), actualOutputStream.toByteArray());
+    }
+
+    /**
+     * Tests that caching the CHARACTER values doesn't change the SAS7BDAT, even when the cache is shared by several
+     * exporters and by the threads that encode pages in parallel.
+     */
+    @Test
+    public void testNewExporterWithCharacterValueCache() throws IOException {
+        Sas7bdatMetadata metadata = newMetadata(10);
+
+        ByteArrayOutputStream expectedOutputStream = new ByteArrayOutputStream();
+        try (Sas7bdatExporter exporter = new Sas7bdatExporter(expectedOutputStream, metadata, 2000)) {
+            writeObservations(exporter, metadata, 2000);
+        }
+
+        for (boolean compiledEncoder : new boolean[] { false, true }) {
+            Sas7bdatExportOptions options = Sas7bdatExportOptions.builder().
+                characterValueCacheSize(100).
+                compiledEncoder(compiledEncoder).
+                parallelism(4).
+                build();
+            Sas7bdatExportPlan plan = Sas7bdatExportPlan.compile(metadata, options);
+
+            // Every value is different, so this evicts values from the cache as well as adding them.
+            for (int i = 0; i < 2; i++) {
+                ByteArrayOutputStream actualOutputStream = new ByteArrayOutputStream();
+                try (Sas7bdatExporter exporter = plan.newExporter(actualOutputStream, 2000)) {
+                    writeObservations(exporter, metadata, 2000);
+                }
+
+                assertArrayEquals(expectedOutputStream.toByteArray(), actualOutputStream.toByteArray(),
+                    "wrong dataset for compiledEncoder=" + compiledEncoder);
+            }
+        }
+    }
+
+    @Test
+    public void testNewExporterWithPath() throws IOException {
+        Sas7bdatMetadata metadata = newMetadata(10);
+        Sas7bdatExportPlan plan = Sas7bdatExportPlan.compile(metadata);
+
+        Path expectedLocation = Files.createTempFile("sas7bdat-testNewExporterWithPath-expected-", ".sas7bdat");
+        Path actualLocation = Files.createTempFile("sas7bdat-testNewExporterWithPath-actual-", ".sas7bdat");
+        try {
+            try (Sas7bdatExporter exporter = new Sas7bdatExporter(expectedLocation, metadata, 1000)) {
+                writeObservations(exporter, metadata, 1000);
+            }
+            try (Sas7bdatExporter exporter = plan.newExporter(actualLocation, 1000)) {
+                writeObservations(exporter, metadata, 1000);
+            }
+            assertArrayEquals(Files.readAllBytes(expectedLocation), Files.readAllBytes(actualLocation));
+
+        } finally {
+            Files.deleteIfExists(expectedLocation);
+            Files.deleteIfExists(actualLocation);
+        }
+    }
+
+    /**
+     * Tests that an exporter from a plan writes the same SAS7BDAT as an exporter that is constructed with the same
+     * metadata when the number of observations isn't known in advance.
+     */
+    @Test
+    public void testNewExporterWithUnknownNumberOfObservations() throws IOException {
+        for (Compression compression : Compression.values()) {
+            Sas7bdatMetadata metadata = newMetadata(10);
+            Sas7bdatExportOptions options = Sas7bdatExportOptions.builder().compression(compression).build();
+            Sas7bdatExportPlan plan = Sas7bdatExportPlan.compile(metadata, options);
+
+            Path expectedLocation = Files.createTempFile("sas7bdat-testNewExporter-expected-", ".sas7bdat");
+            Path actualLocation = Files.createTempFile("sas7bdat-testNewExporter-actual-", ".sas7bdat");
+            try {
+                for (int totalObservations : new int[] { 0, 1, 2000 }) {
+                    try (Sas7bdatExporter exporter = new Sas7bdatExporter(expectedLocation, metadata, options)) {
+                        writeObservations(exporter, metadata, totalObservations);
+                    }
+                    byte[] expectedDataset = Files.readAllBytes(expectedLocation);
+
+                    try (Sas7bdatExporter exporter = plan.newExporter(actualLocation)) {
+                        writeObservations(exporter, metadata, totalObservations);
+                    }
+                    assertArrayEquals(expectedDataset, Files.readAllBytes(actualLocation),
+                        "wrong dataset for " + compression + " and " + totalObservations + " observations");
+
+                    try (SeekableByteChannel channel = Files.newByteChannel(actualLocation,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                        try (Sas7bdatExporter exporter = plan.newExporter(channel)) {
+                            writeObservations(exporter, metadata, totalObservations);
+                        }
+                    }
+                    assertArrayEquals(expectedDataset, Files.readAllBytes(actualLocation),
+                        "wrong dataset for " + compression + " and " + totalObservations + " observations");
+                }
+            } finally {
+                Files.deleteIfExists(expectedLocation);
+                Files.deleteIfExists(actualLocation);
+            }
+        }
+    }
+
+    @Test
+    public void testNewExporterWithNullArguments() throws IOException {
+        Sas7bdatExportPlan plan = Sas7bdatExportPlan.compile(newMetadata(3));
+
+        Exception exception = assertThrows(NullPointerException.class, () -> plan.newExporter((OutputStream) null, 0));
+        assertEquals("outputStream must not be null", exception.getMessage());
+
+        exception = assertThrows(NullPointerException.class, () -> plan.newExporter((Path) null, 0));
+        assertEquals("targetLocation must not be null", exception.getMessage());
+
+        exception = assertThrows(NullPointerException.class, () -> plan.newExporter((SeekableByteChannel) null));
+        assertEquals("channel must not be null", exception.getMessage());
+
+        exception = assertThrows(NullPointerException.class, () -> plan.newExporter((Path) null));
+        assertEquals("targetLocation must not be null", exception.getMessage());
+    }
+
+    @Test
+    public void testNewExporterWithNegativeObservations() throws IOException {
+        Sas7bdatExportPlan plan = Sas7bdatExportPlan.compile(newMetadata(3));
+
+        try (OutputStream outputStream = new ByteArrayOutputStream()) {
+            Exception exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> plan.newExporter(outputStream, -1));
+            assertEquals("totalObservationsInDataset must not be negative", exception.getMessage());
+        }
+    }
+
+    @Test
+    public void testNewExporterWithCompressionAndTotalObservationsInDataset() throws IOException {
+        Sas7bdatExportOptions options = Sas7bdatExportOptions.builder().compression(Compression.BINARY).build();
+        Sas7bdatExportPlan plan = Sas7bdatExportPlan.compile(newMetadata(3), options);
+
+        try (OutputStream outputStream = new ByteArrayOutputStream()) {
+            Exception exception = assertThrows(IllegalArgumentException.class, () -> plan.newExporter(outputStream, 0));
+            assertEquals("compression is only supported by the constructors that don't take totalObservationsInDataset",
+                exception.getMessage());
+        }
+
+        Path targetPath = Path.of("testNewExporterWithCompressionAndTotalObservationsInDataset.sas7bdat");
+        try {
+            Exception exception = assertThrows(IllegalArgumentException.class, () -> plan.newExporter(targetPath, 0));
+            assertEquals("compression is only supported by the constructors that don't take totalObservationsInDataset",
+                exception.getMessage());
+
+            // Confirm that the file was not created.
+            assertFalse(Files.exists(targetPath), "target file unexpectedly created");
+
+        } finally {
+            Files.deleteIfExists(targetPath); // cleanup
+        }
+    }
+}
@@ -0,0 +1,196 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Unit tests for {@link Sas7bdatExportStatistics}. */
+public class Sas7bdatExportStatisticsTest {
+
+    private static final Sas7bdatMetadata METADATA = Sas7bdatMetadata.builder().
+        creationTime(LocalDateTime.of(2025, 3, 14, 15, 9, 26)).
+        datasetName("STATISTICS").
+        variables(List.of(
+            Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(12).build(),
+            Variable.builder().name("NUMBER").type(VariableType.NUMERIC).length(8).build(),
+            Variable.builder().name("SHORT_NUMBER").type(VariableType.NUMERIC).length(3).build(),
+            Variable.builder().name("ALWAYS_MISSING").type(VariableType.NUMERIC).length(8).build())).
+        build();
+
+    private static final int TOTAL_OBSERVATIONS = 20000;
+
+    private static List<Object> newObservation(int observationIndex) {
+        return Arrays.asList(
+            "x".repeat(observationIndex % 13), // 0 to 12 bytes
+            observationIndex % 5 == 0 ? MissingValue.values()[observationIndex % 3] : observationIndex - 1000.5,
+            observationIndex % 7 == 0 ? null : observationIndex % 1000,
+            observationIndex % 2 == 0 ? MissingValue.STANDARD : MissingValue.Z);
+    }
+
+    private static void writeObservations(Sas7bdatExporter exporter) throws IOException {
+        try (exporter) {
+            for (int i = 0; i < TOTAL_OBSERVATIONS; i++) {
+                exporter.writeObservation(newObservation(i));
+            }
+        }
+    }
+
+    private static void assertExpectedStatistics(Sas7bdatExportStatistics statistics, String description) {
+        assertEquals(TOTAL_OBSERVATIONS, statistics.totalObservations(), description);
+
+        // TEXT
+        long[] expectedLengthHistogram = new long[13];
+        for (int i = 0; i < TOTAL_OBSERVATIONS; i++) {
+            expectedLengthHistogram[i % 13]++;
+        }
+        assertArrayEquals(expectedLengthHistogram, statistics.lengthHistogram(0), description);
+        assertEquals(expectedLengthHistogram[0], statistics.totalMissingValues(0), description);
+
+        // NUMBER
+        assertEquals(-1000.5 + 1, statistics.minimum(1), description);
+        assertEquals(TOTAL_OBSERVATIONS - 1 - 1000.5, statistics.maximum(1), description);
+        long expectedStandardMissingValues = 0;
+        long expectedUnderscoreMissingValues = 0;
+        long expectedAMissingValues = 0;
+        for (int i = 0; i < TOTAL_OBSERVATIONS; i += 5) {
+            switch (MissingValue.values()[i % 3]) {
+            case STANDARD -> expectedStandardMissingValues++;
+            case UNDERSCORE -> expectedUnderscoreMissingValues++;
+            default -> expectedAMissingValues++;
+            }
+        }
+        assertEquals(expectedStandardMissingValues, statistics.totalMissingValues(1, MissingValue.STANDARD));
+        assertEquals(expectedUnderscoreMissingValues, statistics.totalMissingValues(1, MissingValue.UNDERSCORE));
+        assertEquals(expectedAMissingValues, statistics.totalMissingValues(1, MissingValue.A));
+        assertEquals(0, statistics.totalMissingValues(1, MissingValue.Z));
+        assertEquals(TOTAL_OBSERVATIONS / 5, statistics.totalMissingValues(1), description);
+
+        // SHORT_NUMBER, whose values are small integers, so truncating them doesn't change them
+        assertEquals(0, statistics.minimum(2), description);
+        assertEquals(999, statistics.maximum(2), description);
+        assertEquals((TOTAL_OBSERVATIONS + 6) / 7, statistics.totalMissingValues(2, MissingValue.STANDARD));
+        assertEquals((TOTAL_OBSERVATIONS + 6) / 7, statistics.totalMissingValues(2), description);
+
+        // ALWAYS_MISSING
+        assertTrue(Double.isNaN(statistics.minimum(3)), description);
+        assertTrue(Double.isNaN(statistics.maximum(3)), description);
+        assertEquals(TOTAL_OBSERVATIONS / 2, statistics.totalMissingValues(3, MissingValue.STANDARD), description);
+        assertEquals(TOTAL_OBSERVATIONS / 2, statistics.totalMissingValues(3, MissingValue.Z), description);
+        assertEquals(TOTAL_OBSERVATIONS, statistics.totalMissingValues(3), description);
+    }
+
+    /**
+     * Tests that the statistics are the same no matter how the observations are encoded and written.
+     */
+    @Test
+    public void testStatistics() throws IOException {
+        List<Sas7bdatExportOptions.Builder> optionsBuilders = List.of(
+            Sas7bdatExportOptions.builder(),
+            Sas7bdatExportOptions.builder().parallelism(4),
+            Sas7bdatExportOptions.builder().compiledEncoder(true).characterValueCacheSize(10),
+            Sas7bdatExportOptions.builder().compression(Compression.CHAR));
+
+        for (Sas7bdatExportOptions.Builder optionsBuilder : optionsBuilders) {
+            Sas7bdatExportOptions options = optionsBuilder.collectStatistics(true).build();
+            String description = "parallelism=" + options.parallelism() + ", compression=" + options.compression();
+
+            Sas7bdatExporter exporter;
+            Path targetFile = Files.createTempFile("statistics-", ".sas7bdat");
+            try {
+                if (options.compression() == Compression.NONE) {
+                    exporter = new Sas7bdatExporter(new ByteArrayOutputStream(), METADATA, TOTAL_OBSERVATIONS, options);
+                } else {
+                    exporter = new Sas7bdatExporter(targetFile, METADATA, options);
+                }
+                writeObservations(exporter);
+            } finally {
+                Files.deleteIfExists(targetFile);
+            }
+
+            assertExpectedStatistics(exporter.statistics(), description);
+        }
+    }
+
+    /**
+     * Tests that the statistics include observations from every way of writing them.
+     */
+    @Test
+    public void testStatisticsOfBatchesAndObservationWriters() throws IOException {
+        Sas7bdatExportOptions options = Sas7bdatExportOptions.builder().collectStatistics(true).build();
+        Sas7bdatExporter exporter = new Sas7bdatExporter(new ByteArrayOutputStream(), METADATA, 3, options);
+        try (exporter) {
+            exporter.beginObservation().setString(0, "abc").setDouble(1, -5).setDouble(2, 7).commit();
+
+            ObservationBatch batch = new ObservationBatch(METADATA, 2);
+            batch.setCharacterValues(0, new String[] { "", "12345678" });
+            batch.setNumericValues(1, new double[] { 3, 100 });
+            batch.setNumericValues(2, new double[] { 8, 9 });
+            exporter.writeObservations(batch);
+        }
+
+        Sas7bdatExportStatistics statistics = exporter.statistics();
+        assertEquals(3, statistics.totalObservations());
+        assertArrayEquals(new long[] { 1, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0 }, statistics.lengthHistogram(0));
+        assertEquals(-5, statistics.minimum(1));
+        assertEquals(100, statistics.maximum(1));
+        assertEquals(7, statistics.minimum(2));
+        assertEquals(9, statistics.maximum(2));
+        assertEquals(3, statistics.totalMissingValues(3, MissingValue.STANDARD)); // never set
+        assertEquals(3, statistics.totalMissingValues(3));
+    }
+
+    @Test
+    public void testStatisticsMisuse() throws IOException {
+        // Statistics that weren't collected
+        Sas7bdatExporter exporter = new Sas7bdatExporter(new ByteArrayOutputStream(), METADATA, 0);
+        exporter.close();
+        Exception exception = assertThrows(IllegalStateException.class, exporter::statistics);
+        assertEquals("statistics were not collected", exception.getMessage());
+
+        // Statistics of an exporter that isn't closed
+        Sas7bdatExportOptions options = Sas7bdatExportOptions.builder().collectStatistics(true).build();
+        Sas7bdatExporter openExporter = new Sas7bdatExporter(new ByteArrayOutputStream(), METADATA, 0, options);
+        exception = assertThrows(IllegalStateException.class, openExporter::statistics);
+        assertEquals("Cannot invoke statistics before the exporter is closed", exception.getMessage());
+        openExporter.close();
+
+        // Statistics of the wrong type
+        Sas7bdatExportStatistics statistics = openExporter.statistics();
+        assertEquals(0, statistics.totalObservations());
+        assertTrue(Double.isNaN(statistics.minimum(1)));
+        assertArrayEquals(new long[13], statistics.lengthHistogram(0));
+
+        exception = assertThrows(IllegalArgumentException.class, () -> statistics.minimum(0));
+        assertEquals("A numeric statistic was requested from the variable named TEXT, which has a CHARACTER type",
+            exception.getMessage());
+        exception = assertThrows(IllegalArgumentException.class, () -> statistics.totalMissingValues(0, MissingValue.A));
+        assertEquals("A numeric statistic was requested from the variable named TEXT, which has a CHARACTER type",
+            exception.getMessage());
+        exception = assertThrows(IllegalArgumentException.class, () -> statistics.lengthHistogram(1));
+        assertEquals("A character statistic was requested from the variable named NUMBER, which has a NUMERIC type",
+            exception.getMessage());
+        exception = assertThrows(NullPointerException.class, () -> statistics.totalMissingValues(1, null));
+        assertEquals("missingValue must not be null", exception.getMessage());
+        assertThrows(IndexOutOfBoundsException.class, () -> statistics.maximum(4));
+        assertThrows(IndexOutOfBoundsException.class, () -> statistics.totalMissingValues(-1));
+
+        // The histogram is a copy
+        statistics.lengthHistogram(0)[0] = 5;
+        assertArrayEquals(new long[13], statistics.lengthHistogram(0));
+    }
+}
@@ -0,0 +1,252 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Unit tests for {@link Sas7bdatExportSubscriber}. */
+public class Sas7bdatExportSubscriberTest {
+
+    private static final Sas7bdatMetadata METADATA = SimpleDataset.metadata("SUBSCRIBED");
+
+    /** A subscription that records how many rows were requested. */
+    private static final class RecordingSubscription implements Flow.Subscription {
+        final List<Long> requests = new ArrayList<>();
+        boolean isCancelled = false;
+
+        @Override
+        public void request(long n) {
+            requests.add(n);
+        }
+
+        @Override
+        public void cancel() {
+            isCancelled = true;
+        }
+    }
+
+    private static byte[] exportDataset(int totalObservations) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (Sas7bdatExporter exporter = new Sas7bdatExporter(outputStream, METADATA, totalObservations)) {
+            for (int i = 0; i < totalObservations; i++) {
+                exporter.writeObservation(SimpleDataset.observation(i));
+            }
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Tests that the rows from a publisher are exported the same as if they had been written directly.
+     */
+    @Test
+    public void testSubscribe() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (int totalObservations : new int[] { 0, 1, 5000 }) {
+                ByteArrayOutputStream listOutputStream = new ByteArrayOutputStream();
+                Sas7bdatExportSubscriber<List<Object>> listSubscriber = Sas7bdatExportSubscriber.newSubscriber(
+                    new Sas7bdatExporter(listOutputStream, METADATA, totalObservations),
+                    executor);
+                try (SubmissionPublisher<List<Object>> publisher = new SubmissionPublisher<>()) {
+                    publisher.subscribe(listSubscriber);
+                    for (int i = 0; i < totalObservations; i++) {
+                        publisher.submit(SimpleDataset.observation(i));
+                    }
+                }
+
+                // Typed rows
+                ByteArrayOutputStream typedOutputStream = new ByteArrayOutputStream();
+                Sas7bdatExportSubscriber<Integer> typedSubscriber = Sas7bdatExportSubscriber.newSubscriber(
+                    new Sas7bdatExporter(typedOutputStream, METADATA, totalObservations),
+                    executor,
+                    (Integer row, ObservationWriter writer) -> writer.setString(0, "Value #" + row).setDouble(1, row));
+                try (SubmissionPublisher<Integer> publisher = new SubmissionPublisher<>()) {
+                    publisher.subscribe(typedSubscriber);
+                    for (int i = 0; i < totalObservations; i++) {
+                        publisher.submit(i);
+                    }
+                }
+
+                listSubscriber.completion().get();
+                typedSubscriber.completion().get();
+
+                byte[] expectedDataset = exportDataset(totalObservations);
+                assertArrayEquals(expectedDataset, listOutputStream.toByteArray());
+                assertArrayEquals(expectedDataset, typedOutputStream.toByteArray());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests that the next page's worth of rows is only requested after the previous one was written.
+     */
+    @Test
+    public void testBackpressure() throws Exception {
+        Sas7bdatExporter probe = new Sas7bdatExporter(new ByteArrayOutputStream(), METADATA, 0);
+        final int rowsPerBatch = Sas7bdatPage.maxObservationsPerDataPage(probe.pageSize(), probe.variablesLayout());
+        probe.close();
+
+        final int totalObservations = 3 * rowsPerBatch + 10;
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        List<Runnable> pendingTasks = new ArrayList<>();
+        Sas7bdatExportSubscriber<List<Object>> subscriber = Sas7bdatExportSubscriber.newSubscriber(
+            new Sas7bdatExporter(outputStream, METADATA, totalObservations),
+            pendingTasks::add);
+
+        // A page's worth of rows is requested.
+        RecordingSubscription subscription = new RecordingSubscription();
+        subscriber.onSubscribe(subscription);
+        assertEquals(List.of((long) rowsPerBatch), subscription.requests);
+
+        int totalSent = 0;
+        while (totalSent < totalObservations) {
+            // Send the rows that were requested, but no more than the dataset holds.
+            final long requested = subscription.requests.get(subscription.requests.size() - 1);
+            for (long i = 0; i < requested && totalSent < totalObservations; i++) {
+                subscriber.onNext(SimpleDataset.observation(totalSent));
+                totalSent++;
+            }
+
+            if (totalSent < totalObservations) {
+                // Nothing more is requested until the batch is written.
+                final int totalRequests = subscription.requests.size();
+                assertEquals(1, pendingTasks.size());
+                pendingTasks.remove(0).run();
+                assertEquals(totalRequests + 1, subscription.requests.size());
+                assertEquals(rowsPerBatch, subscription.requests.get(totalRequests).intValue());
+            }
+        }
+
+        subscriber.onComplete();
+        assertFalse(subscriber.completion().isDone());
+        while (!pendingTasks.isEmpty()) {
+            pendingTasks.remove(0).run();
+        }
+        assertTrue(subscriber.completion().isDone());
+        subscriber.completion().get();
+
+        assertFalse(subscription.isCancelled);
+        assertArrayEquals(exportDataset(totalObservations), outputStream.toByteArray());
+    }
+
+    @Test
+    public void testPublisherError() throws IOException {
+        Sas7bdatExportSubscriber<List<Object>> subscriber = Sas7bdatExportSubscriber.newSubscriber(
+            new Sas7bdatExporter(new ByteArrayOutputStream(), METADATA, 1),
+            Runnable::run);
+
+        RecordingSubscription subscription = new RecordingSubscription();
+        subscriber.onSubscribe(subscription);
+        subscriber.onNext(SimpleDataset.observation(0));
+
+        Exception publisherException = new IOException("publisher failed");
+        subscriber.onError(publisherException);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, subscriber.completion()::get);
+        assertSame(publisherException, exception.getCause());
+    }
+
+    @Test
+    public void testBadRow() throws IOException {
+        Sas7bdatExportSubscriber<List<Object>> subscriber = Sas7bdatExportSubscriber.newSubscriber(
+            new Sas7bdatExporter(new ByteArrayOutputStream(), METADATA, 2),
+            Runnable::run);
+
+        RecordingSubscription subscription = new RecordingSubscription();
+        subscriber.onSubscribe(subscription);
+        subscriber.onNext(SimpleDataset.observation(0));
+        subscriber.onNext(List.of(1, 2));
+        subscriber.onComplete();
+
+        // The subscription is cancelled, and the exporter is closed even though it's incomplete.
+        assertTrue(subscription.isCancelled);
+        ExecutionException exception = assertThrows(ExecutionException.class, subscriber.completion()::get);
+        assertEquals(IllegalArgumentException.class, exception.getCause().getClass());
+        assertEquals(
+            "A java.lang.Integer was given as a value to the variable named TEXT, which has a CHARACTER type " +
+                "(CHARACTER values must be of type java.lang.String)",
+            exception.getCause().getMessage());
+        assertEquals(1, exception.getCause().getSuppressed().length);
+        assertEquals("The constructor was told to expect 2 observation(s) but only 1 were written.",
+            exception.getCause().getSuppressed()[0].getMessage());
+
+        // Rows that arrive after the subscription is cancelled are ignored.
+        subscriber.onNext(SimpleDataset.observation(1));
+    }
+
+    @Test
+    public void testSubscribeTwice() throws Exception {
+        Sas7bdatExportSubscriber<List<Object>> subscriber = Sas7bdatExportSubscriber.newSubscriber(
+            new Sas7bdatExporter(new ByteArrayOutputStream(), METADATA, 0),
+            Runnable::run);
+
+        RecordingSubscription subscription = new RecordingSubscription();
+        subscriber.onSubscribe(subscription);
+
+        // The second subscription is cancelled.
+        RecordingSubscription secondSubscription = new RecordingSubscription();
+        subscriber.onSubscribe(secondSubscription);
+        assertTrue(secondSubscription.isCancelled);
+        assertEquals(List.of(), secondSubscription.requests);
+
+        subscriber.onComplete();
+        subscriber.completion().get();
+        assertFalse(subscription.isCancelled);
+    }
+
+    @Test
+    public void testBadArguments() throws IOException {
+        Sas7bdatExporter exporter = new Sas7bdatExporter(new ByteArrayOutputStream(), METADATA, 0);
+
+        Exception exception = assertThrows(
+            NullPointerException.class,
+            () -> Sas7bdatExportSubscriber.newSubscriber(null, Runnable::run));
+        assertEquals("exporter must not be null", exception.getMessage());
+
+        exception = assertThrows(
+            NullPointerException.class,
+            () -> Sas7bdatExportSubscriber.newSubscriber(exporter, null));
+        assertEquals("executor must not be null", exception.getMessage());
+
+        exception = assertThrows(
+            NullPointerException.class,
+            () -> Sas7bdatExportSubscriber.newSubscriber(exporter, Runnable::run, null));
+        assertEquals("rowWriter must not be null", exception.getMessage());
+
+        // The Flow.Subscriber contract requires null signals to be rejected.
+        Sas7bdatExportSubscriber<List<Object>> subscriber = Sas7bdatExportSubscriber.newSubscriber(exporter,
+            Runnable::run);
+        exception = assertThrows(NullPointerException.class, () -> subscriber.onSubscribe(null));
+        assertEquals("subscription must not be null", exception.getMessage());
+
+        subscriber.onSubscribe(new RecordingSubscription());
+        exception = assertThrows(NullPointerException.class, () -> subscriber.onNext(null));
+        assertEquals("row must not be null", exception.getMessage());
+
+        exception = assertThrows(NullPointerException.class, () -> subscriber.onError(null));
+        assertEquals("throwable must not be null", exception.getMessage());
+
+        exporter.close();
+    }
+}
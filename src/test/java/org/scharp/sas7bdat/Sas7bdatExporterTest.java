@@ -18,9 +18,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystemException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
@@ -33,6 +39,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -1351,4 +1359,1026 @@ public class Sas7bdatExporterTest {
             Files.deleteIfExists(targetLocation);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests writing observations with {@link Sas7bdatExporter#beginObservation()}.
+     */
+    @Test
+    public void testObservationWriter() throws IOException {
+        Path targetPath = Files.createTempFile("sas7bdat-testObservationWriter-", ".sas7bdat");
+        try {
+            Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().
+                variables(List.of(
+                    Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(20).build(),
+                    Variable.builder().name("NUMBER").type(VariableType.NUMERIC).length(8).build(),
+                    Variable.builder().name("TEXT2").type(VariableType.CHARACTER).length(5).build(),
+                    Variable.builder().name("NUMBER2").type(VariableType.NUMERIC).length(8).build())).
+                build();
+
+            final int text = metadata.variableIndex("TEXT");
+            final int number = metadata.variableIndex("NUMBER");
+            final int text2 = metadata.variableIndex("TEXT2");
+            final int number2 = metadata.variableIndex("NUMBER2");
+
+            // Write enough observations to need several data pages.
+            final int totalObservations = 5000;
+            try (Sas7bdatExporter exporter = new Sas7bdatExporter(targetPath, metadata, totalObservations)) {
+                for (int i = 0; i < totalObservations; i++) {
+                    // Start an observation but never commit it.  It should be discarded.
+                    if (i % 100 == 0) {
+                        exporter.beginObservation().setString(text, "Discarded").setDouble(number, -1);
+                    }
+
+                    ObservationWriter writer = exporter.beginObservation();
+                    writer.setString(text, "Value #" + i).setDouble(number, i);
+                    switch (i % 10) {
+                    case 0 -> writer.setMissing(number2, MissingValue.A);
+                    case 1 -> writer.setDate(number2, LocalDate.of(1960, 1, 11));
+                    case 2 -> writer.setTime(number2, LocalTime.of(1, 0));
+                    case 3 -> writer.setDateTime(number2, LocalDateTime.of(1960, 1, 1, 0, 0, 1, 500_000_000));
+                    case 4 -> writer.setString(text2, "ABC").setDouble(number2, 1).setDouble(number2, 2);
+                    case 5 -> writer.setEpochDay(number2, -3643); // 1960-01-11
+                    case 6 -> writer.setEpochMilli(number2, -315_619_198_500L); // 1960-01-01T00:00:01.5
+                    case 7 -> writer.setBytes(text2, new byte[] { 'D', 'E', 'F' });
+                    case 8 -> writer.setBytes(text2, ByteBuffer.wrap(new byte[] { 'x', 'G', 'H', 'I', 'y' }, 1, 3));
+                    default -> {
+                        // Leave TEXT2 and NUMBER2 unset.
+                    }
+                    }
+                    writer.commit();
+                }
+
+                // Committed observations count towards the total promised in the constructor.
+                Exception exception = assertThrows(
+                    IllegalStateException.class,
+                    exporter::beginObservation);
+                assertEquals("wrote more observations than promised in the constructor", exception.getMessage());
+            }
+
+            // Read the dataset with parso to confirm that it was written correctly.
+            try (InputStream inputStream = Files.newInputStream(targetPath)) {
+                SasFileReader sasFileReader = new SasFileReaderImpl(inputStream);
+
+                // Test the headers
+                assertMetadata(metadata, sasFileReader);
+
+                // Test the observations
+                assertEquals(totalObservations, sasFileReader.getSasFileProperties().getRowCount());
+                for (int i = 0; i < totalObservations; i++) {
+                    Object[] expectedRow = switch (i % 10) {
+                    case 0 -> new Object[] { "Value #" + i, (long) i, null, null };
+                    case 1 -> new Object[] { "Value #" + i, (long) i, null, 10L };
+                    case 2 -> new Object[] { "Value #" + i, (long) i, null, 3600L };
+                    case 3 -> new Object[] { "Value #" + i, (long) i, null, 1.5 };
+                    case 4 -> new Object[] { "Value #" + i, (long) i, "ABC", 2L };
+                    case 5 -> new Object[] { "Value #" + i, (long) i, null, 10L };
+                    case 6 -> new Object[] { "Value #" + i, (long) i, null, 1.5 };
+                    case 7 -> new Object[] { "Value #" + i, (long) i, "DEF", null };
+                    case 8 -> new Object[] { "Value #" + i, (long) i, "GHI", null };
+                    default -> new Object[] { "Value #" + i, (long) i, null, null };
+                    };
+                    assertArrayEquals(expectedRow, sasFileReader.readNext(), "observation #" + i);
+                }
+                assertNull(sasFileReader.readNext(), "more rows were read than expected");
+            }
+
+        } finally {
+            Files.deleteIfExists(targetPath); // always cleanup
+        }
+    }
+
+    /**
+     * Tests that {@link ObservationWriter} rejects bad values without corrupting the exporter.
+     */
+    @Test
+    public void testObservationWriterWithBadValues() throws IOException {
+        Path targetPath = Files.createTempFile("sas7bdat-testObservationWriterWithBadValues-", ".sas7bdat");
+        try {
+            Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().
+                variables(List.of(
+                    Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(9).build(),
+                    Variable.builder().name("NUMBER").type(VariableType.NUMERIC).length(8).build())).
+                build();
+
+            try (Sas7bdatExporter exporter = new Sas7bdatExporter(targetPath, metadata, 2)) {
+                exporter.writeObservation(List.of("BEFORE", 1));
+
+                ObservationWriter writer = exporter.beginObservation();
+
+                // Write a value to a variable that doesn't exist.
+                assertThrows(IndexOutOfBoundsException.class, () -> writer.setDouble(2, 100));
+                assertThrows(IndexOutOfBoundsException.class, () -> writer.setString(-1, "text"));
+
+                // Write values with the wrong type.
+                Exception exception = assertThrows(IllegalArgumentException.class, () -> writer.setString(1, "100"));
+                assertEquals("A string was given to the variable named NUMBER, which has a NUMERIC type",
+                    exception.getMessage());
+
+                exception = assertThrows(IllegalArgumentException.class, () -> writer.setDouble(0, 100));
+                assertEquals("A numeric value was given to the variable named TEXT, which has a CHARACTER type",
+                    exception.getMessage());
+
+                exception = assertThrows(IllegalArgumentException.class,
+                    () -> writer.setDate(0, LocalDate.of(2000, 1, 1)));
+                assertEquals("A numeric value was given to the variable named TEXT, which has a CHARACTER type",
+                    exception.getMessage());
+
+                exception = assertThrows(IllegalArgumentException.class, () -> writer.setEpochDay(0, 10957));
+                assertEquals("A numeric value was given to the variable named TEXT, which has a CHARACTER type",
+                    exception.getMessage());
+
+                // Write null values.
+                exception = assertThrows(NullPointerException.class, () -> writer.setString(0, null));
+                assertEquals("null given as a value to TEXT, which has a CHARACTER type", exception.getMessage());
+
+                exception = assertThrows(NullPointerException.class, () -> writer.setMissing(1, null));
+                assertEquals("missingValue must not be null", exception.getMessage());
+
+                // Write a value that is too long.
+                exception = assertThrows(IllegalArgumentException.class, () -> writer.setString(0, "X".repeat(10)));
+                assertEquals("A value of 10 bytes was given to the variable named TEXT, which has a length of 9",
+                    exception.getMessage());
+
+                exception = assertThrows(IllegalArgumentException.class, () -> writer.setBytes(0, new byte[10]));
+                assertEquals("A value of 10 bytes was given to the variable named TEXT, which has a length of 9",
+                    exception.getMessage());
+
+                exception = assertThrows(IllegalArgumentException.class,
+                    () -> writer.setBytes(0, ByteBuffer.allocateDirect(10)));
+                assertEquals("A value of 10 bytes was given to the variable named TEXT, which has a length of 9",
+                    exception.getMessage());
+
+                exception = assertThrows(IllegalArgumentException.class, () -> writer.setBytes(1, new byte[1]));
+                assertEquals("A string was given to the variable named NUMBER, which has a NUMERIC type",
+                    exception.getMessage());
+
+                exception = assertThrows(NullPointerException.class, () -> writer.setBytes(0, (byte[]) null));
+                assertEquals("null given as a value to TEXT, which has a CHARACTER type", exception.getMessage());
+
+                // The exceptions should not have corrupted the state of the observation.
+                writer.setString(0, "AFTER").setDouble(1, 2).commit();
+
+                // The writer can't be used after it is committed.
+                exception = assertThrows(IllegalStateException.class, () -> writer.setDouble(1, 3));
+                assertEquals("no observation is being written (beginObservation must be invoked first)",
+                    exception.getMessage());
+                exception = assertThrows(IllegalStateException.class, writer::commit);
+                assertEquals("no observation is being written (beginObservation must be invoked first)",
+                    exception.getMessage());
+            }
+
+            // The exporter is closed.
+            // Read the dataset with parso to confirm that the two observations that were successfully written.
+            try (InputStream inputStream = Files.newInputStream(targetPath)) {
+                SasFileReader sasFileReader = new SasFileReaderImpl(inputStream);
+                assertEquals(2, sasFileReader.getSasFileProperties().getRowCount());
+                assertArrayEquals(new Object[] { "BEFORE", 1L }, sasFileReader.readNext());
+                assertArrayEquals(new Object[] { "AFTER", 2L }, sasFileReader.readNext());
+                assertNull(sasFileReader.readNext(), "more rows were read than expected");
+            }
+
+        } finally {
+            Files.deleteIfExists(targetPath); // always cleanup
+        }
+    }
+
+    @Test
+    public void testObservationWriterAfterClose() throws IOException {
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            Sas7bdatMetadata metadata = Sas7bdatMetadata.builder()
+                .variables(List.of(Variable.builder().name("A").type(VariableType.CHARACTER).length(1).build()))
+                .build();
+
+            Sas7bdatExporter exporter = new Sas7bdatExporter(outputStream, metadata, 1);
+            ObservationWriter writer = exporter.beginObservation().setString(0, "A");
+
+            // Writing an observation with writeObservation() discards the observation that was in progress.
+            exporter.writeObservation(List.of("B"));
+            exporter.close();
+
+            Exception exception = assertThrows(IllegalStateException.class, writer::commit);
+            assertEquals("no observation is being written (beginObservation must be invoked first)",
+                exception.getMessage());
+
+            exception = assertThrows(IllegalStateException.class, exporter::beginObservation);
+            assertEquals("Cannot invoke beginObservation on closed exporter", exception.getMessage());
+        }
+    }
+
+    /**
+     * Tests writing observations with {@link Sas7bdatExporter#writeObservations(ObservationBatch)}.
+     */
+    @Test
+    public void testWriteObservations() throws IOException {
+        Path targetPath = Files.createTempFile("sas7bdat-testWriteObservations-", ".sas7bdat");
+        try {
+            Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().
+                variables(List.of(
+                    Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(20).build(),
+                    Variable.builder().name("NUMBER").type(VariableType.NUMERIC).length(8).build(),
+                    Variable.builder().name("UNSET_TEXT").type(VariableType.CHARACTER).length(3).build(),
+                    Variable.builder().name("MAYBE_MISSING").type(VariableType.NUMERIC).length(8).build(),
+                    Variable.builder().name("UNSET_NUMBER").type(VariableType.NUMERIC).length(8).build())).
+                build();
+
+            // Write the observations in batches that don't align with the pages, mixed with single observations.
+            final int batchSize = 1000;
+            final int totalBatches = 5;
+            final int totalObservations = totalBatches * batchSize + 1;
+            try (Sas7bdatExporter exporter = new Sas7bdatExporter(targetPath, metadata, totalObservations)) {
+                exporter.writeObservation(List.of("FIRST", -1, "", -1, -1));
+
+                ObservationBatch batch = new ObservationBatch(metadata, batchSize);
+                String[] text = new String[batchSize];
+                double[] numbers = new double[batchSize];
+                MissingValue[] missingValues = new MissingValue[batchSize];
+                batch.setCharacterValues(0, text).setNumericValues(1, numbers).setNumericValues(3, numbers, missingValues);
+
+                for (int i = 0; i < totalBatches; i++) {
+                    // Re-use the same arrays for each batch.
+                    for (int j = 0; j < batchSize; j++) {
+                        int observationNumber = i * batchSize + j;
+                        text[j] = "Value #" + observationNumber;
+                        numbers[j] = observationNumber;
+                        missingValues[j] = observationNumber % 2 == 0 ? MissingValue.B : null;
+                    }
+                    exporter.writeObservations(batch);
+                }
+
+                // Writing an empty batch is legal, even when all observations have been written.
+                exporter.writeObservations(new ObservationBatch(metadata, 0));
+            }
+
+            // Read the dataset with parso to confirm that it was written correctly.
+            try (InputStream inputStream = Files.newInputStream(targetPath)) {
+                SasFileReader sasFileReader = new SasFileReaderImpl(inputStream);
+
+                // Test the headers
+                assertMetadata(metadata, sasFileReader);
+
+                // Test the observations
+                assertEquals(totalObservations, sasFileReader.getSasFileProperties().getRowCount());
+                assertArrayEquals(new Object[] { "FIRST", -1L, null, -1L, -1L }, sasFileReader.readNext());
+                for (int i = 0; i < totalObservations - 1; i++) {
+                    assertArrayEquals(
+                        new Object[] { "Value #" + i, (long) i, null, i % 2 == 0 ? null : (long) i, null },
+                        sasFileReader.readNext(),
+                        "observation #" + i);
+                }
+                assertNull(sasFileReader.readNext(), "more rows were read than expected");
+            }
+
+        } finally {
+            Files.deleteIfExists(targetPath); // always cleanup
+        }
+    }
+
+    /**
+     * Tests that {@link Sas7bdatExporter#writeObservations(ObservationBatch)} doesn't write any of the observations in
+     * a batch that is malformed.
+     */
+    @Test
+    public void testWriteObservationsWithBadBatch() throws IOException {
+        Path targetPath = Files.createTempFile("sas7bdat-testWriteObservationsWithBadBatch-", ".sas7bdat");
+        try {
+            Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().
+                variables(List.of(
+                    Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(9).build(),
+                    Variable.builder().name("NUMBER").type(VariableType.NUMERIC).length(8).build())).
+                build();
+
+            try (Sas7bdatExporter exporter = new Sas7bdatExporter(targetPath, metadata, 3)) {
+                exporter.writeObservation(List.of("BEFORE", 1));
+
+                // null batch
+                Exception exception = assertThrows(NullPointerException.class, () -> exporter.writeObservations(null));
+                assertEquals("batch must not be null", exception.getMessage());
+
+                // A batch with a null value in the last observation.
+                ObservationBatch batch = new ObservationBatch(metadata, 2);
+                batch.setCharacterValues(0, new String[] { "OK", null });
+                exception = assertThrows(NullPointerException.class, () -> exporter.writeObservations(batch));
+                assertEquals("null given as a value to TEXT, which has a CHARACTER type", exception.getMessage());
+
+                // A batch with a value that's too long in the last observation.
+                batch.setCharacterValues(0, new String[] { "OK", "\u03B1".repeat(5) });
+                exception = assertThrows(IllegalArgumentException.class, () -> exporter.writeObservations(batch));
+                assertEquals("A value of 10 bytes was given to the variable named TEXT, which has a length of 9",
+                    exception.getMessage());
+
+                // The same checks apply to values which are already encoded.
+                batch.setCharacterValues(0, new byte[][] { { 'O', 'K' }, null });
+                exception = assertThrows(NullPointerException.class, () -> exporter.writeObservations(batch));
+                assertEquals("null given as a value to TEXT, which has a CHARACTER type", exception.getMessage());
+
+                batch.setCharacterValues(0, new byte[][] { { 'O', 'K' }, new byte[10] });
+                exception = assertThrows(IllegalArgumentException.class, () -> exporter.writeObservations(batch));
+                assertEquals("A value of 10 bytes was given to the variable named TEXT, which has a length of 9",
+                    exception.getMessage());
+
+                // A batch for different variables.
+                Sas7bdatMetadata otherMetadata = Sas7bdatMetadata.builder().
+                    variables(List.of(
+                        Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(10).build(),
+                        Variable.builder().name("NUMBER").type(VariableType.NUMERIC).length(8).build())).
+                    build();
+                exception = assertThrows(
+                    IllegalArgumentException.class,
+                    () -> exporter.writeObservations(new ObservationBatch(otherMetadata, 1)));
+                assertEquals("batch was created for different variables than this exporter's", exception.getMessage());
+
+                // A batch with too many observations.
+                exception = assertThrows(
+                    IllegalStateException.class,
+                    () -> exporter.writeObservations(new ObservationBatch(metadata, 3)));
+                assertEquals("wrote more observations than promised in the constructor", exception.getMessage());
+
+                // The exceptions should not have corrupted the state of the exporter.
+                batch.setCharacterValues(0, new byte[][] { "\u03B1".repeat(4).getBytes(StandardCharsets.UTF_8),
+                    "AFTER".getBytes(StandardCharsets.UTF_8) });
+                batch.setNumericValues(1, new double[] { 2, 3 });
+                exporter.writeObservations(batch);
+            }
+
+            // Read the dataset with parso to confirm that the observations were successfully written.
+            try (InputStream inputStream = Files.newInputStream(targetPath)) {
+                SasFileReader sasFileReader = new SasFileReaderImpl(inputStream);
+                assertEquals(3, sasFileReader.getSasFileProperties().getRowCount());
+                assertArrayEquals(new Object[] { "BEFORE", 1L }, sasFileReader.readNext());
+                assertArrayEquals(new Object[] { "\u03B1".repeat(4), 2L }, sasFileReader.readNext());
+                assertArrayEquals(new Object[] { "AFTER", 3L }, sasFileReader.readNext());
+                assertNull(sasFileReader.readNext(), "more rows were read than expected");
+            }
+
+        } finally {
+            Files.deleteIfExists(targetPath); // always cleanup
+        }
+    }
+
+    /**
+     * Writes {@code totalObservations} observations to {@code exporter} and closes it.
+     */
+    private static void writeNumberedObservations(Sas7bdatExporter exporter, int totalObservations)
+        throws IOException {
+        try (exporter) {
+            for (int i = 0; i < totalObservations; i++) {
+                exporter.writeObservation(List.of(i, "Observation #" + i));
+            }
+        }
+    }
+
+    @Test
+    public void testUnknownNumberOfObservations() throws IOException {
+        Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().
+            datasetName("NUMBERED").
+            variables(List.of(
+                Variable.builder().name("NUMBER").type(VariableType.NUMERIC).length(8).build(),
+                Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(100).build())).
+            build();
+
+        // Test with an empty dataset, a dataset that fits on the mixed page, and datasets that span several pages.
+        for (int totalObservations : new int[] { 0, 1, 500, 5000 }) {
+            Path expectedPath = Files.createTempFile("sas7bdat-testUnknownNumberOfObservations-expected-", ".sas7bdat");
+            Path actualPath = Files.createTempFile("sas7bdat-testUnknownNumberOfObservations-actual-", ".sas7bdat");
+            try {
+                // Write the dataset when the number of observations is given up front.
+                writeNumberedObservations(new Sas7bdatExporter(expectedPath, metadata, totalObservations),
+                    totalObservations);
+
+                // Write the same dataset without giving the number of observations.
+                writeNumberedObservations(new Sas7bdatExporter(actualPath, metadata), totalObservations);
+
+                // The files should be identical.
+                assertArrayEquals(Files.readAllBytes(expectedPath), Files.readAllBytes(actualPath),
+                    "datasets with " + totalObservations + " observations differ");
+
+                // Read the dataset back to confirm that the patched header is well-formed.
+                try (InputStream inputStream = Files.newInputStream(actualPath)) {
+                    SasFileReader sasFileReader = new SasFileReaderImpl(inputStream);
+                    assertEquals(totalObservations, sasFileReader.getSasFileProperties().getRowCount());
+
+                    Object[][] observations = sasFileReader.readAll();
+                    assertEquals(totalObservations, observations.length);
+                    for (int i = 0; i < totalObservations; i++) {
+                        assertEquals((long) i, observations[i][0]);
+                        assertEquals("Observation #" + i, observations[i][1]);
+                    }
+                }
+            } finally {
+                Files.deleteIfExists(expectedPath); // cleanup
+                Files.deleteIfExists(actualPath); // cleanup
+            }
+        }
+    }
+
+    @Test
+    public void testUnknownNumberOfObservationsToChannel() throws IOException {
+        Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().
+            variables(List.of(
+                Variable.builder().name("NUMBER").type(VariableType.NUMERIC).length(8).build(),
+                Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(100).build())).
+            build();
+
+        final int totalObservations = 1000;
+        final byte[] prefix = "data that precedes the dataset".getBytes(StandardCharsets.US_ASCII);
+
+        Path expectedPath = Files.createTempFile("sas7bdat-testUnknownNumberOfObservationsToChannel-expected-", ".sas7bdat");
+        Path actualPath = Files.createTempFile("sas7bdat-testUnknownNumberOfObservationsToChannel-actual-", ".sas7bdat");
+        try {
+            writeNumberedObservations(new Sas7bdatExporter(expectedPath, metadata, totalObservations),
+                totalObservations);
+
+            // Write the dataset to a channel that is not positioned at the start of the file.
+            try (FileChannel channel = FileChannel.open(actualPath, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(prefix));
+                writeNumberedObservations(new Sas7bdatExporter(channel, metadata), totalObservations);
+
+                // Closing the exporter closes the channel.
+                assertFalse(channel.isOpen(), "exporter did not close the channel");
+            }
+
+            // The data before the dataset should be untouched and the dataset should be the same as if it had been
+            // written to its own file.
+            byte[] expectedDataset = Files.readAllBytes(expectedPath);
+            byte[] actualData = Files.readAllBytes(actualPath);
+            assertEquals(prefix.length + expectedDataset.length, actualData.length);
+            assertArrayEquals(prefix, Arrays.copyOfRange(actualData, 0, prefix.length));
+            assertArrayEquals(expectedDataset, Arrays.copyOfRange(actualData, prefix.length, actualData.length));
+
+        } finally {
+            Files.deleteIfExists(expectedPath); // cleanup
+            Files.deleteIfExists(actualPath); // cleanup
+        }
+    }
+
+    @Test
+    public void testConstructWithUnknownNumberOfObservationsAndNullArguments() throws IOException {
+        Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().
+            variables(List.of(Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(200).build())).
+            build();
+
+        // Invoke the SeekableByteChannel constructor with a null channel.
+        Exception exception = assertThrows(
+            NullPointerException.class,
+            () -> new Sas7bdatExporter((SeekableByteChannel) null, metadata));
+        assertEquals("channel must not be null", exception.getMessage());
+
+        // Invoke the Path constructor with a null path.
+        exception = assertThrows(
+            NullPointerException.class,
+            () -> new Sas7bdatExporter((Path) null, metadata));
+        assertEquals("targetLocation must not be null", exception.getMessage());
+
+        Path targetPath = Path.of("testConstructWithUnknownNumberOfObservationsAndNullArguments.sas7bdat");
+        try {
+            // Invoke the Path constructor with a null metadata object.
+            exception = assertThrows(
+                NullPointerException.class,
+                () -> new Sas7bdatExporter(targetPath, null));
+            assertEquals("metadata must not be null", exception.getMessage());
+
+            // Confirm that the file was not created.
+            assertFalse(Files.exists(targetPath), "target file unexpectedly created");
+
+            // Invoke the SeekableByteChannel constructor with a null metadata object.
+            try (SeekableByteChannel channel = Files.newByteChannel(
+                targetPath,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+                exception = assertThrows(
+                    NullPointerException.class,
+                    () -> new Sas7bdatExporter(channel, null));
+                assertEquals("metadata must not be null", exception.getMessage());
+
+                // The channel is not closed when the constructor throws an exception.
+                assertTrue(channel.isOpen(), "channel unexpectedly closed");
+            }
+        } finally {
+            Files.deleteIfExists(targetPath); // cleanup
+        }
+    }
+
+    /**
+     * Writes a dataset with every kind of write method so that observations of each kind share pages.
+     */
+    private static void writeMixedObservations(Sas7bdatExporter exporter, Sas7bdatMetadata metadata,
+        int totalObservations) throws IOException {
+        try (exporter) {
+            int i = 0;
+            while (i < totalObservations) {
+                switch (i % 3) {
+                case 0 -> {
+                    exporter.writeObservation(Arrays.asList(i, "Observation #" + i, i % 2 == 0 ? null : LocalDate.EPOCH));
+                    i++;
+                }
+                case 1 -> {
+                    exporter.beginObservation().setDouble(0, i).setString(1, "Observation #" + i).commit();
+                    i++;
+                }
+                default -> {
+                    final int batchSize = Math.min(totalObservations - i, 100);
+                    double[] numbers = new double[batchSize];
+                    String[] text = new String[batchSize];
+                    for (int j = 0; j < batchSize; j++) {
+                        numbers[j] = i + j;
+                        text[j] = "Observation #" + (i + j);
+                    }
+                    ObservationBatch batch = new ObservationBatch(metadata, batchSize);
+                    batch.setNumericValues(0, numbers).setCharacterValues(1, text);
+                    exporter.writeObservations(batch);
+                    i += batchSize;
+                }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testParallelEncoding() throws IOException {
+        Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().
+            variables(List.of(
+                Variable.builder().name("NUMBER").type(VariableType.NUMERIC).length(8).build(),
+                Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(100).build(),
+                Variable.builder().name("DATE").type(VariableType.NUMERIC).length(8).build())).
+            build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Sas7bdatExportOptions options = Sas7bdatExportOptions.builder().parallelism(4).executor(executor).build();
+
+            for (int totalObservations : new int[] { 0, 1, 500, 20000 }) {
+                Path expectedPath = Files.createTempFile("sas7bdat-testParallelEncoding-expected-", ".sas7bdat");
+                Path actualPath = Files.createTempFile("sas7bdat-testParallelEncoding-actual-", ".sas7bdat");
+                try {
+                    // Write the dataset on the caller's thread.
+                    writeMixedObservations(new Sas7bdatExporter(expectedPath, metadata, totalObservations), metadata,
+                        totalObservations);
+
+                    // Write the same dataset with parallel encoding to an OutputStream.
+                    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                    writeMixedObservations(new Sas7bdatExporter(outputStream, metadata, totalObservations, options),
+                        metadata, totalObservations);
+                    assertArrayEquals(Files.readAllBytes(expectedPath), outputStream.toByteArray(),
+                        "datasets with " + totalObservations + " observations differ when written to a stream");
+
+                    // Write the same dataset with parallel encoding and an unknown number of observations.
+                    writeMixedObservations(new Sas7bdatExporter(actualPath, metadata, options), metadata,
+                        totalObservations);
+                    assertArrayEquals(Files.readAllBytes(expectedPath), Files.readAllBytes(actualPath),
+                        "datasets with " + totalObservations + " observations differ when written to a file");
+
+                } finally {
+                    Files.deleteIfExists(expectedPath); // cleanup
+                    Files.deleteIfExists(actualPath); // cleanup
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelEncodingWithBadObservation() throws IOException {
+        Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().
+            variables(List.of(
+                Variable.builder().name("NUMBER").type(VariableType.NUMERIC).length(8).build(),
+                Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(5).build())).
+            build();
+
+        Sas7bdatExportOptions options = Sas7bdatExportOptions.builder().parallelism(2).build();
+
+        ByteArrayOutputStream expectedOutputStream = new ByteArrayOutputStream();
+        try (Sas7bdatExporter exporter = new Sas7bdatExporter(expectedOutputStream, metadata, 1)) {
+            exporter.writeObservation(List.of(1, "GOOD"));
+        }
+
+        ByteArrayOutputStream actualOutputStream = new ByteArrayOutputStream();
+        try (Sas7bdatExporter exporter = new Sas7bdatExporter(actualOutputStream, metadata, 1, options)) {
+            // Malformed observations are rejected immediately, even though they are encoded later.
+            Exception exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> exporter.writeObservation(List.of(1, "TOO LONG")));
+            assertEquals("A value of 8 bytes was given to the variable named TEXT, which has a length of 5",
+                exception.getMessage());
+
+            exception = assertThrows(
+                NullPointerException.class,
+                () -> exporter.writeObservation(Arrays.asList(1, null)));
+            assertEquals("null given as a value to TEXT, which has a CHARACTER type", exception.getMessage());
+
+            // The rejected observations were not counted, so it's possible to continue.
+            exporter.writeObservation(List.of(1, "GOOD"));
+        }
+
+        assertArrayEquals(expectedOutputStream.toByteArray(), actualOutputStream.toByteArray());
+    }
+
+    @Test
+    public void testConstructWithNullOptions() throws IOException {
+        Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().
+            variables(List.of(Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(200).build())).
+            build();
+
+        Path targetPath = Path.of("testConstructWithNullOptions.sas7bdat");
+        try {
+            // Invoke the Path constructors with null options.
+            Exception exception = assertThrows(
+                NullPointerException.class,
+                () -> new Sas7bdatExporter(targetPath, metadata, 0, null));
+            assertEquals("options must not be null", exception.getMessage());
+
+            exception = assertThrows(
+                NullPointerException.class,
+                () -> new Sas7bdatExporter(targetPath, metadata, null));
+            assertEquals("options must not be null", exception.getMessage());
+
+            // Confirm that the file was not created.
+            assertFalse(Files.exists(targetPath), "target file unexpectedly created");
+
+        } finally {
+            Files.deleteIfExists(targetPath); // cleanup
+        }
+
+        // Invoke the OutputStream constructor with null options.
+        try (OutputStream outputStream = new ByteArrayOutputStream()) {
+            Exception exception = assertThrows(
+                NullPointerException.class,
+                () -> new Sas7bdatExporter(outputStream, metadata, 0, null));
+            assertEquals("options must not be null", exception.getMessage());
+        }
+    }
+
+    @Test
+    public void testMemoryMappedFile() throws IOException {
+        Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().
+            variables(List.of(
+                Variable.builder().name("NUMBER").type(VariableType.NUMERIC).length(8).build(),
+                Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(100).build(),
+                Variable.builder().name("DATE").type(VariableType.NUMERIC).length(8).build())).
+            build();
+
+        Sas7bdatExportOptions options = Sas7bdatExportOptions.builder().memoryMapped(true).build();
+        Sas7bdatExportOptions parallelOptions = Sas7bdatExportOptions.builder().
+            memoryMapped(true).
+            parallelism(4).
+            build();
+
+        for (int totalObservations : new int[] { 0, 1, 500, 20000 }) {
+            Path expectedPath = Files.createTempFile("sas7bdat-testMemoryMappedFile-expected-", ".sas7bdat");
+            Path actualPath = Files.createTempFile("sas7bdat-testMemoryMappedFile-actual-", ".sas7bdat");
+            try {
+                writeMixedObservations(new Sas7bdatExporter(expectedPath, metadata, totalObservations), metadata,
+                    totalObservations);
+                byte[] expectedData = Files.readAllBytes(expectedPath);
+
+                // Write the same dataset to a memory-mapped file which replaces a larger file.
+                Files.write(actualPath, new byte[expectedData.length + 1]);
+                writeMixedObservations(new Sas7bdatExporter(actualPath, metadata, totalObservations, options),
+                    metadata, totalObservations);
+                assertArrayEquals(expectedData, Files.readAllBytes(actualPath),
+                    "datasets with " + totalObservations + " observations differ");
+
+                // Memory-mapping can be combined with parallel encoding.
+                writeMixedObservations(new Sas7bdatExporter(actualPath, metadata, totalObservations, parallelOptions),
+                    metadata, totalObservations);
+                assertArrayEquals(expectedData, Files.readAllBytes(actualPath),
+                    "datasets with " + totalObservations + " observations differ when encoded in parallel");
+
+            } finally {
+                Files.deleteIfExists(expectedPath); // cleanup
+                Files.deleteIfExists(actualPath); // cleanup
+            }
+        }
+    }
+
+    private static Object[][] readAllObservations(Path path) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            return new SasFileReaderImpl(inputStream).readAll();
+        }
+    }
+
+    @Test
+    public void testCompressedDataset() throws IOException {
+        Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().
+            variables(List.of(
+                Variable.builder().name("NUMBER").type(VariableType.NUMERIC).length(8).build(),
+                Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(100).build(),
+                Variable.builder().name("DATE").type(VariableType.NUMERIC).length(8).build())).
+            build();
+
+        for (Compression compression : new Compression[] { Compression.CHAR, Compression.BINARY }) {
+            Sas7bdatExportOptions options = Sas7bdatExportOptions.builder().compression(compression).build();
+
+            // Test with an empty dataset, a dataset that fits on one page, and datasets that span several pages.
+            for (int totalObservations : new int[] { 0, 1, 500, 20000 }) {
+                Path expectedPath = Files.createTempFile("sas7bdat-testCompressedDataset-expected-", ".sas7bdat");
+                Path actualPath = Files.createTempFile("sas7bdat-testCompressedDataset-actual-", ".sas7bdat");
+                try {
+                    writeMixedObservations(new Sas7bdatExporter(expectedPath, metadata, totalObservations), metadata,
+                        totalObservations);
+                    writeMixedObservations(new Sas7bdatExporter(actualPath, metadata, options), metadata,
+                        totalObservations);
+
+                    // The compressed dataset should have the same observations as the uncompressed one.
+                    String description = totalObservations + " observations with " + compression + " compression";
+                    try (InputStream inputStream = Files.newInputStream(actualPath)) {
+                        SasFileProperties properties = new SasFileReaderImpl(inputStream).getSasFileProperties();
+                        assertEquals(compression.literal(), properties.getCompressionMethod(), description);
+                        assertEquals(totalObservations, properties.getRowCount(), description);
+                    }
+                    assertArrayEquals(readAllObservations(expectedPath), readAllObservations(actualPath),
+                        description);
+
+                    // The observations are mostly blanks, so compression should make the dataset smaller.
+                    if (totalObservations == 20000) {
+                        assertThat(description, Files.size(actualPath), Matchers.lessThan(Files.size(expectedPath)));
+                    }
+
+                } finally {
+                    Files.deleteIfExists(expectedPath); // cleanup
+                    Files.deleteIfExists(actualPath); // cleanup
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCompressedDatasetWithIncompressibleObservations() throws IOException {
+        Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().
+            variables(List.of(Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(16).build())).
+            build();
+
+        Sas7bdatExportOptions options = Sas7bdatExportOptions.builder().compression(Compression.CHAR).build();
+        Path targetPath = Files.createTempFile("sas7bdat-testCompressedDatasetWithIncompressibleObservations-", ".sas7bdat");
+        try {
+            // Observations that can't be compressed are stored uncompressed, alongside compressed ones.
+            try (Sas7bdatExporter exporter = new Sas7bdatExporter(targetPath, metadata, options)) {
+                exporter.writeObservation(List.of("0123456789ABCDEF"));
+                exporter.writeObservation(List.of("short"));
+                exporter.writeObservation(List.of("FEDCBA9876543210"));
+            }
+
+            Object[][] observations = readAllObservations(targetPath);
+            assertArrayEquals(
+                new Object[][] { { "0123456789ABCDEF" }, { "short" }, { "FEDCBA9876543210" } },
+                observations);
+        } finally {
+            Files.deleteIfExists(targetPath); // cleanup
+        }
+    }
+
+    @Test
+    public void testCompressionWithTotalObservationsInDataset() throws IOException {
+        Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().
+            variables(List.of(Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(200).build())).
+            build();
+
+        Sas7bdatExportOptions options = Sas7bdatExportOptions.builder().compression(Compression.BINARY).build();
+
+        // The number of pages in a compressed dataset isn't known in advance, so it can't be written to a stream.
+        try (OutputStream outputStream = new ByteArrayOutputStream()) {
+            Exception exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> new Sas7bdatExporter(outputStream, metadata, 0, options));
+            assertEquals("compression is only supported by the constructors that don't take totalObservationsInDataset",
+                exception.getMessage());
+        }
+
+        Path targetPath = Path.of("testCompressionWithTotalObservationsInDataset.sas7bdat");
+        try {
+            Exception exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> new Sas7bdatExporter(targetPath, metadata, 0, options));
+            assertEquals("compression is only supported by the constructors that don't take totalObservationsInDataset",
+                exception.getMessage());
+
+            // Confirm that the file was not created.
+            assertFalse(Files.exists(targetPath), "target file unexpectedly created");
+
+        } finally {
+            Files.deleteIfExists(targetPath); // cleanup
+        }
+    }
+
+    @Test
+    public void testShortNumericVariables() throws IOException {
+        Path targetPath = Files.createTempFile("sas7bdat-testShortNumericVariables-", ".sas7bdat");
+        try {
+            Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().
+                variables(List.of(
+                    Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(12).build(),
+                    Variable.builder().name("LENGTH3").type(VariableType.NUMERIC).length(3).build(),
+                    Variable.builder().name("LENGTH4").type(VariableType.NUMERIC).length(4).build(),
+                    Variable.builder().name("LENGTH8").type(VariableType.NUMERIC).length(8).build(),
+                    Variable.builder().name("LENGTH5").type(VariableType.NUMERIC).length(5).build())).
+                build();
+
+            // Write enough observations to need several data pages.
+            final int totalObservations = 10_000;
+            try (Sas7bdatExporter exporter = new Sas7bdatExporter(targetPath, metadata, totalObservations)) {
+                for (int i = 0; i < totalObservations; i++) {
+                    if (i % 10 == 0) {
+                        exporter.writeObservation(Arrays.asList("missing", null, MissingValue.A, null, MissingValue.Z));
+                    } else {
+                        exporter.writeObservation(List.of("Value #" + i, i % 8192, i * 100, i * 1.1, i + 0.5));
+                    }
+                }
+            }
+
+            // Read the dataset with parso to confirm that it was written correctly.
+            try (InputStream inputStream = Files.newInputStream(targetPath)) {
+                SasFileReader sasFileReader = new SasFileReaderImpl(inputStream);
+
+                // Test the headers
+                assertMetadata(metadata, sasFileReader);
+                assertEquals(8 + 5 + 4 + 3 + 12, sasFileReader.getSasFileProperties().getRowLength());
+
+                // Test the observations.  Integers up to 8192 can be stored exactly in 3 bytes, integers up to 2097152
+                // can be stored exactly in 4 bytes.  Values with fractions of 1/2 can be stored in 5 bytes.
+                assertEquals(totalObservations, sasFileReader.getSasFileProperties().getRowCount());
+                for (int i = 0; i < totalObservations; i++) {
+                    Object[] expectedRow;
+                    if (i % 10 == 0) {
+                        expectedRow = new Object[] { "missing", null, null, null, null };
+                    } else {
+                        expectedRow = new Object[] { "Value #" + i, (long) (i % 8192), i * 100L, i * 1.1, i + 0.5 };
+                    }
+                    assertArrayEquals(expectedRow, sasFileReader.readNext(), "observation #" + i);
+                }
+                assertNull(sasFileReader.readNext(), "more rows were read than expected");
+            }
+
+        } finally {
+            Files.deleteIfExists(targetPath); // always cleanup
+        }
+    }
+
+    @Test
+    public void testShortNumericVariablesAreTruncated() throws IOException {
+        Path targetPath = Files.createTempFile("sas7bdat-testShortNumericVariablesAreTruncated-", ".sas7bdat");
+        try {
+            Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().
+                variables(List.of(
+                    Variable.builder().name("LENGTH3").type(VariableType.NUMERIC).length(3).build(),
+                    Variable.builder().name("LENGTH6").type(VariableType.NUMERIC).length(6).build())).
+                build();
+
+            try (Sas7bdatExporter exporter = new Sas7bdatExporter(targetPath, metadata, 1)) {
+                exporter.writeObservation(List.of(Math.PI, Math.PI));
+            }
+
+            // The least significant bytes of each value should have been dropped.
+            try (InputStream inputStream = Files.newInputStream(targetPath)) {
+                SasFileReader sasFileReader = new SasFileReaderImpl(inputStream);
+                final long piBits = Double.doubleToRawLongBits(Math.PI);
+                assertArrayEquals(
+                    new Object[] {
+                        Double.longBitsToDouble(piBits & 0xFFFFFF0000000000L),
+                        Double.longBitsToDouble(piBits & 0xFFFFFFFFFFFF0000L) },
+                    sasFileReader.readNext());
+                assertNull(sasFileReader.readNext(), "more rows were read than expected");
+            }
+
+        } finally {
+            Files.deleteIfExists(targetPath); // always cleanup
+        }
+    }
+
+    /**
+     * An OutputStream that discards what is written to it, except for the file header, the first metadata page, and the
+     * page sequence number of each page.  This makes it possible to test datasets that are too large to hold in memory.
+     */
+    private static class LargeDatasetOutputStream extends OutputStream {
+        private final int pageSize;
+        private final byte[] firstPages; // the file header and the first metadata page
+        private final List<Long> pageSequenceNumbers;
+        private long totalBytesWritten;
+
+        LargeDatasetOutputStream(int pageSize) {
+            this.pageSize = pageSize;
+            this.firstPages = new byte[2 * pageSize];
+            this.pageSequenceNumbers = new ArrayList<>();
+            this.totalBytesWritten = 0;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) {
+            // Record the part of the data that is in the first pages.
+            if (totalBytesWritten < firstPages.length) {
+                final int firstPagesBytes = (int) Math.min(length, firstPages.length - totalBytesWritten);
+                System.arraycopy(data, offset, firstPages, (int) totalBytesWritten, firstPagesBytes);
+            }
+
+            // Record the page sequence number at the start of each page.
+            long pageStart = Math.max(pageSize, (totalBytesWritten + pageSize - 1) / pageSize * pageSize);
+            for (; pageStart + 8 <= totalBytesWritten + length; pageStart += pageSize) {
+                final int dataOffset = offset + (int) (pageStart - totalBytesWritten);
+                ByteBuffer buffer = ByteBuffer.wrap(data, dataOffset, 8).order(ByteOrder.LITTLE_ENDIAN);
+                pageSequenceNumbers.add(buffer.getLong());
+            }
+
+            totalBytesWritten += length;
+        }
+
+        private long readLong(int offset) {
+            return ByteBuffer.wrap(firstPages, offset, 8).order(ByteOrder.LITTLE_ENDIAN).getLong();
+        }
+
+        long totalPagesInHeader() {
+            return readLong(208);
+        }
+
+        long totalObservationsInRowSizeSubheader() {
+            // The RowSizeSubheader is the first subheader on the first metadata page.
+            // Its location is given by the first subheader pointer, which follows the 40 byte page header.
+            final int offsetOfRowSizeSubheader = pageSize + (int) readLong(pageSize + 40);
+            return readLong(offsetOfRowSizeSubheader + 48);
+        }
+    }
+
+    @Test
+    public void testDatasetWithMoreThan65536Pages() throws IOException {
+        // Use variables that are so wide that each data page can hold only one observation.
+        final int pageSize = 0x10000;
+        Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().
+            variables(List.of(
+                Variable.builder().name("TEXT1").type(VariableType.CHARACTER).length(20000).build(),
+                Variable.builder().name("TEXT2").type(VariableType.CHARACTER).length(20000).build())).
+            build();
+
+        // Write enough observations to need more pages than the page sequence numbers used to support.
+        // The observations are discarded as they are written, so this doesn't need much memory.
+        final int totalObservations = 500_000;
+        LargeDatasetOutputStream outputStream = new LargeDatasetOutputStream(pageSize);
+        try (Sas7bdatExporter exporter = new Sas7bdatExporter(outputStream, metadata, totalObservations)) {
+            for (int i = 0; i < totalObservations; i++) {
+                exporter.writeObservation(List.of("observation " + i, ""));
+            }
+        }
+
+        // Each data page should have held only one observation.
+        final long totalPages = outputStream.totalPagesInHeader();
+        assertThat(totalPages, Matchers.greaterThanOrEqualTo((long) totalObservations));
+        assertEquals((1 + totalPages) * pageSize, outputStream.totalBytesWritten);
+        assertEquals(totalPages, outputStream.pageSequenceNumbers.size());
+
+        // Every page should have a different page sequence number.
+        assertEquals(totalPages, outputStream.pageSequenceNumbers.stream().distinct().count());
+    }
+
+    @Test
+    public void testDatasetWithMoreThanIntegerMaxValueObservations() throws IOException {
+        // Use a narrow dataset, so that many observations fit on each page.
+        final int pageSize = 0x10000;
+        Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().
+            variables(List.of(Variable.builder().name("X").type(VariableType.NUMERIC).length(8).build())).
+            build();
+
+        // Write more observations than can be counted with an int.
+        // The observations are discarded as they are written, so this doesn't need much memory.
+        final long totalObservations = Integer.MAX_VALUE + 1_000L;
+        final ObservationBatch batch = new ObservationBatch(metadata, 0x10000);
+        final double[] values = new double[batch.size()];
+        batch.setNumericValues(0, values);
+
+        LargeDatasetOutputStream outputStream = new LargeDatasetOutputStream(pageSize);
+        try (Sas7bdatExporter exporter = new Sas7bdatExporter(outputStream, metadata, totalObservations)) {
+            long totalObservationsWritten = 0;
+            while (totalObservationsWritten + batch.size() <= totalObservations) {
+                Arrays.fill(values, totalObservationsWritten);
+                exporter.writeObservations(batch);
+                totalObservationsWritten += batch.size();
+            }
+
+            // Write the remaining observations individually.
+            while (totalObservationsWritten < totalObservations) {
+                exporter.writeObservation(List.of(totalObservationsWritten));
+                totalObservationsWritten++;
+            }
+
+            // The exporter shouldn't accept more observations than it was given in its constructor.
+            Exception exception = assertThrows(IllegalStateException.class, () -> exporter.writeObservation(List.of(0)));
+            assertEquals("wrote more observations than promised in the constructor", exception.getMessage());
+        }
+
+        // The number of observations should be recorded as an 8-byte value.
+        assertEquals(totalObservations, outputStream.totalObservationsInRowSizeSubheader());
+
+        // The number of pages should be the same as the number of pages that were written.
+        final long totalPages = outputStream.totalPagesInHeader();
+        assertEquals((1 + totalPages) * pageSize, outputStream.totalBytesWritten);
+        assertEquals(totalPages, outputStream.pageSequenceNumbers.size());
+
+        // Each data page holds the same number of observations, so the number of pages can be checked against them.
+        final int maxObservationsPerDataPage = Sas7bdatPage.maxObservationsPerDataPage(
+            pageSize,
+            new Sas7bdatVariablesLayout(metadata.variables()));
+        assertThat(totalPages, Matchers.greaterThan(totalObservations / maxObservationsPerDataPage));
+        assertThat(totalPages, Matchers.lessThan(totalObservations / maxObservationsPerDataPage + 3));
+    }
+}
@@ -0,0 +1,414 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Unit tests for {@link Sas7bdatImporter} and {@link ObservationCursor}. */
+public class Sas7bdatImporterTest {
+
+    private static final Sas7bdatMetadata METADATA = Sas7bdatMetadata.builder().
+        creationTime(LocalDateTime.of(2025, 3, 14, 15, 9, 26)).
+        datasetName("IMPORTED").
+        datasetType("TYPE").
+        datasetLabel("A dataset to import ☃").
+        variables(List.of(
+            Variable.builder().
+                name("TEXT").
+                type(VariableType.CHARACTER).
+                length(20).
+                label("Some text").
+                outputFormat(new Format("$CHAR", 20)).
+                inputFormat(new Format("$CHAR", 18)).
+                build(),
+            Variable.builder().
+                name("NUMBER").
+                type(VariableType.NUMERIC).
+                length(8).
+                outputFormat(new Format("BEST", 12, 2)).
+                build(),
+            Variable.builder().name("SHORT_NUMBER").type(VariableType.NUMERIC).length(3).build(),
+            Variable.builder().name("DATE").type(VariableType.NUMERIC).length(8).
+                outputFormat(new Format("YYMMDD", 10)).
+                build())).
+        build();
+
+    private static List<Object> newObservation(int observationIndex) {
+        return Arrays.asList(
+            observationIndex % 10 == 0 ? "" : "Value #" + observationIndex + " é",
+            observationIndex % 7 == 0 ? MissingValue.values()[observationIndex % MissingValue.values().length] :
+                observationIndex * 1.25,
+            observationIndex % 11 == 0 ? null : observationIndex % 4096,
+            LocalDate.of(2000, 1, 1).plusDays(observationIndex));
+    }
+
+    private static List<Object> expectedValues(List<Object> observation) {
+        return List.of(
+            observation.get(0),
+            observation.get(1) instanceof Number number ? (Object) number.doubleValue() : observation.get(1),
+            observation.get(2) == null ? MissingValue.STANDARD : (Object) ((Number) observation.get(2)).doubleValue(),
+            (double) (((LocalDate) observation.get(3)).toEpochDay() + 3653));
+    }
+
+    private static void assertMetadataEquals(Sas7bdatMetadata expected, Sas7bdatMetadata actual) {
+        assertEquals(expected.creationTime(), actual.creationTime());
+        assertEquals(expected.datasetName(), actual.datasetName());
+        assertEquals(expected.datasetType(), actual.datasetType());
+        assertEquals(expected.datasetLabel(), actual.datasetLabel());
+        assertEquals(expected.variables(), actual.variables());
+    }
+
+    /**
+     * Tests that a dataset which was exported can be imported.
+     */
+    @Test
+    public void testImport() throws IOException {
+        Path targetFile = Files.createTempFile("imported-", ".sas7bdat");
+        try {
+            for (int totalObservations : new int[] { 0, 1, 5000 }) {
+                try (Sas7bdatExporter exporter = new Sas7bdatExporter(targetFile, METADATA, totalObservations)) {
+                    for (int i = 0; i < totalObservations; i++) {
+                        exporter.writeObservation(newObservation(i));
+                    }
+                }
+
+                try (Sas7bdatImporter importer = new Sas7bdatImporter(targetFile)) {
+                    assertMetadataEquals(METADATA, importer.metadata());
+                    assertEquals(totalObservations, importer.totalObservations());
+
+                    ObservationCursor cursor = importer.cursor();
+                    byte[] bytes = new byte[20];
+                    for (int i = 0; i < totalObservations; i++) {
+                        assertTrue(cursor.next());
+
+                        List<Object> expectedValues = expectedValues(newObservation(i));
+                        List<Object> actualValues = new ArrayList<>();
+                        for (int variableIndex = 0; variableIndex < 4; variableIndex++) {
+                            actualValues.add(cursor.getValue(variableIndex));
+                        }
+                        assertEquals(expectedValues, actualValues, "wrong values for observation " + i);
+
+                        // The typed getters
+                        assertEquals(expectedValues.get(0), cursor.getString(0));
+                        final int length = cursor.getBytes(0, bytes);
+                        assertArrayEquals(((String) expectedValues.get(0)).getBytes("UTF-8"),
+                            Arrays.copyOf(bytes, length));
+                        assertEquals(LocalDate.of(2000, 1, 1).plusDays(i), cursor.getDate(3));
+                        if (expectedValues.get(1) instanceof MissingValue missingValue) {
+                            assertEquals(missingValue, cursor.getMissingValue(1));
+                            assertTrue(Double.isNaN(cursor.getDouble(1)));
+                        } else {
+                            assertNull(cursor.getMissingValue(1));
+                            assertEquals(expectedValues.get(1), cursor.getDouble(1));
+                        }
+                    }
+                    assertFalse(cursor.next());
+                    assertFalse(cursor.next());
+                }
+            }
+        } finally {
+            Files.deleteIfExists(targetFile);
+        }
+    }
+
+    /**
+     * Tests importing a dataset whose metadata spans several pages.
+     */
+    @Test
+    public void testImportManyVariables() throws IOException {
+        final int totalVariables = 3000;
+        List<Variable> variables = new ArrayList<>(totalVariables);
+        List<Object> observation = new ArrayList<>(totalVariables);
+        for (int i = 0; i < totalVariables; i++) {
+            final boolean isNumeric = i % 2 == 0;
+            variables.add(Variable.builder().
+                name("VARIABLE_" + i).
+                type(isNumeric ? VariableType.NUMERIC : VariableType.CHARACTER).
+                length(isNumeric ? 8 : 12).
+                label("Label for variable #" + i).
+                build());
+            observation.add(isNumeric ? (Object) (double) i : "Value " + i);
+        }
+        Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().
+            creationTime(LocalDateTime.of(2020, 1, 2, 3, 4, 5)).
+            datasetName("WIDE").
+            variables(variables).
+            build();
+
+        Path targetFile = Files.createTempFile("imported-", ".sas7bdat");
+        try {
+            try (Sas7bdatExporter exporter = new Sas7bdatExporter(targetFile, metadata, 3)) {
+                for (int i = 0; i < 3; i++) {
+                    exporter.writeObservation(observation);
+                }
+            }
+
+            try (Sas7bdatImporter importer = new Sas7bdatImporter(targetFile)) {
+                assertMetadataEquals(metadata, importer.metadata());
+
+                ObservationCursor cursor = importer.cursor();
+                for (int i = 0; i < 3; i++) {
+                    assertTrue(cursor.next());
+                    for (int variableIndex = 0; variableIndex < totalVariables; variableIndex++) {
+                        assertEquals(observation.get(variableIndex), cursor.getValue(variableIndex));
+                    }
+                }
+                assertFalse(cursor.next());
+            }
+        } finally {
+            Files.deleteIfExists(targetFile);
+        }
+    }
+
+    @Test
+    public void testImportDatesAndTimes() throws IOException {
+        Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().
+            variables(List.of(
+                Variable.builder().name("DATE").type(VariableType.NUMERIC).length(8).build(),
+                Variable.builder().name("TIME").type(VariableType.NUMERIC).length(8).build(),
+                Variable.builder().name("DATETIME").type(VariableType.NUMERIC).length(8).build())).
+            build();
+
+        final LocalDate date = LocalDate.of(1955, 6, 7);
+        final LocalTime time = LocalTime.of(23, 59, 58, 500_000_000);
+        final LocalDateTime dateTime = LocalDateTime.of(2024, 2, 29, 12, 30, 15, 250_000_000);
+
+        Path targetFile = Files.createTempFile("imported-", ".sas7bdat");
+        try {
+            try (Sas7bdatExporter exporter = new Sas7bdatExporter(targetFile, metadata, 2)) {
+                exporter.beginObservation().setDate(0, date).setTime(1, time).setDateTime(2, dateTime).commit();
+                exporter.beginObservation().commit(); // all missing
+            }
+
+            try (Sas7bdatImporter importer = new Sas7bdatImporter(targetFile)) {
+                ObservationCursor cursor = importer.cursor();
+                assertTrue(cursor.next());
+                assertEquals(date, cursor.getDate(0));
+                assertEquals(time, cursor.getTime(1));
+                assertEquals(dateTime, cursor.getDateTime(2));
+
+                assertTrue(cursor.next());
+                assertNull(cursor.getDate(0));
+                assertNull(cursor.getTime(1));
+                assertNull(cursor.getDateTime(2));
+                assertEquals(MissingValue.STANDARD, cursor.getMissingValue(2));
+            }
+        } finally {
+            Files.deleteIfExists(targetFile);
+        }
+    }
+
+    @Test
+    public void testCursorMisuse() throws IOException {
+        Path targetFile = Files.createTempFile("imported-", ".sas7bdat");
+        try {
+            try (Sas7bdatExporter exporter = new Sas7bdatExporter(targetFile, METADATA, 1)) {
+                exporter.writeObservation(newObservation(1));
+            }
+
+            Sas7bdatImporter importer = new Sas7bdatImporter(targetFile);
+            ObservationCursor cursor = importer.cursor();
+
+            // Before the first observation
+            Exception exception = assertThrows(IllegalStateException.class, () -> cursor.getDouble(1));
+            assertEquals("no observation is being read (next must be invoked first)", exception.getMessage());
+
+            assertTrue(cursor.next());
+
+            exception = assertThrows(IllegalArgumentException.class, () -> cursor.getDouble(0));
+            assertEquals("A numeric value was requested from the variable named TEXT, which has a CHARACTER type",
+                exception.getMessage());
+
+            exception = assertThrows(IllegalArgumentException.class, () -> cursor.getString(1));
+            assertEquals("A string value was requested from the variable named NUMBER, which has a NUMERIC type",
+                exception.getMessage());
+
+            assertThrows(IndexOutOfBoundsException.class, () -> cursor.getValue(4));
+            assertThrows(IndexOutOfBoundsException.class, () -> cursor.getBytes(0, new byte[19]));
+
+            exception = assertThrows(NullPointerException.class, () -> cursor.getBytes(0, null));
+            assertEquals("destination must not be null", exception.getMessage());
+
+            // After the last observation
+            assertFalse(cursor.next());
+            exception = assertThrows(IllegalStateException.class, () -> cursor.getString(0));
+            assertEquals("no observation is being read (next must be invoked first)", exception.getMessage());
+
+            importer.close();
+            importer.close(); // closing twice is harmless
+            exception = assertThrows(IllegalStateException.class, importer::cursor);
+            assertEquals("Cannot invoke cursor on closed importer", exception.getMessage());
+        } finally {
+            Files.deleteIfExists(targetFile);
+        }
+    }
+
+    /**
+     * Tests that projected observations can be streamed sequentially and in parallel.
+     */
+    @Test
+    public void testObservations() throws IOException {
+        Path targetFile = Files.createTempFile("imported-", ".sas7bdat");
+        try {
+            for (int totalObservations : new int[] { 0, 1, 50000 }) {
+                try (Sas7bdatExporter exporter = new Sas7bdatExporter(targetFile, METADATA, totalObservations)) {
+                    for (int i = 0; i < totalObservations; i++) {
+                        exporter.writeObservation(newObservation(i));
+                    }
+                }
+
+                List<List<Object>> expectedObservations = new ArrayList<>(totalObservations);
+                List<List<Object>> expectedProjections = new ArrayList<>(totalObservations);
+                for (int i = 0; i < totalObservations; i++) {
+                    List<Object> expectedValues = expectedValues(newObservation(i));
+                    expectedObservations.add(expectedValues);
+                    expectedProjections.add(List.of(expectedValues.get(3), expectedValues.get(0), expectedValues.get(3)));
+                }
+
+                try (Sas7bdatImporter importer = new Sas7bdatImporter(targetFile)) {
+                    assertEquals(expectedObservations, importer.observations().toList());
+                    assertEquals(expectedObservations, importer.observations().parallel().toList());
+
+                    List<String> projection = List.of("DATE", "TEXT", "DATE");
+                    assertEquals(expectedProjections, importer.observations(projection).toList());
+                    assertEquals(expectedProjections, importer.observations(projection).parallel().toList());
+
+                    assertEquals(totalObservations, importer.observations(List.of()).parallel().count());
+                }
+            }
+        } finally {
+            Files.deleteIfExists(targetFile);
+        }
+    }
+
+    /**
+     * Tests that observations can be read by their index, from the mixed page and from the data pages.
+     */
+    @Test
+    public void testRandomAccess() throws IOException {
+        Path targetFile = Files.createTempFile("imported-", ".sas7bdat");
+        try {
+            final int totalObservations = 50000;
+            try (Sas7bdatExporter exporter = new Sas7bdatExporter(targetFile, METADATA, totalObservations)) {
+                for (int i = 0; i < totalObservations; i++) {
+                    exporter.writeObservation(newObservation(i));
+                }
+            }
+
+            try (Sas7bdatImporter importer = new Sas7bdatImporter(targetFile)) {
+                // Every observation, in reverse order
+                for (int i = totalObservations - 1; 0 <= i; i--) {
+                    assertEquals(expectedValues(newObservation(i)), importer.observation(i),
+                        "wrong observation " + i);
+                }
+
+                // Ranges that start and end anywhere
+                for (long[] range : new long[][] { { 0, 0 }, { 0, 100 }, { 7, 3000 }, { 12345, 23456 },
+                    { totalObservations - 1, totalObservations }, { totalObservations, totalObservations } }) {
+                    ObservationCursor cursor = importer.cursor(range[0], range[1]);
+                    for (long i = range[0]; i < range[1]; i++) {
+                        assertTrue(cursor.next());
+                        assertEquals(expectedValues(newObservation((int) i)).get(0), cursor.getValue(0));
+                    }
+                    assertFalse(cursor.next(), "cursor didn't stop at " + range[1]);
+                }
+
+                assertThrows(IndexOutOfBoundsException.class, () -> importer.observation(-1));
+                assertThrows(IndexOutOfBoundsException.class, () -> importer.observation(totalObservations));
+                assertThrows(IndexOutOfBoundsException.class, () -> importer.cursor(-1, 0));
+                assertThrows(IndexOutOfBoundsException.class, () -> importer.cursor(0, totalObservations + 1));
+                assertThrows(IndexOutOfBoundsException.class, () -> importer.cursor(2, 1));
+            }
+
+            Sas7bdatImporter closedImporter = new Sas7bdatImporter(targetFile);
+            closedImporter.close();
+            Exception exception = assertThrows(IllegalStateException.class, () -> closedImporter.observation(0));
+            assertEquals("Cannot invoke observation on closed importer", exception.getMessage());
+            exception = assertThrows(IllegalStateException.class, () -> closedImporter.cursor(0, 1));
+            assertEquals("Cannot invoke cursor on closed importer", exception.getMessage());
+        } finally {
+            Files.deleteIfExists(targetFile);
+        }
+    }
+
+    @Test
+    public void testObservationsMisuse() throws IOException {
+        Path targetFile = Files.createTempFile("imported-", ".sas7bdat");
+        try {
+            try (Sas7bdatExporter exporter = new Sas7bdatExporter(targetFile, METADATA, 1)) {
+                exporter.writeObservation(newObservation(1));
+            }
+
+            Sas7bdatImporter importer = new Sas7bdatImporter(targetFile);
+
+            Exception exception = assertThrows(NullPointerException.class, () -> importer.observations(null));
+            assertEquals("variableNames must not be null", exception.getMessage());
+
+            exception = assertThrows(NullPointerException.class,
+                () -> importer.observations(Arrays.asList("TEXT", null)));
+            assertEquals("variableName must not be null", exception.getMessage());
+
+            exception = assertThrows(IllegalArgumentException.class,
+                () -> importer.observations(List.of("TEXT", "text")));
+            assertEquals("there is no variable named \"text\"", exception.getMessage());
+
+            importer.close();
+            exception = assertThrows(IllegalStateException.class, importer::observations);
+            assertEquals("Cannot invoke observations on closed importer", exception.getMessage());
+        } finally {
+            Files.deleteIfExists(targetFile);
+        }
+    }
+
+    @Test
+    public void testImportUnsupportedFiles() throws IOException {
+        Exception exception = assertThrows(NullPointerException.class, () -> new Sas7bdatImporter(null));
+        assertEquals("sourceLocation must not be null", exception.getMessage());
+
+        Path targetFile = Files.createTempFile("imported-", ".sas7bdat");
+        try {
+            // Not a SAS7BDAT
+            Files.write(targetFile, new byte[1024]);
+            exception = assertThrows(IOException.class, () -> new Sas7bdatImporter(targetFile));
+            assertEquals("not a SAS7BDAT file", exception.getMessage());
+
+            // A compressed SAS7BDAT
+            Sas7bdatExportOptions options = Sas7bdatExportOptions.builder().compression(Compression.CHAR).build();
+            try (Sas7bdatExporter exporter = new Sas7bdatExporter(targetFile, METADATA, options)) {
+                exporter.writeObservation(newObservation(1));
+            }
+            exception = assertThrows(IOException.class, () -> new Sas7bdatImporter(targetFile));
+            assertEquals("compressed SAS7BDAT files are not supported", exception.getMessage());
+
+            // A truncated SAS7BDAT
+            try (Sas7bdatExporter exporter = new Sas7bdatExporter(targetFile, METADATA, 1)) {
+                exporter.writeObservation(newObservation(1));
+            }
+            byte[] dataset = Files.readAllBytes(targetFile);
+            Files.write(targetFile, Arrays.copyOf(dataset, dataset.length - 1));
+            exception = assertThrows(IOException.class, () -> new Sas7bdatImporter(targetFile));
+            assertEquals("the SAS7BDAT is truncated or malformed", exception.getMessage());
+        } finally {
+            Files.deleteIfExists(targetFile);
+        }
+    }
+}
@@ -583,4 +583,25 @@ public class Sas7bdatMetadataTest {
         metadata = metadataBuilder.datasetLabel("new label").datasetName("new name").datasetType("new type").build();
         assertSas7bdatMetadata(metadata, newCreationTime, "new name", "new type", "new label", List.of(variable2));
     }
-}
\ No newline at end of file
+
+    @Test
+    void variableIndex() {
+        Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().
+            variables(List.of(
+                Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(9).build(),
+                Variable.builder().name("NUMBER").type(VariableType.NUMERIC).length(8).build(),
+                Variable.builder().name("number").type(VariableType.NUMERIC).length(8).build())).
+            build();
+
+        assertEquals(0, metadata.variableIndex("TEXT"));
+        assertEquals(1, metadata.variableIndex("NUMBER"));
+        assertEquals(2, metadata.variableIndex("number"));
+
+        // variable names are case-sensitive
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> metadata.variableIndex("Text"));
+        assertEquals("there is no variable named \"Text\"", exception.getMessage());
+
+        exception = assertThrows(NullPointerException.class, () -> metadata.variableIndex(null));
+        assertEquals("variableName must not be null", exception.getMessage());
+    }
+}
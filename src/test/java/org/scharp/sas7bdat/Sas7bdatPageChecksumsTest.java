@@ -0,0 +1,147 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Unit tests for {@link Sas7bdatPageChecksums}. */
+public class Sas7bdatPageChecksumsTest {
+
+    private static final Sas7bdatMetadata METADATA = SimpleDataset.metadata("CHECKSUMS", 30);
+
+    private static void writeObservations(Sas7bdatExporter exporter, int totalObservations) throws IOException {
+        try (exporter) {
+            for (int i = 0; i < totalObservations; i++) {
+                exporter.writeObservation(SimpleDataset.observation(i));
+            }
+        }
+    }
+
+    private static int crc32c(byte[] data, int offset, int length) {
+        CRC32C crc32c = new CRC32C();
+        crc32c.update(data, offset, length);
+        return (int) crc32c.getValue();
+    }
+
+    private static void assertChecksumsMatch(byte[] sas7bdat, Sas7bdatPageChecksums checksums, String description) {
+        assertEquals(sas7bdat.length, checksums.fileSize(), description);
+        assertEquals(crc32c(sas7bdat, 0, sas7bdat.length), checksums.fileChecksum(), description);
+
+        final int pageSize = checksums.pageSize();
+        assertEquals(sas7bdat.length / pageSize, checksums.totalPages(), description);
+        for (int i = 0; i < checksums.totalPages(); i++) {
+            assertEquals((long) i * pageSize, checksums.offsetOfPage(i), description);
+            assertEquals(crc32c(sas7bdat, i * pageSize, pageSize), checksums.checksum(i),
+                description + ": wrong checksum for page " + i);
+        }
+    }
+
+    /**
+     * Tests that the checksums match the SAS7BDAT, no matter how its pages were written.
+     */
+    @Test
+    public void testPageChecksums() throws IOException {
+        for (int totalObservations : new int[] { 0, 1, 10000 }) {
+            // To a stream
+            for (int parallelism : new int[] { 1, 3 }) {
+                Sas7bdatExportOptions options = Sas7bdatExportOptions.builder().
+                    pageChecksums(true).
+                    parallelism(parallelism).
+                    build();
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                Sas7bdatExporter exporter = new Sas7bdatExporter(outputStream, METADATA, totalObservations, options);
+                writeObservations(exporter, totalObservations);
+                assertChecksumsMatch(outputStream.toByteArray(), exporter.pageChecksums(),
+                    totalObservations + " observations with parallelism " + parallelism);
+            }
+
+            // To files, including with an unknown number of observations, which patches the first pages
+            List<Sas7bdatExportOptions> optionsList = List.of(
+                Sas7bdatExportOptions.builder().pageChecksums(true).build(),
+                Sas7bdatExportOptions.builder().pageChecksums(true).memoryMapped(true).build(),
+                Sas7bdatExportOptions.builder().pageChecksums(true).compression(Compression.CHAR).build());
+            for (Sas7bdatExportOptions options : optionsList) {
+                Path targetFile = Files.createTempFile("checksums-", ".sas7bdat");
+                try {
+                    Sas7bdatExporter exporter = new Sas7bdatExporter(targetFile, METADATA, options);
+                    writeObservations(exporter, totalObservations);
+                    assertChecksumsMatch(Files.readAllBytes(targetFile), exporter.pageChecksums(),
+                        totalObservations + " observations with unknown total, compression=" + options.compression());
+
+                    if (options.compression() == Compression.NONE) {
+                        exporter = new Sas7bdatExporter(targetFile, METADATA, totalObservations, options);
+                        writeObservations(exporter, totalObservations);
+                        assertChecksumsMatch(Files.readAllBytes(targetFile), exporter.pageChecksums(),
+                            totalObservations + " observations, memoryMapped=" + options.memoryMapped());
+                    }
+                } finally {
+                    Files.deleteIfExists(targetFile);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWriteManifest() throws IOException {
+        Path manifestFile = Files.createTempFile("checksums-", ".txt");
+        try {
+            Sas7bdatExportOptions options = Sas7bdatExportOptions.builder().pageChecksums(true).build();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            Sas7bdatExporter exporter = new Sas7bdatExporter(outputStream, METADATA, 5000, options);
+            writeObservations(exporter, 5000);
+
+            Sas7bdatPageChecksums checksums = exporter.pageChecksums();
+            checksums.writeManifest(manifestFile);
+
+            StringBuilder expectedManifest = new StringBuilder();
+            expectedManifest.append(String.format(
+                "# algorithm=CRC32C page-size=%d pages=%d file-size=%d file-checksum=%08x%n",
+                checksums.pageSize(), checksums.totalPages(), checksums.fileSize(), checksums.fileChecksum()));
+            for (int i = 0; i < checksums.totalPages(); i++) {
+                expectedManifest.append(String.format("%d %d %08x%n", i, checksums.offsetOfPage(i),
+                    checksums.checksum(i)));
+            }
+            assertEquals(expectedManifest.toString().replace(System.lineSeparator(), "\n"),
+                Files.readString(manifestFile, StandardCharsets.US_ASCII));
+
+            Exception exception = assertThrows(NullPointerException.class, () -> checksums.writeManifest(null));
+            assertEquals("manifestLocation must not be null", exception.getMessage());
+        } finally {
+            Files.deleteIfExists(manifestFile);
+        }
+    }
+
+    @Test
+    public void testPageChecksumsMisuse() throws IOException {
+        // Checksums that weren't computed
+        Sas7bdatExporter exporter = new Sas7bdatExporter(new ByteArrayOutputStream(), METADATA, 0);
+        exporter.close();
+        Exception exception = assertThrows(IllegalStateException.class, exporter::pageChecksums);
+        assertEquals("page checksums were not computed", exception.getMessage());
+
+        // Checksums of an exporter that isn't closed
+        Sas7bdatExportOptions options = Sas7bdatExportOptions.builder().pageChecksums(true).build();
+        Sas7bdatExporter openExporter = new Sas7bdatExporter(new ByteArrayOutputStream(), METADATA, 0, options);
+        exception = assertThrows(IllegalStateException.class, openExporter::pageChecksums);
+        assertEquals("Cannot invoke pageChecksums before the exporter is closed", exception.getMessage());
+        openExporter.close();
+
+        Sas7bdatPageChecksums checksums = openExporter.pageChecksums();
+        assertThrows(IndexOutOfBoundsException.class, () -> checksums.checksum(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> checksums.checksum(checksums.totalPages()));
+        assertThrows(IndexOutOfBoundsException.class, () -> checksums.offsetOfPage(checksums.totalPages()));
+    }
+}
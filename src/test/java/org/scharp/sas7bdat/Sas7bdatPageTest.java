@@ -96,16 +96,14 @@ public class Sas7bdatPageTest {
 
         // Try to add an observation that can't fit.
         // This shouldn't change the page type into a mixed page.
-        byte[] observation = new byte[variablesLayout.rowLength()];
-        Arrays.fill(observation, (byte) 0xFF);
-        assertFalse(page.addObservation(observation));
+        byte[] actualData = new byte[pageSize];
+        assertFalse(page.addObservation(actualData, List.of("observation")));
         assertEquals(
             page.totalBytesRemainingForNewSubheader() + 2 * 24,
-            observation.length,
+            variablesLayout.rowLength(),
             "TEST BUG: didn't calculate the observation length to be one byte too large");
 
         // Write the page.
-        byte[] actualData = new byte[pageSize];
         page.write(actualData);
 
         // Confirm that the expected data was written.
@@ -166,16 +164,14 @@ public class Sas7bdatPageTest {
         assertEquals(pageSize - 40 - 24 * 2 - subheader.size(), page.totalBytesRemaining());
 
         // Add some observations
-        byte[] observation1 = new byte[] { 'a', 'b', 'c', 'd' };
-        assertTrue(page.addObservation(observation1));
+        byte[] actualData = new byte[pageSize];
+        assertTrue(page.addObservation(actualData, List.of("abcd")));
         assertEquals(pageSize - 40 - 24 * 2 - subheader.size() - 4, page.totalBytesRemaining());
 
-        byte[] observation2 = new byte[] { '1', '2', '3', '4' };
-        assertTrue(page.addObservation(observation2));
+        assertTrue(page.addObservation(actualData, List.of("1234")));
         assertEquals(pageSize - 40 - 24 * 2 - subheader.size() - 8, page.totalBytesRemaining());
 
         // Write the page.
-        byte[] actualData = new byte[pageSize];
         page.write(actualData);
 
         // Confirm that the expected data was written.
@@ -231,12 +227,11 @@ public class Sas7bdatPageTest {
         assertEquals(pageSize - 40, page.totalBytesRemaining());
 
         // Add an observation
-        byte[] observation1 = new byte[] { 'o', 'b', 's', 'e', 'r', 'v', 'a', 't', 'i', 'o', 'n' };
-        assertTrue(page.addObservation(observation1));
-        assertEquals(pageSize - 40 - observation1.length, page.totalBytesRemaining());
+        byte[] actualData = new byte[pageSize];
+        assertTrue(page.addObservation(actualData, List.of("observation")));
+        assertEquals(pageSize - 40 - 11, page.totalBytesRemaining());
 
         // Write the page.
-        byte[] actualData = new byte[pageSize];
         page.write(actualData);
 
         // Confirm that the expected data was written.
@@ -258,6 +253,47 @@ public class Sas7bdatPageTest {
         assertEquals(pageSize, page.pageSize());
     }
 
+    /**
+     * Tests that an observation which can't be serialized is not added to the page and that the next observation is
+     * written over whatever was partially serialized.
+     */
+    @Test
+    void testAddMalformedObservation() {
+        // Create a sas7bdat page
+        PageSequenceGenerator pageSequenceGenerator = new PageSequenceGenerator();
+        Sas7bdatVariablesLayout variablesLayout = new Sas7bdatVariablesLayout(List.of(
+            Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(5).build(),
+            Variable.builder().name("NUMBER").type(VariableType.NUMERIC).length(8).build()));
+        final int pageSize = 0x10000;
+        Sas7bdatPage page = new Sas7bdatPage(pageSequenceGenerator, pageSize, variablesLayout);
+        page.finalizeSubheaders();
+
+        // Add an observation whose numeric value is given as a String.
+        byte[] actualData = new byte[pageSize];
+        assertThrows(IllegalArgumentException.class, () -> page.addObservation(actualData, List.of("text", "1")));
+        assertEquals(pageSize - 40, page.totalBytesRemaining());
+
+        // Add a legal observation.
+        assertTrue(page.addObservation(actualData, List.of("ABC", 1)));
+        assertEquals(pageSize - 40 - 16, page.totalBytesRemaining());
+
+        // Write the page.
+        page.write(actualData);
+
+        // Confirm that the expected data was written.
+        byte[] expectedData = new byte[pageSize];
+        WriteUtil.write4(expectedData, 0, 0xF4_A4_FF_F7); // page sequence number
+        WriteUtil.write4(expectedData, 24, (pageSize - 40 - 16 - 1)); // total bytes free
+        WriteUtil.write2(expectedData, 32, (short) 0x100); // type=DATA
+        WriteUtil.write2(expectedData, 34, (short) 1); // total blocks (0 subheaders + 1 observation)
+        WriteUtil.write2(expectedData, 36, (short) 0); // total subheaders
+
+        WriteUtil.write8(expectedData, 40, Double.doubleToRawLongBits(1)); // observation #1 (NUMBER)
+        WriteUtil.writeUtf8(expectedData, 48, "ABC", 5, (byte) ' '); // observation #1 (TEXT)
+
+        assertArrayEquals(expectedData, actualData, "Sas7bdatPage.write() wrote incorrect data");
+    }
+
     /**
      * Tests that a mixed page can be created without any observations.  SAS does this.
      */
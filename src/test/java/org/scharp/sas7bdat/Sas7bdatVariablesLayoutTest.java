@@ -85,14 +85,14 @@ public class Sas7bdatVariablesLayoutTest {
             Variable.builder().
                 name("num1").
                 type(VariableType.NUMERIC).
-                length(8). // length is always 8
+                length(8).
                 label("a number").
                 build(),
 
             Variable.builder().
                 name("number2").
                 type(VariableType.NUMERIC).
-                length(8). // length is always 8
+                length(8).
                 label("another number").
                 outputFormat(new Format("", 5, 2)).
                 build(),
@@ -100,7 +100,7 @@ public class Sas7bdatVariablesLayoutTest {
             Variable.builder().
                 name("Number3").
                 type(VariableType.NUMERIC).
-                length(8). // length is always 8
+                length(8).
                 label("a third number").
                 outputFormat(new Format("", 5)).
                 build(),
@@ -108,7 +108,7 @@ public class Sas7bdatVariablesLayoutTest {
             Variable.builder().
                 name("Number 4").
                 type(VariableType.NUMERIC).
-                length(8). // length is always 8
+                length(8).
                 label("the last number").
                 outputFormat(new Format("", 5)).
                 build());
@@ -466,6 +466,61 @@ public class Sas7bdatVariablesLayoutTest {
             actualData);
     }
 
+    @Test
+    void testShortNumericVariables() {
+        List<Variable> variableList = List.of(
+            Variable.builder().name("CHAR_5").type(VariableType.CHARACTER).length(5).build(),
+            Variable.builder().name("NUMERIC_3").type(VariableType.NUMERIC).length(3).build(),
+            Variable.builder().name("NUMERIC_8").type(VariableType.NUMERIC).length(8).build(),
+            Variable.builder().name("NUMERIC_4").type(VariableType.NUMERIC).length(4).build(),
+            Variable.builder().name("CHAR_2").type(VariableType.CHARACTER).length(2).build());
+
+        Sas7bdatVariablesLayout variablesLayout = new Sas7bdatVariablesLayout(variableList);
+        assertEquals(variableList, variablesLayout.variables());
+        assertEquals(5, variablesLayout.totalVariables());
+        assertEquals(8 + 4 + 3 + 5 + 2 + 2, variablesLayout.rowLength()); // +2 rounds up to the nearest 8-byte boundary
+        assertEquals(List.of(15, 12, 0, 8, 20), variablesLayout.physicalOffsets()); // numerics first, longest first
+
+        // Only the most significant bytes of the shorter numeric values are written.
+        byte[] expectedData = new byte[] {
+            0, 0, 0, 0, 0, 0, 4, 64, // NUMERIC_8 (2.5)
+            0, 64, -113, 64, // NUMERIC_4 (1000)
+            -103, -15, 63, // NUMERIC_3 (1.1, truncated)
+            'h', 'e', 'l', 'l', 'o', // CHAR_5
+            'x', 'y', // CHAR_2
+            0, 0, // padding
+        };
+        byte[] actualData = new byte[24];
+        variablesLayout.writeObservation(actualData, 0, List.of("hello", 1.1, 2.5, 1000, "xy"));
+        assertArrayEquals(expectedData, actualData);
+
+        // The same observation, written as a batch.
+        Sas7bdatMetadata metadata = Sas7bdatMetadata.builder().variables(variableList).build();
+        ObservationBatch batch = new ObservationBatch(metadata, 1).
+            setCharacterValues(0, new String[] { "hello" }).
+            setNumericValues(1, new double[] { 1.1 }).
+            setNumericValues(2, new double[] { 2.5 }).
+            setNumericValues(3, new double[] { 1000 }).
+            setCharacterValues(4, new String[] { "xy" });
+        Arrays.fill(actualData, (byte) -1);
+        variablesLayout.writeObservations(actualData, 0, batch, 0, 1);
+        assertArrayEquals(expectedData, actualData);
+
+        // Missing values are also truncated.
+        actualData = new byte[24];
+        variablesLayout.writeEmptyObservation(actualData, 0);
+        assertArrayEquals(
+            new byte[] {
+                0, 0, 0, 0, 0, -2, -1, -1, // NUMERIC_8 (.)
+                0, -2, -1, -1, // NUMERIC_4 (.)
+                -2, -1, -1, // NUMERIC_3 (.)
+                ' ', ' ', ' ', ' ', ' ', // CHAR_5
+                ' ', ' ', // CHAR_2
+                0, 0, // padding
+            },
+            actualData);
+    }
+
     /** Tests that the variables argument to {@code Sas7bdatVariablesLayout}'s constructor is copied. */
     @Test
     void testVariablesIsCopied() {
@@ -730,4 +785,50 @@ public class Sas7bdatVariablesLayoutTest {
             },
             actualData);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCheckObservation() {
+        // Create a variables layout with two variables.
+        Sas7bdatVariablesLayout variablesLayout = new Sas7bdatVariablesLayout(List.of(
+            Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(9).build(),
+            Variable.builder().name("NUMBER").type(VariableType.NUMERIC).length(8).build()));
+
+        // Well-formed observations are accepted.
+        variablesLayout.checkObservation(List.of("X".repeat(9), 1));
+        variablesLayout.checkObservation(List.of("\u00e9".repeat(4), LocalDate.EPOCH)); // 8 bytes in UTF-8
+        variablesLayout.checkObservation(Arrays.asList("", null));
+
+        // Wrong number of values
+        Exception exception = assertThrows(
+            IllegalArgumentException.class,
+            () -> variablesLayout.checkObservation(List.of("bad list")));
+        assertEquals("observation has too few values, expected 2 but got 1", exception.getMessage());
+
+        // A null value for the CHARACTER variable
+        exception = assertThrows(
+            NullPointerException.class,
+            () -> variablesLayout.checkObservation(Arrays.asList(null, 100)));
+        assertEquals("null given as a value to TEXT, which has a CHARACTER type", exception.getMessage());
+
+        // A value for the CHARACTER variable that is too long, but only when encoded in UTF-8.
+        exception = assertThrows(
+            IllegalArgumentException.class,
+            () -> variablesLayout.checkObservation(List.of("\u00e9".repeat(5), 100)));
+        assertEquals("A value of 10 bytes was given to the variable named TEXT, which has a length of 9",
+            exception.getMessage());
+
+        // A value of the wrong type for the NUMERIC variable
+        exception = assertThrows(
+            IllegalArgumentException.class,
+            () -> variablesLayout.checkObservation(List.of("ok", "100")));
+        assertEquals(
+            "A java.lang.String was given as a value to the variable named NUMBER, which has a NUMERIC type " +
+                "(NUMERIC values must be null or of type " +
+                "org.scharp.sas7bdat.MissingValue, " +
+                "java.time.LocalDate, " +
+                "java.time.LocalTime, " +
+                "java.time.LocalDateTime, or " +
+                "java.lang.Number)",
+            exception.getMessage());
+    }
+}
@@ -0,0 +1,65 @@
+///////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2025 Fred Hutch Cancer Center
+// Licensed under the MIT License - see LICENSE file for details
+///////////////////////////////////////////////////////////////////////////////
+package org.scharp.sas7bdat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A dataset with one CHARACTER variable and one NUMERIC variable.  This can be used by tests which need to write
+ * observations to an exporter but which don't depend on what the observations contain.
+ */
+final class SimpleDataset {
+
+    // private constructor to prevent anyone from instantiating the class.
+    private SimpleDataset() {
+    }
+
+    /**
+     * Creates the metadata of a simple dataset.
+     *
+     * @param datasetName
+     *     The name of the dataset.
+     * @param textLength
+     *     The length of the CHARACTER variable.  This must be long enough for the values given by
+     *     {@link #observation(int)}.
+     *
+     * @return The metadata, with a TEXT variable and a NUMBER variable.
+     */
+    static Sas7bdatMetadata metadata(String datasetName, int textLength) {
+        return Sas7bdatMetadata.builder().
+            creationTime(LocalDateTime.of(2025, 3, 14, 15, 9, 26)).
+            datasetName(datasetName).
+            variables(List.of(
+                Variable.builder().name("TEXT").type(VariableType.CHARACTER).length(textLength).build(),
+                Variable.builder().name("NUMBER").type(VariableType.NUMERIC).length(8).build())).
+            build();
+    }
+
+    /**
+     * Creates the metadata of a simple dataset whose CHARACTER variable is 16 bytes long.
+     *
+     * @param datasetName
+     *     The name of the dataset.
+     *
+     * @return The metadata, with a TEXT variable and a NUMBER variable.
+     */
+    static Sas7bdatMetadata metadata(String datasetName) {
+        return metadata(datasetName, 16);
+    }
+
+    /**
+     * Creates an observation of a simple dataset.  Each observation is different, so that an observation which is
+     * written out of order or written twice can be detected.
+     *
+     * @param observationIndex
+     *     The (0-based) index of the observation in the dataset.
+     *
+     * @return The observation.
+     */
+    static List<Object> observation(int observationIndex) {
+        return List.of("Value #" + observationIndex, observationIndex);
+    }
+}
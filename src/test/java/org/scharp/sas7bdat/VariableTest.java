@@ -238,12 +238,26 @@ public class VariableTest {
     }
 
     @Test
-    void buildNumericWithLengthNot8() {
-        Builder builder = Variable.builder().name("NAME").length(7).type(VariableType.NUMERIC);
+    void buildNumericWithShortLength() {
+        // All lengths between 3 and 8 are legal for numeric variables.
+        for (int length = 3; length <= 8; length++) {
+            Variable variable = Variable.builder().name("NAME").length(length).type(VariableType.NUMERIC).build();
+            assertVariable(variable, "NAME", VariableType.NUMERIC, length, "", Format.UNSPECIFIED, Format.UNSPECIFIED);
+        }
+    }
 
-        // Building a numeric variable with a length that's not 8 is illegal.
+    @Test
+    void buildNumericWithIllegalLength() {
+        Builder builder = Variable.builder().name("NAME").length(2).type(VariableType.NUMERIC);
+
+        // Building a numeric variable with a length that's less than 3 is illegal.
         Exception exception = assertThrows(IllegalStateException.class, builder::build);
-        assertEquals("numeric variables must have a length of 8", exception.getMessage());
+        assertEquals("numeric variables must have a length between 3 and 8", exception.getMessage());
+
+        // Building a numeric variable with a length that's greater than 8 is illegal.
+        builder.length(9);
+        exception = assertThrows(IllegalStateException.class, builder::build);
+        assertEquals("numeric variables must have a length between 3 and 8", exception.getMessage());
 
         // The exception shouldn't corrupt the state of the builder.
         // I don't expect that anyone would do this, but it should be legal to fix the error and continue building.
@@ -6,6 +6,9 @@ package org.scharp.sas7bdat;
 
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -158,6 +161,34 @@ public class WriteUtilTest {
         assertThrows(NullPointerException.class, () -> WriteUtil.write8(null, 0, -1L));
     }
 
+    /** Tests for {@link WriteUtil#writeMostSignificantBytes} */
+    @Test
+    void testWriteMostSignificantBytes() {
+        final byte[] data = new byte[9];
+
+        // All eight bytes, which is the same as write8.
+        WriteUtil.writeMostSignificantBytes(data, 0, 0x0102030405060708L, 8);
+        assertArrayEquals(new byte[] { 8, 7, 6, 5, 4, 3, 2, 1, 0 }, data);
+
+        // Only the three most significant bytes, at an odd offset.
+        WriteUtil.writeMostSignificantBytes(data, 5, 0x1112131415161718L, 3);
+        assertArrayEquals(new byte[] { 8, 7, 6, 5, 4, 0x13, 0x12, 0x11, 0 }, data);
+
+        // A single byte.
+        WriteUtil.writeMostSignificantBytes(data, 8, 0xFFEEDDCCBBAA9988L, 1);
+        assertArrayEquals(new byte[] { 8, 7, 6, 5, 4, 0x13, 0x12, 0x11, (byte) 0xFF }, data);
+
+        // offset is beyond end
+        Exception exception = assertThrows(
+            ArrayIndexOutOfBoundsException.class,
+            () -> WriteUtil.writeMostSignificantBytes(data, 6, 0x2122232425262728L, 4));
+        assertEquals("Index 9 out of bounds for length 9", exception.getMessage());
+        assertArrayEquals(new byte[] { 8, 7, 6, 5, 4, 0x13, 0x12, 0x11, (byte) 0xFF }, data, "data changed on error");
+
+        // null array
+        assertThrows(NullPointerException.class, () -> WriteUtil.writeMostSignificantBytes(null, 0, 0, 4));
+    }
+
     /** Tests for {@link WriteUtil#writeUtf8} */
     @Test
     void testWriteUtf8() {
@@ -187,14 +218,15 @@ public class WriteUtilTest {
         assertArrayEquals(lastData, data);
 
         // negative offset
-        Exception exception = assertThrows(
-            ArrayIndexOutOfBoundsException.class,
-            () -> WriteUtil.writeUtf8(data, -1, "bad", 3, (byte) 5));
-        assertEquals("arraycopy: destination index -1 out of bounds for byte[15]", exception.getMessage());
+        assertThrows(IndexOutOfBoundsException.class, () -> WriteUtil.writeUtf8(data, -1, "bad", 3, (byte) 5));
+        assertArrayEquals(lastData, data, "data was modified on error");
+
+        // padding extends beyond end
+        assertThrows(IndexOutOfBoundsException.class, () -> WriteUtil.writeUtf8(data, 12, "bad", 4, (byte) 5));
         assertArrayEquals(lastData, data, "data was modified on error");
 
         // offset is beyond end
-        exception = assertThrows(
+        Exception exception = assertThrows(
             ArrayIndexOutOfBoundsException.class,
             () -> WriteUtil.write8(data, 10, 0x010101010101010L));
         assertEquals("Index 17 out of bounds for length 15", exception.getMessage());
@@ -215,6 +247,59 @@ public class WriteUtilTest {
         assertArrayEquals(lastData, data, "data was modified on error");
     }
 
+    /** Tests for {@link WriteUtil#utf8Length} */
+    @Test
+    void testUtf8Length() {
+        for (String string : new String[] { "", "ASCII", "\u00A1Ol\u00E9!", "\u20AC", "\uD83D\uDE01\u03C3",
+            "\uD83D", "\uDE01", "a\uDE01\uD83Db", "\uD83D\uD83D\uDE01" }) {
+            assertEquals(string.getBytes(StandardCharsets.UTF_8).length, WriteUtil.utf8Length(string), string);
+        }
+
+        // A CharSequence that isn't a String.
+        assertEquals(7, WriteUtil.utf8Length(new StringBuilder("\u03C3 \u20AC!")));
+
+        // null string
+        assertThrows(NullPointerException.class, () -> WriteUtil.utf8Length(null));
+    }
+
+    /** Tests for {@link WriteUtil#encodeUtf8} */
+    @Test
+    void testEncodeUtf8() {
+        for (String string : new String[] { "", "ASCII", "\u00A1Ol\u00E9!", "\u20AC", "\uD83D\uDE01\u03C3",
+            "\uD83D", "\uDE01", "a\uDE01\uD83Db", "\uD83D\uD83D\uDE01" }) {
+            final byte[] expectedBytes = string.getBytes(StandardCharsets.UTF_8);
+
+            // Encode into an array that has exactly enough space.
+            byte[] data = new byte[expectedBytes.length + 2];
+            Arrays.fill(data, (byte) 0x55);
+            assertEquals(expectedBytes.length, WriteUtil.encodeUtf8(data, 1, string, expectedBytes.length), string);
+            assertArrayEquals(expectedBytes, Arrays.copyOfRange(data, 1, 1 + expectedBytes.length), string);
+            assertEquals(0x55, data[0], string);
+            assertEquals(0x55, data[data.length - 1], string);
+
+            // Encode into an array that doesn't have enough space.
+            if (0 < expectedBytes.length) {
+                Arrays.fill(data, (byte) 0x55);
+                assertEquals(-1, WriteUtil.encodeUtf8(data, 1, string, expectedBytes.length - 1), string);
+                assertEquals(0x55, data[0], string);
+                assertEquals(0x55, data[data.length - 2], "wrote past maxLength for " + string);
+                assertEquals(0x55, data[data.length - 1], string);
+            }
+        }
+
+        // The string is checked as it's encoded, so an overflow in the middle of a multibyte character is detected.
+        final byte[] data = new byte[] { 9, 9, 9, 9, 9 };
+        assertEquals(-1, WriteUtil.encodeUtf8(data, 0, "ab\u20AC", 4));
+        assertArrayEquals(new byte[] { 'a', 'b', 9, 9, 9 }, data);
+
+        // A CharSequence that isn't a String.
+        assertEquals(4, WriteUtil.encodeUtf8(data, 1, new StringBuilder("x\u20AC"), 4));
+        assertArrayEquals(new byte[] { 'a', 'x', (byte) 0xE2, (byte) 0x82, (byte) 0xAC }, data);
+
+        // null string
+        assertThrows(NullPointerException.class, () -> WriteUtil.encodeUtf8(data, 0, null, 5));
+    }
+
     /** Tests for {@link WriteUtil#writeAscii} */
     @Test
     void testWriteAscii() {
@@ -230,24 +315,15 @@ public class WriteUtilTest {
         assertArrayEquals(lastData, data);
 
         // negative offset
-        Exception exception = assertThrows(
-            ArrayIndexOutOfBoundsException.class,
-            () -> WriteUtil.writeAscii(data, -1, "bad", 3));
-        assertEquals("arraycopy: destination index -1 out of bounds for byte[12]", exception.getMessage());
+        assertThrows(IndexOutOfBoundsException.class, () -> WriteUtil.writeAscii(data, -1, "bad", 3));
         assertArrayEquals(lastData, data, "data was modified on error");
 
         // offset is beyond end
-        exception = assertThrows(
-            ArrayIndexOutOfBoundsException.class,
-            () -> WriteUtil.writeAscii(data, 100, "bad", 3));
-        assertEquals("arraycopy: last destination index 103 out of bounds for byte[12]", exception.getMessage());
+        assertThrows(IndexOutOfBoundsException.class, () -> WriteUtil.writeAscii(data, 100, "bad", 3));
         assertArrayEquals(lastData, data, "data was modified on error");
 
         // offset one byte beyond end
-        exception = assertThrows(
-            ArrayIndexOutOfBoundsException.class,
-            () -> WriteUtil.writeAscii(data, 10, "bad", 3));
-        assertEquals("arraycopy: last destination index 13 out of bounds for byte[12]", exception.getMessage());
+        assertThrows(IndexOutOfBoundsException.class, () -> WriteUtil.writeAscii(data, 10, "bad", 3));
         assertArrayEquals(lastData, data, "data was modified on error");
 
         // null array